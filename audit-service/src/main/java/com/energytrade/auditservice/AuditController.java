@@ -1,5 +1,12 @@
 package com.energytrade.auditservice;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.*;
@@ -21,4 +28,26 @@ public class AuditController {
     	logger.info("🔍 Audit event received: {}", event);
         return repository.save(event);
     }
+
+    // Used by order-service to relay its audit outbox in batches. A batch is sent again until acknowledged,
+    // so events already recorded under the same source, outbox id and timestamp are skipped
+    @PostMapping("/batch")
+    public int registerBatch(@RequestBody List<AuditEvent> events) {
+        List<Long> outboxIds = events.stream().map(AuditEvent::getOutboxId).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Set<List<Object>> recorded = new HashSet<>();
+        if (!outboxIds.isEmpty()) {
+            repository.findByOutboxIdIn(outboxIds).forEach(event -> recorded.add(key(event)));
+        }
+        List<AuditEvent> fresh = events.stream().filter(event -> event.getOutboxId() == null || recorded.add(key(event)))
+                .collect(Collectors.toList());
+        repository.saveAll(fresh);
+        logger.info("🔍 Audit batch received: {} events, {} already recorded", events.size(),
+                events.size() - fresh.size());
+        return events.size();
+    }
+
+    private static List<Object> key(AuditEvent event) {
+        return Arrays.asList(event.getSource(), event.getOutboxId(), event.getTimestamp());
+    }
 }
@@ -6,23 +6,31 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "audit_event") 
+// An outbox event is recorded once, however many times its batch is relayed
+@Table(name = "audit_event", uniqueConstraints = @UniqueConstraint(columnNames = { "source", "outboxId", "timestamp" }))
 @Data
 @NoArgsConstructor
 public class AuditEvent {
 
+    // Pooled sequence ids (see spring.jpa.properties.hibernate.jdbc.batch_size) so saveAll is sent in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_event_seq")
+    @SequenceGenerator(name = "audit_event_seq", sequenceName = "audit_event_seq", allocationSize = 100)
     private Long id;
 
     private String source;
     private String type;
     private String payload;
+    // Id of the row in the sender's outbox; null for events posted one by one
+    private Long outboxId;
+    // When it happened: sent with outbox events, otherwise when it was received
     private LocalDateTime timestamp = LocalDateTime.now();
 }
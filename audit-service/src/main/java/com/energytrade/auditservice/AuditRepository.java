@@ -1,6 +1,11 @@
 package com.energytrade.auditservice;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface AuditRepository extends JpaRepository<AuditEvent, Long> {
+
+    List<AuditEvent> findByOutboxIdIn(Collection<Long> outboxIds);
 }
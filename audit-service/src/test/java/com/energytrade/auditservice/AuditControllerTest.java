@@ -0,0 +1,89 @@
+package com.energytrade.auditservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+@SpringBootTest(classes = AuditServiceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class AuditControllerTest {
+
+    private static final LocalDateTime RECORDED_AT = LocalDateTime.of(2026, 10, 18, 9, 30, 0, 123_456_000);
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private AuditRepository repository;
+
+    @AfterEach
+    public void cleanUp() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void shouldRegisterEvent() {
+        ResponseEntity<AuditEvent> response = restTemplate.postForEntity("/audit",
+                request(event(null, "ORDER_CREATED", RECORDED_AT)), AuditEvent.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getId()).isNotNull();
+        assertThat(repository.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecordARelayedBatchOnceWhenItIsSentAgain() {
+        List<AuditEvent> batch = List.of(event(1L, "ORDER_CREATED", RECORDED_AT),
+                event(2L, "ORDER_MATCHED", RECORDED_AT));
+
+        ResponseEntity<Integer> first = restTemplate.postForEntity("/audit/batch", request(batch), Integer.class);
+        // The acknowledgement got lost: the relay sends the batch again, along with the next event
+        ResponseEntity<Integer> retried = restTemplate.postForEntity("/audit/batch",
+                request(List.of(batch.get(0), batch.get(1), event(3L, "ORDER_CANCELLED", RECORDED_AT))),
+                Integer.class);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retried.getBody()).isEqualTo(3);
+        assertThat(repository.findAll()).extracting(AuditEvent::getOutboxId).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    public void shouldKeepEventsOfAnOutboxWhoseIdsStartedOver() {
+        restTemplate.postForEntity("/audit/batch", request(List.of(event(1L, "ORDER_CREATED", RECORDED_AT))),
+                Integer.class);
+
+        // Same outbox id from an in-memory outbox after a restart, recorded at another time
+        restTemplate.postForEntity("/audit/batch",
+                request(List.of(event(1L, "ORDER_CREATED", RECORDED_AT.plusHours(1)))), Integer.class);
+
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    private static AuditEvent event(Long outboxId, String type, LocalDateTime timestamp) {
+        AuditEvent event = new AuditEvent();
+        event.setSource("order-service");
+        event.setType(type);
+        event.setPayload("{\"orderId\":7}");
+        event.setOutboxId(outboxId);
+        event.setTimestamp(timestamp);
+        return event;
+    }
+
+    private static <T> HttpEntity<T> request(T body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(body, headers);
+    }
+}
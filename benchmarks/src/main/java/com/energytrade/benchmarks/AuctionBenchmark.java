@@ -0,0 +1,120 @@
+package com.energytrade.benchmarks;
+
+import static com.energytrade.benchmarks.Stubs.VOLUME;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.book.OrderBook;
+import com.energytrade.orderservice.book.Uncrossing;
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * Gate open: a flood of {@code orders} orders, bids and asks spread over the
+ * same {@code levels} prices so that most of them cross, matched one at a
+ * time by continuous matching or collected and uncrossed once by the call
+ * auction. Also the clearing price alone, which only depends on the number
+ * of price levels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkMain.LOG_CONFIG)
+public class AuctionBenchmark {
+
+	static final long MID = 10_000; // 100.00
+
+	@State(Scope.Thread)
+	public static class Flood {
+
+		@Param({ "1000", "10000" })
+		int orders;
+
+		@Param({ "100" })
+		int levels;
+
+		final OffsetDateTime now = OffsetDateTime.now();
+		Order[] flood;
+		MatchingEngine continuous;
+		MatchingEngine auction;
+
+		// Fresh books and orders every time: both modes leave them filled
+		@Setup(Level.Invocation)
+		public void setUp() {
+			flood = flood(orders, levels);
+			continuous = Stubs.engine();
+			auction = Stubs.auctionEngine();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class CollectedBook {
+
+		@Param({ "10", "1000" })
+		int ordersPerLevel;
+
+		@Param({ "100", "1000" })
+		int levels;
+
+		final OrderBook book = new OrderBook();
+
+		@Setup
+		public void setUp() {
+			for (Order order : flood(ordersPerLevel * levels, levels)) {
+				book.add(order);
+			}
+		}
+	}
+
+	@Benchmark
+	public MatchingEngine continuousMatching(Flood flood) {
+		for (Order order : flood.flood) {
+			flood.continuous.match(order, flood.now);
+		}
+		return flood.continuous;
+	}
+
+	@Benchmark
+	public Uncrossing callAuction(Flood flood) {
+		for (Order order : flood.flood) {
+			flood.auction.match(order, flood.now);
+		}
+		return flood.auction.uncross(Instrument.DEFAULT, flood.now);
+	}
+
+	@Benchmark
+	public Uncrossing clearingPrice(CollectedBook collected) {
+		return Uncrossing.of(collected.book);
+	}
+
+	// Alternating sides, each at a pseudo-random one of the levels around the mid price
+	static Order[] flood(int count, int levels) {
+		Order[] flood = new Order[count];
+		long random = 42;
+		for (int i = 0; i < count; i++) {
+			random ^= random << 13;
+			random ^= random >>> 7;
+			random ^= random << 17;
+			long price = MID - levels / 2 + Math.floorMod(random, levels);
+			flood[i] = Stubs.order(i + 1, i % 2 == 0 ? OrderType.BUY : OrderType.SELL, price, VOLUME);
+		}
+		return flood;
+	}
+}
@@ -0,0 +1,45 @@
+package com.energytrade.benchmarks;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Takes the usual JMH command line (e.g.
+ * {@code MatchingEngineBenchmark -p depth=100}) and, unless {@code -rf} or
+ * {@code -rff} are given, writes the results as JSON under
+ * {@code target/jmh-results/} so runs of different releases can be compared.
+ */
+public final class BenchmarkMain {
+
+	// Quiet logging in the forked JVMs; order-service logs every order at INFO
+	static final String LOG_CONFIG = "-Dlog4j.configurationFile=log4j2-benchmarks.xml";
+
+	private static final String RESULTS_DIR = "target/jmh-results";
+
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+				|| cmd.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if (!cmd.getResult().hasValue() && !cmd.getResultFormat().hasValue()) {
+			new File(RESULTS_DIR).mkdirs();
+			String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+			options.resultFormat(ResultFormatType.JSON).result(RESULTS_DIR + "/jmh-" + timestamp + ".json");
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,153 @@
+package com.energytrade.benchmarks;
+
+import static com.energytrade.benchmarks.Stubs.VOLUME;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * {@link MatchingEngine#match(Order, OffsetDateTime)} and cancel against
+ * books of {@code depth} price levels per side. Every operation leaves the
+ * book in the shape it found it, so the depth stays the same for the whole
+ * run instead of draining.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkMain.LOG_CONFIG)
+public class MatchingEngineBenchmark {
+
+	static final long BEST_ASK = 10_000; // 100.00
+	static final long BEST_BID = BEST_ASK - 1;
+	static final int SWEEP_LEVELS = 5;
+
+	// Both sides seeded with `ordersPerLevel` resting orders at each of `depth` consecutive prices
+	public abstract static class Book {
+
+		MatchingEngine engine;
+		OffsetDateTime now;
+		long nextId;
+
+		void seed(int depth, int ordersPerLevel) {
+			engine = Stubs.engine();
+			now = OffsetDateTime.now();
+			for (int level = 0; level < depth; level++) {
+				for (int i = 0; i < ordersPerLevel; i++) {
+					engine.restore(Stubs.order(++nextId, OrderType.SELL, BEST_ASK + level, VOLUME));
+					engine.restore(Stubs.order(++nextId, OrderType.BUY, BEST_BID - level, VOLUME));
+				}
+			}
+		}
+
+		Order order(OrderType type, long price, long volume) {
+			return Stubs.order(++nextId, type, price, volume);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class DeepBook extends Book {
+
+		@Param({ "1", "10", "100", "1000" })
+		int depth;
+
+		@Setup
+		public void setUp() {
+			seed(depth, 10);
+		}
+	}
+
+	// One order per level, so a taker crossing several prices empties each of them
+	@State(Scope.Thread)
+	public static class ThinBook extends Book {
+
+		@Param({ "10", "100", "1000" })
+		int depth;
+
+		@Setup
+		public void setUp() {
+			seed(depth, 1);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class QuotedBook extends Book {
+
+		@Param({ "10", "100", "1000" })
+		int depth;
+
+		final ArrayDeque<Order> quotes = new ArrayDeque<>();
+		long random = 42;
+
+		@Setup
+		public void setUp() {
+			seed(depth, 10);
+		}
+
+		// Passive bid at one of the book's levels, never crossing
+		Order quote() {
+			random ^= random << 13;
+			random ^= random >>> 7;
+			random ^= random << 17;
+			return order(OrderType.BUY, BEST_BID - Math.floorMod(random, depth), VOLUME);
+		}
+	}
+
+	/**
+	 * A maker joins the best ask and a taker of the same size lifts the
+	 * level's front order: one single-level fill per operation.
+	 */
+	@Benchmark
+	public Order fillAtBestLevel(DeepBook book) {
+		book.engine.match(book.order(OrderType.SELL, BEST_ASK, VOLUME), book.now);
+		Order taker = book.order(OrderType.BUY, BEST_ASK, VOLUME);
+		book.engine.match(taker, book.now);
+		return taker;
+	}
+
+	/**
+	 * A taker sweeps the best {@value #SWEEP_LEVELS} ask levels, which are
+	 * then put back by new makers.
+	 */
+	@Benchmark
+	public Order sweepLevels(ThinBook book) {
+		Order taker = book.order(OrderType.BUY, BEST_ASK + SWEEP_LEVELS - 1, SWEEP_LEVELS * VOLUME);
+		book.engine.match(taker, book.now);
+		for (int level = 0; level < SWEEP_LEVELS; level++) {
+			book.engine.match(book.order(OrderType.SELL, BEST_ASK + level, VOLUME), book.now);
+		}
+		return taker;
+	}
+
+	/**
+	 * Quote replacement: a passive order is added and the oldest quote is
+	 * cancelled, so the book only ever sees adds and cancels.
+	 */
+	@Benchmark
+	public Order cancelAndReplace(QuotedBook book) {
+		Order quote = book.quote();
+		book.engine.match(quote, book.now);
+		book.quotes.addLast(quote);
+		if (book.quotes.size() > 1000) {
+			return book.engine.cancel(book.quotes.removeFirst(), book.now);
+		}
+		return quote;
+	}
+}
@@ -0,0 +1,114 @@
+package com.energytrade.benchmarks;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.OrderController;
+import com.energytrade.orderservice.OrderResponseExecutor;
+import com.energytrade.orderservice.journal.CommandJournal;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.persistence.BookWarmStart;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+import com.energytrade.orderservice.pricing.MarketPriceCache;
+
+/**
+ * The whole {@code POST /orders} path: validation, market price, audit,
+ * matching pipeline with its journal on a temporary directory, and the
+ * notification. The database and the downstream services are {@link Stubs}.
+ * Buys and sells alternate at the same price, so each sell fills the
+ * previous buy and the book stays empty.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+// The MVC stack takes much longer to warm up than the matching code
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkMain.LOG_CONFIG)
+@State(Scope.Thread)
+public class OrderEntryBenchmark {
+
+	private static final String BUY = "{\"type\":\"BUY\",\"price\":100.00,\"volume\":1.0,"
+			+ "\"expirationTimestamp\":\"" + Stubs.EXPIRY + "\"}";
+	private static final String SELL = BUY.replace("BUY", "SELL");
+
+	Path journalDir;
+	CommandJournal journal;
+	MatchingPipeline pipeline;
+	OrderResponseExecutor responses;
+	OrderController controller;
+	MockMvc mockMvc;
+	long count;
+
+	@Setup
+	public void setUp() throws IOException {
+		journalDir = Files.createTempDirectory("order-entry-bench");
+		journal = new CommandJournal(journalDir.toString(), 64);
+		journal.open();
+		MatchingEngine engine = Stubs.engine();
+		pipeline = new MatchingPipeline(engine, journal, BookWarmStart.NONE, 1, 1024, 5000, 5000, Long.MAX_VALUE, 100);
+		pipeline.start();
+
+		MarketPriceCache marketPrice = new MarketPriceCache(null, "http://localhost", 5000);
+		marketPrice.update(100.0);
+		responses = new OrderResponseExecutor(1);
+		controller = new OrderController(Stubs.orderRepository(), marketPrice, Stubs.outbound(), pipeline,
+				Stubs.writeBehind(), Stubs.entryStore(), responses);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller)
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(Stubs.objectMapper()))
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		pipeline.stop();
+		responses.stop();
+		journal.close();
+		try (Stream<Path> files = Files.walk(journalDir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	// Controller method called directly: no HTTP, no JSON
+	@Benchmark
+	public ResponseEntity<?> createOrder() {
+		Order order = Order.builder().type(++count % 2 == 0 ? OrderType.SELL : OrderType.BUY).price(10_000)
+				.volume(Stubs.VOLUME).expirationTimestamp(Stubs.EXPIRY).build();
+		return controller.createOrder(order, false).join();
+	}
+
+	// Through the MVC dispatcher, with the JSON request and response bodies; the response is written
+	// on the async dispatch once the returned future completes
+	@Benchmark
+	public MvcResult postOrder() throws Exception {
+		MvcResult started = mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_JSON)
+				.content(++count % 2 == 0 ? SELL : BUY)).andReturn();
+		return mockMvc.perform(asyncDispatch(started)).andReturn();
+	}
+}
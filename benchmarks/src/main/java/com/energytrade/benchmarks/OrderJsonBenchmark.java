@@ -0,0 +1,55 @@
+package com.energytrade.benchmarks;
+
+import static com.energytrade.benchmarks.Stubs.VOLUME;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON (de)serialization of an {@link Order}, with the ObjectMapper
+ * configuration the controllers get from Spring Boot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkMain.LOG_CONFIG)
+@State(Scope.Thread)
+public class OrderJsonBenchmark {
+
+	ObjectMapper mapper;
+	Order order;
+	byte[] json;
+
+	@Setup
+	public void setUp() throws IOException {
+		mapper = Stubs.objectMapper();
+		order = Stubs.order(123_456, OrderType.BUY, 10_025, 2 * VOLUME);
+		json = mapper.writeValueAsBytes(order);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return mapper.writeValueAsBytes(order);
+	}
+
+	@Benchmark
+	public Order deserialize() throws IOException {
+		return mapper.readValue(json, Order.class);
+	}
+}
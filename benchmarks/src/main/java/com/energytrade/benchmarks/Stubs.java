@@ -0,0 +1,137 @@
+package com.energytrade.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.MatchingModes;
+import com.energytrade.orderservice.book.DepthListener;
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.Notification;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.AuditOutbox;
+import com.energytrade.orderservice.persistence.OrderEntryStore;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.repository.OrderRepository;
+import com.energytrade.orderservice.trade.TradeTape;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Stand-ins for the database and the downstream services, so the benchmarks
+ * measure the order-service code itself. They do nothing and keep no state
+ * that grows with the number of operations.
+ */
+final class Stubs {
+
+	static final long VOLUME = 1_000; // 1 MWh in volume units
+	static final OffsetDateTime EXPIRY = OffsetDateTime.now().plusYears(10);
+
+	private Stubs() {
+	}
+
+	static MatchingEngine engine() {
+		return new MatchingEngine(writeBehind(), outbound(), DepthListener.NONE, new TradeTape(65536),
+				MatchingModes.CONTINUOUS);
+	}
+
+	// Every order of the default instrument collects for the call auction
+	static MatchingEngine auctionEngine() {
+		return new MatchingEngine(writeBehind(), outbound(), DepthListener.NONE, new TradeTape(65536),
+				new MatchingModes(Instrument.DEFAULT, 60_000));
+	}
+
+	static Order order(long id, OrderType type, long priceTicks, long volume) {
+		return Order.builder().id(id).instrument(Instrument.DEFAULT).type(type).price(priceTicks).volume(volume)
+				.marketPrice(priceTicks).timestamp(OffsetDateTime.now()).expirationTimestamp(EXPIRY).build();
+	}
+
+	// The ObjectMapper Spring Boot gives the controllers: dates as ISO-8601 strings
+	static ObjectMapper objectMapper() {
+		return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+	}
+
+	static OrderWriteBehind writeBehind() {
+		return new OrderWriteBehind(null, null, null, 1, 1, 1, 2) {
+			@Override
+			public long markDirty(Order order, long nowMillis) {
+				return 0;
+			}
+
+			@Override
+			public long markDirty(Order order, AuditEvent event, long nowMillis) {
+				return 0;
+			}
+
+			@Override
+			public long markFilled(Order maker, Order taker, long price, long volume, OffsetDateTime executedAt) {
+				return 0;
+			}
+
+			@Override
+			public long markMatched(Order order, long nowMillis) {
+				return 0;
+			}
+
+			@Override
+			public long writtenSequence() {
+				return 0;
+			}
+		};
+	}
+
+	static OutboundDispatcher outbound() {
+		return new OutboundDispatcher(null, null, null, null, "http://localhost", 1, 1, 1) {
+			@Override
+			public void publishNotification(Notification notification) {
+			}
+		};
+	}
+
+	// Runs the change and builds the audit event, without a transaction or an outbox row
+	static AuditOutbox auditOutbox() {
+		return new AuditOutbox(null, null) {
+			@Override
+			public <T> T recordWith(Supplier<T> change, Function<T, AuditEvent> audit) {
+				T result = change.get();
+				audit.apply(result);
+				return result;
+			}
+		};
+	}
+
+	// Inline, as with order.entry.async=false: the benchmarks measure the path, not the queue in front of the database
+	static OrderEntryStore entryStore() {
+		return new OrderEntryStore(null, orderRepository(), auditOutbox(), false, 1, 1);
+	}
+
+	// Only save() is used on the order entry path; it hands out ids like the sequence would
+	static OrderRepository orderRepository() {
+		AtomicLong ids = new AtomicLong();
+		return (OrderRepository) Proxy.newProxyInstance(OrderRepository.class.getClassLoader(),
+				new Class<?>[] { OrderRepository.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "save":
+						((Order) args[0]).setId(ids.incrementAndGet());
+						return args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "equals":
+						return proxy == args[0];
+					case "toString":
+						return "OrderRepository stub";
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+}
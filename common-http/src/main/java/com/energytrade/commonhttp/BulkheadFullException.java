@@ -0,0 +1,14 @@
+package com.energytrade.commonhttp;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * A call refused because the downstream already has the maximum number of
+ * calls in flight.
+ */
+public class BulkheadFullException extends ResourceAccessException {
+
+	public BulkheadFullException(String downstream, int maxConcurrentCalls) {
+		super(maxConcurrentCalls + " calls to " + downstream + " already in flight");
+	}
+}
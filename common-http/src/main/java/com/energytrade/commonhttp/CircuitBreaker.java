@@ -0,0 +1,83 @@
+package com.energytrade.commonhttp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consecutive-failure circuit breaker. While closed every call goes through;
+ * {@code failureThreshold} failures in a row open it, and calls are refused
+ * without reaching the downstream for {@code openMillis}. Then a single trial
+ * call is let through (half open): its success closes the breaker, its
+ * failure opens it again.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, HALF_OPEN, OPEN
+	}
+
+	private final String name;
+	private final int failureThreshold;
+	private final long openNanos;
+	private final LongSupplier nanoClock;
+
+	// Guarded by this
+	private State state = State.CLOSED;
+	private int failures;
+	private long openedAt;
+
+	public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+		this(name, failureThreshold, openMillis, System::nanoTime);
+	}
+
+	CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier nanoClock) {
+		this.name = name;
+		this.failureThreshold = failureThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+		this.nanoClock = nanoClock;
+	}
+
+	/**
+	 * Whether a call may go through now. Each call let through must be
+	 * followed by {@link #onSuccess} or {@link #onFailure}.
+	 */
+	public synchronized boolean tryAcquire() {
+		switch (state) {
+		case CLOSED:
+			return true;
+		case OPEN:
+			if (nanoClock.getAsLong() - openedAt < openNanos) {
+				return false;
+			}
+			state = State.HALF_OPEN;
+			return true;
+		default:
+			// The trial call is still in flight
+			return false;
+		}
+	}
+
+	public synchronized void onSuccess() {
+		if (state != State.CLOSED) {
+			log.info("✅ Circuit to {} closed", name);
+		}
+		state = State.CLOSED;
+		failures = 0;
+	}
+
+	public synchronized void onFailure() {
+		failures++;
+		if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+			log.warn("⛔ Circuit to {} opened after {} failures in a row", name, failures);
+			state = State.OPEN;
+			openedAt = nanoClock.getAsLong();
+		}
+	}
+
+	public synchronized State state() {
+		return state;
+	}
+}
@@ -0,0 +1,15 @@
+package com.energytrade.commonhttp;
+
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * A call refused without reaching the downstream, its circuit being open.
+ * A {@link ResourceAccessException}, so callers treat it as the downstream
+ * being unreachable, which it is.
+ */
+public class CircuitOpenException extends ResourceAccessException {
+
+	public CircuitOpenException(String downstream) {
+		super("Circuit to " + downstream + " is open");
+	}
+}
@@ -0,0 +1,29 @@
+package com.energytrade.commonhttp;
+
+import lombok.Data;
+
+/**
+ * Settings of an {@link OutboundHttpClient}; the services bind them from
+ * {@code http.client.*}. Timeouts in milliseconds.
+ */
+@Data
+public class HttpClientSettings {
+
+	private long connectTimeoutMs = 2000;
+	// Between two packets of the response, not for the whole call
+	private long readTimeoutMs = 5000;
+	// Waiting for a pooled connection when the downstream's are all leased
+	private long poolTimeoutMs = 1000;
+	private int maxConnections = 100;
+	private int maxConnectionsPerDownstream = 20;
+	// Idle connections are kept this long unless the server says otherwise
+	private long keepAliveMs = 30_000;
+
+	// Bulkhead: calls in flight per downstream, and how long a call may wait for one to finish
+	private int maxConcurrentCalls = 20;
+	private long bulkheadWaitMs = 0;
+
+	// Circuit breaker: failures in a row that open it, and how long it stays open before a trial call
+	private int failureThreshold = 5;
+	private long openMs = 5000;
+}
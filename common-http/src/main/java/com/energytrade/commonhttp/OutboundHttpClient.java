@@ -0,0 +1,239 @@
+package com.energytrade.commonhttp;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Outbound HTTP client of a service, shared by everything in it that calls
+ * other services. Connections are pooled and kept alive, at most
+ * {@code maxConnectionsPerDownstream} per downstream; every call has connect,
+ * read and pool timeouts, and goes through the bulkhead and circuit breaker
+ * of its downstream, so a slow or dead service neither ties up the caller's
+ * threads nor gets called while it is known to be down.
+ *
+ * Downstreams are recognised by the host and port of the URLs they are
+ * configured with; calls anywhere else get a bulkhead and breaker of their
+ * own, named after the host and port. Pool, bulkhead and breaker state per
+ * downstream are published under {@code http.client.*}.
+ */
+public class OutboundHttpClient implements MeterBinder, AutoCloseable {
+
+	private final String name;
+	private final HttpClientSettings settings;
+	private final PoolingHttpClientConnectionManager pool;
+	private final CloseableHttpClient httpClient;
+	private final HttpComponentsClientHttpRequestFactory requestFactory;
+	// host:port -> downstream
+	private final Map<String, Downstream> downstreams = new ConcurrentHashMap<>();
+	// Guarded by this
+	private MeterRegistry registry;
+
+	/**
+	 * @param name     the calling service, tagged on the metrics
+	 * @param baseUrls downstream service name -> any URL of that service
+	 */
+	public OutboundHttpClient(String name, Map<String, String> baseUrls, HttpClientSettings settings) {
+		this.name = name;
+		this.settings = settings;
+		this.pool = new PoolingHttpClientConnectionManager();
+		pool.setMaxTotal(settings.getMaxConnections());
+		pool.setDefaultMaxPerRoute(settings.getMaxConnectionsPerDownstream());
+		// A pooled connection the server may have closed meanwhile is checked before reuse
+		pool.setValidateAfterInactivity(2000);
+		RequestConfig timeouts = RequestConfig.custom()
+				.setConnectTimeout((int) settings.getConnectTimeoutMs())
+				.setSocketTimeout((int) settings.getReadTimeoutMs())
+				.setConnectionRequestTimeout((int) settings.getPoolTimeoutMs())
+				.build();
+		this.httpClient = HttpClients.custom()
+				.setConnectionManager(pool)
+				.setDefaultRequestConfig(timeouts)
+				.setKeepAliveStrategy((response, context) -> {
+					long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+					return keepAlive > 0 ? Math.min(keepAlive, settings.getKeepAliveMs()) : settings.getKeepAliveMs();
+				})
+				.evictExpiredConnections()
+				.evictIdleConnections(settings.getKeepAliveMs(), TimeUnit.MILLISECONDS)
+				.disableAutomaticRetries()
+				.build();
+		this.requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+		baseUrls.forEach((downstream, url) -> add(URI.create(url), downstream));
+	}
+
+	/**
+	 * A new RestTemplate over the pooled connections, with the bulkhead and
+	 * circuit breaker in front of its calls. Interceptors added to it later
+	 * run inside them: calls refused by either never reach those.
+	 */
+	public RestTemplate restTemplate() {
+		RestTemplate restTemplate = new RestTemplate(requestFactory);
+		restTemplate.getInterceptors().add(resilience());
+		return restTemplate;
+	}
+
+	/**
+	 * The bulkhead and circuit breaker as an interceptor, for a RestTemplate
+	 * built elsewhere.
+	 */
+	public ClientHttpRequestInterceptor resilience() {
+		return this::intercept;
+	}
+
+	/**
+	 * The circuit breaker of the downstream at {@code uri}, for calls made
+	 * with another client.
+	 */
+	public CircuitBreaker circuitBreaker(URI uri) {
+		return downstream(uri).breaker;
+	}
+
+	public HttpClientSettings settings() {
+		return settings;
+	}
+
+	@Override
+	public synchronized void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+		downstreams.values().forEach(downstream -> downstream.bindTo(registry));
+	}
+
+	@Override
+	public void close() throws IOException {
+		httpClient.close();
+	}
+
+	private ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+		Downstream downstream = downstream(request.getURI());
+		try {
+			if (!downstream.bulkhead.tryAcquire(settings.getBulkheadWaitMs(), TimeUnit.MILLISECONDS)) {
+				downstream.bulkheadFull.incrementAndGet();
+				throw new BulkheadFullException(downstream.name, settings.getMaxConcurrentCalls());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting to call " + downstream.name);
+		}
+		try {
+			if (!downstream.breaker.tryAcquire()) {
+				downstream.circuitOpen.incrementAndGet();
+				throw new CircuitOpenException(downstream.name);
+			}
+			ClientHttpResponse response;
+			try {
+				response = execution.execute(request, body);
+			} catch (IOException | RuntimeException e) {
+				downstream.breaker.onFailure();
+				throw e;
+			}
+			// 4xx is the caller's doing; the downstream answered
+			if (response.getRawStatusCode() >= 500) {
+				downstream.breaker.onFailure();
+			} else {
+				downstream.breaker.onSuccess();
+			}
+			return response;
+		} finally {
+			downstream.bulkhead.release();
+		}
+	}
+
+	private Downstream downstream(URI uri) {
+		Downstream downstream = downstreams.get(authority(uri));
+		return downstream != null ? downstream : add(uri, null);
+	}
+
+	private synchronized Downstream add(URI uri, String downstreamName) {
+		String authority = authority(uri);
+		Downstream downstream = downstreams.get(authority);
+		if (downstream == null) {
+			downstream = new Downstream(downstreamName != null ? downstreamName : authority, uri);
+			downstreams.put(authority, downstream);
+			if (registry != null) {
+				downstream.bindTo(registry);
+			}
+		}
+		return downstream;
+	}
+
+	private static String authority(URI uri) {
+		return uri.getHost() + ":" + port(uri);
+	}
+
+	private static int port(URI uri) {
+		if (uri.getPort() > 0) {
+			return uri.getPort();
+		}
+		return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+	}
+
+	private final class Downstream {
+
+		final String name;
+		final HttpRoute route;
+		final Semaphore bulkhead;
+		final CircuitBreaker breaker;
+		final AtomicLong bulkheadFull = new AtomicLong();
+		final AtomicLong circuitOpen = new AtomicLong();
+
+		Downstream(String name, URI uri) {
+			this.name = name;
+			this.route = new HttpRoute(new HttpHost(uri.getHost(), port(uri), uri.getScheme()));
+			this.bulkhead = new Semaphore(settings.getMaxConcurrentCalls());
+			this.breaker = new CircuitBreaker(name, settings.getFailureThreshold(), settings.getOpenMs());
+		}
+
+		void bindTo(MeterRegistry registry) {
+			Tags tags = Tags.of("client", OutboundHttpClient.this.name, "downstream", name);
+			pool(registry, "leased", "Pooled connections in use", tags, PoolStats::getLeased);
+			pool(registry, "available", "Idle pooled connections kept alive", tags, PoolStats::getAvailable);
+			pool(registry, "pending", "Calls waiting for a pooled connection", tags, PoolStats::getPending);
+			pool(registry, "max", "Most pooled connections allowed", tags, PoolStats::getMax);
+			Gauge.builder("http.client.in-flight", bulkhead,
+					permits -> settings.getMaxConcurrentCalls() - permits.availablePermits())
+					.description("Calls in flight (bulkhead)").tags(tags).register(registry);
+			Gauge.builder("http.client.circuit.state", breaker, circuit -> circuit.state().ordinal())
+					.description("Circuit breaker state: 0 closed, 1 half open, 2 open").tags(tags).register(registry);
+			FunctionCounter.builder("http.client.rejected", bulkheadFull, AtomicLong::get)
+					.description("Calls refused without reaching the downstream").tags(tags)
+					.tag("reason", "bulkhead-full").register(registry);
+			FunctionCounter.builder("http.client.rejected", circuitOpen, AtomicLong::get)
+					.description("Calls refused without reaching the downstream").tags(tags)
+					.tag("reason", "circuit-open").register(registry);
+		}
+
+		private void pool(MeterRegistry registry, String stat, String description, Tags tags,
+				ToIntFunction<PoolStats> value) {
+			Gauge.builder("http.client.pool." + stat, pool, connections -> value.applyAsInt(connections.getStats(route)))
+					.description(description).tags(tags).register(registry);
+		}
+	}
+}
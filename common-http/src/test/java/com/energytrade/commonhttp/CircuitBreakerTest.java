@@ -0,0 +1,68 @@
+package com.energytrade.commonhttp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.energytrade.commonhttp.CircuitBreaker.State;
+
+class CircuitBreakerTest {
+
+	private final AtomicLong clock = new AtomicLong();
+	private final CircuitBreaker breaker = new CircuitBreaker("audit-service", 3, 1000, clock::get);
+
+	@Test
+	void shouldOpenAfterConsecutiveFailuresOnly() {
+		fail();
+		fail();
+		succeed();
+		fail();
+		fail();
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+		fail();
+
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+		assertThat(breaker.tryAcquire()).isFalse();
+	}
+
+	@Test
+	void shouldLetOneTrialCallThroughOnceTheOpenTimeIsOver() {
+		fail();
+		fail();
+		fail();
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+		assertThat(breaker.tryAcquire()).isFalse();
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+		assertThat(breaker.tryAcquire()).isTrue();
+		assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+		// Only the trial until it is answered
+		assertThat(breaker.tryAcquire()).isFalse();
+
+		// A failed trial opens it for another full period
+		breaker.onFailure();
+		assertThat(breaker.state()).isEqualTo(State.OPEN);
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+		assertThat(breaker.tryAcquire()).isFalse();
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+		assertThat(breaker.tryAcquire()).isTrue();
+
+		breaker.onSuccess();
+		assertThat(breaker.state()).isEqualTo(State.CLOSED);
+		assertThat(breaker.tryAcquire()).isTrue();
+	}
+
+	private void fail() {
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onFailure();
+	}
+
+	private void succeed() {
+		assertThat(breaker.tryAcquire()).isTrue();
+		breaker.onSuccess();
+	}
+}
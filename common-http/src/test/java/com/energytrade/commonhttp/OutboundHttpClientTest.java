@@ -0,0 +1,154 @@
+package com.energytrade.commonhttp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OutboundHttpClientTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	// Client ports of the connections the server has seen
+	private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger calls = new AtomicInteger();
+	private volatile int status = 200;
+	private volatile CountDownLatch release = new CountDownLatch(0);
+	private HttpServer server;
+	private ExecutorService serverThreads;
+	private OutboundHttpClient client;
+	private String url;
+
+	@BeforeEach
+	void start() throws IOException {
+		serverThreads = Executors.newFixedThreadPool(8);
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(serverThreads);
+		server.createContext("/audit", this::handle);
+		server.start();
+		url = "http://localhost:" + server.getAddress().getPort() + "/audit";
+	}
+
+	@AfterEach
+	void stop() throws IOException {
+		release.countDown();
+		client.close();
+		server.stop(0);
+		serverThreads.shutdownNow();
+	}
+
+	@Test
+	void shouldReuseKeptAlivePooledConnections() {
+		client = client(new HttpClientSettings());
+		RestTemplate restTemplate = client.restTemplate();
+
+		for (int i = 0; i < 20; i++) {
+			restTemplate.getForObject(url, String.class);
+		}
+
+		assertThat(calls.get()).isEqualTo(20);
+		assertThat(connections).hasSize(1);
+		assertThat(gauge("http.client.pool.available")).isEqualTo(1);
+		assertThat(gauge("http.client.pool.leased")).isZero();
+		assertThat(gauge("http.client.pool.max")).isEqualTo(20);
+	}
+
+	@Test
+	void shouldFailFastOnceTheCircuitIsOpen() {
+		HttpClientSettings settings = new HttpClientSettings();
+		settings.setFailureThreshold(3);
+		settings.setOpenMs(60_000);
+		client = client(settings);
+		RestTemplate restTemplate = client.restTemplate();
+		status = 503;
+
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> restTemplate.getForObject(url, String.class))
+					.isInstanceOf(HttpServerErrorException.class);
+		}
+		assertThatThrownBy(() -> restTemplate.getForObject(url, String.class))
+				.isInstanceOf(CircuitOpenException.class);
+
+		assertThat(calls.get()).isEqualTo(3);
+		assertThat(gauge("http.client.circuit.state")).isEqualTo(CircuitBreaker.State.OPEN.ordinal());
+		assertThat(registry.get("http.client.rejected").tag("reason", "circuit-open").functionCounter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void shouldRefuseCallsBeyondTheBulkhead() throws Exception {
+		HttpClientSettings settings = new HttpClientSettings();
+		settings.setMaxConcurrentCalls(2);
+		client = client(settings);
+		RestTemplate restTemplate = client.restTemplate();
+		release = new CountDownLatch(1);
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> first = callers.submit(() -> restTemplate.getForObject(url, String.class));
+			Future<?> second = callers.submit(() -> restTemplate.getForObject(url, String.class));
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (calls.get() < 2 && System.nanoTime() < deadline) {
+				Thread.sleep(5);
+			}
+			assertThat(gauge("http.client.in-flight")).isEqualTo(2);
+
+			assertThatThrownBy(() -> restTemplate.getForObject(url, String.class))
+					.isInstanceOf(BulkheadFullException.class);
+
+			release.countDown();
+			first.get(5, TimeUnit.SECONDS);
+			second.get(5, TimeUnit.SECONDS);
+		} finally {
+			callers.shutdownNow();
+		}
+		assertThat(calls.get()).isEqualTo(2);
+		assertThat(gauge("http.client.in-flight")).isZero();
+		// A refused call is not a failure of the downstream
+		assertThat(client.circuitBreaker(URI.create(url)).state()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	private OutboundHttpClient client(HttpClientSettings settings) {
+		OutboundHttpClient client = new OutboundHttpClient("order-service", Map.of("audit-service", url), settings);
+		client.bindTo(registry);
+		return client;
+	}
+
+	private double gauge(String name) {
+		return registry.get(name).tags("client", "order-service", "downstream", "audit-service").gauge().value();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		connections.add(exchange.getRemoteAddress().getPort());
+		calls.incrementAndGet();
+		try {
+			release.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		byte[] body = "ok".getBytes();
+		exchange.sendResponseHeaders(status, body.length);
+		exchange.getResponseBody().write(body);
+		exchange.close();
+	}
+}
@@ -1,11 +1,16 @@
 
 package com.energytrade.integrationsim;
 
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+
+import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
@@ -13,6 +18,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
+import com.energytrade.integrationsim.load.LoadGenerator;
+import com.energytrade.integrationsim.load.LoadReport;
+import com.energytrade.integrationsim.load.LoadSettings;
 import com.energytrade.orderservice.model.Order;
 import com.energytrade.orderservice.model.OrderStatus;
 import com.energytrade.orderservice.model.OrderType;
@@ -30,7 +38,19 @@ public class IntegrationSimulator implements CommandLineRunner {
 	@Value("${pricing.service.url}")
 	private String pricingUrl;
 
-	private final RestTemplate restTemplate = new RestTemplate();
+	// "scenario" runs the functional scenarios below, "load" the load test configured by load.*
+	@Value("${sim.mode:scenario}")
+	private String mode;
+
+	@Autowired
+	private LoadGenerator loadGenerator;
+
+	@Autowired
+	private LoadSettings loadSettings;
+
+	@Autowired
+	private RestTemplate restTemplate;
+
 	private final ObjectWriter prettyPrinter = new ObjectMapper().writerWithDefaultPrettyPrinter();
 
 	public static void main(String[] args) {
@@ -39,6 +59,10 @@ public class IntegrationSimulator implements CommandLineRunner {
 
 	@Override
 	public void run(String... args) {
+		if ("load".equalsIgnoreCase(mode)) {
+			runLoadTest();
+			return;
+		}
 		try {
 			log.info("🔁 Requesting current market price...");
 			ResponseEntity<String> priceResponse = restTemplate.getForEntity(pricingUrl, String.class);
@@ -62,64 +86,78 @@ public class IntegrationSimulator implements CommandLineRunner {
 		}
 	}
 
+	private void runLoadTest() {
+		try {
+			LoadReport report = loadGenerator.run(loadSettings);
+			log.info("📊 Load test report:\n{}", report.describe());
+			Path file = loadGenerator.export(report);
+			log.info("💾 Load test report written to {}", file.toAbsolutePath());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("⚠️ Load test interrupted");
+		} catch (Exception e) {
+			log.error("❌ Load test failed: {}", e.getMessage(), e);
+		}
+	}
+
 	private void runStandardSimulations() {
 		log.info("🧪 Sending standard test orders...");
 		List<Order> testOrders = List.of(
-				Order.builder().type(OrderType.BUY).price(80.0).volume(10.0).marketPrice(75.0 + Math.random())
+				Order.builder().type(OrderType.BUY).price(toTicks(80.0)).volume(toVolumeUnits(10.0)).marketPrice(toTicks(75.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(120.0).volume(5.0).marketPrice(115.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(120.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(115.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.BUY).price(110.0).volume(7.0).marketPrice(108.0 + Math.random())
+				Order.builder().type(OrderType.BUY).price(toTicks(110.0)).volume(toVolumeUnits(7.0)).marketPrice(toTicks(108.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(100.0).volume(3.0).marketPrice(99.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(100.0)).volume(toVolumeUnits(3.0)).marketPrice(toTicks(99.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(90.0).volume(5.0).marketPrice(89.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(90.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(89.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.BUY).price(95.0).volume(5.0).marketPrice(94.0 + Math.random())
+				Order.builder().type(OrderType.BUY).price(toTicks(95.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(94.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.BUY).price(100.0).volume(0.0).marketPrice(98.0 + Math.random())
+				Order.builder().type(OrderType.BUY).price(toTicks(100.0)).volume(toVolumeUnits(0.0)).marketPrice(toTicks(98.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(1000000.0).volume(1.0).marketPrice(999999.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(1000000.0)).volume(toVolumeUnits(1.0)).marketPrice(toTicks(999999.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.BUY).price(0.01).volume(1.0).marketPrice(0.009 + Math.random())
+				Order.builder().type(OrderType.BUY).price(toTicks(0.01)).volume(toVolumeUnits(1.0)).marketPrice(toTicks(0.009 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(100.0).volume(-5.0).marketPrice(99.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(100.0)).volume(toVolumeUnits(-5.0)).marketPrice(toTicks(99.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(100.0).volume(5.0).marketPrice(99.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(100.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(99.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(100.0).volume(5.0).marketPrice(99.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(100.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(99.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.BUY).price(100.0).volume(5.0).marketPrice(98.0 + Math.random())
+				Order.builder().type(OrderType.BUY).price(toTicks(100.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(98.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(80.0).volume(10.0).marketPrice(79.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(80.0)).volume(toVolumeUnits(10.0)).marketPrice(toTicks(79.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.BUY).price(100.0).volume(9999999.0).marketPrice(98.0 + Math.random())
+				Order.builder().type(OrderType.BUY).price(toTicks(100.0)).volume(toVolumeUnits(9999999.0)).marketPrice(toTicks(98.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(95.0).volume(9999999.0).marketPrice(94.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(95.0)).volume(toVolumeUnits(9999999.0)).marketPrice(toTicks(94.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(105.0).volume(5.0).marketPrice(104.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(105.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(104.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.BUY).price(105.0).volume(5.0).marketPrice(104.0 + Math.random())
+				Order.builder().type(OrderType.BUY).price(toTicks(105.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(104.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build(),
 
-				Order.builder().type(OrderType.SELL).price(105.0).volume(5.0).marketPrice(104.0 + Math.random())
+				Order.builder().type(OrderType.SELL).price(toTicks(105.0)).volume(toVolumeUnits(5.0)).marketPrice(toTicks(104.0 + Math.random()))
 						.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build());
 
 		sendOrders(testOrders);
@@ -131,9 +169,9 @@ public class IntegrationSimulator implements CommandLineRunner {
 		// Order already expired
 		Order expired = Order.builder()
 			    .type(OrderType.BUY)
-			    .price(100.0)
-			    .volume(10.0)
-			    .marketPrice(98.0 + Math.random())
+			    .price(toTicks(100.0))
+			    .volume(toVolumeUnits(10.0))
+			    .marketPrice(toTicks(98.0 + Math.random()))
 			    .expirationTimestamp(OffsetDateTime.now().minusMinutes(1))
 			    .build();
 		expired.setExpirationTimestamp(OffsetDateTime.now().minusMinutes(1));
@@ -142,9 +180,9 @@ public class IntegrationSimulator implements CommandLineRunner {
 		// Valid order that expires in 5 seconds
 		Order soonExpiring = Order.builder()
 			    .type(OrderType.SELL)
-			    .price(90.0)
-			    .volume(5.0)
-			    .marketPrice(88.0 + Math.random())
+			    .price(toTicks(90.0))
+			    .volume(toVolumeUnits(5.0))
+			    .marketPrice(toTicks(88.0 + Math.random()))
 			    .expirationTimestamp(OffsetDateTime.now().plusSeconds(5))
 			    .build();
 		soonExpiring.setExpirationTimestamp(OffsetDateTime.now().plusSeconds(5));
@@ -159,7 +197,7 @@ public class IntegrationSimulator implements CommandLineRunner {
 		try {
 			// ✅ Case 1: Cancel PENDING order
 			Order cancellableOrder = Order.builder()
-					.type(OrderType.BUY).price(150.0).volume(1.0).marketPrice(149.0 + Math.random())
+					.type(OrderType.BUY).price(toTicks(150.0)).volume(toVolumeUnits(1.0)).marketPrice(toTicks(149.0 + Math.random()))
 					.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build();
 			ResponseEntity<Order> createResponse = restTemplate.postForEntity(orderUrl, cancellableOrder, Order.class);
 			Order created = createResponse.getBody();
@@ -185,7 +223,7 @@ public class IntegrationSimulator implements CommandLineRunner {
 
 			// 🔁 Case 4: Cancel already EXECUTED order (create, match, then cancel)
 			Order executedOrder = Order.builder()
-					.type(OrderType.BUY).price(99999.0).volume(1.0).marketPrice(100.0)
+					.type(OrderType.BUY).price(toTicks(99999.0)).volume(toVolumeUnits(1.0)).marketPrice(toTicks(100.0))
 					.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build();
 			ResponseEntity<Order> executedResp = restTemplate.postForEntity(orderUrl, executedOrder, Order.class);
 			Order executed = executedResp.getBody();
@@ -0,0 +1,35 @@
+package com.energytrade.integrationsim;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import com.energytrade.commonhttp.HttpClientSettings;
+import com.energytrade.commonhttp.OutboundHttpClient;
+
+@Configuration
+public class SimulatorConfig {
+
+	// Client of the scenarios; the load test posts through its own client, see HttpOrderGateway
+	@Bean
+	public RestTemplate restTemplate(OutboundHttpClient outboundHttp) {
+		return outboundHttp.restTemplate();
+	}
+
+	@Bean
+	public OutboundHttpClient outboundHttp(HttpClientSettings settings, @Value("${order.service.url}") String orderUrl,
+			@Value("${pricing.service.url}") String pricingUrl) {
+		return new OutboundHttpClient("integration-sim", Map.of("order-service", orderUrl, "pricing-service", pricingUrl),
+				settings);
+	}
+
+	@Bean
+	@ConfigurationProperties("http.client")
+	public HttpClientSettings httpClientSettings() {
+		return new HttpClientSettings();
+	}
+}
@@ -0,0 +1,97 @@
+package com.energytrade.integrationsim.load;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.gateway.GatewayProtocol.ExecutionReport;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Reject;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Report;
+import com.energytrade.orderservice.gateway.OrderEntryClient;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+
+/**
+ * {@link OrderGateway} over the binary order entry gateway of order-service
+ * ({@code load.protocol=binary}), to compare its latency with REST under the
+ * same load. Each worker gets its own connection, as it gets its own HTTP
+ * connection with {@link HttpOrderGateway}: the gateway carries out the
+ * requests of one connection one at a time.
+ */
+@Component
+@ConditionalOnProperty(name = "load.protocol", havingValue = "binary")
+public class BinaryOrderGateway implements OrderGateway {
+
+	private final String host;
+	private final int port;
+	private final long timeoutMillis;
+	private final ThreadLocal<OrderEntryClient> connection = new ThreadLocal<>();
+	private final List<OrderEntryClient> connections = new CopyOnWriteArrayList<>();
+
+	public BinaryOrderGateway(@Value("${order.gateway.host:localhost}") String host,
+			@Value("${order.gateway.port:9081}") int port,
+			@Value("${load.request-timeout-ms:10000}") long timeoutMillis) {
+		this.host = host;
+		this.port = port;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	@Override
+	public Response create(Order order) throws IOException, InterruptedException {
+		Report report = await(connection().submit(order.getInstrument(), order.getType(), order.getPrice(),
+				order.getVolume(), order.getExpirationTimestamp(), false));
+		if (report instanceof Reject) {
+			return new Response(((Reject) report).getCode(), 0);
+		}
+		ExecutionReport created = (ExecutionReport) report;
+		boolean resting = created.getStatus() == OrderStatus.PENDING || created.getStatus() == OrderStatus.PARTIAL;
+		return new Response(200, resting ? created.getOrderId() : 0);
+	}
+
+	@Override
+	public Response cancel(long orderId) throws IOException, InterruptedException {
+		Report report = await(connection().cancel(orderId, false));
+		return new Response(report instanceof Reject ? ((Reject) report).getCode() : 200, 0);
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		for (OrderEntryClient client : connections) {
+			client.close();
+		}
+	}
+
+	// The connection of the calling worker, opened again if the previous one was lost
+	private OrderEntryClient connection() throws IOException {
+		OrderEntryClient client = connection.get();
+		if (client == null || !client.isOpen()) {
+			if (client != null) {
+				connections.remove(client);
+			}
+			client = OrderEntryClient.connect(host, port);
+			connection.set(client);
+			connections.add(client);
+		}
+		return client;
+	}
+
+	private Report await(CompletableFuture<Report> report) throws IOException, InterruptedException {
+		try {
+			return report.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+		} catch (TimeoutException e) {
+			throw new IOException("No report within " + timeoutMillis + " ms");
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.energytrade.integrationsim.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+// Counters and latency histograms of one endpoint, recorded by all the workers
+final class EndpointStats {
+
+	// Longer latencies are recorded as this, in microseconds
+	static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+	// Status of a request that got no HTTP response
+	static final int NO_RESPONSE = -1;
+
+	private final String endpoint;
+	private final Histogram responseTime = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+	private final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+	private final LongAdder ok = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+
+	EndpointStats(String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	void record(int status, long responseNanos, long serviceNanos) {
+		if (status >= 200 && status < 300) {
+			ok.increment();
+		} else if (status >= 400 && status < 500) {
+			rejected.increment();
+		} else {
+			errors.increment();
+		}
+		responseTime.recordValue(micros(responseNanos));
+		serviceTime.recordValue(micros(serviceNanos));
+	}
+
+	long count() {
+		return responseTime.getTotalCount();
+	}
+
+	// Response time percentile in milliseconds, for the progress log
+	double responseMillisAt(double percentile) {
+		return responseTime.getValueAtPercentile(percentile) / 1000.0;
+	}
+
+	LoadReport.EndpointReport report(double elapsedSeconds) {
+		return new LoadReport.EndpointReport(endpoint, count(), ok.sum(), rejected.sum(), errors.sum(),
+				count() / elapsedSeconds, LoadReport.Latency.of(responseTime), LoadReport.Latency.of(serviceTime));
+	}
+
+	private static long micros(long nanos) {
+		return Math.min(HIGHEST_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+	}
+}
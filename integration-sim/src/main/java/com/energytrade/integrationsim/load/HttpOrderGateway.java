@@ -0,0 +1,65 @@
+package com.energytrade.integrationsim.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link OrderGateway} over HTTP. Uses the JDK client rather than the
+ * RestTemplate of the scenarios: HttpURLConnection keeps only 5 idle
+ * connections per host, so most workers would open a new connection per
+ * request and the test would measure TCP handshakes.
+ */
+@Component
+@ConditionalOnProperty(name = "load.protocol", havingValue = "rest", matchIfMissing = true)
+public class HttpOrderGateway implements OrderGateway {
+
+	private final String orderUrl;
+	private final Duration timeout;
+	private final ObjectMapper objectMapper;
+	private final HttpClient client;
+
+	public HttpOrderGateway(@Value("${order.service.url}") String orderUrl,
+			@Value("${load.request-timeout-ms:10000}") long timeoutMillis, ObjectMapper objectMapper) {
+		this.orderUrl = orderUrl;
+		this.timeout = Duration.ofMillis(timeoutMillis);
+		this.objectMapper = objectMapper;
+		this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(timeout).build();
+	}
+
+	@Override
+	public Response create(Order order) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(orderUrl)).timeout(timeout)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(order))).build();
+		HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+		long restingOrderId = 0;
+		if (response.statusCode() == 200) {
+			JsonNode created = objectMapper.readTree(response.body());
+			String status = created.path("status").asText();
+			if (OrderStatus.PENDING.name().equals(status) || OrderStatus.PARTIAL.name().equals(status)) {
+				restingOrderId = created.path("id").asLong();
+			}
+		}
+		return new Response(response.statusCode(), restingOrderId);
+	}
+
+	@Override
+	public Response cancel(long orderId) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(orderUrl + "/" + orderId)).timeout(timeout).DELETE()
+				.build();
+		return new Response(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode(), 0);
+	}
+}
@@ -0,0 +1,145 @@
+package com.energytrade.integrationsim.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Open-loop load generator: requests are scheduled at a fixed arrival rate
+ * and handed to a pool of workers, whether or not the previous ones have
+ * been answered. A slow or stalled order-service therefore shows up in the
+ * response times of every request scheduled while it was slow, instead of
+ * quietly lowering the rate (coordinated omission).
+ */
+@Component
+@RequiredArgsConstructor
+public class LoadGenerator {
+
+	private static final Logger log = LogManager.getLogger(LoadGenerator.class);
+
+	static final String CREATE = "POST /orders";
+	static final String CANCEL = "DELETE /orders/{id}";
+
+	private static final long PROGRESS_NANOS = TimeUnit.SECONDS.toNanos(5);
+	private static final long DRAIN_SECONDS = 30;
+
+	private final OrderGateway gateway;
+	private final ObjectMapper objectMapper;
+
+	public LoadReport run(LoadSettings settings) throws InterruptedException {
+		if (settings.getRatePerSecond() <= 0 || settings.getConcurrency() < 1 || settings.getDurationSeconds() < 1) {
+			throw new IllegalArgumentException("Load needs a positive rate, concurrency and duration");
+		}
+		OrderFlow flow = new OrderFlow(settings);
+		EndpointStats creates = new EndpointStats(CREATE);
+		EndpointStats cancels = new EndpointStats(CANCEL);
+		AtomicInteger threadIndex = new AtomicInteger();
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(settings.getConcurrency(), settings.getConcurrency(), 0,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+					Thread thread = new Thread(task, "load-worker-" + threadIndex.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+		log.info("🚦 Load test over {}: {}/s for {} s, {} workers, mix {}/{}/{} buy/sell/cancel, {} prices around {}",
+				settings.getProtocol(), settings.getRatePerSecond(), settings.getDurationSeconds(), settings.getConcurrency(),
+				settings.getBuyWeight(), settings.getSellWeight(), settings.getCancelWeight(), settings.getPriceModel(),
+				settings.getMidPrice());
+
+		OffsetDateTime startedAt = OffsetDateTime.now();
+		double intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.getRatePerSecond();
+		long start = System.nanoTime();
+		long end = start + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+		long nextProgress = start + PROGRESS_NANOS;
+		long sent = 0;
+		long skipped = 0;
+		for (long i = 0;; i++) {
+			// Scheduled time of request i; never pushed back when we are late
+			long intended = start + (long) (i * intervalNanos);
+			if (intended >= end) {
+				break;
+			}
+			long now;
+			while ((now = System.nanoTime()) < intended) {
+				LockSupport.parkNanos(intended - now);
+			}
+			if (now >= nextProgress) {
+				log.info("⏱️ {} s: {} sent, {} completed, {} waiting for a worker, {} skipped, create p99 {} ms",
+						TimeUnit.NANOSECONDS.toSeconds(now - start), sent, creates.count() + cancels.count(),
+						workers.getQueue().size(), skipped, creates.responseMillisAt(99));
+				nextProgress += PROGRESS_NANOS;
+			}
+			if (workers.getQueue().size() >= settings.getMaxBacklog()) {
+				skipped++;
+				continue;
+			}
+			LoadRequest request = flow.next();
+			workers.execute(() -> send(request, intended, flow, request.isCancel() ? cancels : creates));
+			sent++;
+		}
+
+		workers.shutdown();
+		if (!workers.awaitTermination(DRAIN_SECONDS, TimeUnit.SECONDS)) {
+			log.warn("⚠️ {} requests still unanswered after {} s, not waiting for them",
+					workers.getActiveCount() + workers.getQueue().size(), DRAIN_SECONDS);
+			workers.shutdownNow();
+		}
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+		long completed = creates.count() + cancels.count();
+		return new LoadReport(startedAt, settings, elapsedSeconds, sent, skipped, completed,
+				completed / elapsedSeconds,
+				Stream.of(creates, cancels).map(stats -> stats.report(elapsedSeconds)).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Writes the report as JSON to the report directory and returns its path.
+	 */
+	public Path export(LoadReport report) throws IOException {
+		Path directory = Paths.get(report.getSettings().getReportDir());
+		Files.createDirectories(directory);
+		Path file = directory.resolve(
+				"load-" + report.getStartedAt().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+		objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+		return file;
+	}
+
+	private void send(LoadRequest request, long intendedNanos, OrderFlow flow, EndpointStats stats) {
+		long sentAt = System.nanoTime();
+		int status;
+		try {
+			if (request.isCancel()) {
+				status = gateway.cancel(request.getCancelOrderId()).getStatus();
+			} else {
+				OrderGateway.Response response = gateway.create(request.getOrder());
+				status = response.getStatus();
+				if (response.getRestingOrderId() != 0) {
+					flow.resting(response.getRestingOrderId());
+				}
+			}
+		} catch (IOException e) {
+			status = EndpointStats.NO_RESPONSE;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		long doneAt = System.nanoTime();
+		stats.record(status, doneAt - intendedNanos, doneAt - sentAt);
+	}
+}
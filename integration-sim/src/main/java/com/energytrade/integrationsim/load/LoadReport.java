@@ -0,0 +1,96 @@
+package com.energytrade.integrationsim.load;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Locale;
+
+import org.HdrHistogram.Histogram;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a load test, printed at the end and exported as JSON.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadReport {
+
+	private OffsetDateTime startedAt;
+	private LoadSettings settings;
+	private double elapsedSeconds;
+	private long sent;
+	// Not sent because the backlog of requests waiting for a worker was full
+	private long skipped;
+	private long completed;
+	private double throughputPerSecond;
+	private List<EndpointReport> endpoints;
+
+	public String describe() {
+		StringBuilder text = new StringBuilder(String.format(Locale.US,
+				"%d requests in %.1f s: %.1f/s sent for %.1f/s scheduled, %.1f/s completed, %d skipped%n", sent,
+				elapsedSeconds, sent / elapsedSeconds, settings.getRatePerSecond(), throughputPerSecond, skipped));
+		text.append(String.format(Locale.US, "%-22s %8s %8s %8s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests",
+				"ok", "rejected", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+		for (EndpointReport endpoint : endpoints) {
+			text.append(row(endpoint.getEndpoint(), endpoint, endpoint.getResponseTime()));
+			text.append(row("  service time", endpoint, endpoint.getServiceTime()));
+		}
+		return text.toString();
+	}
+
+	private static String row(String name, EndpointReport endpoint, Latency latency) {
+		return String.format(Locale.US, "%-22s %8d %8d %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+				endpoint.getRequests(), endpoint.getOk(), endpoint.getRejected(), endpoint.getErrors(),
+				latency.getP50Ms(), latency.getP90Ms(), latency.getP99Ms(), latency.getP999Ms(), latency.getMaxMs());
+	}
+
+	/**
+	 * Requests of one endpoint. Response time runs from the moment the request
+	 * was scheduled, so a stalled server also counts against the requests that
+	 * were queued behind it; service time from the moment it was actually sent.
+	 */
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class EndpointReport {
+		private String endpoint;
+		private long requests;
+		private long ok;
+		// 4xx, e.g. cancelling an order that was filled in the meantime
+		private long rejected;
+		// 5xx, timeouts and connection failures
+		private long errors;
+		private double throughputPerSecond;
+		private Latency responseTime;
+		private Latency serviceTime;
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Latency {
+		private double meanMs;
+		private double p50Ms;
+		private double p90Ms;
+		private double p99Ms;
+		private double p999Ms;
+		private double p9999Ms;
+		private double maxMs;
+
+		// From a histogram of microseconds
+		static Latency of(Histogram micros) {
+			if (micros.getTotalCount() == 0) {
+				return new Latency();
+			}
+			return new Latency(micros.getMean() / 1000, millis(micros, 50), millis(micros, 90), millis(micros, 99),
+					millis(micros, 99.9), millis(micros, 99.99), micros.getMaxValue() / 1000.0);
+		}
+
+		private static double millis(Histogram micros, double percentile) {
+			return micros.getValueAtPercentile(percentile) / 1000.0;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.energytrade.integrationsim.load;
+
+import com.energytrade.orderservice.model.Order;
+
+import lombok.Value;
+
+// One request of the load: a new order, or the cancellation of an order left resting
+@Value
+class LoadRequest {
+
+	Order order;
+	long cancelOrderId;
+
+	static LoadRequest create(Order order) {
+		return new LoadRequest(order, 0);
+	}
+
+	static LoadRequest cancel(long orderId) {
+		return new LoadRequest(null, orderId);
+	}
+
+	boolean isCancel() {
+		return order == null;
+	}
+}
@@ -0,0 +1,79 @@
+package com.energytrade.integrationsim.load;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.Data;
+
+/**
+ * Load test parameters, set as {@code load.*} properties, e.g.
+ * {@code --sim.mode=load --load.rate-per-second=2000 --load.duration-seconds=120}.
+ */
+@Component
+@Data
+public class LoadSettings {
+
+	// Order entry path under load: "rest" (POST and DELETE /orders) or "binary" (the TCP order gateway)
+	@Value("${load.protocol:rest}")
+	private String protocol;
+
+	// Arrival rate of requests, kept whatever the response times
+	@Value("${load.rate-per-second:200}")
+	private double ratePerSecond;
+
+	// Worker threads, i.e. the maximum number of requests in flight
+	@Value("${load.concurrency:32}")
+	private int concurrency;
+
+	@Value("${load.duration-seconds:60}")
+	private long durationSeconds;
+
+	// Requests waiting for a worker beyond this are not sent, and reported as skipped
+	@Value("${load.max-backlog:10000}")
+	private int maxBacklog;
+
+	// Order mix as relative weights; a cancel targets an order that was left resting
+	@Value("${load.mix.buy:45}")
+	private int buyWeight;
+
+	@Value("${load.mix.sell:45}")
+	private int sellWeight;
+
+	@Value("${load.mix.cancel:10}")
+	private int cancelWeight;
+
+	@Value("${load.instruments:DEFAULT}")
+	private String[] instruments;
+
+	@Value("${load.price.model:normal}")
+	private PriceModel priceModel;
+
+	@Value("${load.price.mid:100.0}")
+	private double midPrice;
+
+	// Standard deviation for NORMAL, half-width for UNIFORM
+	@Value("${load.price.spread:2.0}")
+	private double priceSpread;
+
+	@Value("${load.volume.min:0.1}")
+	private double minVolume;
+
+	@Value("${load.volume.max:10.0}")
+	private double maxVolume;
+
+	@Value("${load.order-ttl-seconds:600}")
+	private long orderTtlSeconds;
+
+	// Same seed, same sequence of orders
+	@Value("${load.seed:42}")
+	private long seed;
+
+	@Value("${load.report.dir:load-reports}")
+	private String reportDir;
+
+	public enum PriceModel {
+		// Buy and sell limits both drawn around the mid price, so about half of the orders cross
+		NORMAL,
+		UNIFORM
+	}
+}
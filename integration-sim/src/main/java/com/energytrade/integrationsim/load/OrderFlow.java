@@ -0,0 +1,87 @@
+package com.energytrade.integrationsim.load;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+
+import java.time.OffsetDateTime;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * Draws the requests of a load test from the configured order mix and price
+ * model. {@link #next()} is called by the scheduler thread only;
+ * {@link #resting(long)} by the workers, as responses come back.
+ */
+final class OrderFlow {
+
+	// Cancel candidates; the oldest are dropped first once full
+	static final int RESTING_CAPACITY = 10_000;
+
+	private final LoadSettings settings;
+	private final Random random;
+	private final BlockingQueue<Long> resting = new ArrayBlockingQueue<>(RESTING_CAPACITY);
+
+	OrderFlow(LoadSettings settings) {
+		if (settings.getBuyWeight() < 0 || settings.getSellWeight() < 0 || settings.getCancelWeight() < 0
+				|| settings.getBuyWeight() + settings.getSellWeight() == 0) {
+			throw new IllegalArgumentException("Order mix needs non-negative weights and some buys or sells");
+		}
+		if (settings.getInstruments().length == 0) {
+			throw new IllegalArgumentException("At least one instrument is required");
+		}
+		this.settings = settings;
+		this.random = new Random(settings.getSeed());
+	}
+
+	LoadRequest next() {
+		int creates = settings.getBuyWeight() + settings.getSellWeight();
+		int pick = random.nextInt(creates + settings.getCancelWeight());
+		if (pick >= creates) {
+			Long orderId = resting.poll();
+			if (orderId != null) {
+				return LoadRequest.cancel(orderId);
+			}
+			// Nothing to cancel yet: keep the arrival rate with a new order instead
+			pick = random.nextInt(creates);
+		}
+		return LoadRequest.create(order(pick < settings.getBuyWeight() ? OrderType.BUY : OrderType.SELL));
+	}
+
+	void resting(long orderId) {
+		while (!resting.offer(orderId)) {
+			resting.poll();
+		}
+	}
+
+	private Order order(OrderType type) {
+		String[] instruments = settings.getInstruments();
+		return Order.builder().instrument(instruments[random.nextInt(instruments.length)]).type(type)
+				.price(toTicks(Math.max(0.01, round(price(), 100))))
+				.volume(toVolumeUnits(round(volume(), 10)))
+				.expirationTimestamp(OffsetDateTime.now().plusSeconds(settings.getOrderTtlSeconds())).build();
+	}
+
+	private double price() {
+		switch (settings.getPriceModel()) {
+		case UNIFORM:
+			return settings.getMidPrice() + (random.nextDouble() * 2 - 1) * settings.getPriceSpread();
+		case NORMAL:
+		default:
+			return settings.getMidPrice() + random.nextGaussian() * settings.getPriceSpread();
+		}
+	}
+
+	private double volume() {
+		double volume = settings.getMinVolume()
+				+ random.nextDouble() * (settings.getMaxVolume() - settings.getMinVolume());
+		return Math.max(0.1, volume);
+	}
+
+	private static double round(double value, int scale) {
+		return Math.round(value * scale) / (double) scale;
+	}
+}
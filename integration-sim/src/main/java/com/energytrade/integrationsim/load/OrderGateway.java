@@ -0,0 +1,24 @@
+package com.energytrade.integrationsim.load;
+
+import java.io.IOException;
+
+import com.energytrade.orderservice.model.Order;
+
+import lombok.Value;
+
+/**
+ * The order-service endpoints driven by the load generator.
+ */
+public interface OrderGateway {
+
+	Response create(Order order) throws IOException, InterruptedException;
+
+	Response cancel(long orderId) throws IOException, InterruptedException;
+
+	@Value
+	class Response {
+		int status;
+		// Id of the created order when it is left resting in the book, 0 otherwise
+		long restingOrderId;
+	}
+}
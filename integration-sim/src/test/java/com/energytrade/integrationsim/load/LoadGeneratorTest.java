@@ -0,0 +1,120 @@
+package com.energytrade.integrationsim.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.energytrade.orderservice.model.Order;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class LoadGeneratorTest {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+	@Test
+	void shouldChargeAStallToTheRequestsScheduledDuringIt(@TempDir Path reports) throws Exception {
+		StallingGateway gateway = new StallingGateway(50, 300);
+		LoadGenerator generator = new LoadGenerator(gateway, objectMapper);
+
+		LoadReport report = generator.run(settings(reports));
+
+		LoadReport.EndpointReport creates = report.getEndpoints().get(0);
+		LoadReport.EndpointReport cancels = report.getEndpoints().get(1);
+		assertThat(report.getSent()).isEqualTo(200);
+		assertThat(report.getCompleted()).isEqualTo(200);
+		assertThat(creates.getRequests() + cancels.getRequests()).isEqualTo(200);
+		assertThat(cancels.getRequests()).isPositive();
+		assertThat(cancels.getRejected()).isEqualTo(cancels.getRequests());
+		// One slow request; but the ~60 scheduled while it was stuck waited for it too
+		assertThat(creates.getServiceTime().getP90Ms()).isLessThan(50);
+		assertThat(creates.getServiceTime().getMaxMs()).isGreaterThanOrEqualTo(300);
+		assertThat(creates.getResponseTime().getP90Ms()).isGreaterThan(100);
+
+		Path file = generator.export(report);
+		JsonNode json = objectMapper.readTree(Files.readAllBytes(file));
+		assertThat(json.path("sent").asLong()).isEqualTo(200);
+		assertThat(json.path("endpoints").get(0).path("endpoint").asText()).isEqualTo(LoadGenerator.CREATE);
+		assertThat(json.path("endpoints").get(0).path("responseTime").has("p999Ms")).isTrue();
+	}
+
+	@Test
+	void shouldDrawTheConfiguredMix(@TempDir Path reports) {
+		LoadSettings settings = settings(reports);
+		settings.setBuyWeight(1);
+		settings.setSellWeight(0);
+		settings.setCancelWeight(1);
+		OrderFlow flow = new OrderFlow(settings);
+		flow.resting(7);
+
+		int cancels = 0;
+		for (int i = 0; i < 1000; i++) {
+			LoadRequest request = flow.next();
+			if (request.isCancel()) {
+				cancels++;
+				assertThat(request.getCancelOrderId()).isEqualTo(7);
+			} else {
+				assertThat(request.getOrder().getType().name()).isEqualTo("BUY");
+				assertThat(request.getOrder().getPrice()).isPositive();
+				assertThat(request.getOrder().getVolume()).isPositive();
+			}
+		}
+		// Only one order was resting: later cancels fall back to new orders
+		assertThat(cancels).isEqualTo(1);
+	}
+
+	private static LoadSettings settings(Path reports) {
+		LoadSettings settings = new LoadSettings();
+		settings.setRatePerSecond(200);
+		settings.setConcurrency(1);
+		settings.setDurationSeconds(1);
+		settings.setMaxBacklog(10_000);
+		settings.setBuyWeight(45);
+		settings.setSellWeight(45);
+		settings.setCancelWeight(10);
+		settings.setInstruments(new String[] { "DEFAULT" });
+		settings.setPriceModel(LoadSettings.PriceModel.NORMAL);
+		settings.setMidPrice(100.0);
+		settings.setPriceSpread(2.0);
+		settings.setMinVolume(0.1);
+		settings.setMaxVolume(10.0);
+		settings.setOrderTtlSeconds(600);
+		settings.setSeed(42);
+		settings.setReportDir(reports.toString());
+		return settings;
+	}
+
+	// Answers at once, except for one create that hangs, like a GC pause or a lock convoy on the server
+	private static final class StallingGateway implements OrderGateway {
+
+		final long stalledRequest;
+		final long stallMillis;
+		final AtomicLong requests = new AtomicLong();
+		final AtomicLong ids = new AtomicLong();
+
+		StallingGateway(long stalledRequest, long stallMillis) {
+			this.stalledRequest = stalledRequest;
+			this.stallMillis = stallMillis;
+		}
+
+		@Override
+		public Response create(Order order) throws InterruptedException {
+			if (requests.incrementAndGet() == stalledRequest) {
+				Thread.sleep(stallMillis);
+			}
+			return new Response(200, ids.incrementAndGet());
+		}
+
+		@Override
+		public Response cancel(long orderId) {
+			requests.incrementAndGet();
+			return new Response(400, 0);
+		}
+	}
+}
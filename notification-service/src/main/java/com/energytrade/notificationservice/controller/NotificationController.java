@@ -1,5 +1,7 @@
 package com.energytrade.notificationservice.controller;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,4 +21,11 @@ public class NotificationController {
     public void sendNotification(@RequestBody Notification notification) {
     	logger.info("🔔 Notification sent to " + notification.getTarget() + ": " + notification.getMessage());
     }
+
+    @PostMapping("/batch")
+    public void sendNotifications(@RequestBody List<Notification> notifications) {
+    	for (Notification notification : notifications) {
+    		sendNotification(notification);
+    	}
+    }
 }
\ No newline at end of file
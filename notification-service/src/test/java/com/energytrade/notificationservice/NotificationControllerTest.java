@@ -2,6 +2,8 @@ package com.energytrade.notificationservice;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -31,4 +33,17 @@ public class NotificationControllerTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
+
+    @Test
+    public void shouldSendNotificationBatch() {
+        List<Notification> notifications = List.of(new Notification("admin@energy.com", "First"),
+                new Notification("admin@energy.com", "Second"));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<List<Notification>> request = new HttpEntity<>(notifications, headers);
+        ResponseEntity<Void> response = restTemplate.postForEntity("/notify/batch", request, Void.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
 }
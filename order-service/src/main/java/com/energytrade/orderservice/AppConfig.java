@@ -1,13 +1,61 @@
 package com.energytrade.orderservice;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import com.energytrade.commonhttp.HttpClientSettings;
+import com.energytrade.commonhttp.OutboundHttpClient;
+import com.energytrade.orderservice.metrics.OutboundLatencyInterceptor;
+
+
 @Configuration
 public class AppConfig {
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(OutboundHttpClient outboundHttp, OutboundLatencyInterceptor outboundLatency) {
+        // Inside the bulkhead and circuit breaker: calls refused by them are not timed
+        RestTemplate restTemplate = outboundHttp.restTemplate();
+        restTemplate.getInterceptors().add(outboundLatency);
+        return restTemplate;
+    }
+
+    // Pooled connections, timeouts, bulkhead and circuit breaker per downstream service
+    @Bean
+    public OutboundHttpClient outboundHttp(HttpClientSettings settings, @Value("${pricing.service.url}") String pricingUrl,
+            @Value("${notification.service.url}") String notificationUrl,
+            @Value("${audit.service.url}") String auditUrl) {
+        return new OutboundHttpClient("order-service", downstreams(pricingUrl, notificationUrl, auditUrl), settings);
+    }
+
+    @Bean
+    @ConfigurationProperties("http.client")
+    public HttpClientSettings httpClientSettings() {
+        return new HttpClientSettings();
+    }
+
+    // Non-blocking client for the outbound dispatcher; plain HTTP/1.1 like the RestTemplate
+    @Bean
+    public HttpClient outboundHttpClient(HttpClientSettings settings) {
+        return HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMs())).build();
+    }
+
+    // Latency per downstream service, published as orders.outbound.latency
+    @Bean
+    public OutboundLatencyInterceptor outboundLatencyInterceptor(@Value("${pricing.service.url}") String pricingUrl,
+            @Value("${notification.service.url}") String notificationUrl,
+            @Value("${audit.service.url}") String auditUrl) {
+        return new OutboundLatencyInterceptor(downstreams(pricingUrl, notificationUrl, auditUrl));
+    }
+
+    private static Map<String, String> downstreams(String pricingUrl, String notificationUrl, String auditUrl) {
+        return Map.of("pricing-service", pricingUrl, "notification-service", notificationUrl, "audit-service",
+                auditUrl);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package com.energytrade.orderservice;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.energytrade.orderservice.book.Uncrossing;
+import com.energytrade.orderservice.model.FixedPoint;
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Call auctions: the instruments matched by periodic uncrossing rather than
+ * continuously, see {@link MatchingModes}.
+ */
+@RestController
+@RequestMapping("/orders/auction")
+@RequiredArgsConstructor
+public class AuctionController {
+
+	private final MatchingEngine matchingEngine;
+	private final MatchingPipeline matchingPipeline;
+
+	// Auctioned instruments, their next gate closure and the outcome of the last one
+	@GetMapping
+	public List<Map<String, Object>> auctions() {
+		MatchingModes modes = matchingEngine.modes();
+		Instant nextGateClosure = Instant.ofEpochMilli(modes.nextGateClosure(System.currentTimeMillis()));
+		List<Map<String, Object>> auctions = new ArrayList<>();
+		for (String instrument : new TreeSet<>(modes.auctionInstruments())) {
+			Map<String, Object> auction = new LinkedHashMap<>();
+			auction.put("instrument", instrument);
+			auction.put("nextGateClosure", nextGateClosure);
+			Uncrossing last = matchingEngine.lastUncrossing(instrument);
+			auction.put("lastUncrossing", last == null ? null : describe(last));
+			auctions.add(auction);
+		}
+		return auctions;
+	}
+
+	// Closes the gate now, ahead of schedule, e.g. to clear a book that crossed at gate open
+	@PostMapping("/uncross")
+	public CompletableFuture<ResponseEntity<?>> uncross(@RequestParam String instrument) {
+		String key = Instrument.normalize(instrument);
+		if (!Instrument.isValid(key)) {
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Invalid instrument."));
+		}
+		if (!matchingEngine.modes().isAuction(key)) {
+			return CompletableFuture.completedFuture(
+					ResponseEntity.status(HttpStatus.CONFLICT).body("Instrument " + key + " trades continuously."));
+		}
+		return matchingPipeline.withTimeout(matchingPipeline.uncross(key))
+				.<ResponseEntity<?>>thenApply(uncrossing -> ResponseEntity.ok(describe(uncrossing)));
+	}
+
+	private static Map<String, Object> describe(Uncrossing uncrossing) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("instrument", uncrossing.getInstrument());
+		result.put("price", uncrossing.crosses() ? FixedPoint.fromTicks(uncrossing.getPrice()) : null);
+		result.put("volume", FixedPoint.fromVolumeUnits(uncrossing.getVolume()));
+		result.put("surplus", FixedPoint.fromVolumeUnits(uncrossing.getSurplus()));
+		return result;
+	}
+}
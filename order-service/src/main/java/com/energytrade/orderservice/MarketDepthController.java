@@ -0,0 +1,57 @@
+package com.energytrade.orderservice;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.energytrade.orderservice.depth.MarketDepthFeed;
+import com.energytrade.orderservice.model.Instrument;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/orders/depth")
+@RequiredArgsConstructor
+public class MarketDepthController {
+
+	static final int MAX_LEVELS = 1000;
+
+	private final MarketDepthFeed depthFeed;
+
+	// Aggregated volume and order count of the best price levels on each side
+	@GetMapping
+	public ResponseEntity<?> depth(@RequestParam(required = false) String instrument,
+			@RequestParam(defaultValue = "10") int levels) {
+		String key = Instrument.normalize(instrument);
+		if (!Instrument.isValid(key)) {
+			return ResponseEntity.badRequest().body("Invalid instrument.");
+		}
+		if (levels < 1 || levels > MAX_LEVELS) {
+			return ResponseEntity.badRequest().body("Levels must be between 1 and " + MAX_LEVELS + ".");
+		}
+		return ResponseEntity.ok(depthFeed.depth(key, levels));
+	}
+
+	// Snapshot followed by conflated level updates, as server-sent events
+	@GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter stream(@RequestParam(required = false) String instrument) {
+		String key = Instrument.normalize(instrument);
+		if (!Instrument.isValid(key)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid instrument.");
+		}
+		return depthFeed.subscribe(key);
+	}
+
+	@GetMapping("/feed")
+	public Map<String, Object> feed() {
+		return depthFeed.stats();
+	}
+}
@@ -0,0 +1,39 @@
+package com.energytrade.orderservice;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.energytrade.orderservice.model.PriceResponse;
+import com.energytrade.orderservice.pricing.MarketPriceCache;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/orders/market-price")
+@RequiredArgsConstructor
+public class MarketPriceController {
+
+	private final MarketPriceCache marketPrice;
+
+	// Cached price, its age and how many orders were stamped with a stale one
+	@GetMapping
+	public Map<String, Object> marketPrice() {
+		return marketPrice.stats();
+	}
+
+	// Lets a price feed push updates instead of waiting for the next refresh
+	@PutMapping
+	public ResponseEntity<?> pushMarketPrice(@RequestBody PriceResponse price) {
+		if (price.getValue() <= 0) {
+			return ResponseEntity.badRequest().body("Market price must be a positive number.");
+		}
+		marketPrice.update(price.getValue());
+		return ResponseEntity.ok(marketPrice.stats());
+	}
+}
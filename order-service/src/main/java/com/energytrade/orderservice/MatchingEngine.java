@@ -1,123 +1,178 @@
 package com.energytrade.orderservice;
 
 import java.time.OffsetDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import javax.annotation.PostConstruct;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import com.energytrade.orderservice.book.BookSide;
+import com.energytrade.orderservice.book.DepthListener;
+import com.energytrade.orderservice.book.OrderBook;
+import com.energytrade.orderservice.book.PriceLevel;
+import com.energytrade.orderservice.book.Uncrossing;
+import com.energytrade.orderservice.metrics.Meters;
 import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.Instrument;
 import com.energytrade.orderservice.model.Notification;
 import com.energytrade.orderservice.model.Order;
 import com.energytrade.orderservice.model.OrderStatus;
 import com.energytrade.orderservice.model.OrderType;
-import com.energytrade.orderservice.repository.OrderRepository;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.trade.TradeTape;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Price-time matching against the resident order books, one per instrument.
+ * Books are not thread-safe: all calls for an instrument are expected to come
+ * from the single matching thread of the
+ * {@link com.energytrade.orderservice.pipeline.MatchingPipeline} partition
+ * that owns it.
+ *
+ * Publishes the fills per match, cancellations, expirations and the depth of
+ * every book; nothing is counted while replaying the journal.
+ *
+ * A fill allocates nothing: the trade goes to the tape column by column and
+ * to the write-behind ring as raw fields, and the trade entity, its audit
+ * payload and the notification are built by the write-behind writer.
+ *
+ * Instruments auctioned according to the {@link MatchingModes} are not
+ * matched on arrival: their orders rest in the book until it is uncrossed
+ * at the next gate closure, see {@link #uncross}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class MatchingEngine {
+public class MatchingEngine implements MeterBinder {
+
+    private final OrderWriteBehind writeBehind;
+    // Notifications are queued, never sent from the matching thread; audit goes through the outbox
+    private final OutboundDispatcher outbound;
+    // Fed with every price level change, e.g. by the market depth feed
+    private final DepthListener depthListener;
+    // Every trade, including replayed ones, for the last-trades and VWAP queries
+    private final TradeTape tradeTape;
+    // Continuous or auction, per instrument
+    private final MatchingModes modes;
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+    // Outcome of the last gate closure of every auctioned instrument
+    private final Map<String, Uncrossing> lastUncrossings = new ConcurrentHashMap<>();
 
-    private final OrderRepository orderRepository;
-    private final RestTemplate restTemplate;
-    
-    @Value("${audit.service.url}")
-    private String auditUrl;
-    
-    @Value("${notification.service.url}")
-    private String notificationUrl;
+    // While replaying the journal the outcome is rebuilt silently: no persistence, audit, notifications or logs
+    private boolean replaying;
+    // Trades rebuilt by the replay go here instead of the write-behind
+    private Consumer<Trade> replayedTrades = trade -> { };
+
+    private volatile MeterRegistry registry = Meters.NONE;
+    private volatile EngineMeters meters = new EngineMeters(Meters.NONE);
+
+    // Fill notifications are built by the write-behind writer as it takes the fills off its ring
+    @PostConstruct
+    public void publishFillNotifications() {
+        writeBehind.addTradeListener(trade -> outbound.publishNotification(Notification.matched(trade)));
+    }
 
     public void match(Order incomingOrder) {
-    	if (incomingOrder.getExpirationTimestamp().isBefore(OffsetDateTime.now())) {
+        match(incomingOrder, OffsetDateTime.now());
+    }
+
+    /**
+     * Matches an incoming order as of {@code now}, the time the command was
+     * journaled, so replaying the journal reproduces the same trades.
+     */
+    public void match(Order incomingOrder, OffsetDateTime now) {
+        long nowMillis = millis(now);
+    	if (incomingOrder.getExpirationTimestamp().isBefore(now)) {
     	    incomingOrder.setStatus(OrderStatus.EXPIRED);
-    	    orderRepository.save(incomingOrder);
-    	    log.info("Order {} is expired. Marked as EXPIRED and skipped.", incomingOrder.getId());
+    	    dirty(incomingOrder, nowMillis);
+    	    if (!replaying) {
+    	        meters.expired.increment();
+    	        log.info("Order {} is expired. Marked as EXPIRED and skipped.", incomingOrder.getId());
+    	    }
     	    return;
     	}
 
     	if (incomingOrder.getStatus() != OrderStatus.PENDING) {
-    	    log.info("Order {} already processed. Skipping.", incomingOrder.getId());
+    	    if (!replaying) {
+    	        log.info("Order {} already processed. Skipping.", incomingOrder.getId());
+    	    }
     	    return;
     	}
 
-        // Identify opposite order type
-        OrderType oppositeType = (incomingOrder.getType() == OrderType.BUY)
-                ? OrderType.SELL : OrderType.BUY;
+        OrderBook orderBook = book(incomingOrder.getInstrument());
 
-        // Retrieve all potential counterpart orders
-        List<Order> candidates = orderRepository.findEligibleCounterpartOrders(
-        	    oppositeType, incomingOrder.getPrice()
-        	).stream()
-        	  .filter(o -> !o.isExpired()) 
-        	  .collect(Collectors.toList());
+        if (modes.isAuction(orderBook.getInstrument())) {
+            // Call phase: the order waits in the book for the next uncrossing
+            orderBook.add(incomingOrder);
+            if (!replaying) {
+                writeBehind.markMatched(incomingOrder, nowMillis);
+                log.info("🔔 Order #{} collected for the {} auction", incomingOrder.getId(),
+                        orderBook.getInstrument());
+            }
+            return;
+        }
 
-        // Sort by price-time priority
-        candidates.sort(Comparator
-                .comparing(Order::getPrice, incomingOrder.getType() == OrderType.BUY
-                        ? Comparator.naturalOrder()  // Buy prefers lower sell prices
-                        : Comparator.reverseOrder()) // Sell prefers higher buy prices
-                .thenComparing(Order::getTimestamp));
+        // Opposite side of the book, best price level first
+        BookSide opposite = orderBook.oppositeOf(incomingOrder.getType());
 
-        double remainingVolume = incomingOrder.getVolume();
+        long remainingVolume = incomingOrder.getRemainingVolume();
+        int fills = 0;
 
-        for (Order candidate : candidates) {
-            double available = candidate.getVolume() - candidate.getExecutedVolume();
-            if (available <= 0) continue;
+        while (remainingVolume > 0) {
+            PriceLevel level = opposite.bestLevel();
+            if (level == null || !opposite.crosses(level, incomingOrder.getPrice())) break;
+
+            Order candidate = level.peek();
+            if (expireIfDue(orderBook, candidate, now, nowMillis)) {
+                continue;
+            }
 
-            double traded = Math.min(remainingVolume, available);
+            long traded = Math.min(remainingVolume, candidate.getRemainingVolume());
 
             // Update candidate order
-            candidate.setExecutedVolume(candidate.getExecutedVolume() + traded);
-            if (candidate.getExecutedVolume() >= candidate.getVolume()) {
-                candidate.setStatus(OrderStatus.EXECUTED);
-            } else {
-                candidate.setStatus(OrderStatus.PARTIAL);
-            }
+            execute(candidate, traded);
+            orderBook.fill(level, candidate, traded);
 
             // Update incoming order
             incomingOrder.setExecutedVolume(incomingOrder.getExecutedVolume() + traded);
             remainingVolume -= traded;
-            
-            // 🔍 AUDIT: Pairwise execution event
-            AuditEvent pairwiseMatchEvent = new AuditEvent(
-                    "order-service",
-                    "ORDER_EXECUTED_PAIRWISE",
-                    String.format(Locale.US,
-                            "{" +
-                            "\"takerOrderId\":%d," +
-                            "\"makerOrderId\":%d," +
-                            "\"matchedVolume\":%.2f," +
-                            "\"price\":%.2f," +
-                            "\"timestamp\":\"%s\"" +
-                            "}",
-                            incomingOrder.getId(),
-                            candidate.getId(),
-                            traded,
-                            candidate.getPrice(),
-                            OffsetDateTime.now().toString()
-                    )
-            );
-            restTemplate.postForObject(auditUrl, pairwiseMatchEvent, Void.class);
-            	
-            Notification notification = new Notification(
-                    "admin@energytrade.com",
-                    String.format("📈 Order #%d matched with #%d: %.2f @ %.2f",
-                            incomingOrder.getId(),
-                            candidate.getId(),
-                            traded,
-                            candidate.getPrice())
-            );
-            restTemplate.postForObject(notificationUrl, notification, Void.class);
-
-            if (remainingVolume <= 0.00001) break; // Fully matched
+            fills++;
+
+            tradeTape.append(orderBook.getInstrument(), nowMillis, incomingOrder.getType(), incomingOrder.getId(),
+                    candidate.getId(), candidate.getPrice(), traded);
+
+            if (replaying) {
+                replayedTrades.accept(Trade.builder()
+                        .instrument(incomingOrder.getInstrument())
+                        .takerOrderId(incomingOrder.getId())
+                        .makerOrderId(candidate.getId())
+                        .takerSide(incomingOrder.getType())
+                        .price(candidate.getPrice())
+                        .volume(traded)
+                        .executedAt(now)
+                        .build());
+                continue;
+            }
 
+            // The maker's fill, the trade and its audit record are flushed in the same transaction
+            writeBehind.markFilled(candidate, incomingOrder, candidate.getPrice(), traded, now);
         }
 
         // Final status update for incoming order
@@ -128,32 +183,351 @@ public class MatchingEngine {
         } else {
             incomingOrder.setStatus(OrderStatus.PENDING);
         }
-        
-        // Persist updates
-        orderRepository.save(incomingOrder);
-        orderRepository.saveAll(candidates);
 
-        log.info("🧮 Matching completed for order id {}: executedVolume={}, status={}",
+        // Whatever is left rests in the book for later counterparts
+        if (incomingOrder.getStatus() != OrderStatus.EXECUTED) {
+            orderBook.add(incomingOrder);
+        }
+
+        if (replaying) {
+            return;
+        }
+        meters.fills.record(fills);
+
+        // Persisted asynchronously together with the makers touched above and its ORDER_MATCHED audit record
+        writeBehind.markMatched(incomingOrder, nowMillis);
+
+        log.info("🧮 Matching completed for order #{} - final status: {}, executed: {}, remaining: {}",
                 incomingOrder.getId(),
+                incomingOrder.getStatus(),
                 incomingOrder.getExecutedVolume(),
-                incomingOrder.getStatus());
-        
-        AuditEvent executionEvent = new AuditEvent(
-        	    "order-service",
-        	    "ORDER_MATCHED",
-        	    String.format(Locale.US,
-        	        "{\"orderId\":%d,\"executedVolume\":%.2f,\"status\":\"%s\"}",
-        	        incomingOrder.getId(),
-        	        incomingOrder.getExecutedVolume(),
-        	        incomingOrder.getStatus())
-        );
-    	restTemplate.postForObject(auditUrl, executionEvent, Void.class);
-    	
-    	log.info("Matching completed for order #{} - final status: {}, executed: {}, remaining: {}",
-    	        incomingOrder.getId(),
-    	        incomingOrder.getStatus(),
-    	        incomingOrder.getExecutedVolume(),
-    	        incomingOrder.getRemainingVolume());
+                incomingOrder.getRemainingVolume());
+    }
+
+    /**
+     * Uncrosses the book of an auctioned instrument at its clearing price, as
+     * of {@code now}, the time the gate closure was journaled. Bids at or
+     * above the price trade with asks at or below it, in price-time priority
+     * on both sides, all at the clearing price; whatever does not trade keeps
+     * resting for the next auction.
+     *
+     * Orders of the crossing levels that are due by {@code now} are expired
+     * first, so the clearing price and volume only count orders that can still
+     * trade. The price is then found in O(price levels), see
+     * {@link Uncrossing}; the allocation visits only the orders that trade.
+     */
+    public Uncrossing uncross(String instrument, OffsetDateTime now) {
+        OrderBook orderBook = book(instrument);
+        long nowMillis = millis(now);
+        expireDueWhileCrossed(orderBook, now, nowMillis);
+        Uncrossing uncrossing = Uncrossing.of(orderBook);
+        lastUncrossings.put(instrument, uncrossing);
+        if (!uncrossing.crosses()) {
+            return uncrossing;
+        }
+
+        BookSide bids = orderBook.side(OrderType.BUY);
+        BookSide asks = orderBook.side(OrderType.SELL);
+        long price = uncrossing.getPrice();
+        int fills = 0;
+
+        while (true) {
+            PriceLevel bidLevel = bids.bestLevel();
+            PriceLevel askLevel = asks.bestLevel();
+            if (bidLevel == null || askLevel == null || bidLevel.getPrice() < price || askLevel.getPrice() > price) {
+                break;
+            }
+            Order bid = bidLevel.peek();
+            Order ask = askLevel.peek();
+
+            long traded = Math.min(bid.getRemainingVolume(), ask.getRemainingVolume());
+            execute(bid, traded);
+            orderBook.fill(bidLevel, bid, traded);
+            execute(ask, traded);
+            orderBook.fill(askLevel, ask, traded);
+            fills++;
+
+            // Neither side took liquidity: the later of the two orders counts as the taker
+            Order taker = bid.getId() > ask.getId() ? bid : ask;
+            Order maker = taker == bid ? ask : bid;
+            tradeTape.append(instrument, nowMillis, taker.getType(), taker.getId(), maker.getId(), price, traded);
+
+            if (replaying) {
+                replayedTrades.accept(Trade.builder()
+                        .instrument(instrument)
+                        .takerOrderId(taker.getId())
+                        .makerOrderId(maker.getId())
+                        .takerSide(taker.getType())
+                        .price(price)
+                        .volume(traded)
+                        .executedAt(now)
+                        .build());
+                continue;
+            }
+
+            writeBehind.markFilled(maker, taker, price, traded, now);
+            writeBehind.markDirty(taker, nowMillis);
+        }
+
+        if (!replaying) {
+            meters.auctionFills.record(fills);
+            log.info("🔨 {} auction uncrossed: {} traded at {} in {} fills, surplus {}", instrument,
+                    uncrossing.getVolume(), price, fills, uncrossing.getSurplus());
+        }
+        return uncrossing;
+    }
+
+    /**
+     * The outcome of the last gate closure of an auctioned instrument, or null
+     * if it has not been uncrossed yet.
+     */
+    public Uncrossing lastUncrossing(String instrument) {
+        return lastUncrossings.get(instrument);
+    }
+
+    // Whether the best bid of the instrument is at or above its best ask; O(1)
+    public boolean crossed(String instrument) {
+        OrderBook orderBook = books.get(instrument);
+        if (orderBook == null) {
+            return false;
+        }
+        PriceLevel bestBid = orderBook.side(OrderType.BUY).bestLevel();
+        PriceLevel bestAsk = orderBook.side(OrderType.SELL).bestLevel();
+        return bestBid != null && bestAsk != null && bestBid.getPrice() >= bestAsk.getPrice();
+    }
+
+    public MatchingModes modes() {
+        return modes;
+    }
+
+    /**
+     * Cancels an order that is still resting in the book. The book is the
+     * source of truth for live orders; the given copy may be stale.
+     *
+     * @return the cancelled book instance, or null if the order is no longer live
+     */
+    public Order cancel(Order order) {
+        return cancel(order, OffsetDateTime.now());
+    }
+
+    public Order cancel(Order order, OffsetDateTime now) {
+        Order resting = book(order.getInstrument()).remove(order.getId());
+        if (resting == null) {
+            return null;
+        }
+        resting.setStatus(OrderStatus.CANCELLED);
+        resting.setCancelledAt(now);
+        if (!replaying) {
+            meters.cancelled.increment();
+        }
+        dirty(resting, AuditEvent.cancelled(resting.getId()), millis(now));
+        return resting;
+    }
+
+    /**
+     * Cancels a saved order whose NEW command was turned away, so it never
+     * reached its book and must not stay pending in the database. The book is
+     * not touched, so any thread may call it.
+     */
+    public void reject(Order order, OffsetDateTime now) {
+        order.setStatus(OrderStatus.CANCELLED);
+        order.setCancelledAt(now);
+        dirty(order, AuditEvent.cancelled(order.getId()), millis(now));
+    }
+
+    /**
+     * Expires an order that is still resting in the book.
+     *
+     * @return the expired book instance, or null if the order is no longer live
+     */
+    public Order expire(Order order) {
+        return expire(order, OffsetDateTime.now());
+    }
+
+    public Order expire(Order order, OffsetDateTime now) {
+        Order resting = book(order.getInstrument()).remove(order.getId());
+        if (resting == null) {
+            return null;
+        }
+        resting.setStatus(OrderStatus.EXPIRED);
+        dirty(resting, millis(now));
+        if (!replaying) {
+            meters.expired.increment();
+        }
+        return resting;
+    }
+
+    /**
+     * Puts an order recovered from a snapshot straight back into the book,
+     * without matching it.
+     */
+    public void restore(Order order) {
+        book(order.getInstrument()).add(order);
+    }
+
+    /**
+     * Visits the resting orders of every instrument, instrument by instrument.
+     * Only safe while no partition is matching.
+     */
+    public void forEachRestingOrder(Consumer<Order> action) {
+        new TreeMap<>(books).values().forEach(book -> book.forEach(action));
+    }
+
+    public int restingCount() {
+        return books.values().stream().mapToInt(OrderBook::size).sum();
+    }
+
+    /**
+     * Hands over the resting orders of the matching instruments whose
+     * deadline has passed, for the caller to expire through the journal.
+     * Only the partition owning those instruments may call this.
+     */
+    public void pollExpired(Predicate<String> instruments, long nowMillis, Consumer<Order> action) {
+        books.forEach((instrument, book) -> {
+            if (instruments.test(instrument)) {
+                book.pollExpired(nowMillis, action);
+            }
+        });
+    }
+
+    public Set<String> instruments() {
+        return books.keySet();
+    }
+
+    public void setReplaying(boolean replaying) {
+        this.replaying = replaying;
+    }
+
+    public void setReplayedTrades(Consumer<Trade> replayedTrades) {
+        this.replayedTrades = replayedTrades;
+    }
+
+    private static void execute(Order order, long traded) {
+        order.setExecutedVolume(order.getExecutedVolume() + traded);
+        if (order.getExecutedVolume() >= order.getVolume()) {
+            order.setStatus(OrderStatus.EXECUTED);
+        } else {
+            order.setStatus(OrderStatus.PARTIAL);
+        }
+    }
+
+    // Drops a resting order found past its deadline before its expiry was polled
+    // Only orders of levels that cross can take part in an uncrossing; removing some never makes others cross
+    private void expireDueWhileCrossed(OrderBook orderBook, OffsetDateTime now, long nowMillis) {
+        BookSide bids = orderBook.side(OrderType.BUY);
+        BookSide asks = orderBook.side(OrderType.SELL);
+        PriceLevel bestBid = bids.bestLevel();
+        PriceLevel bestAsk = asks.bestLevel();
+        if (bestBid == null || bestAsk == null || bestBid.getPrice() < bestAsk.getPrice()) {
+            return;
+        }
+        List<Order> due = new ArrayList<>();
+        collectDue(bids, bestAsk.getPrice(), now, due);
+        collectDue(asks, bestBid.getPrice(), now, due);
+        for (Order order : due) {
+            expireIfDue(orderBook, order, now, nowMillis);
+        }
+    }
+
+    private static void collectDue(BookSide side, long oppositeBest, OffsetDateTime now, List<Order> due) {
+        for (PriceLevel level : side.levels()) {
+            if (!side.crosses(level, oppositeBest)) {
+                break;
+            }
+            level.forEach(order -> {
+                if (order.getExpirationTimestamp().isBefore(now)) {
+                    due.add(order);
+                }
+            });
+        }
+    }
+
+    private boolean expireIfDue(OrderBook orderBook, Order order, OffsetDateTime now, long nowMillis) {
+        if (!order.getExpirationTimestamp().isBefore(now)) {
+            return false;
+        }
+        orderBook.remove(order.getId());
+        order.setStatus(OrderStatus.EXPIRED);
+        dirty(order, nowMillis);
+        if (!replaying) {
+            meters.expired.increment();
+        }
+        return true;
+    }
+
+    // Replayed state is restored to the database in bulk by the journal recovery instead
+    private void dirty(Order order, long nowMillis) {
+        if (!replaying) {
+            writeBehind.markDirty(order, nowMillis);
+        }
+    }
+
+    // The audit event goes to the outbox in the same flush as the order change
+    private void dirty(Order order, AuditEvent event, long nowMillis) {
+        if (!replaying) {
+            writeBehind.markDirty(order, event, nowMillis);
+        }
+    }
+
+    // The command time in epoch millis, without going through an Instant, which would be allocated
+    private static long millis(OffsetDateTime now) {
+        return now.toEpochSecond() * 1000 + now.getNano() / 1_000_000;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        meters = new EngineMeters(registry);
+        books.values().forEach(book -> bookGauges(book, registry));
+    }
+
+    private OrderBook book(String instrument) {
+        OrderBook book = books.get(instrument);
+        if (book == null) {
+            book = books.computeIfAbsent(instrument, key -> new OrderBook(key, depthListener));
+            bookGauges(book, registry);
+        }
+        return book;
+    }
+
+    // Read from the scrape thread: sizes only, which are safe to read racily
+    private static void bookGauges(OrderBook book, MeterRegistry registry) {
+        Gauge.builder("orders.book.orders", book, OrderBook::size)
+                .description("Orders resting in the book")
+                .tag("instrument", book.getInstrument()).register(registry);
+        for (OrderType side : OrderType.values()) {
+            Gauge.builder("orders.book.levels", book, b -> b.side(side).levelCount())
+                    .description("Price levels on one side of the book")
+                    .tag("instrument", book.getInstrument()).tag("side", side.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    private static final class EngineMeters {
+
+        final DistributionSummary fills;
+        final DistributionSummary auctionFills;
+        final Counter cancelled;
+        final Counter expired;
+
+        EngineMeters(MeterRegistry registry) {
+            fills = DistributionSummary.builder("orders.match.fills")
+                    .description("Fills generated by matching one incoming order").register(registry);
+            auctionFills = DistributionSummary.builder("orders.auction.fills")
+                    .description("Fills generated by uncrossing one auction").register(registry);
+            cancelled = Counter.builder("orders.cancelled").description("Resting orders cancelled")
+                    .register(registry);
+            expired = Counter.builder("orders.expired")
+                    .description("Orders expired, on arrival, while matching or at their deadline").register(registry);
+        }
+    }
+
+    OrderBook orderBook() {
+        return orderBook(Instrument.DEFAULT);
+    }
 
+    OrderBook orderBook(String instrument) {
+        return book(instrument);
     }
 }
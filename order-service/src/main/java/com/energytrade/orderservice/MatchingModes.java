@@ -0,0 +1,60 @@
+package com.energytrade.orderservice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * How each instrument is matched. By default an instrument matches
+ * continuously, every incoming order against the book on arrival. The
+ * instruments listed in {@code matching.auction.instruments} are call
+ * auctions instead: their orders only collect in the book, and the book is
+ * uncrossed at every gate closure, once per {@code matching.auction.interval-ms}
+ * on the wall clock, at a single clearing price.
+ *
+ * The journal is replayed with the modes of the running configuration:
+ * changing the mode of an instrument with orders in the journal changes how
+ * they are replayed.
+ */
+@Component
+public class MatchingModes {
+
+	// Every instrument matches continuously
+	public static final MatchingModes CONTINUOUS = new MatchingModes("", 60_000);
+
+	private final Set<String> auctionInstruments;
+	private final long intervalMillis;
+
+	public MatchingModes(@Value("${matching.auction.instruments:}") String auctionInstruments,
+			@Value("${matching.auction.interval-ms:900000}") long intervalMillis) {
+		if (intervalMillis <= 0) {
+			throw new IllegalArgumentException("The auction interval must be positive");
+		}
+		this.auctionInstruments = Arrays.stream(auctionInstruments.split(",")).map(String::trim)
+				.filter(instrument -> !instrument.isEmpty()).collect(Collectors.toUnmodifiableSet());
+		this.intervalMillis = intervalMillis;
+	}
+
+	public boolean isAuction(String instrument) {
+		return auctionInstruments.contains(instrument);
+	}
+
+	public Set<String> auctionInstruments() {
+		return auctionInstruments;
+	}
+
+	/**
+	 * The first gate closure after {@code nowMillis}, on a multiple of the
+	 * interval since the epoch (e.g. every quarter hour), or
+	 * {@link Long#MAX_VALUE} if no instrument is auctioned.
+	 */
+	public long nextGateClosure(long nowMillis) {
+		if (auctionInstruments.isEmpty()) {
+			return Long.MAX_VALUE;
+		}
+		return (nowMillis / intervalMillis + 1) * intervalMillis;
+	}
+}
@@ -0,0 +1,223 @@
+package com.energytrade.orderservice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.FixedPoint;
+import com.energytrade.orderservice.model.Notification;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderResult;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.OrderBatchInsert;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+import com.energytrade.orderservice.pricing.MarketPriceCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk order entry. A batch is validated in one pass, inserted with one JDBC
+ * batch, fed to the matching partitions back to back and answered with one
+ * result per submitted order, in submission order.
+ *
+ * Accepts a JSON array, or NDJSON (one order per line) which is processed
+ * in chunks while it is read and answered as NDJSON as well.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/orders")
+public class OrderBatchController {
+
+	static final String NDJSON = "application/x-ndjson";
+
+	private final OrderBatchInsert batchInsert;
+	private final MarketPriceCache marketPrice;
+	private final MatchingPipeline matchingPipeline;
+	private final OrderWriteBehind writeBehind;
+	private final OutboundDispatcher outbound;
+	private final ObjectMapper objectMapper;
+	private final int chunkSize;
+	private final int maxSize;
+
+	public OrderBatchController(OrderBatchInsert batchInsert, MarketPriceCache marketPrice,
+			MatchingPipeline matchingPipeline, OrderWriteBehind writeBehind, OutboundDispatcher outbound,
+			ObjectMapper objectMapper, @Value("${order.batch.chunk-size:1000}") int chunkSize,
+			@Value("${order.batch.max-size:10000}") int maxSize) {
+		this.batchInsert = batchInsert;
+		this.marketPrice = marketPrice;
+		this.matchingPipeline = matchingPipeline;
+		this.writeBehind = writeBehind;
+		this.outbound = outbound;
+		this.objectMapper = objectMapper;
+		this.chunkSize = chunkSize;
+		this.maxSize = maxSize;
+	}
+
+	@PostMapping(path = "/batch", consumes = "application/json")
+	public ResponseEntity<?> createOrders(@RequestBody List<Order> orders,
+			@RequestParam(defaultValue = "false") boolean durable) {
+		if (orders.isEmpty() || orders.size() > maxSize) {
+			log.warn("❌ Rejected batch of {} orders", orders.size());
+			return ResponseEntity.badRequest().body("A batch must contain between 1 and " + maxSize + " orders.");
+		}
+
+		List<OrderResult> results = new ArrayList<>(orders.size());
+		for (int from = 0; from < orders.size(); from += chunkSize) {
+			results.addAll(process(orders.subList(from, Math.min(orders.size(), from + chunkSize)), from));
+		}
+		return acknowledge(durable).body(results);
+	}
+
+	/**
+	 * NDJSON variant: orders are matched chunk by chunk as they arrive and
+	 * each chunk's results are written back before the next chunk is read.
+	 */
+	@PostMapping(path = "/batch", consumes = NDJSON, produces = NDJSON)
+	public void createOrdersStream(InputStream body, @RequestParam(defaultValue = "false") boolean durable,
+			HttpServletResponse response) throws IOException {
+		response.setContentType(NDJSON);
+		OutputStream out = response.getOutputStream();
+		ObjectWriter writer = objectMapper.writerFor(OrderResult.class);
+
+		int index = 0;
+		List<Order> chunk = new ArrayList<>(chunkSize);
+		try (MappingIterator<Order> lines = objectMapper.readerFor(Order.class).readValues(body)) {
+			while (true) {
+				Order order;
+				try {
+					if (!lines.hasNextValue()) {
+						break;
+					}
+					order = lines.nextValue();
+				} catch (JsonProcessingException e) {
+					// The rest of the stream cannot be read reliably after a malformed line
+					log.warn("❌ Malformed order in NDJSON batch at index {}: {}", index + chunk.size(),
+							e.getOriginalMessage());
+					flushChunk(chunk, index, durable, writer, out);
+					index += chunk.size();
+					write(writer, out, OrderResult.rejected(index, "Malformed order: " + e.getOriginalMessage()));
+					return;
+				}
+				chunk.add(order);
+				if (chunk.size() == chunkSize) {
+					flushChunk(chunk, index, durable, writer, out);
+					index += chunk.size();
+					chunk = new ArrayList<>(chunkSize);
+				}
+			}
+		}
+		flushChunk(chunk, index, durable, writer, out);
+	}
+
+	private void flushChunk(List<Order> chunk, int offset, boolean durable, ObjectWriter writer, OutputStream out)
+			throws IOException {
+		if (chunk.isEmpty()) {
+			return;
+		}
+		List<OrderResult> results = process(chunk, offset);
+		if (durable || matchingPipeline.durableOnly()) {
+			writeBehind.awaitFlushed(writeBehind.writtenSequence());
+		}
+		for (OrderResult result : results) {
+			write(writer, out, result);
+		}
+		out.flush();
+	}
+
+	private void write(ObjectWriter writer, OutputStream out, OrderResult result) throws IOException {
+		out.write(writer.writeValueAsBytes(result));
+		out.write('\n');
+	}
+
+	/**
+	 * Validates, inserts and matches one chunk; {@code offset} is the index
+	 * of its first order in the whole submission.
+	 */
+	private List<OrderResult> process(List<Order> orders, int offset) {
+		OrderResult[] results = new OrderResult[orders.size()];
+		List<Order> accepted = new ArrayList<>(orders.size());
+		long price = marketPrice.currentTicks();
+		OffsetDateTime now = OffsetDateTime.now();
+
+		for (int i = 0; i < orders.size(); i++) {
+			Order order = orders.get(i);
+			String error = OrderValidator.validate(order);
+			if (error != null) {
+				results[i] = OrderResult.rejected(offset + i, error);
+				continue;
+			}
+			order.setId(null);
+			order.setMarketPrice(price);
+			order.setExecutedVolume(0L);
+			order.setStatus(OrderStatus.PENDING);
+			order.setTimestamp(now);
+			order.setCancelledAt(null);
+			accepted.add(order);
+		}
+
+		batchInsert.insert(accepted, saved -> new AuditEvent("order-service", "ORDER_CREATED", String.format(
+				Locale.US, "{\"orderId\":%d,\"marketPrice\":%s}", saved.getId(), FixedPoint.fromTicks(price))));
+
+		// Published back to back so each partition drains its share in one go
+		List<CompletableFuture<Order>> matched = new ArrayList<>(accepted.size());
+		for (Order order : accepted) {
+			matched.add(matchingPipeline.submit(order));
+		}
+		int next = 0;
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] == null) {
+				long orderId = accepted.get(next).getId();
+				try {
+					results[i] = OrderResult.accepted(offset + i, matchingPipeline.await(matched.get(next++)));
+				} catch (RejectedExecutionException e) {
+					// Its partition's ring stayed full; the pipeline cancelled the saved order
+					results[i] = OrderResult.rejected(offset + i, e.getMessage());
+				} catch (RuntimeException e) {
+					// Saved and published, so still matched: the rest of the chunk is answered all the same
+					log.warn("⚠️ Batch order {} not confirmed: {}", orderId, e.getMessage());
+					results[i] = OrderResult.unconfirmed(offset + i, orderId, e.getMessage());
+				}
+			}
+		}
+
+		if (!accepted.isEmpty()) {
+			outbound.publishNotification(new Notification("admin@energytrade.com", accepted.size()
+					+ " novas ordens criadas em lote (IDs " + accepted.get(0).getId() + " a "
+					+ accepted.get(accepted.size() - 1).getId() + ")"));
+		}
+		log.info("📦 Batch of {} orders processed: {} accepted, {} rejected", orders.size(), accepted.size(),
+				orders.size() - accepted.size());
+		return List.of(results);
+	}
+
+	private ResponseEntity.BodyBuilder acknowledge(boolean durable) {
+		long sequence = writeBehind.writtenSequence();
+		if (durable || matchingPipeline.durableOnly()) {
+			writeBehind.awaitFlushed(sequence);
+		}
+		return ResponseEntity.ok().header(OrderController.WRITE_SEQUENCE_HEADER, String.valueOf(sequence));
+	}
+}
@@ -1,29 +1,46 @@
 package com.energytrade.orderservice;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.energytrade.orderservice.metrics.Meters;
 import com.energytrade.orderservice.model.Order;
 import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
 import com.energytrade.orderservice.repository.OrderRepository;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Nightly reconciliation. Resting orders are expired at their deadline by the
+ * matching partitions' expiry wheels; this stays as a safety net for anything
+ * still PENDING past its deadline. An order that cannot be expired, on a full
+ * ring or a match timeout, is logged and counted and left to the next run;
+ * the others are expired all the same.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class OrderCleanupScheduler {
+public class OrderCleanupScheduler implements MeterBinder {
 
     private final OrderRepository orderRepository;
+    private final MatchingPipeline matchingPipeline;
 
     @Value("${order.cleanup.enabled:true}")
     private boolean cleanupEnabled;
 
+    private volatile Counter failures = failures(Meters.NONE);
+
     @Scheduled(cron = "${order.cleanup.cron:0 0 2 * * *}") // default: 2h da manhã
     public void expirePendingOrders() {
         if (!cleanupEnabled) {
@@ -39,11 +56,35 @@ public class OrderCleanupScheduler {
             return;
         }
 
+        // Expiry is applied (and persisted) by the matching thread so the book stays consistent
+        List<CompletableFuture<Order>> results = new ArrayList<>(expired.size());
         for (Order order : expired) {
-            order.setStatus(OrderStatus.EXPIRED);
+            results.add(matchingPipeline.expire(order));
+        }
+        int count = 0;
+        int failed = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                if (matchingPipeline.await(results.get(i)) != null) {
+                    count++;
+                }
+            } catch (RuntimeException e) {
+                failed++;
+                failures.increment();
+                log.warn("⚠️ Falha ao expirar a ordem {}: {}", expired.get(i).getId(), e.getMessage());
+            }
         }
 
-        orderRepository.saveAll(expired);
-        log.info("🧹 {} ordens expiradas foram marcadas como EXPIRED", expired.size());
+        log.info("🧹 {} ordens expiradas foram marcadas como EXPIRED, {} falharam", count, failed);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        failures = failures(registry);
+    }
+
+    private static Counter failures(MeterRegistry registry) {
+        return Counter.builder("orders.cleanup.failed")
+                .description("Overdue orders the cleanup could not expire, left to its next run").register(registry);
     }
 }
@@ -1,12 +1,16 @@
 package com.energytrade.orderservice;
 
 import java.time.OffsetDateTime;
-import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,102 +18,151 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 
+import com.energytrade.orderservice.metrics.Meters;
 import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.FixedPoint;
 import com.energytrade.orderservice.model.Notification;
 import com.energytrade.orderservice.model.Order;
 import com.energytrade.orderservice.model.OrderStatus;
-import com.energytrade.orderservice.model.PriceResponse;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.OrderEntryStore;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+import com.energytrade.orderservice.pricing.MarketPriceCache;
 import com.energytrade.orderservice.repository.OrderRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 @RestController
 @RequestMapping("/orders")
-public class OrderController {
+public class OrderController implements MeterBinder {
 
 	private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
+	public static final String WRITE_SEQUENCE_HEADER = "X-Write-Sequence";
+
 	private final OrderRepository repository;
-	private final RestTemplate restTemplate;
-	private final String pricingUrl;
-	private final String auditUrl;
-	private final String notificationUrl;
-	private final MatchingEngine matchingEngine;
-
-	public OrderController(OrderRepository repository, RestTemplate restTemplate,
-			@Value("${pricing.service.url}") String pricingUrl, @Value("${audit.service.url}") String auditUrl,
-			@Value("${notification.service.url}") String notificationUrl, MatchingEngine matchingEngine) {
+	private final MarketPriceCache marketPrice;
+	private final OutboundDispatcher outbound;
+	private final MatchingPipeline matchingPipeline;
+	private final OrderWriteBehind writeBehind;
+	private final OrderEntryStore entryStore;
+	private final OrderResponseExecutor responses;
+	private volatile EntryStages stages = new EntryStages(Meters.NONE);
+
+	public OrderController(OrderRepository repository, MarketPriceCache marketPrice, OutboundDispatcher outbound,
+			MatchingPipeline matchingPipeline, OrderWriteBehind writeBehind, OrderEntryStore entryStore,
+			OrderResponseExecutor responses) {
 		this.repository = repository;
-		this.restTemplate = restTemplate;
-		this.pricingUrl = pricingUrl;
-		this.auditUrl = auditUrl;
-		this.notificationUrl = notificationUrl;
-		this.matchingEngine = matchingEngine;
+		this.marketPrice = marketPrice;
+		this.outbound = outbound;
+		this.matchingPipeline = matchingPipeline;
+		this.writeBehind = writeBehind;
+		this.entryStore = entryStore;
+		this.responses = responses;
 	}
 
+	/**
+	 * Enters an order without holding a thread while it is saved, matched and,
+	 * with {@code durable=true}, flushed. The match is published from the
+	 * thread that saved the order; what follows the match and the flush runs
+	 * on the {@link OrderResponseExecutor}, never on the matching partition or
+	 * the write-behind writer that completed them.
+	 */
 	@PostMapping
-	public ResponseEntity<?> createOrder(@RequestBody Order order) {
-		// Validate volume before proceeding
-		if (order.getVolume() <= 0) {
-			logger.warn("❌ Rejected order with invalid volume: {}", order);
-			return ResponseEntity.badRequest().body("Order volume must be a positive number.");
+	public CompletableFuture<ResponseEntity<?>> createOrder(@RequestBody Order order,
+			@RequestParam(defaultValue = "false") boolean durable) {
+		return createOrder(order, durable, saved -> { });
+	}
+
+	/**
+	 * As {@link #createOrder(Order, boolean)}, handing the order to
+	 * {@code onSaved} on the entry store thread once it has its id, before it
+	 * is published to matching and so before any of its trades.
+	 */
+	public CompletableFuture<ResponseEntity<?>> createOrder(Order order, boolean durable, Consumer<Order> onSaved) {
+		// Validated before it joins a JDBC batch shared with other requests
+		String error = OrderValidator.validate(order);
+		if (error != null) {
+			logger.warn("❌ Rejected order: {} {}", error, order);
+			return answer(ResponseEntity.badRequest().body(error));
 		}
 
-		// Fetch current market price
-		PriceResponse price = restTemplate.getForObject(pricingUrl, PriceResponse.class);
-		order.setMarketPrice(price.getValue());
+		EntryStages stages = this.stages;
+		long[] mark = { System.nanoTime() };
+		// Latest market price, refreshed in the background (informational only, see ADR-004)
+		order.setMarketPrice(marketPrice.currentTicks());
+		mark[0] = stages.lap(stages.price, mark[0]);
 
 		// Initialize order state
-		order.setExecutedVolume(0.0);
+		order.setExecutedVolume(0L);
 		order.setStatus(OrderStatus.PENDING);
 		order.setTimestamp(OffsetDateTime.now());
 
-		Order savedOrder = repository.save(order);
-		matchingEngine.match(savedOrder);
-
-		AuditEvent event = new AuditEvent("order-service", "ORDER_CREATED", String.format(Locale.US,
-				"{\"orderId\":%d,\"marketPrice\":%.2f}", savedOrder.getId(), savedOrder.getMarketPrice()));
-		restTemplate.postForObject(auditUrl, event, Void.class); // ✅ Envio do evento de auditoria
-
-		Notification notification = new Notification("admin@energytrade.com",
-				"Nova ordem criada com ID " + savedOrder.getId());
-		restTemplate.postForObject(notificationUrl, notification, Void.class);
-
-		return ResponseEntity.ok(savedOrder);
+		// ✅ Evento de auditoria gravado no outbox na mesma transação da ordem
+		return entryStore.insert(order, saved -> new AuditEvent("order-service", "ORDER_CREATED", String.format(
+				Locale.US, "{\"orderId\":%d,\"marketPrice\":%s}", saved.getId(),
+				FixedPoint.fromTicks(saved.getMarketPrice())))).thenCompose(savedOrder -> {
+					mark[0] = stages.lap(stages.save, mark[0]);
+					onSaved.accept(savedOrder);
+					// Matching runs on the matching thread of the instrument, which hands back a snapshot of the
+					// order: the instance itself may rest in the book and go on changing there
+					return matchingPipeline.withTimeout(matchingPipeline.submit(savedOrder));
+				}).thenComposeAsync(matchedOrder -> {
+					mark[0] = stages.lap(stages.match, mark[0]);
+					Notification notification = new Notification("admin@energytrade.com",
+							"Nova ordem criada com ID " + matchedOrder.getId());
+					outbound.publishNotification(notification);
+					mark[0] = stages.lap(stages.notify, mark[0]);
+					return acknowledge(matchedOrder, durable);
+				}, responses).whenComplete((response, failure) -> {
+					if (failure == null && durable(durable)) {
+						stages.lap(stages.persist, mark[0]);
+					}
+				}).exceptionally(OrderController::overloaded);
 	}
 
 	@DeleteMapping("/{orderId}")
-	public ResponseEntity<?> cancelOrder(@PathVariable Long orderId) {
-		return repository.findById(orderId).map(order -> {
+	public CompletableFuture<ResponseEntity<?>> cancelOrder(@PathVariable Long orderId,
+			@RequestParam(defaultValue = "false") boolean durable) {
+		return entryStore.find(orderId).thenCompose(found -> {
+			if (found.isEmpty()) {
+				logger.warn("❌ Cancel attempt failed: Order {} not found", orderId);
+				return answer(ResponseEntity.notFound().build());
+			}
+			Order order = found.get();
 			// Only allow canceling if order is still pending or partial
 			if (order.getStatus() == OrderStatus.EXECUTED || order.getStatus() == OrderStatus.CANCELLED) {
 				logger.warn("⚠️ Attempted to cancel order in invalid state: {}", order);
-				return ResponseEntity.badRequest()
-						.body("Cannot cancel an order that is already executed or cancelled.");
+				return answer(ResponseEntity.badRequest()
+						.body("Cannot cancel an order that is already executed or cancelled."));
 			}
 
-			order.setStatus(OrderStatus.CANCELLED);
-			order.setCancelledAt(OffsetDateTime.now());
-
-			repository.save(order);
-
-			// Audit logging
-			AuditEvent event = new AuditEvent("order-service", "ORDER_CANCELLED",
-					String.format(Locale.US, "{\"orderId\":%d}", order.getId()));
-			restTemplate.postForObject(auditUrl, event, Void.class);
-
-			// Optional: notify admin
-			Notification notification = new Notification("admin@energytrade.com",
-					"Ordem cancelada com ID " + order.getId());
-			restTemplate.postForObject(notificationUrl, notification, Void.class);
-
-			logger.info("✅ Order {} successfully cancelled", orderId);
-			return ResponseEntity.ok(order);
-		}).orElseGet(() -> {
-			logger.warn("❌ Cancel attempt failed: Order {} not found", orderId);
-			return ResponseEntity.notFound().build();
-		});
+			// Removes it from the book and persists the cancellation
+			return matchingPipeline.withTimeout(matchingPipeline.cancel(order)).thenComposeAsync(cancelled -> {
+				if (cancelled == null) {
+					// Filled or expired in the book but not flushed to the database yet
+					logger.warn("⚠️ Attempted to cancel order that is no longer live: {}", orderId);
+					return answer(ResponseEntity.badRequest()
+							.body("Cannot cancel an order that is no longer pending or partial."));
+				}
+
+				// The ORDER_CANCELLED audit event is written to the outbox with the cancellation itself
+
+				// Optional: notify admin
+				Notification notification = new Notification("admin@energytrade.com",
+						"Ordem cancelada com ID " + cancelled.getId());
+				outbound.publishNotification(notification);
+
+				logger.info("✅ Order {} successfully cancelled", orderId);
+				return acknowledge(cancelled, durable);
+			}, responses);
+		}).exceptionally(OrderController::overloaded);
 	}
 	
 	@GetMapping("/{id}")
@@ -119,8 +172,73 @@ public class OrderController {
 	            .orElseGet(() -> ResponseEntity.notFound().build());
 	}
 
-	@GetMapping
-	public List<Order> listOrders() {
-		return repository.findAll();
+	/**
+	 * Answers with the write sequence covering the order's changes. With
+	 * {@code durable=true}, or books loaded from the database, only once the
+	 * write-behind flush has passed it.
+	 */
+	private CompletableFuture<ResponseEntity<?>> acknowledge(Order order, boolean durable) {
+		long sequence = writeBehind.writtenSequence();
+		ResponseEntity<?> response = ResponseEntity.ok().header(WRITE_SEQUENCE_HEADER, String.valueOf(sequence))
+				.body(order);
+		if (!durable(durable)) {
+			return answer(response);
+		}
+		return writeBehind.whenDurable(sequence).thenApplyAsync(flushed -> response, responses);
+	}
+
+	// Asked for, or forced by books that come back from the database after a crash
+	private boolean durable(boolean requested) {
+		return requested || matchingPipeline.durableOnly();
+	}
+
+	private static CompletableFuture<ResponseEntity<?>> answer(ResponseEntity<?> response) {
+		return CompletableFuture.completedFuture(response);
+	}
+
+	// The entry store queue is full: turned away rather than queued without bound; anything else fails the request
+	private static ResponseEntity<?> overloaded(Throwable failure) {
+		Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+		if (cause instanceof RejectedExecutionException) {
+			logger.warn("⚠️ Order entry overloaded: {}", cause.getMessage());
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(cause.getMessage());
+		}
+		throw failure instanceof CompletionException ? (CompletionException) failure : new CompletionException(failure);
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		stages = new EntryStages(registry);
+	}
+
+	// Order entry stages: market price, initial save with its audit record, match, notification and,
+	// for durable requests, the wait for the final write-behind flush
+	private static final class EntryStages {
+
+		final Timer price;
+		final Timer save;
+		final Timer match;
+		final Timer notify;
+		final Timer persist;
+
+		EntryStages(MeterRegistry registry) {
+			price = stage(registry, "price");
+			save = stage(registry, "save");
+			match = stage(registry, "match");
+			notify = stage(registry, "notify");
+			persist = stage(registry, "persist");
+		}
+
+		private static Timer stage(MeterRegistry registry, String stage) {
+			return Timer.builder("orders.entry.stage").description("Time spent in one stage of order entry")
+					.tag("stage", stage).register(registry);
+		}
+
+		// Records the time since mark and returns the new mark
+		long lap(Timer stage, long mark) {
+			long now = System.nanoTime();
+			stage.record(now - mark, TimeUnit.NANOSECONDS);
+			return now;
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.energytrade.orderservice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.energytrade.orderservice.model.FixedPoint;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.persistence.OrderFilter;
+import com.energytrade.orderservice.persistence.OrderQuery;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Order listing, filtered on status, type, instrument, creation time range
+ * and price. As JSON it answers one page at a time and returns the cursor of
+ * the next page in {@code X-Next-Cursor}; as NDJSON it streams every matching
+ * order straight from the database, so memory use does not depend on how
+ * many orders match.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/orders")
+public class OrderQueryController {
+
+	static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+	private final OrderQuery orderQuery;
+	private final ObjectMapper objectMapper;
+	private final int maxPageSize;
+
+	public OrderQueryController(OrderQuery orderQuery, ObjectMapper objectMapper,
+			@Value("${order.query.max-page-size:1000}") int maxPageSize) {
+		this.orderQuery = orderQuery;
+		this.objectMapper = objectMapper;
+		this.maxPageSize = maxPageSize;
+	}
+
+	@GetMapping(produces = "application/json")
+	public ResponseEntity<?> listOrders(@RequestParam(required = false) OrderStatus status,
+			@RequestParam(required = false) OrderType type, @RequestParam(required = false) String instrument,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+			@RequestParam(required = false) BigDecimal minPrice, @RequestParam(required = false) BigDecimal maxPrice,
+			@RequestParam(defaultValue = "0") long after, @RequestParam(defaultValue = "100") int limit) {
+		if (limit < 1 || limit > maxPageSize) {
+			return ResponseEntity.badRequest().body("Page limit must be between 1 and " + maxPageSize + ".");
+		}
+		List<Order> page = orderQuery.page(filter(status, type, instrument, from, to, minPrice, maxPrice), after,
+				limit);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (page.size() == limit) {
+			// A full page: there may be more after its last order
+			response.header(NEXT_CURSOR_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+		}
+		return response.body(page);
+	}
+
+	@GetMapping(produces = OrderBatchController.NDJSON)
+	public void streamOrders(@RequestParam(required = false) OrderStatus status,
+			@RequestParam(required = false) OrderType type, @RequestParam(required = false) String instrument,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+			@RequestParam(required = false) BigDecimal minPrice, @RequestParam(required = false) BigDecimal maxPrice,
+			@RequestParam(defaultValue = "0") long after, HttpServletResponse response) throws IOException {
+		response.setContentType(OrderBatchController.NDJSON);
+		OutputStream out = response.getOutputStream();
+		ObjectWriter writer = objectMapper.writerFor(Order.class);
+		long start = System.nanoTime();
+		long count;
+		try {
+			count = orderQuery.stream(filter(status, type, instrument, from, to, minPrice, maxPrice), after, order -> {
+				try {
+					out.write(writer.writeValueAsBytes(order));
+					out.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			// Client went away; the statement is closed with the aborted query
+			log.warn("⚠️ Order stream aborted: {}", e.getCause().getMessage());
+			return;
+		}
+		out.flush();
+		log.info("📤 Streamed {} orders in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private static OrderFilter filter(OrderStatus status, OrderType type, String instrument, OffsetDateTime from,
+			OffsetDateTime to, BigDecimal minPrice, BigDecimal maxPrice) {
+		return OrderFilter.builder().status(status).type(type).instrument(instrument).from(from).to(to)
+				.minPrice(minPrice == null ? null : FixedPoint.toTicks(minPrice))
+				.maxPrice(maxPrice == null ? null : FixedPoint.toTicks(maxPrice)).build();
+	}
+}
@@ -0,0 +1,46 @@
+package com.energytrade.orderservice;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Threads that carry order entry and cancellation on once their command is
+ * matched or their changes are flushed. Those futures are completed by a
+ * matching partition or the write-behind writer, which must go straight back
+ * to their rings instead of notifying and building responses.
+ */
+@Component
+public class OrderResponseExecutor implements Executor {
+
+	static final String THREAD_PREFIX = "order-response-";
+
+	private final ExecutorService threads;
+
+	public OrderResponseExecutor(@Value("${order.response.threads:4}") int threadCount) {
+		AtomicInteger threads = new AtomicInteger();
+		this.threads = Executors.newFixedThreadPool(threadCount, r -> {
+			Thread thread = new Thread(r, THREAD_PREFIX + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		threads.execute(command);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		threads.shutdown();
+		threads.awaitTermination(5, TimeUnit.SECONDS);
+	}
+}
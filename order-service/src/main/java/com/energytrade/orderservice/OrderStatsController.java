@@ -0,0 +1,80 @@
+package com.energytrade.orderservice;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.energytrade.orderservice.journal.CommandJournal;
+import com.energytrade.orderservice.journal.JournalRecovery;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.BookWarmStart;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Operational views of the order-service internals: persistence watermark,
+ * journal, matching partitions, outbound notifications and the audit outbox.
+ */
+@RestController
+@RequestMapping("/orders")
+@RequiredArgsConstructor
+public class OrderStatsController {
+
+	private final OrderWriteBehind writeBehind;
+	private final CommandJournal journal;
+	private final JournalRecovery journalRecovery;
+	private final BookWarmStart warmStart;
+	private final OutboundDispatcher outbound;
+	private final MatchingPipeline matchingPipeline;
+	private final RetryAuditScheduler auditRelay;
+
+	// Write-behind progress: changes up to "flushed" are already in the database
+	@GetMapping("/watermark")
+	public Map<String, Long> watermark() {
+		return Map.of("written", writeBehind.writtenSequence(), "flushed", writeBehind.flushedSequence());
+	}
+
+	// Matching partitions: instruments owned, commands applied and throughput of each
+	@GetMapping("/partitions")
+	public List<Map<String, Object>> partitions() {
+		return matchingPipeline.partitionStats();
+	}
+
+	// Outbound notification queue: depth, delivered and failed messages
+	@GetMapping("/outbound")
+	public Map<String, Object> outbound() {
+		return outbound.stats();
+	}
+
+	// Audit outbox backlog and drain rate
+	@GetMapping("/outbox")
+	public Map<String, Object> outbox() {
+		Map<String, Object> stats = auditRelay.stats();
+		stats.put("pendingFlush", writeBehind.pendingAuditCount());
+		return stats;
+	}
+
+	// Journal position and how long the last startup replay took
+	@GetMapping("/journal")
+	public Map<String, Object> journal() {
+		return Map.of("sequence", journal.sequence(), "snapshotSequence", journal.snapshotSequence(), "segments",
+				journal.segmentCount(), "recovery",
+				Map.of("restoredOrders", journalRecovery.getRestoredOrders(), "replayedCommands",
+						journalRecovery.getReplayedCommands(), "replayMillis", journalRecovery.getReplayMillis(),
+						"commandsPerSecond", journalRecovery.commandsPerSecond(), "totalMillis",
+						journalRecovery.getRecoveryMillis()));
+	}
+
+	// Warm start of the books from the database, when enabled
+	@GetMapping("/warm-start")
+	public Map<String, Object> warmStart() {
+		return Map.of("enabled", warmStart.enabled(), "loaded", warmStart.isLoaded(), "loadedOrders",
+				warmStart.getLoadedOrders(), "loadMillis", warmStart.getLoadMillis(), "ordersPerSecond",
+				warmStart.ordersPerSecond());
+	}
+}
@@ -0,0 +1,46 @@
+package com.energytrade.orderservice;
+
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.Order;
+
+/**
+ * Checks of a submitted order, shared by single and batch entry: an order
+ * that passes can be inserted, so a malformed one is answered with 400
+ * before it reaches a JDBC batch shared with other requests.
+ */
+final class OrderValidator {
+
+	static final String INVALID_INSTRUMENT = "Order instrument must have 1 to " + Instrument.MAX_LENGTH
+			+ " letters, digits or '.', '_', ':', '-'.";
+
+	private OrderValidator() {
+	}
+
+	/**
+	 * Normalizes the instrument of the order.
+	 *
+	 * @return why the order is rejected, null if it is valid
+	 */
+	static String validate(Order order) {
+		if (order == null) {
+			return "Order must not be null.";
+		}
+		if (order.getType() == null) {
+			return "Order type is required.";
+		}
+		if (order.getPrice() <= 0) {
+			return "Order price must be a positive number.";
+		}
+		if (order.getVolume() <= 0) {
+			return "Order volume must be a positive number.";
+		}
+		if (order.getExpirationTimestamp() == null) {
+			return "Order expiration timestamp is required.";
+		}
+		order.setInstrument(Instrument.normalize(order.getInstrument()));
+		if (!Instrument.isValid(order.getInstrument())) {
+			return INVALID_INSTRUMENT;
+		}
+		return null;
+	}
+}
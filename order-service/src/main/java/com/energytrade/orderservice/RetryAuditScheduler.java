@@ -2,6 +2,9 @@ package com.energytrade.orderservice;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
@@ -10,8 +13,23 @@ import com.energytrade.orderservice.model.AuditEvent;
 import com.energytrade.orderservice.model.AuditFallback;
 import com.energytrade.orderservice.repository.AuditFallbackRepository;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Relays the audit outbox ({@code audit_fallbacks}) to audit-service.
+ *
+ * Each run pages through the table by id, posts every page as one batch and
+ * bulk-deletes the rows once audit-service acknowledged them. A failed batch
+ * stops the run and postpones the next attempt with exponential backoff.
+ *
+ * A batch that reached audit-service but whose acknowledgement was lost is
+ * sent again: every event carries its outbox id and creation time, so
+ * audit-service records it only once.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -21,26 +39,80 @@ public class RetryAuditScheduler {
     private final RestTemplate restTemplate;
     private final OrderConfig orderConfig; // usado para obter auditUrl dinamicamente
 
-    @Scheduled(fixedDelay = 60000) // a cada 60s
+    @Value("${audit.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${audit.outbox.backoff-initial-ms:1000}")
+    private long initialBackoffMillis = 1000;
+
+    @Value("${audit.outbox.backoff-max-ms:60000}")
+    private long maxBackoffMillis = 60000;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile int consecutiveFailures;
+    private volatile long nextAttemptAt;
+    private volatile double drainRatePerSecond;
+
+    @Scheduled(fixedDelayString = "${audit.outbox.poll-interval-ms:500}")
     public void retryFailedAudits() {
-        Iterator<AuditFallback> iterator = fallbackRepository.findAll().iterator();
+        long start = System.currentTimeMillis();
+        if (start < nextAttemptAt) {
+            return;
+        }
 
-        while (iterator.hasNext()) {
-            AuditFallback fallback = iterator.next();
+        long cursor = 0;
+        long sent = 0;
+        while (true) {
+            List<AuditFallback> page = fallbackRepository.findByIdGreaterThanOrderByIdAsc(cursor,
+                    PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                break;
+            }
 
-            AuditEvent event = new AuditEvent(
-                    fallback.getSource(),
-                    fallback.getType(),
-                    fallback.getPayload()
-            );
+            List<AuditEvent> events = new ArrayList<>(page.size());
+            List<Long> ids = new ArrayList<>(page.size());
+            for (AuditFallback fallback : page) {
+                events.add(AuditEvent.relayed(fallback));
+                ids.add(fallback.getId());
+            }
 
             try {
-                restTemplate.postForObject(orderConfig.getAuditServiceUrl(), event, Void.class);
-                fallbackRepository.deleteById(fallback.getId());
-                log.info("Reenvio de auditoria bem-sucedido para evento ID {}", fallback.getId());
+                restTemplate.postForObject(orderConfig.getAuditServiceUrl() + "/batch", events, Void.class);
             } catch (Exception e) {
-                log.warn("Falha ao reenviar evento de auditoria ID {}: {}", fallback.getId(), e.getMessage());
+                consecutiveFailures++;
+                long backoff = Math.min(maxBackoffMillis,
+                        initialBackoffMillis << Math.min(consecutiveFailures - 1, 20));
+                nextAttemptAt = System.currentTimeMillis() + backoff;
+                log.warn("Falha ao reenviar lote de {} eventos de auditoria (tentativa {}), nova tentativa em {} ms: {}",
+                        page.size(), consecutiveFailures, backoff, e.getMessage());
+                break;
+            }
+
+            fallbackRepository.deleteAllByIdInBatch(ids);
+            consecutiveFailures = 0;
+            sent += page.size();
+            delivered.addAndGet(page.size());
+            cursor = ids.get(ids.size() - 1);
+            if (page.size() < batchSize) {
+                break;
             }
         }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        if (sent > 0) {
+            drainRatePerSecond = sent * 1000.0 / elapsed;
+            log.info("Reenvio de auditoria bem-sucedido: {} eventos em {} ms", sent, elapsed);
+        }
+    }
+
+    // Backlog depth and how fast the last run drained it
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("backlog", fallbackRepository.count());
+        stats.put("delivered", delivered.get());
+        stats.put("drainRatePerSecond", Math.round(drainRatePerSecond));
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("retryInMs", Math.max(0, nextAttemptAt - System.currentTimeMillis()));
+        return stats;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.energytrade.orderservice;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.trade.TradeTape;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Trade history queries, answered from the in-memory {@link TradeTape}; time
+ * ranges default to the last hour and are half-open, [from, to).
+ */
+@RestController
+@RequestMapping("/orders/trades")
+@RequiredArgsConstructor
+public class TradeController {
+
+	static final int MAX_LIMIT = 1000;
+	static final int MAX_INTERVALS = 10_000;
+
+	private final TradeTape tradeTape;
+
+	// Most recent trades, newest first
+	@GetMapping
+	public ResponseEntity<?> lastTrades(@RequestParam(required = false) String instrument,
+			@RequestParam(defaultValue = "50") int limit) {
+		String key = Instrument.normalize(instrument);
+		if (!Instrument.isValid(key)) {
+			return ResponseEntity.badRequest().body("Invalid instrument.");
+		}
+		if (limit < 1 || limit > MAX_LIMIT) {
+			return ResponseEntity.badRequest().body("Limit must be between 1 and " + MAX_LIMIT + ".");
+		}
+		return ResponseEntity.ok(tradeTape.last(key, limit));
+	}
+
+	// Trade count, traded volume, VWAP, high and low over the range
+	@GetMapping("/vwap")
+	public ResponseEntity<?> vwap(@RequestParam(required = false) String instrument,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to) {
+		String key = Instrument.normalize(instrument);
+		OffsetDateTime end = to != null ? to : OffsetDateTime.now();
+		OffsetDateTime start = from != null ? from : end.minusHours(1);
+		if (!Instrument.isValid(key)) {
+			return ResponseEntity.badRequest().body("Invalid instrument.");
+		}
+		if (!start.isBefore(end)) {
+			return ResponseEntity.badRequest().body("'from' must be before 'to'.");
+		}
+		return ResponseEntity.ok(tradeTape.summary(key, start, end));
+	}
+
+	// The same figures per interval of the range, e.g. traded volume per minute
+	@GetMapping("/volume")
+	public ResponseEntity<?> volume(@RequestParam(required = false) String instrument,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+			@RequestParam(defaultValue = "60") long intervalSeconds) {
+		String key = Instrument.normalize(instrument);
+		OffsetDateTime end = to != null ? to : OffsetDateTime.now();
+		OffsetDateTime start = from != null ? from : end.minusHours(1);
+		if (!Instrument.isValid(key)) {
+			return ResponseEntity.badRequest().body("Invalid instrument.");
+		}
+		if (!start.isBefore(end)) {
+			return ResponseEntity.badRequest().body("'from' must be before 'to'.");
+		}
+		long rangeSeconds = end.toEpochSecond() - start.toEpochSecond();
+		if (intervalSeconds < 1 || rangeSeconds / intervalSeconds >= MAX_INTERVALS) {
+			return ResponseEntity.badRequest()
+					.body("Interval must be at least 1 second and split the range into fewer than " + MAX_INTERVALS
+							+ " intervals.");
+		}
+		return ResponseEntity.ok(tradeTape.buckets(key, start, end, intervalSeconds * 1000));
+	}
+}
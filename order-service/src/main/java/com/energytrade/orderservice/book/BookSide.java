@@ -0,0 +1,79 @@
+package com.energytrade.orderservice.book;
+
+import java.util.Comparator;
+import java.util.TreeMap;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * One side of the order book: price levels sorted best-first, with the best
+ * level cached so the matching loop reads it in O(1).
+ */
+public class BookSide {
+
+	private final OrderType type;
+	private final TreeMap<Long, PriceLevel> levels;
+	private PriceLevel best;
+
+	BookSide(OrderType type) {
+		this.type = type;
+		// Bids: highest price first. Asks: lowest price first.
+		Comparator<Long> priority = type == OrderType.BUY ? Comparator.reverseOrder() : Comparator.naturalOrder();
+		this.levels = new TreeMap<>(priority);
+	}
+
+	public OrderType getType() {
+		return type;
+	}
+
+	public PriceLevel bestLevel() {
+		return best;
+	}
+
+	public int levelCount() {
+		return levels.size();
+	}
+
+	public Iterable<PriceLevel> levels() {
+		return levels.values();
+	}
+
+	/**
+	 * Whether an incoming order limited at {@code limitPrice} from the opposite
+	 * side can trade against the given level of this side.
+	 */
+	public boolean crosses(PriceLevel level, long limitPrice) {
+		return type == OrderType.SELL
+				? level.getPrice() <= limitPrice   // buyer accepts asks at or below its limit
+				: level.getPrice() >= limitPrice;  // seller accepts bids at or above its limit
+	}
+
+	PriceLevel.Node add(Order order) {
+		PriceLevel level = levels.get(order.getPrice());
+		if (level == null) {
+			level = new PriceLevel(order.getPrice());
+			levels.put(level.key, level);
+			if (best == null || isBetter(level.getPrice(), best.getPrice())) {
+				best = level;
+			}
+		}
+		return level.add(order);
+	}
+
+	private boolean isBetter(long price, long than) {
+		return type == OrderType.BUY ? price > than : price < than;
+	}
+
+	// Unlinks the order from the level it rests at, wherever it is in the queue; nothing is allocated
+	void remove(PriceLevel.Node node) {
+		PriceLevel level = node.level;
+		level.remove(node);
+		if (level.isEmpty()) {
+			levels.remove(level.key);
+			if (level == best) {
+				best = levels.isEmpty() ? null : levels.get(levels.firstKey());
+			}
+		}
+	}
+}
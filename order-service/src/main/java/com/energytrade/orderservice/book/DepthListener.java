@@ -0,0 +1,16 @@
+package com.energytrade.orderservice.book;
+
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * Told the new state of every price level an {@link OrderBook} changes, on
+ * the thread that changed it (the matching thread, or the startup recovery).
+ * A level that was emptied is reported with no volume and no orders.
+ */
+public interface DepthListener {
+
+	DepthListener NONE = (instrument, side, price, volume, orders) -> {
+	};
+
+	void levelChanged(String instrument, OrderType side, long price, long volume, int orders);
+}
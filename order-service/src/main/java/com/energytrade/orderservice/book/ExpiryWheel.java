@@ -0,0 +1,207 @@
+package com.energytrade.orderservice.book;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.energytrade.orderservice.model.Order;
+
+/**
+ * Hierarchical hashed timing wheel of resting-order deadlines.
+ *
+ * Four levels of 64 slots: level 0 holds deadlines less than 64 ticks away,
+ * each higher level covers 64 times the span of the one below, and anything
+ * further out waits in an overflow list. Scheduling and cancelling are O(1);
+ * a slot of a higher level is cascaded down when the wheel reaches its span.
+ * Orders never come out before their deadline, and at most one tick after it.
+ *
+ * Not thread-safe: owned by the {@link OrderBook} it belongs to.
+ */
+public class ExpiryWheel {
+
+	public static final long DEFAULT_TICK_MILLIS = 100;
+
+	private static final int BITS = 6;
+	private static final int SLOTS = 1 << BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+	private static final int OVERFLOW = -1;
+	private static final int OVERDUE = -2;
+
+	private static final class Timer {
+		final Order order;
+		long deadlineTick;
+		Timer prev;
+		Timer next;
+		int level = OVERFLOW;
+		int slot;
+
+		Timer(Order order, long deadlineTick) {
+			this.order = order;
+			this.deadlineTick = deadlineTick;
+		}
+	}
+
+	private final long tickMillis;
+	// Slot heads per level, allocated on first use so books without deadlines stay small
+	private final Timer[][] levels = new Timer[LEVELS][];
+	private Timer overflow;
+	// Deadlines already behind the wheel when scheduled, e.g. orders restored after a restart
+	private Timer overdue;
+	private final Map<Long, Timer> timers = new HashMap<>();
+
+	// Next tick to be processed
+	private long currentTick;
+
+	public ExpiryWheel(long tickMillis, long nowMillis) {
+		this.tickMillis = tickMillis;
+		this.currentTick = nowMillis / tickMillis;
+	}
+
+	public void schedule(Order order) {
+		long deadlineMillis = order.getExpirationTimestamp().toInstant().toEpochMilli();
+		// Round up so the tick that fires it is never before the deadline
+		Timer timer = new Timer(order, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+		Timer previous = timers.put(order.getId(), timer);
+		if (previous != null) {
+			unlink(previous);
+		}
+		insert(timer);
+	}
+
+	public void cancel(Long orderId) {
+		Timer timer = timers.remove(orderId);
+		if (timer != null) {
+			unlink(timer);
+		}
+	}
+
+	/**
+	 * Moves the wheel up to {@code nowMillis} and hands over every order whose
+	 * deadline has passed. The orders are dropped from the wheel but not from
+	 * the book.
+	 */
+	public void advance(long nowMillis, Consumer<Order> expired) {
+		long target = nowMillis / tickMillis;
+		for (Timer timer = overdue; timer != null; timer = timer.next) {
+			timers.remove(timer.order.getId());
+			expired.accept(timer.order);
+		}
+		overdue = null;
+		while (currentTick <= target && !timers.isEmpty()) {
+			// Bring the next span of each higher level down before its first tick is processed
+			for (int level = 1; level < LEVELS && (currentTick & ((1L << (BITS * level)) - 1)) == 0; level++) {
+				cascade(level, (int) ((currentTick >>> (BITS * level)) & MASK));
+				if (level == LEVELS - 1) {
+					cascadeOverflow();
+				}
+			}
+			Timer[] slots = levels[0];
+			int slot = (int) (currentTick & MASK);
+			if (slots != null) {
+				Timer timer = slots[slot];
+				slots[slot] = null;
+				while (timer != null) {
+					Timer next = timer.next;
+					timer.prev = null;
+					timer.next = null;
+					if (timer.deadlineTick <= currentTick) {
+						timers.remove(timer.order.getId());
+						expired.accept(timer.order);
+					} else {
+						insert(timer);
+					}
+					timer = next;
+				}
+			}
+			currentTick++;
+		}
+		// Nothing scheduled: jump straight to now
+		if (timers.isEmpty() && currentTick <= target) {
+			currentTick = target + 1;
+		}
+	}
+
+	public int size() {
+		return timers.size();
+	}
+
+	private void insert(Timer timer) {
+		if (timer.deadlineTick < currentTick) {
+			timer.level = OVERDUE;
+			overdue = push(overdue, timer);
+			return;
+		}
+		long deadline = timer.deadlineTick;
+		long delta = deadline - currentTick;
+		for (int level = 0; level < LEVELS; level++) {
+			if (delta < 1L << (BITS * (level + 1))) {
+				int slot = (int) ((deadline >>> (BITS * level)) & MASK);
+				if (levels[level] == null) {
+					levels[level] = new Timer[SLOTS];
+				}
+				timer.level = level;
+				timer.slot = slot;
+				timer.next = levels[level][slot];
+				if (timer.next != null) {
+					timer.next.prev = timer;
+				}
+				levels[level][slot] = timer;
+				return;
+			}
+		}
+		timer.level = OVERFLOW;
+		overflow = push(overflow, timer);
+	}
+
+	private static Timer push(Timer head, Timer timer) {
+		timer.next = head;
+		if (head != null) {
+			head.prev = timer;
+		}
+		return timer;
+	}
+
+	private void unlink(Timer timer) {
+		if (timer.prev != null) {
+			timer.prev.next = timer.next;
+		} else if (timer.level == OVERFLOW) {
+			overflow = timer.next;
+		} else if (timer.level == OVERDUE) {
+			overdue = timer.next;
+		} else {
+			levels[timer.level][timer.slot] = timer.next;
+		}
+		if (timer.next != null) {
+			timer.next.prev = timer.prev;
+		}
+		timer.prev = null;
+		timer.next = null;
+	}
+
+	private void cascade(int level, int slot) {
+		Timer[] slots = levels[level];
+		if (slots == null) {
+			return;
+		}
+		Timer timer = slots[slot];
+		slots[slot] = null;
+		reinsert(timer);
+	}
+
+	private void cascadeOverflow() {
+		Timer timer = overflow;
+		overflow = null;
+		reinsert(timer);
+	}
+
+	private void reinsert(Timer timer) {
+		while (timer != null) {
+			Timer next = timer.next;
+			timer.prev = null;
+			timer.next = null;
+			insert(timer);
+			timer = next;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.energytrade.orderservice.book;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * Resident price-time order book. Only live (PENDING / PARTIAL) orders rest
+ * here; the database is the persistence layer, not the matching index.
+ *
+ * Every change to a price level is reported to the book's
+ * {@link DepthListener}.
+ *
+ * Not thread-safe: callers must serialize access.
+ */
+public class OrderBook {
+
+	private final String instrument;
+	private final DepthListener depthListener;
+	private final BookSide bids = new BookSide(OrderType.BUY);
+	private final BookSide asks = new BookSide(OrderType.SELL);
+	// Where each resting order is linked in its price level
+	private final Map<Long, PriceLevel.Node> resting = new HashMap<>();
+	private final ExpiryWheel expiries = new ExpiryWheel(ExpiryWheel.DEFAULT_TICK_MILLIS, System.currentTimeMillis());
+
+	public OrderBook() {
+		this(Instrument.DEFAULT, DepthListener.NONE);
+	}
+
+	public OrderBook(String instrument, DepthListener depthListener) {
+		this.instrument = instrument;
+		this.depthListener = depthListener;
+	}
+
+	public String getInstrument() {
+		return instrument;
+	}
+
+	public BookSide side(OrderType type) {
+		return type == OrderType.BUY ? bids : asks;
+	}
+
+	public BookSide oppositeOf(OrderType type) {
+		return type == OrderType.BUY ? asks : bids;
+	}
+
+	public void add(Order order) {
+		if (!resting.containsKey(order.getId())) {
+			PriceLevel.Node node = side(order.getType()).add(order);
+			resting.put(order.getId(), node);
+			levelChanged(order.getType(), node.level);
+			if (order.getExpirationTimestamp() != null) {
+				expiries.schedule(order);
+			}
+		}
+	}
+
+	/**
+	 * Removes the resting order with the given id.
+	 *
+	 * @return the instance that was resting in the book, or null if none
+	 */
+	public Order remove(Long orderId) {
+		PriceLevel.Node node = resting.remove(orderId);
+		if (node == null) {
+			return null;
+		}
+		Order order = node.order;
+		side(order.getType()).remove(node);
+		expiries.cancel(orderId);
+		levelChanged(order.getType(), node.level);
+		return order;
+	}
+
+	public Order get(Long orderId) {
+		PriceLevel.Node node = resting.get(orderId);
+		return node == null ? null : node.order;
+	}
+
+	public boolean contains(Long orderId) {
+		return resting.containsKey(orderId);
+	}
+
+	/**
+	 * Records a fill against a resting order and drops it from the book once it
+	 * has no volume left.
+	 */
+	public void fill(PriceLevel level, Order order, long traded) {
+		level.reduce(traded);
+		if (order.getRemainingVolume() <= 0) {
+			PriceLevel.Node node = resting.remove(order.getId());
+			if (node != null) {
+				side(order.getType()).remove(node);
+			}
+			expiries.cancel(order.getId());
+		}
+		levelChanged(order.getType(), level);
+	}
+
+	/**
+	 * Visits every resting order, level by level in price priority and in time
+	 * priority within a level, so re-adding them in this order rebuilds the
+	 * same book.
+	 */
+	public void forEach(Consumer<Order> action) {
+		for (PriceLevel level : bids.levels()) {
+			level.forEach(action);
+		}
+		for (PriceLevel level : asks.levels()) {
+			level.forEach(action);
+		}
+	}
+
+	/**
+	 * Hands over the resting orders whose expiration has passed by
+	 * {@code nowMillis}; they stay in the book until removed.
+	 */
+	public void pollExpired(long nowMillis, Consumer<Order> action) {
+		expiries.advance(nowMillis, action);
+	}
+
+	public int size() {
+		return resting.size();
+	}
+
+	private void levelChanged(OrderType side, PriceLevel level) {
+		if (level != null) {
+			depthListener.levelChanged(instrument, side, level.getPrice(), level.getTotalVolume(), level.size());
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.energytrade.orderservice.book;
+
+import java.util.function.Consumer;
+
+import com.energytrade.orderservice.model.Order;
+
+/**
+ * All resting orders at a single price, kept in arrival (time priority) order.
+ *
+ * The orders are linked through the {@link Node} each one rests in, which the
+ * {@link OrderBook} keeps by order id, so a cancel anywhere in a busy level is
+ * unlinked in O(1) instead of searched for.
+ */
+public class PriceLevel {
+
+	private final long price;
+	// Boxed once, so the level is dropped from its side without boxing the price again
+	final Long key;
+	// Oldest and newest order
+	private Node head;
+	private Node tail;
+	private int size;
+	private long totalVolume;
+
+	// Where an order rests: its place in the level it rests at
+	static final class Node {
+		final Order order;
+		final PriceLevel level;
+		Node prev;
+		Node next;
+
+		Node(Order order, PriceLevel level) {
+			this.order = order;
+			this.level = level;
+		}
+	}
+
+	PriceLevel(long price) {
+		this.price = price;
+		this.key = price;
+	}
+
+	public long getPrice() {
+		return price;
+	}
+
+	// Remaining (unexecuted) volume resting at this level
+	public long getTotalVolume() {
+		return totalVolume;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return head == null;
+	}
+
+	// Oldest order at this level, or null if the level is empty
+	public Order peek() {
+		return head == null ? null : head.order;
+	}
+
+	// Visits the orders in time priority
+	public void forEach(Consumer<Order> action) {
+		for (Node node = head; node != null; node = node.next) {
+			action.accept(node.order);
+		}
+	}
+
+	Node add(Order order) {
+		Node node = new Node(order, this);
+		if (tail == null) {
+			head = node;
+		} else {
+			tail.next = node;
+			node.prev = tail;
+		}
+		tail = node;
+		size++;
+		totalVolume += order.getRemainingVolume();
+		return node;
+	}
+
+	// The node must rest at this level
+	void remove(Node node) {
+		if (node.prev == null) {
+			head = node.next;
+		} else {
+			node.prev.next = node.next;
+		}
+		if (node.next == null) {
+			tail = node.prev;
+		} else {
+			node.next.prev = node.prev;
+		}
+		node.prev = null;
+		node.next = null;
+		size--;
+		totalVolume -= node.order.getRemainingVolume();
+	}
+
+	// Must be called whenever an order resting here is (partially) filled
+	void reduce(long executed) {
+		totalVolume -= executed;
+	}
+}
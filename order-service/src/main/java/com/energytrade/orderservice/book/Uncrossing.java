@@ -0,0 +1,153 @@
+package com.energytrade.orderservice.book;
+
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * Clearing price of a call auction: the price at which the most volume
+ * trades when every bid at or above it meets every ask at or below it.
+ *
+ * The aggregated demand and supply curves are read off the price levels, so
+ * finding the price takes O(price levels) whatever the number of orders.
+ * Among prices clearing the same volume, the one leaving the least volume
+ * unmatched wins; if several still tie, the price goes to the side with the
+ * surplus (the highest price for excess demand, the lowest for excess
+ * supply), and to the middle of the range when neither side has one.
+ */
+public final class Uncrossing {
+
+	private final String instrument;
+	private final long price;
+	private final long volume;
+	private final long surplus;
+
+	private Uncrossing(String instrument, long price, long volume, long surplus) {
+		this.instrument = instrument;
+		this.price = price;
+		this.volume = volume;
+		this.surplus = surplus;
+	}
+
+	/**
+	 * Computes the clearing price of the book as it stands; the book is not
+	 * changed. If the book does not cross, the volume is zero.
+	 */
+	public static Uncrossing of(OrderBook book) {
+		BookSide bids = book.side(OrderType.BUY);
+		BookSide asks = book.side(OrderType.SELL);
+		PriceLevel bestBid = bids.bestLevel();
+		PriceLevel bestAsk = asks.bestLevel();
+		if (bestBid == null || bestAsk == null || bestBid.getPrice() < bestAsk.getPrice()) {
+			return new Uncrossing(book.getInstrument(), 0, 0, 0);
+		}
+
+		// Demand: volume bid at or above each bid price, highest price first
+		long[] bidPrices = new long[bids.levelCount()];
+		long[] demand = new long[bidPrices.length];
+		int b = 0;
+		long cumulative = 0;
+		for (PriceLevel level : bids.levels()) {
+			cumulative += level.getTotalVolume();
+			bidPrices[b] = level.getPrice();
+			demand[b++] = cumulative;
+		}
+		// Supply: volume offered at or below each ask price, lowest price first
+		long[] askPrices = new long[asks.levelCount()];
+		long[] supply = new long[askPrices.length];
+		int a = 0;
+		cumulative = 0;
+		for (PriceLevel level : asks.levels()) {
+			cumulative += level.getTotalVolume();
+			askPrices[a] = level.getPrice();
+			supply[a++] = cumulative;
+		}
+
+		// Every level price between the best ask and the best bid, from the top down
+		int i = 0;
+		int j = askPrices.length - 1;
+		while (askPrices[j] > bestBid.getPrice()) {
+			j--;
+		}
+		long bestVolume = -1;
+		long leastUnmatched = 0;
+		long high = 0;
+		long low = 0;
+		long surplusAtHigh = 0;
+		long surplusAtLow = 0;
+		while (true) {
+			long price = Math.max(i < bidPrices.length ? bidPrices[i] : Long.MIN_VALUE,
+					j >= 0 ? askPrices[j] : Long.MIN_VALUE);
+			if (price < bestAsk.getPrice()) {
+				break;
+			}
+			while (i < bidPrices.length && bidPrices[i] >= price) {
+				i++;
+			}
+			long volumeBid = demand[i - 1];
+			long volumeOffered = supply[j];
+			long volume = Math.min(volumeBid, volumeOffered);
+			long surplus = volumeBid - volumeOffered;
+			if (volume > bestVolume || volume == bestVolume && Math.abs(surplus) < leastUnmatched) {
+				bestVolume = volume;
+				leastUnmatched = Math.abs(surplus);
+				high = price;
+				surplusAtHigh = surplus;
+				low = price;
+				surplusAtLow = surplus;
+			} else if (volume == bestVolume && Math.abs(surplus) == leastUnmatched) {
+				low = price;
+				surplusAtLow = surplus;
+			}
+			if (askPrices[j] == price) {
+				j--;
+			}
+		}
+
+		// Demand minus supply only grows as the price falls: excess demand at the top of the range is excess all over it
+		long price;
+		if (surplusAtHigh > 0) {
+			price = high;
+		} else if (surplusAtLow < 0) {
+			price = low;
+		} else {
+			price = low + (high - low) / 2;
+		}
+		long volumeBid = 0;
+		for (int n = 0; n < bidPrices.length && bidPrices[n] >= price; n++) {
+			volumeBid = demand[n];
+		}
+		long volumeOffered = 0;
+		for (int n = 0; n < askPrices.length && askPrices[n] <= price; n++) {
+			volumeOffered = supply[n];
+		}
+		return new Uncrossing(book.getInstrument(), price, Math.min(volumeBid, volumeOffered),
+				volumeBid - volumeOffered);
+	}
+
+	public String getInstrument() {
+		return instrument;
+	}
+
+	// Clearing price, in ticks; meaningless if nothing crosses
+	public long getPrice() {
+		return price;
+	}
+
+	// Volume that trades at the clearing price
+	public long getVolume() {
+		return volume;
+	}
+
+	// Volume bid minus volume offered at the clearing price: what is left on the long side
+	public long getSurplus() {
+		return surplus;
+	}
+
+	public boolean crosses() {
+		return volume > 0;
+	}
+
+	@Override
+	public String toString() {
+		return "Uncrossing[" + instrument + " " + volume + " at " + price + ", surplus " + surplus + "]";
+	}
+}
@@ -0,0 +1,191 @@
+package com.energytrade.orderservice.depth;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.energytrade.orderservice.model.DepthLevel;
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * Published price levels of one side of an instrument, as one mutable slot
+ * per price that every change of the level is written into.
+ *
+ * Only the matching thread that owns the instrument writes: it finds the slot
+ * of a price in an open-addressing table, without boxing, and only allocates
+ * when a price gets its first slot. An emptied level keeps its slot, so a
+ * level that comes and goes costs nothing; empty slots are evicted once too
+ * many pile up and every subscriber has been sent their last state. Readers
+ * go through a sorted concurrent view and copy the slots they need.
+ */
+final class DepthSide {
+
+	// Emptied levels kept before an eviction pass is due
+	static final int MAX_EMPTY_SLOTS = 256;
+
+	/**
+	 * State of one price level. Written by the matching thread under a
+	 * sequence lock, so a reader never mixes the volume of one change with
+	 * the orders of another.
+	 */
+	static final class Slot {
+
+		final OrderType side;
+		final long price;
+		// Odd while a change is being written
+		private volatile long version;
+		private volatile long volume;
+		private volatile int orders;
+		// Instrument depth sequence of the last change
+		private volatile long changed;
+
+		Slot(OrderType side, long price) {
+			this.side = side;
+			this.price = price;
+		}
+
+		void set(long volume, int orders, long changed) {
+			long v = version;
+			version = v + 1;
+			this.volume = volume;
+			this.orders = orders;
+			this.changed = changed;
+			version = v + 2;
+		}
+
+		int orders() {
+			return orders;
+		}
+
+		long changed() {
+			return changed;
+		}
+
+		/**
+		 * Copy of the level if its last change is in {@code (after, upTo]},
+		 * null otherwise.
+		 */
+		DepthLevel read(long after, long upTo) {
+			while (true) {
+				long v = version;
+				if ((v & 1) == 0) {
+					long sequence = changed;
+					long volume = this.volume;
+					int orders = this.orders;
+					if (version == v) {
+						return sequence > after && sequence <= upTo ? new DepthLevel(side, price, volume, orders) : null;
+					}
+				}
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	final OrderType side;
+	// Sorted view for the readers; a slot is only added or evicted by the matching thread
+	final ConcurrentSkipListMap<Long, Slot> levels;
+
+	private long[] prices = new long[64];
+	private Slot[] slots = new Slot[64];
+	private int size;
+	private int empty;
+	// Grows after a pass that could not evict much, so a lagging subscriber does not cause one per new price
+	private int evictAt = MAX_EMPTY_SLOTS;
+
+	DepthSide(OrderType side) {
+		this.side = side;
+		this.levels = new ConcurrentSkipListMap<>(
+				side == OrderType.BUY ? Comparator.<Long>reverseOrder() : Comparator.<Long>naturalOrder());
+	}
+
+	/**
+	 * Writes the new state of a level.
+	 *
+	 * @return whether the price got a new slot
+	 */
+	boolean update(long price, long volume, int orders, long sequence) {
+		int index = indexOf(price);
+		Slot slot = slots[index];
+		boolean added = slot == null;
+		if (added) {
+			slot = new Slot(side, price);
+			insert(index, price, slot);
+			levels.put(price, slot);
+			empty++;
+		}
+		if (slot.orders() == 0 && orders != 0) {
+			empty--;
+		} else if (slot.orders() != 0 && orders == 0) {
+			empty++;
+		}
+		slot.set(volume, orders, sequence);
+		return added;
+	}
+
+	boolean evictionDue() {
+		return empty > evictAt;
+	}
+
+	/**
+	 * Drops the empty slots whose last change is at or before {@code sent},
+	 * the oldest state any subscriber still has to get.
+	 */
+	void evictEmpty(long sent) {
+		long[] oldPrices = prices;
+		Slot[] oldSlots = slots;
+		prices = new long[oldPrices.length];
+		slots = new Slot[oldSlots.length];
+		size = 0;
+		empty = 0;
+		for (int i = 0; i < oldSlots.length; i++) {
+			Slot slot = oldSlots[i];
+			if (slot == null) {
+				continue;
+			}
+			if (slot.orders() == 0 && slot.changed() <= sent) {
+				levels.remove(slot.price, slot);
+				continue;
+			}
+			if (slot.orders() == 0) {
+				empty++;
+			}
+			insert(indexOf(slot.price), slot.price, slot);
+		}
+		evictAt = Math.max(MAX_EMPTY_SLOTS, empty * 2);
+	}
+
+	private int indexOf(long price) {
+		int mask = slots.length - 1;
+		int index = hash(price) & mask;
+		while (slots[index] != null && prices[index] != price) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	private void insert(int index, long price, Slot slot) {
+		prices[index] = price;
+		slots[index] = slot;
+		if (++size * 2 > slots.length) {
+			resize();
+		}
+	}
+
+	private void resize() {
+		long[] oldPrices = prices;
+		Slot[] oldSlots = slots;
+		prices = new long[oldPrices.length * 2];
+		slots = new Slot[oldSlots.length * 2];
+		for (int i = 0; i < oldSlots.length; i++) {
+			if (oldSlots[i] != null) {
+				int index = indexOf(oldPrices[i]);
+				prices[index] = oldPrices[i];
+				slots[index] = oldSlots[i];
+			}
+		}
+	}
+
+	private static int hash(long price) {
+		long h = price * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
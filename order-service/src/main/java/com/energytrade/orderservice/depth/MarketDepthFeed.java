@@ -0,0 +1,321 @@
+package com.energytrade.orderservice.depth;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.energytrade.orderservice.book.DepthListener;
+import com.energytrade.orderservice.model.DepthLevel;
+import com.energytrade.orderservice.model.DepthUpdate;
+import com.energytrade.orderservice.model.MarketDepth;
+import com.energytrade.orderservice.model.OrderType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Level 2 market depth, kept up to date from the order books' level changes
+ * and pushed to subscribers as server-sent events.
+ *
+ * The matching thread only writes the new state of a level into that price's
+ * slot ({@link DepthSide}) and bumps the instrument's depth sequence; once a
+ * level has a slot this allocates nothing. A dispatcher thread, woken with
+ * a flag and an unpark, hands every subscriber that is behind the sequence
+ * to the sender threads. A sender copies the slots changed since the
+ * subscriber's last update: a subscriber first gets a full snapshot, then one
+ * update with the latest state of every level changed since its previous
+ * one. A slow consumer therefore only receives fewer, larger updates; it
+ * never holds up matching and its backlog is bounded by the number of price
+ * levels.
+ */
+@Slf4j
+@Component
+public class MarketDepthFeed implements DepthListener {
+
+	private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+	// Published depth of one instrument; written only by the matching thread that owns it
+	private static final class InstrumentDepth {
+		final DepthSide bids = new DepthSide(OrderType.BUY);
+		final DepthSide asks = new DepthSide(OrderType.SELL);
+		volatile Subscriber[] subscribers = NO_SUBSCRIBERS;
+		volatile long sequence;
+
+		DepthSide side(OrderType type) {
+			return type == OrderType.BUY ? bids : asks;
+		}
+
+		synchronized void add(Subscriber subscriber) {
+			Subscriber[] current = subscribers;
+			Subscriber[] added = Arrays.copyOf(current, current.length + 1);
+			added[current.length] = subscriber;
+			subscribers = added;
+		}
+
+		synchronized void remove(Subscriber subscriber) {
+			Subscriber[] current = subscribers;
+			for (int i = 0; i < current.length; i++) {
+				if (current[i] == subscriber) {
+					Subscriber[] removed = new Subscriber[current.length - 1];
+					System.arraycopy(current, 0, removed, 0, i);
+					System.arraycopy(current, i + 1, removed, i, current.length - i - 1);
+					subscribers = removed;
+					return;
+				}
+			}
+		}
+
+		// Oldest depth sequence some subscriber has not been sent yet
+		long sent() {
+			long sent = Long.MAX_VALUE;
+			for (Subscriber subscriber : subscribers) {
+				sent = Math.min(sent, subscriber.sentSequence);
+			}
+			return sent;
+		}
+	}
+
+	private final Map<String, InstrumentDepth> depths = new ConcurrentHashMap<>();
+	private final ExecutorService senders;
+	private final Thread dispatcher;
+	private final long streamTimeoutMillis;
+
+	// Set by the matching threads when a depth with subscribers changed, cleared by the dispatcher
+	private volatile boolean signalled;
+	private volatile boolean dispatcherParked;
+	private volatile boolean stopped;
+
+	private final LongAdder levelChanges = new LongAdder();
+	private final LongAdder conflated = new LongAdder();
+	private final AtomicLong updatesSent = new AtomicLong();
+	private final AtomicLong droppedSubscribers = new AtomicLong();
+
+	public MarketDepthFeed(@Value("${market-depth.sender-threads:4}") int senderThreads,
+			@Value("${market-depth.stream-timeout-ms:1800000}") long streamTimeoutMillis) {
+		AtomicInteger threads = new AtomicInteger();
+		this.senders = Executors.newFixedThreadPool(senderThreads, r -> {
+			Thread thread = new Thread(r, "depth-sender-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.streamTimeoutMillis = streamTimeoutMillis;
+		this.dispatcher = new Thread(this::dispatch, "depth-dispatcher");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		stopped = true;
+		LockSupport.unpark(dispatcher);
+		for (InstrumentDepth depth : depths.values()) {
+			for (Subscriber subscriber : depth.subscribers) {
+				subscriber.emitter.complete();
+			}
+		}
+		senders.shutdown();
+		senders.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void levelChanged(String instrument, OrderType side, long price, long volume, int orders) {
+		InstrumentDepth depth = depths.computeIfAbsent(instrument, key -> new InstrumentDepth());
+		long sequence = depth.sequence + 1; // single writer per instrument
+		DepthSide levels = depth.side(side);
+		if (levels.update(price, volume, orders, sequence) && levels.evictionDue()) {
+			// Only when a price got a new slot, so an unchanged set of prices never evicts
+			levels.evictEmpty(depth.sent());
+		}
+		depth.sequence = sequence;
+		levelChanges.increment();
+		if (depth.subscribers.length > 0 && !signalled) {
+			signalled = true;
+			if (dispatcherParked) {
+				LockSupport.unpark(dispatcher);
+			}
+		}
+	}
+
+	/**
+	 * Up to {@code levels} best levels of each side. Read while matching goes
+	 * on, so it may be a few level changes behind the returned sequence.
+	 */
+	public MarketDepth depth(String instrument, int levels) {
+		InstrumentDepth depth = depths.get(instrument);
+		if (depth == null) {
+			return new MarketDepth(instrument, 0, Collections.emptyList(), Collections.emptyList());
+		}
+		return snapshot(instrument, depth, depth.sequence, levels);
+	}
+
+	/**
+	 * Opens a depth stream: a "snapshot" event with the whole depth, then
+	 * "update" events with the levels changed since.
+	 */
+	public SseEmitter subscribe(String instrument) {
+		return subscribe(instrument, new SseEmitter(streamTimeoutMillis));
+	}
+
+	SseEmitter subscribe(String instrument, SseEmitter emitter) {
+		InstrumentDepth depth = depths.computeIfAbsent(instrument, key -> new InstrumentDepth());
+		Subscriber subscriber = new Subscriber(instrument, depth, emitter);
+		// Registered before the snapshot is read: a level changed meanwhile is sent again as an update
+		depth.add(subscriber);
+		emitter.onCompletion(subscriber::close);
+		emitter.onTimeout(subscriber::close);
+		emitter.onError(e -> subscriber.close());
+		subscriber.schedule();
+		return emitter;
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("instruments", depths.size());
+		stats.put("subscribers", depths.values().stream().mapToInt(d -> d.subscribers.length).sum());
+		stats.put("levelSlots", depths.values().stream().mapToInt(d -> d.bids.levels.size() + d.asks.levels.size()).sum());
+		stats.put("levelChanges", levelChanges.sum());
+		stats.put("updatesSent", updatesSent.get());
+		stats.put("conflatedLevels", conflated.sum());
+		stats.put("droppedSubscribers", droppedSubscribers.get());
+		return stats;
+	}
+
+	private static MarketDepth snapshot(String instrument, InstrumentDepth depth, long sequence, int levels) {
+		return new MarketDepth(instrument, sequence, top(depth.bids, levels), top(depth.asks, levels));
+	}
+
+	private static List<DepthLevel> top(DepthSide side, int levels) {
+		List<DepthLevel> top = new ArrayList<>(Math.min(levels, 64));
+		Iterator<DepthSide.Slot> it = side.levels.values().iterator();
+		while (it.hasNext() && top.size() < levels) {
+			DepthLevel level = it.next().read(Long.MIN_VALUE, Long.MAX_VALUE);
+			if (level.getOrders() > 0) {
+				top.add(level);
+			}
+		}
+		return top;
+	}
+
+	// Hands the subscribers that are behind their instrument's depth to the senders
+	private void dispatch() {
+		while (!stopped) {
+			if (!signalled) {
+				dispatcherParked = true;
+				if (!signalled && !stopped) {
+					LockSupport.park(this);
+				}
+				dispatcherParked = false;
+				continue;
+			}
+			signalled = false;
+			for (InstrumentDepth depth : depths.values()) {
+				long sequence = depth.sequence;
+				for (Subscriber subscriber : depth.subscribers) {
+					if (subscriber.sentSequence < sequence) {
+						subscriber.schedule();
+					}
+				}
+			}
+		}
+	}
+
+	private final class Subscriber {
+
+		final String instrument;
+		final InstrumentDepth depth;
+		final SseEmitter emitter;
+		// Depth sequence up to which this subscriber has every change; none until its snapshot is sent
+		volatile long sentSequence = Long.MAX_VALUE;
+		// Set while a send is queued or running, so at most one sender works on this subscriber
+		final AtomicBoolean scheduled = new AtomicBoolean();
+		volatile boolean closed;
+
+		Subscriber(String instrument, InstrumentDepth depth, SseEmitter emitter) {
+			this.instrument = instrument;
+			this.depth = depth;
+			this.emitter = emitter;
+		}
+
+		void schedule() {
+			if (!closed && scheduled.compareAndSet(false, true)) {
+				try {
+					senders.execute(this::send);
+				} catch (RejectedExecutionException e) {
+					scheduled.set(false); // shutting down
+				}
+			}
+		}
+
+		private void send() {
+			try {
+				if (sentSequence == Long.MAX_VALUE) {
+					// Set before the levels are read, so none of them is evicted before this subscriber has it
+					long sequence = depth.sequence;
+					sentSequence = sequence;
+					emitter.send(SseEmitter.event().name("snapshot").data(snapshot(instrument, depth, sequence,
+							Integer.MAX_VALUE)));
+				}
+				long sent = sentSequence;
+				long upTo = depth.sequence;
+				if (upTo > sent) {
+					List<DepthLevel> levels = new ArrayList<>();
+					collect(depth.bids, sent, upTo, levels);
+					collect(depth.asks, sent, upTo, levels);
+					sentSequence = upTo;
+					// Changes of the same level folded into its latest state
+					conflated.add(upTo - sent - levels.size());
+					// A level changed again after upTo is left for the next update, with its newer state
+					if (!levels.isEmpty()) {
+						emitter.send(SseEmitter.event().name("update").data(new DepthUpdate(instrument, upTo, levels)));
+						updatesSent.incrementAndGet();
+					}
+				}
+			} catch (IOException | IllegalStateException e) {
+				// Client went away or the emitter already completed
+				log.warn("⚠️ Dropping market depth subscriber for {}: {}", instrument, e.getMessage());
+				droppedSubscribers.incrementAndGet();
+				close();
+				emitter.completeWithError(e);
+			} finally {
+				scheduled.set(false);
+			}
+			if (depth.sequence > sentSequence) {
+				schedule();
+			}
+		}
+
+		private void collect(DepthSide side, long sent, long upTo, List<DepthLevel> levels) {
+			for (DepthSide.Slot slot : side.levels.values()) {
+				DepthLevel level = slot.read(sent, upTo);
+				if (level != null) {
+					levels.add(level);
+				}
+			}
+		}
+
+		void close() {
+			closed = true;
+			depth.remove(this);
+		}
+	}
+}
@@ -0,0 +1,317 @@
+package com.energytrade.orderservice.gateway;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+
+import lombok.Value;
+
+/**
+ * Binary order entry protocol of the {@link OrderEntryGateway}. Every
+ * message is a frame: a big-endian u16 with the length of the rest of the
+ * frame, a u8 message type, then the fixed layout of that type. Prices are
+ * in ticks and volumes in volume units (see
+ * {@link com.energytrade.orderservice.model.FixedPoint}), times in UTC epoch
+ * milliseconds.
+ *
+ * Every request carries a client reference, chosen by the client and echoed
+ * in the reports about it. Fields added at the end of a layout later are
+ * skipped by older readers.
+ */
+public final class GatewayProtocol {
+
+	// Client to gateway
+	public static final byte NEW_ORDER = 1;
+	public static final byte CANCEL = 2;
+	// Gateway to client
+	public static final byte EXECUTION_REPORT = 3;
+	public static final byte FILL = 4;
+	public static final byte REJECT = 5;
+
+	// Wait for the write-behind flush covering the request before reporting, like ?durable=true
+	public static final byte FLAG_DURABLE = 1;
+
+	// The u16 frame length
+	public static final int LENGTH_SIZE = 2;
+	// Largest frame a reader accepts, length field excluded
+	public static final int MAX_FRAME_SIZE = 1024;
+	// Reject reasons are cut to this many bytes
+	static final int MAX_REASON_SIZE = 512;
+
+	private static final OrderType[] TYPES = OrderType.values();
+	private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+	private GatewayProtocol() {
+	}
+
+	/**
+	 * Takes the next complete frame off {@code buffer}, ready for reading.
+	 *
+	 * @return the frame from its message type on, or null until it has fully arrived
+	 * @throws ProtocolException if the frame length is out of bounds
+	 */
+	public static ByteBuffer nextFrame(ByteBuffer buffer) throws ProtocolException {
+		if (buffer.remaining() < LENGTH_SIZE) {
+			return null;
+		}
+		int length = buffer.getShort(buffer.position()) & 0xFFFF;
+		if (length == 0 || length > MAX_FRAME_SIZE) {
+			throw new ProtocolException("Invalid frame length " + length);
+		}
+		if (buffer.remaining() < LENGTH_SIZE + length) {
+			return null;
+		}
+		ByteBuffer frame = buffer.slice();
+		frame.position(LENGTH_SIZE).limit(LENGTH_SIZE + length);
+		buffer.position(buffer.position() + LENGTH_SIZE + length);
+		return frame;
+	}
+
+	/**
+	 * Reads the report in a frame returned by {@link #nextFrame}.
+	 */
+	public static Report readReport(ByteBuffer frame) throws ProtocolException {
+		byte type = frame.get();
+		switch (type) {
+		case EXECUTION_REPORT:
+			return ExecutionReport.read(frame);
+		case FILL:
+			return Fill.read(frame);
+		case REJECT:
+			return Reject.read(frame);
+		default:
+			throw new ProtocolException("Unknown report type " + type);
+		}
+	}
+
+	// Reserves the length field and writes the type; end() fills the length in
+	private static int begin(ByteBuffer buffer, byte type) {
+		int start = buffer.position();
+		buffer.putShort((short) 0);
+		buffer.put(type);
+		return start;
+	}
+
+	private static void end(ByteBuffer buffer, int start) {
+		buffer.putShort(start, (short) (buffer.position() - start - LENGTH_SIZE));
+	}
+
+	private static OrderType side(byte side) throws ProtocolException {
+		if (side < 0 || side >= TYPES.length) {
+			throw new ProtocolException("Invalid side " + side);
+		}
+		return TYPES[side];
+	}
+
+	private static OrderStatus status(byte status) throws ProtocolException {
+		if (status < 0 || status >= STATUSES.length) {
+			throw new ProtocolException("Invalid status " + status);
+		}
+		return STATUSES[status];
+	}
+
+	/**
+	 * A message from the gateway about one request, or one order, of the client.
+	 */
+	public interface Report {
+
+		long getClientRef();
+
+		ByteBuffer encode();
+	}
+
+	/**
+	 * Enters an order: i64 client ref, u8 side (BUY 0, SELL 1), u8 flags,
+	 * i64 price, i64 volume, i64 expiration, u8 instrument length and the
+	 * ASCII instrument key (empty for the default instrument).
+	 */
+	@Value
+	public static class NewOrder {
+
+		static final int MAX_SIZE = LENGTH_SIZE + 1 + 8 + 1 + 1 + 8 + 8 + 8 + 1 + Instrument.MAX_LENGTH;
+
+		long clientRef;
+		OrderType side;
+		boolean durable;
+		long price;
+		long volume;
+		long expiresAtMillis;
+		// Null or empty for the default instrument
+		String instrument;
+
+		public void write(ByteBuffer buffer) {
+			byte[] key = instrument == null ? new byte[0] : instrument.getBytes(StandardCharsets.US_ASCII);
+			if (key.length > Instrument.MAX_LENGTH) {
+				throw new IllegalArgumentException("Instrument key too long: " + instrument);
+			}
+			int start = begin(buffer, NEW_ORDER);
+			buffer.putLong(clientRef);
+			buffer.put((byte) side.ordinal());
+			buffer.put(durable ? FLAG_DURABLE : 0);
+			buffer.putLong(price);
+			buffer.putLong(volume);
+			buffer.putLong(expiresAtMillis);
+			buffer.put((byte) key.length);
+			buffer.put(key);
+			end(buffer, start);
+		}
+
+		static NewOrder read(ByteBuffer frame) throws ProtocolException {
+			long clientRef = frame.getLong();
+			OrderType side = side(frame.get());
+			boolean durable = (frame.get() & FLAG_DURABLE) != 0;
+			long price = frame.getLong();
+			long volume = frame.getLong();
+			long expiresAtMillis = frame.getLong();
+			int length = frame.get() & 0xFF;
+			if (length > Instrument.MAX_LENGTH) {
+				throw new ProtocolException("Instrument key too long: " + length);
+			}
+			byte[] key = new byte[length];
+			frame.get(key);
+			return new NewOrder(clientRef, side, durable, price, volume, expiresAtMillis,
+					new String(key, StandardCharsets.US_ASCII));
+		}
+	}
+
+	/**
+	 * Cancels a resting order: i64 client ref, u8 flags, i64 order id.
+	 */
+	@Value
+	public static class Cancel {
+
+		static final int SIZE = LENGTH_SIZE + 1 + 8 + 1 + 8;
+
+		long clientRef;
+		long orderId;
+		boolean durable;
+
+		public void write(ByteBuffer buffer) {
+			int start = begin(buffer, CANCEL);
+			buffer.putLong(clientRef);
+			buffer.put(durable ? FLAG_DURABLE : 0);
+			buffer.putLong(orderId);
+			end(buffer, start);
+		}
+
+		static Cancel read(ByteBuffer frame) {
+			long clientRef = frame.getLong();
+			boolean durable = (frame.get() & FLAG_DURABLE) != 0;
+			return new Cancel(clientRef, frame.getLong(), durable);
+		}
+	}
+
+	/**
+	 * Outcome of a new order, after matching, or of a cancel: i64 client ref,
+	 * i64 order id, u8 status, i64 executed volume, i64 remaining volume,
+	 * i64 write sequence (the X-Write-Sequence of the REST answer).
+	 */
+	@Value
+	public static class ExecutionReport implements Report {
+
+		static final int SIZE = LENGTH_SIZE + 1 + 8 + 8 + 1 + 8 + 8 + 8;
+
+		long clientRef;
+		long orderId;
+		OrderStatus status;
+		long executedVolume;
+		long remainingVolume;
+		long writeSequence;
+
+		@Override
+		public ByteBuffer encode() {
+			ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+			int start = begin(buffer, EXECUTION_REPORT);
+			buffer.putLong(clientRef);
+			buffer.putLong(orderId);
+			buffer.put((byte) status.ordinal());
+			buffer.putLong(executedVolume);
+			buffer.putLong(remainingVolume);
+			buffer.putLong(writeSequence);
+			end(buffer, start);
+			return buffer.flip();
+		}
+
+		static ExecutionReport read(ByteBuffer frame) throws ProtocolException {
+			return new ExecutionReport(frame.getLong(), frame.getLong(), status(frame.get()), frame.getLong(),
+					frame.getLong(), frame.getLong());
+		}
+	}
+
+	/**
+	 * One trade of an order entered on the session, on either side: i64
+	 * client ref of the order, i64 order id, u8 liquidity (taker 0, maker 1),
+	 * i64 price, i64 volume, i64 execution time.
+	 */
+	@Value
+	public static class Fill implements Report {
+
+		static final int SIZE = LENGTH_SIZE + 1 + 8 + 8 + 1 + 8 + 8 + 8;
+
+		long clientRef;
+		long orderId;
+		// The order was resting in the book, as opposed to the incoming one
+		boolean maker;
+		long price;
+		long volume;
+		long executedAtMillis;
+
+		@Override
+		public ByteBuffer encode() {
+			ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+			int start = begin(buffer, FILL);
+			buffer.putLong(clientRef);
+			buffer.putLong(orderId);
+			buffer.put(maker ? (byte) 1 : 0);
+			buffer.putLong(price);
+			buffer.putLong(volume);
+			buffer.putLong(executedAtMillis);
+			end(buffer, start);
+			return buffer.flip();
+		}
+
+		static Fill read(ByteBuffer frame) {
+			return new Fill(frame.getLong(), frame.getLong(), frame.get() == 1, frame.getLong(), frame.getLong(),
+					frame.getLong());
+		}
+	}
+
+	/**
+	 * A request that was not carried out: i64 client ref, u16 code (the HTTP
+	 * status the REST API answers with, e.g. 400 or 404), u16 reason length
+	 * and the UTF-8 reason.
+	 */
+	@Value
+	public static class Reject implements Report {
+
+		long clientRef;
+		int code;
+		String reason;
+
+		@Override
+		public ByteBuffer encode() {
+			byte[] text = reason.getBytes(StandardCharsets.UTF_8);
+			int length = Math.min(text.length, MAX_REASON_SIZE);
+			ByteBuffer buffer = ByteBuffer.allocate(LENGTH_SIZE + 1 + 8 + 2 + 2 + length);
+			int start = begin(buffer, REJECT);
+			buffer.putLong(clientRef);
+			buffer.putShort((short) code);
+			buffer.putShort((short) length);
+			buffer.put(text, 0, length);
+			end(buffer, start);
+			return buffer.flip();
+		}
+
+		static Reject read(ByteBuffer frame) {
+			long clientRef = frame.getLong();
+			int code = frame.getShort() & 0xFFFF;
+			byte[] text = new byte[frame.getShort() & 0xFFFF];
+			frame.get(text);
+			return new Reject(clientRef, code, new String(text, StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.energytrade.orderservice.gateway;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.energytrade.orderservice.gateway.GatewayProtocol.Cancel;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Fill;
+import com.energytrade.orderservice.gateway.GatewayProtocol.NewOrder;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Report;
+import com.energytrade.orderservice.model.OrderType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Client of the {@link OrderEntryGateway} over one connection. Requests may
+ * be pipelined from any number of threads: each returns a future completed
+ * with the execution report or the reject carrying its client reference.
+ * Fill reports go to the fill listener, on the reader thread.
+ */
+@Slf4j
+public class OrderEntryClient implements AutoCloseable {
+
+	private final SocketChannel channel;
+	private final Consumer<Fill> fills;
+	private final AtomicLong clientRefs = new AtomicLong();
+	private final Map<Long, CompletableFuture<Report>> awaiting = new ConcurrentHashMap<>();
+	// Guarded by itself
+	private final ByteBuffer out = ByteBuffer.allocate(Math.max(NewOrder.MAX_SIZE, Cancel.SIZE));
+	private volatile boolean closed;
+
+	private OrderEntryClient(SocketChannel channel, Consumer<Fill> fills) {
+		this.channel = channel;
+		this.fills = fills;
+		Thread reader = new Thread(this::read, "order-entry-client-" + channel.socket().getLocalPort());
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	public static OrderEntryClient connect(String host, int port, Consumer<Fill> fills) throws IOException {
+		SocketChannel channel = SocketChannel.open();
+		try {
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			channel.connect(new InetSocketAddress(host, port));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return new OrderEntryClient(channel, fills);
+	}
+
+	public static OrderEntryClient connect(String host, int port) throws IOException {
+		return connect(host, port, fill -> { });
+	}
+
+	/**
+	 * Enters an order; price in ticks, volume in volume units.
+	 */
+	public CompletableFuture<Report> submit(String instrument, OrderType side, long price, long volume,
+			OffsetDateTime expiresAt, boolean durable) throws IOException {
+		long clientRef = clientRefs.incrementAndGet();
+		CompletableFuture<Report> report = expect(clientRef);
+		NewOrder request = new NewOrder(clientRef, side, durable, price, volume,
+				expiresAt.toInstant().toEpochMilli(), instrument);
+		synchronized (out) {
+			request.write(out);
+			send(clientRef);
+		}
+		return report;
+	}
+
+	public CompletableFuture<Report> cancel(long orderId, boolean durable) throws IOException {
+		long clientRef = clientRefs.incrementAndGet();
+		CompletableFuture<Report> report = expect(clientRef);
+		synchronized (out) {
+			new Cancel(clientRef, orderId, durable).write(out);
+			send(clientRef);
+		}
+		return report;
+	}
+
+	public boolean isOpen() {
+		return !closed;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		channel.close();
+	}
+
+	private CompletableFuture<Report> expect(long clientRef) throws IOException {
+		CompletableFuture<Report> report = new CompletableFuture<>();
+		awaiting.put(clientRef, report);
+		// Checked after registering: the reader fails whatever is registered once it stops
+		if (closed) {
+			awaiting.remove(clientRef);
+			throw new IOException("Order entry connection closed");
+		}
+		return report;
+	}
+
+	// Holding the out lock
+	private void send(long clientRef) throws IOException {
+		out.flip();
+		try {
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		} catch (IOException e) {
+			awaiting.remove(clientRef);
+			throw e;
+		} finally {
+			out.clear();
+		}
+	}
+
+	private void read() {
+		ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+		IOException failure = null;
+		try {
+			while (channel.read(in) >= 0) {
+				in.flip();
+				ByteBuffer frame;
+				while ((frame = GatewayProtocol.nextFrame(in)) != null) {
+					dispatch(GatewayProtocol.readReport(frame));
+				}
+				in.compact();
+			}
+			failure = new IOException("Order entry connection closed by the gateway");
+		} catch (IOException e) {
+			failure = e;
+		} catch (BufferUnderflowException e) {
+			failure = new IOException("Malformed report", e);
+		}
+		if (!closed) {
+			log.warn("⚠️ Order entry connection lost: {}", failure.getMessage());
+		}
+		closed = true;
+		for (CompletableFuture<Report> report : awaiting.values()) {
+			report.completeExceptionally(failure);
+		}
+		awaiting.clear();
+	}
+
+	private void dispatch(Report report) {
+		if (report instanceof Fill) {
+			try {
+				fills.accept((Fill) report);
+			} catch (RuntimeException e) {
+				log.warn("⚠️ Fill listener failed for order {}: {}", ((Fill) report).getOrderId(), e.getMessage());
+			}
+			return;
+		}
+		CompletableFuture<Report> future = awaiting.remove(report.getClientRef());
+		if (future != null) {
+			future.complete(report);
+		}
+	}
+}
@@ -0,0 +1,515 @@
+package com.energytrade.orderservice.gateway;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.OrderController;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Cancel;
+import com.energytrade.orderservice.gateway.GatewayProtocol.ExecutionReport;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Fill;
+import com.energytrade.orderservice.gateway.GatewayProtocol.NewOrder;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Reject;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Report;
+import com.energytrade.orderservice.metrics.Meters;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Order entry over persistent TCP connections in the binary
+ * {@link GatewayProtocol}, next to the REST API. One selector thread accepts
+ * the connections and moves the bytes; the requests of a session run in
+ * order on a worker pool, through the same {@link OrderController} methods
+ * as REST, so validation, audit, matching and the durable acknowledgement
+ * are those of {@code POST /orders} and {@code DELETE /orders/{id}}.
+ *
+ * The trades of the orders entered on a session are reported to it as the
+ * write-behind writer takes them off its ring, until the order is filled or
+ * cancelled or the session closes. A fill report may overtake the execution
+ * report of its order.
+ *
+ * Execution reports are built from the order in the controller's answer, the
+ * copy the matching thread took when the command completed; the order handed
+ * to the controller goes into the book and is never read here but for its id.
+ */
+@Component
+@Slf4j
+public class OrderEntryGateway implements MeterBinder {
+
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	private static final ByteBuffer[] NO_BUFFERS = new ByteBuffer[0];
+
+	private final OrderController orders;
+	private final OrderWriteBehind writeBehind;
+	private final boolean enabled;
+	private final int port;
+	// Requests of one session waiting for a worker; more are rejected with 503
+	private final int maxPending;
+	private final ExecutorService workers;
+
+	private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+	// Orders entered through the gateway that may still trade, by order id from the moment it is assigned
+	private final Map<Long, Entry> live = new ConcurrentHashMap<>();
+	// Sessions with reports to write, picked up by the selector thread
+	private final Queue<Session> writable = new ConcurrentLinkedQueue<>();
+
+	private Selector selector;
+	private ServerSocketChannel server;
+	private Thread selectorThread;
+	private volatile boolean running;
+	private volatile Counter accepted = requests(Meters.NONE, "accepted");
+	private volatile Counter busy = requests(Meters.NONE, "busy");
+
+	public OrderEntryGateway(OrderController orders, OrderWriteBehind writeBehind,
+			@Value("${order.gateway.enabled:true}") boolean enabled, @Value("${order.gateway.port:9081}") int port,
+			@Value("${order.gateway.workers:8}") int workerThreads,
+			@Value("${order.gateway.max-pending:1024}") int maxPending) {
+		this.orders = orders;
+		this.writeBehind = writeBehind;
+		this.enabled = enabled;
+		this.port = port;
+		this.maxPending = maxPending;
+		AtomicInteger threads = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+			Thread thread = new Thread(r, "order-gateway-worker-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@PostConstruct
+	public void start() throws IOException {
+		if (!enabled) {
+			log.info("🔌 Binary order gateway disabled");
+			return;
+		}
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(port));
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+		writeBehind.addTradeListener(this::onTrade);
+		running = true;
+		selectorThread = new Thread(this::select, "order-gateway");
+		selectorThread.setDaemon(true);
+		selectorThread.start();
+		log.info("🔌 Binary order gateway listening on port {}", localPort());
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException, IOException {
+		workers.shutdown();
+		if (!running) {
+			return;
+		}
+		running = false;
+		selector.wakeup();
+		selectorThread.join(5000);
+		sessions.forEach(session -> session.close(null));
+		server.close();
+		selector.close();
+		workers.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * The port the gateway listens on, e.g. when configured with port 0.
+	 */
+	public int localPort() throws IOException {
+		return ((InetSocketAddress) server.getLocalAddress()).getPort();
+	}
+
+	public int sessionCount() {
+		return sessions.size();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("orders.gateway.sessions", sessions, Set::size)
+				.description("Open binary order entry sessions").register(registry);
+		accepted = requests(registry, "accepted");
+		busy = requests(registry, "busy");
+	}
+
+	private static Counter requests(MeterRegistry registry, String outcome) {
+		return Counter.builder("orders.gateway.requests").description("Requests received on the binary gateway")
+				.tag("outcome", outcome).register(registry);
+	}
+
+	private void select() {
+		while (running) {
+			try {
+				selector.select();
+				Session session;
+				while ((session = writable.poll()) != null) {
+					session.write();
+				}
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					session = (Session) key.attachment();
+					if (key.isReadable()) {
+						session.read();
+					}
+					if (key.isValid() && key.isWritable()) {
+						session.write();
+					}
+				}
+			} catch (IOException e) {
+				log.warn("⚠️ Binary order gateway selector failed: {}", e.getMessage());
+			}
+		}
+	}
+
+	private void accept() throws IOException {
+		SocketChannel channel = server.accept();
+		if (channel == null) {
+			return;
+		}
+		channel.configureBlocking(false);
+		// Reports are small and latency-bound: no Nagle delay
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+		Session session = new Session(channel);
+		session.key = channel.register(selector, SelectionKey.OP_READ, session);
+		sessions.add(session);
+		log.info("🔌 Binary order entry session opened from {}", session.remote);
+	}
+
+	private CompletableFuture<Report> enter(Session session, NewOrder request) {
+		long clientRef = request.getClientRef();
+		if (request.getExpiresAtMillis() <= 0) {
+			return CompletableFuture.completedFuture(new Reject(clientRef, HttpStatus.BAD_REQUEST.value(),
+					"Order expiration must be set."));
+		}
+		Order order = Order.builder()
+				.instrument(request.getInstrument())
+				.type(request.getSide())
+				.price(request.getPrice())
+				.volume(request.getVolume())
+				.expirationTimestamp(OffsetDateTime.ofInstant(Instant.ofEpochMilli(request.getExpiresAtMillis()),
+						ZoneOffset.UTC))
+				.build();
+		Entry entry = new Entry(session, clientRef, order.getVolume());
+		CompletableFuture<ResponseEntity<?>> answer;
+		try {
+			// Registered as soon as it has an id: its trades may be taken off the write-behind ring before the answer
+			answer = orders.createOrder(order, request.isDurable(), saved -> {
+				if (!session.closed) {
+					live.put(saved.getId(), entry);
+				}
+			});
+		} catch (RuntimeException e) {
+			return CompletableFuture.completedFuture(failed("order entry", clientRef, e));
+		}
+		return answer.handle((response, failure) -> {
+			if (failure != null || !(response.getBody() instanceof Order)) {
+				if (order.getId() != null) {
+					live.remove(order.getId(), entry);
+				}
+				return failure != null ? failed("order entry", clientRef, failure) : reject(clientRef, response);
+			}
+			// The matched copy: the submitted order may have traded further since
+			Order entered = (Order) response.getBody();
+			if (entered.getStatus() == OrderStatus.EXPIRED) {
+				live.remove(entered.getId(), entry);
+			}
+			return report(clientRef, entered, response);
+		});
+	}
+
+	private CompletableFuture<Report> cancel(Cancel request) {
+		long clientRef = request.getClientRef();
+		CompletableFuture<ResponseEntity<?>> answer;
+		try {
+			answer = orders.cancelOrder(request.getOrderId(), request.isDurable());
+		} catch (RuntimeException e) {
+			return CompletableFuture.completedFuture(failed("cancel", clientRef, e));
+		}
+		return answer.handle((response, failure) -> {
+			if (failure != null) {
+				return failed("cancel", clientRef, failure);
+			}
+			if (!(response.getBody() instanceof Order)) {
+				return reject(clientRef, response);
+			}
+			live.remove(request.getOrderId());
+			return report(clientRef, (Order) response.getBody(), response);
+		});
+	}
+
+	private static Reject failed(String request, long clientRef, Throwable failure) {
+		Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+				: failure;
+		log.warn("❌ Binary {} failed for client ref {}: {}", request, clientRef, cause.toString());
+		return new Reject(clientRef, HttpStatus.INTERNAL_SERVER_ERROR.value(), String.valueOf(cause.getMessage()));
+	}
+
+	private static ExecutionReport report(long clientRef, Order order, ResponseEntity<?> response) {
+		String sequence = response.getHeaders().getFirst(OrderController.WRITE_SEQUENCE_HEADER);
+		return new ExecutionReport(clientRef, order.getId(), order.getStatus(), order.getExecutedVolume(),
+				order.getRemainingVolume(), sequence == null ? 0 : Long.parseLong(sequence));
+	}
+
+	private static Reject reject(long clientRef, ResponseEntity<?> response) {
+		Object body = response.getBody();
+		HttpStatus status = response.getStatusCode();
+		return new Reject(clientRef, status.value(), body instanceof String ? (String) body : status.getReasonPhrase());
+	}
+
+	// Called by the write-behind writer with every trade
+	private void onTrade(Trade trade) {
+		fill(trade.getMakerOrderId(), trade, true);
+		fill(trade.getTakerOrderId(), trade, false);
+	}
+
+	private void fill(long orderId, Trade trade, boolean maker) {
+		Entry entry = live.get(orderId);
+		if (entry == null) {
+			return;
+		}
+		Instant executedAt = trade.getExecutedAt().toInstant();
+		entry.session.send(new Fill(entry.clientRef, orderId, maker, trade.getPrice(), trade.getVolume(),
+				executedAt.toEpochMilli()));
+		if (entry.remaining.addAndGet(-trade.getVolume()) <= 0) {
+			live.remove(orderId, entry);
+		}
+	}
+
+	// An order entered on a session, until it stops trading
+	private static final class Entry {
+
+		final Session session;
+		final long clientRef;
+		// Volume not reported as traded yet
+		final AtomicLong remaining;
+
+		Entry(Session session, long clientRef, long volume) {
+			this.session = session;
+			this.clientRef = clientRef;
+			this.remaining = new AtomicLong(volume);
+		}
+	}
+
+	private final class Session {
+
+		final SocketChannel channel;
+		final String remote;
+		SelectionKey key;
+
+		// Selector thread only
+		private final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+
+		private final Queue<Object> requests = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger pending = new AtomicInteger();
+		// A worker is processing the requests of this session, or about to
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+		// In the writable queue, or being written
+		private final AtomicBoolean flushing = new AtomicBoolean();
+		private volatile boolean closed;
+
+		Session(SocketChannel channel) throws IOException {
+			this.channel = channel;
+			this.remote = String.valueOf(channel.getRemoteAddress());
+		}
+
+		void read() {
+			try {
+				if (channel.read(in) < 0) {
+					close(null);
+					return;
+				}
+				in.flip();
+				ByteBuffer frame;
+				while ((frame = GatewayProtocol.nextFrame(in)) != null) {
+					receive(frame);
+				}
+				in.compact();
+			} catch (IOException | BufferUnderflowException e) {
+				close(e);
+			}
+		}
+
+		private void receive(ByteBuffer frame) throws ProtocolException {
+			byte type = frame.get();
+			Object request;
+			long clientRef;
+			if (type == GatewayProtocol.NEW_ORDER) {
+				NewOrder newOrder = NewOrder.read(frame);
+				request = newOrder;
+				clientRef = newOrder.getClientRef();
+			} else if (type == GatewayProtocol.CANCEL) {
+				Cancel cancel = Cancel.read(frame);
+				request = cancel;
+				clientRef = cancel.getClientRef();
+			} else {
+				throw new ProtocolException("Unknown request type " + type);
+			}
+			if (pending.incrementAndGet() > maxPending) {
+				pending.decrementAndGet();
+				busy.increment();
+				send(new Reject(clientRef, HttpStatus.SERVICE_UNAVAILABLE.value(),
+						"Too many requests in flight on this session."));
+				return;
+			}
+			accepted.increment();
+			requests.add(request);
+			schedule();
+		}
+
+		private void schedule() {
+			if (scheduled.compareAndSet(false, true)) {
+				try {
+					workers.execute(this::process);
+				} catch (RejectedExecutionException e) {
+					// Shutting down
+					scheduled.set(false);
+				}
+			}
+		}
+
+		// One request at a time, in the order they arrived. A worker carries them out but never waits for one:
+		// the session picks up again on a worker once the request in flight is answered.
+		private void process() {
+			boolean answering = false;
+			try {
+				Object request;
+				while (!closed && (request = requests.poll()) != null) {
+					pending.decrementAndGet();
+					CompletableFuture<Report> report = request instanceof NewOrder ? enter(this, (NewOrder) request)
+							: cancel((Cancel) request);
+					if (!report.isDone()) {
+						answering = true;
+						report.whenCompleteAsync((answered, failure) -> {
+							send(answered);
+							process();
+						}, workers);
+						return;
+					}
+					send(report.join());
+				}
+			} finally {
+				if (!answering) {
+					scheduled.set(false);
+				}
+			}
+			if (!closed && !requests.isEmpty()) {
+				schedule();
+			}
+		}
+
+		void send(Report report) {
+			if (closed) {
+				return;
+			}
+			out.add(report.encode());
+			if (flushing.compareAndSet(false, true)) {
+				writable.add(this);
+				if (Thread.currentThread() != selectorThread) {
+					selector.wakeup();
+				}
+			}
+		}
+
+		// Selector thread only: writes what it can, and waits for OP_WRITE for the rest
+		void write() {
+			flushing.set(false);
+			if (closed) {
+				return;
+			}
+			ByteBuffer buffer;
+			while ((buffer = out.poll()) != null) {
+				writing.add(buffer);
+			}
+			try {
+				while (!writing.isEmpty()) {
+					channel.write(writing.toArray(NO_BUFFERS));
+					while (!writing.isEmpty() && !writing.peek().hasRemaining()) {
+						writing.poll();
+					}
+					if (!writing.isEmpty()) {
+						key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+						return;
+					}
+				}
+				if (key.isValid()) {
+					key.interestOps(SelectionKey.OP_READ);
+				}
+			} catch (IOException e) {
+				close(e);
+			}
+		}
+
+		void close(Exception cause) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			sessions.remove(this);
+			live.values().removeIf(entry -> entry.session == this);
+			if (key != null) {
+				key.cancel();
+			}
+			try {
+				channel.close();
+			} catch (IOException e) {
+				// Already gone
+			}
+			if (cause == null) {
+				log.info("🔌 Binary order entry session from {} closed", remote);
+			} else {
+				log.warn("⚠️ Closing binary order entry session from {}: {}", remote, cause.toString());
+			}
+		}
+	}
+}
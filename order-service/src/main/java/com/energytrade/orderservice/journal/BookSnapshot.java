@@ -0,0 +1,21 @@
+package com.energytrade.orderservice.journal;
+
+import java.util.List;
+
+import com.energytrade.orderservice.model.Order;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Resting orders of the book as of a journal sequence, in book priority order.
+ */
+@Getter
+@AllArgsConstructor
+public class BookSnapshot {
+
+	private final long sequence;
+	// Highest order id ever journaled, resting or not
+	private final long maxOrderId;
+	private final List<Order> orders;
+}
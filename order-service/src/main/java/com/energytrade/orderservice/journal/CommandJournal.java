@@ -0,0 +1,359 @@
+package com.energytrade.orderservice.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.pipeline.MatchingCommand;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of the commands applied by the matching thread, kept in
+ * fixed-size memory-mapped segments, plus compact snapshots of the book.
+ *
+ * Record layout: {@code [int length][int crc32][long sequence][byte type][time][payload]}.
+ * The length is written last, so a record torn by a crash fails the length or
+ * CRC check and marks the end of the journal. Segments are named after the
+ * first sequence they hold; once a snapshot covers a whole segment it is
+ * deleted.
+ *
+ * Not thread-safe: appends and snapshots are serialized by
+ * {@link com.energytrade.orderservice.pipeline.MatchingPipeline}.
+ */
+@Slf4j
+@Component
+public class CommandJournal {
+
+	private static final String SEGMENT_SUFFIX = ".journal";
+	private static final String SNAPSHOT_SUFFIX = ".snapshot";
+	private static final int SNAPSHOT_MAGIC = 0x45544254; // bumped when the order layout gained the instrument
+	private static final int HEADER_SIZE = 8;
+	private static final int MAX_BODY_SIZE = 8 + 1 + 12 + OrderCodec.MAX_SIZE;
+
+	private static final MatchingCommand.Type[] TYPES = MatchingCommand.Type.values();
+
+	private final Path directory;
+	private final int segmentSize;
+	private final TreeMap<Long, Path> segments = new TreeMap<>();
+	private final ByteBuffer scratch = ByteBuffer.allocate(MAX_BODY_SIZE);
+	private final CRC32 crc = new CRC32();
+
+	private MappedByteBuffer active;
+	private long maxOrderId;
+	private volatile long sequence;
+	private volatile long snapshotSequence;
+	private volatile int segmentCount;
+
+	public CommandJournal(@Value("${order.journal.dir:data/journal}") String directory,
+			@Value("${order.journal.segment-size-mb:64}") int segmentSizeMb) {
+		this.directory = Paths.get(directory);
+		this.segmentSize = segmentSizeMb * 1024 * 1024;
+	}
+
+	/**
+	 * Finds the existing segments and snapshot and positions the writer after
+	 * the last complete record.
+	 */
+	@PostConstruct
+	public void open() throws IOException {
+		Files.createDirectories(directory);
+		for (Path path : list(SEGMENT_SUFFIX)) {
+			segments.put(startOf(path), path);
+		}
+		Path snapshot = latestSnapshot();
+		if (snapshot != null) {
+			ByteBuffer header = ByteBuffer.allocate(4 + 8 + 8);
+			try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+				channel.read(header, 0);
+			}
+			snapshotSequence = header.getLong(4);
+			sequence = snapshotSequence;
+			maxOrderId = header.getLong(12);
+		}
+		if (!segments.isEmpty()) {
+			Map.Entry<Long, Path> last = segments.lastEntry();
+			active = map(last.getValue());
+			sequence = Math.max(sequence, last.getKey() - 1);
+			int position = 0;
+			int length;
+			while ((length = recordLength(active, position)) > 0) {
+				sequence = active.getLong(position + HEADER_SIZE);
+				position += HEADER_SIZE + length;
+			}
+			// Wipe whatever a torn write left behind so later appends can't be mistaken for it
+			int end = Math.min(active.limit(), position + HEADER_SIZE + MAX_BODY_SIZE);
+			for (int i = position; i < end; i++) {
+				active.put(i, (byte) 0);
+			}
+			active.position(position);
+		}
+		segmentCount = segments.size();
+		log.info("📒 Command journal opened at {} (sequence {}, snapshot {}, {} segments)", directory.toAbsolutePath(),
+				sequence, snapshotSequence, segmentCount);
+	}
+
+	@PreDestroy
+	public void close() {
+		if (active != null) {
+			active.force();
+		}
+	}
+
+	/**
+	 * Appends a command before it is applied to the book.
+	 *
+	 * @return the sequence assigned to the command
+	 */
+	public long append(MatchingCommand.Type type, Order order, OffsetDateTime time) {
+		long next = sequence + 1;
+		scratch.clear();
+		scratch.putLong(next);
+		scratch.put((byte) type.ordinal());
+		OrderCodec.writeTime(scratch, time);
+		if (type == MatchingCommand.Type.NEW) {
+			OrderCodec.write(scratch, order);
+			maxOrderId = Math.max(maxOrderId, order.getId());
+		} else {
+			// Cancel / expire only need the key of the resting order, uncross the instrument
+			scratch.putLong(order.getId());
+			OrderCodec.writeInstrument(scratch, order.getInstrument());
+		}
+		scratch.flip();
+		int length = scratch.remaining();
+		if (active == null || active.remaining() < HEADER_SIZE + length) {
+			roll(next);
+		}
+		crc.reset();
+		crc.update(scratch);
+		scratch.flip();
+
+		int position = active.position();
+		active.position(position + HEADER_SIZE);
+		active.put(scratch);
+		active.putInt(position + 4, (int) crc.getValue());
+		active.putInt(position, length);
+		sequence = next;
+		return next;
+	}
+
+	/**
+	 * Reads every record after {@code afterSequence} in order. Stops at the
+	 * first incomplete record.
+	 *
+	 * @return the number of records visited
+	 */
+	public long replay(long afterSequence, Consumer<JournalRecord> visitor) throws IOException {
+		long count = 0;
+		for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+			Long next = segments.higherKey(entry.getKey());
+			if (next != null && next - 1 <= afterSequence) {
+				continue;
+			}
+			ByteBuffer segment = next == null && active != null ? active.duplicate() : map(entry.getValue());
+			int position = 0;
+			int length;
+			while ((length = recordLength(segment, position)) > 0) {
+				ByteBuffer body = segment.duplicate();
+				body.limit(position + HEADER_SIZE + length).position(position + HEADER_SIZE);
+				position += HEADER_SIZE + length;
+				long recordSequence = body.getLong();
+				if (recordSequence <= afterSequence) {
+					continue;
+				}
+				MatchingCommand.Type type = TYPES[body.get()];
+				OffsetDateTime time = OrderCodec.readTime(body);
+				Order order;
+				if (type == MatchingCommand.Type.NEW) {
+					order = OrderCodec.read(body);
+					maxOrderId = Math.max(maxOrderId, order.getId());
+				} else {
+					order = Order.builder().id(body.getLong()).instrument(OrderCodec.readInstrument(body)).build();
+				}
+				visitor.accept(new JournalRecord(recordSequence, type, time, order));
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the given resting orders as the book state at the current
+	 * sequence, then drops older snapshots and the segments it covers.
+	 */
+	public void writeSnapshot(List<Order> orders) throws IOException {
+		long covered = sequence;
+		ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 8 + 4 + orders.size() * OrderCodec.MAX_SIZE + 4);
+		buffer.putInt(SNAPSHOT_MAGIC);
+		buffer.putLong(covered);
+		buffer.putLong(maxOrderId);
+		buffer.putInt(orders.size());
+		for (Order order : orders) {
+			OrderCodec.write(buffer, order);
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.array(), 0, buffer.position());
+		buffer.putInt((int) checksum.getValue());
+		buffer.flip();
+
+		Path target = directory.resolve(fileName(covered, SNAPSHOT_SUFFIX));
+		Path temp = directory.resolve(fileName(covered, SNAPSHOT_SUFFIX + ".tmp"));
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		snapshotSequence = covered;
+
+		for (Path old : list(SNAPSHOT_SUFFIX)) {
+			if (!old.equals(target)) {
+				Files.deleteIfExists(old);
+			}
+		}
+		Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<Long, Path> entry = it.next();
+			Long next = segments.higherKey(entry.getKey());
+			if (next == null || next - 1 > covered) {
+				break;
+			}
+			Files.deleteIfExists(entry.getValue());
+			it.remove();
+		}
+		segmentCount = segments.size();
+		log.info("📸 Book snapshot written at sequence {} ({} resting orders)", covered, orders.size());
+	}
+
+	/**
+	 * @return the latest snapshot, or null if none was written yet
+	 */
+	public BookSnapshot readSnapshot() throws IOException {
+		Path latest = latestSnapshot();
+		return latest == null ? null : readSnapshot(latest);
+	}
+
+	// Last sequence appended
+	public long sequence() {
+		return sequence;
+	}
+
+	// Sequence covered by the latest snapshot
+	public long snapshotSequence() {
+		return snapshotSequence;
+	}
+
+	public int segmentCount() {
+		return segmentCount;
+	}
+
+	// Highest order id seen in the snapshot, the replayed records and new appends
+	public long maxOrderId() {
+		return maxOrderId;
+	}
+
+	private void roll(long startSequence) {
+		if (active != null) {
+			active.force();
+		}
+		Path path = directory.resolve(fileName(startSequence, SEGMENT_SUFFIX));
+		try {
+			active = map(path);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot create journal segment " + path, e);
+		}
+		segments.put(startSequence, path);
+		segmentCount = segments.size();
+	}
+
+	private MappedByteBuffer map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size()));
+		}
+	}
+
+	/**
+	 * @return the body length of a complete record at {@code position}, or 0
+	 *         if there is none (end of segment, unwritten or torn record)
+	 */
+	private int recordLength(ByteBuffer segment, int position) {
+		if (position + HEADER_SIZE > segment.limit()) {
+			return 0;
+		}
+		int length = segment.getInt(position);
+		if (length <= 0 || length > MAX_BODY_SIZE || position + HEADER_SIZE + length > segment.limit()) {
+			return 0;
+		}
+		ByteBuffer body = segment.duplicate();
+		body.limit(position + HEADER_SIZE + length).position(position + HEADER_SIZE);
+		crc.reset();
+		crc.update(body);
+		return (int) crc.getValue() == segment.getInt(position + 4) ? length : 0;
+	}
+
+	private BookSnapshot readSnapshot(Path path) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+		CRC32 checksum = new CRC32();
+		checksum.update(buffer.array(), 0, buffer.limit() - 4);
+		if (buffer.getInt() != SNAPSHOT_MAGIC || (int) checksum.getValue() != buffer.getInt(buffer.limit() - 4)) {
+			throw new IllegalStateException("Corrupted book snapshot " + path);
+		}
+		long covered = buffer.getLong();
+		long maxId = buffer.getLong();
+		int count = buffer.getInt();
+		List<Order> orders = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			orders.add(OrderCodec.read(buffer));
+		}
+		return new BookSnapshot(covered, maxId, orders);
+	}
+
+	private Path latestSnapshot() throws IOException {
+		List<Path> snapshots = list(SNAPSHOT_SUFFIX);
+		return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+	}
+
+	// Files with the given suffix, oldest first
+	private List<Path> list(String suffix) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static long startOf(Path path) {
+		String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.indexOf('.')));
+	}
+
+	private static String fileName(long sequence, String suffix) {
+		return String.format("%020d%s", sequence, suffix);
+	}
+}
@@ -0,0 +1,24 @@
+package com.energytrade.orderservice.journal;
+
+import java.time.OffsetDateTime;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.pipeline.MatchingCommand;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A command read back from the journal. For NEW the order carries the state it
+ * was submitted with; for CANCEL and EXPIRE only its id is set.
+ */
+@Getter
+@AllArgsConstructor
+public class JournalRecord {
+
+	private final long sequence;
+	private final MatchingCommand.Type type;
+	// Time the command was applied by the matching thread
+	private final OffsetDateTime time;
+	private final Order order;
+}
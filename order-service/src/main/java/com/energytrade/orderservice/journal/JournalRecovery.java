@@ -0,0 +1,207 @@
+package com.energytrade.orderservice.journal;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.persistence.BookWarmStart;
+import com.energytrade.orderservice.persistence.SequenceIds;
+import com.energytrade.orderservice.pipeline.MatchingCommand;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rebuilds the book and the in-memory database at startup from the latest
+ * snapshot plus the journal tail, before the matching thread starts.
+ *
+ * The engine replays the commands silently; afterwards every order it touched
+ * is inserted once, with its original id and final state, in JDBC batches,
+ * followed by the trades the replay produced.
+ *
+ * Skipped when the books are loaded from the database instead
+ * ({@link BookWarmStart}).
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory") // the orders table must exist
+@RequiredArgsConstructor
+public class JournalRecovery {
+
+	private static final String INSERT_SQL = "INSERT INTO orders (id, instrument, type, price, volume, executed_volume, "
+			+ "status, timestamp, market_price, expiration_timestamp, cancelled_at) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String TRADE_SQL = "INSERT INTO trades (id, instrument, taker_order_id, maker_order_id, "
+			+ "taker_side, price, volume, executed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final int INSERT_BATCH_SIZE = 1000;
+
+	private final CommandJournal journal;
+	private final MatchingEngine matchingEngine;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final SequenceIds sequenceIds;
+	private final BookWarmStart warmStart;
+
+	private volatile long restoredOrders;
+	private volatile long replayedCommands;
+	private volatile long replayMillis;
+	private volatile long recoveryMillis;
+
+	@PostConstruct
+	public void recover() throws IOException {
+		if (warmStart.enabled()) {
+			log.info("♻️ Journal replay skipped: the books are loaded from the database");
+			return;
+		}
+		long start = System.nanoTime();
+		BookSnapshot snapshot = journal.readSnapshot();
+		long afterSequence = 0;
+		// Same instances the engine mutates, so they end up holding the recovered state
+		List<Order> orders = new ArrayList<>();
+		List<Trade> trades = new ArrayList<>();
+
+		matchingEngine.setReplaying(true);
+		matchingEngine.setReplayedTrades(trades::add);
+		try {
+			if (snapshot != null) {
+				orders.addAll(snapshot.getOrders());
+				snapshot.getOrders().forEach(matchingEngine::restore);
+				afterSequence = snapshot.getSequence();
+				restoredOrders = snapshot.getOrders().size();
+			}
+			replayedCommands = journal.replay(afterSequence, record -> {
+				if (record.getType() == MatchingCommand.Type.NEW) {
+					orders.add(record.getOrder());
+				}
+				apply(record);
+			});
+		} finally {
+			matchingEngine.setReplaying(false);
+			matchingEngine.setReplayedTrades(trade -> { });
+		}
+		replayMillis = (System.nanoTime() - start) / 1_000_000;
+
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int from = 0; from < orders.size(); from += INSERT_BATCH_SIZE) {
+				List<Order> batch = orders.subList(from, Math.min(orders.size(), from + INSERT_BATCH_SIZE));
+				jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind);
+			}
+			for (int from = 0; from < trades.size(); from += INSERT_BATCH_SIZE) {
+				List<Trade> batch = trades.subList(from, Math.min(trades.size(), from + INSERT_BATCH_SIZE));
+				long[] ids = sequenceIds.next(Trade.ID_SEQUENCE, Trade.ID_ALLOCATION_SIZE, batch.size());
+				jdbcTemplate.batchUpdate(TRADE_SQL, new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						bind(ps, ids[i], batch.get(i));
+					}
+
+					@Override
+					public int getBatchSize() {
+						return batch.size();
+					}
+				});
+			}
+			// New orders must not reuse ids that are already in the journal
+			if (journal.maxOrderId() > 0) {
+				jdbcTemplate.execute(
+						"ALTER SEQUENCE " + Order.ID_SEQUENCE + " RESTART WITH " + (journal.maxOrderId() + 1));
+			}
+		});
+
+		recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+		log.info("♻️ Recovered {} resting orders from snapshot {} and replayed {} journal commands in {} ms "
+				+ "({} commands/s); {} orders and {} trades restored to the database, {} ms in total", restoredOrders,
+				afterSequence, replayedCommands, replayMillis, commandsPerSecond(), orders.size(), trades.size(),
+				recoveryMillis);
+	}
+
+	public long getRestoredOrders() {
+		return restoredOrders;
+	}
+
+	public long getReplayedCommands() {
+		return replayedCommands;
+	}
+
+	// Snapshot load plus journal replay, without the database restore
+	public long getReplayMillis() {
+		return replayMillis;
+	}
+
+	public long getRecoveryMillis() {
+		return recoveryMillis;
+	}
+
+	public long commandsPerSecond() {
+		return replayedCommands * 1000 / Math.max(1, replayMillis);
+	}
+
+	private void apply(JournalRecord record) {
+		switch (record.getType()) {
+		case NEW:
+			matchingEngine.match(record.getOrder(), record.getTime());
+			break;
+		case CANCEL:
+			matchingEngine.cancel(record.getOrder(), record.getTime());
+			break;
+		case EXPIRE:
+			matchingEngine.expire(record.getOrder(), record.getTime());
+			break;
+		case UNCROSS:
+			matchingEngine.uncross(record.getOrder().getInstrument(), record.getTime());
+			break;
+		default:
+			throw new IllegalStateException("Unknown command " + record.getType());
+		}
+	}
+
+	private void bind(PreparedStatement ps, Order order) throws SQLException {
+		ps.setLong(1, order.getId());
+		ps.setString(2, order.getInstrument());
+		ps.setString(3, order.getType().name());
+		ps.setLong(4, order.getPrice());
+		ps.setLong(5, order.getVolume());
+		ps.setLong(6, order.getExecutedVolume());
+		ps.setString(7, order.getStatus().name());
+		ps.setTimestamp(8, timestamp(order.getTimestamp()));
+		ps.setLong(9, order.getMarketPrice());
+		ps.setTimestamp(10, timestamp(order.getExpirationTimestamp()));
+		if (order.getCancelledAt() != null) {
+			ps.setTimestamp(11, timestamp(order.getCancelledAt()));
+		} else {
+			ps.setNull(11, Types.TIMESTAMP);
+		}
+	}
+
+	private void bind(PreparedStatement ps, long id, Trade trade) throws SQLException {
+		ps.setLong(1, id);
+		ps.setString(2, trade.getInstrument());
+		ps.setLong(3, trade.getTakerOrderId());
+		ps.setLong(4, trade.getMakerOrderId());
+		ps.setString(5, trade.getTakerSide().name());
+		ps.setLong(6, trade.getPrice());
+		ps.setLong(7, trade.getVolume());
+		ps.setTimestamp(8, timestamp(trade.getExecutedAt()));
+	}
+
+	private static Timestamp timestamp(OffsetDateTime time) {
+		return Timestamp.from(time.toInstant());
+	}
+}
@@ -0,0 +1,95 @@
+package com.energytrade.orderservice.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+
+/**
+ * Fixed binary layout of an order shared by journal records and snapshots.
+ * Times are stored as UTC epoch second + nanos.
+ */
+final class OrderCodec {
+
+	// Length-prefixed ASCII instrument key
+	static final int MAX_INSTRUMENT_SIZE = 1 + Instrument.MAX_LENGTH;
+
+	// id, instrument, type, price, volume, executed, status, marketPrice, timestamp, expiration, cancelledAt flag + time
+	static final int MAX_SIZE = 8 + MAX_INSTRUMENT_SIZE + 1 + 8 + 8 + 8 + 1 + 8 + 12 + 12 + 1 + 12;
+
+	private static final OrderType[] TYPES = OrderType.values();
+	private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+	private OrderCodec() {
+	}
+
+	static void write(ByteBuffer buffer, Order order) {
+		buffer.putLong(order.getId());
+		writeInstrument(buffer, order.getInstrument());
+		buffer.put((byte) order.getType().ordinal());
+		buffer.putLong(order.getPrice());
+		buffer.putLong(order.getVolume());
+		buffer.putLong(order.getExecutedVolume());
+		buffer.put((byte) order.getStatus().ordinal());
+		buffer.putLong(order.getMarketPrice());
+		writeTime(buffer, order.getTimestamp());
+		writeTime(buffer, order.getExpirationTimestamp());
+		if (order.getCancelledAt() != null) {
+			buffer.put((byte) 1);
+			writeTime(buffer, order.getCancelledAt());
+		} else {
+			buffer.put((byte) 0);
+		}
+	}
+
+	static Order read(ByteBuffer buffer) {
+		Order order = new Order();
+		order.setId(buffer.getLong());
+		order.setInstrument(readInstrument(buffer));
+		order.setType(TYPES[buffer.get()]);
+		order.setPrice(buffer.getLong());
+		order.setVolume(buffer.getLong());
+		order.setExecutedVolume(buffer.getLong());
+		order.setStatus(STATUSES[buffer.get()]);
+		order.setMarketPrice(buffer.getLong());
+		order.setTimestamp(readTime(buffer));
+		order.setExpirationTimestamp(readTime(buffer));
+		if (buffer.get() == 1) {
+			order.setCancelledAt(readTime(buffer));
+		}
+		return order;
+	}
+
+	static void writeInstrument(ByteBuffer buffer, String instrument) {
+		byte[] bytes = instrument.getBytes(StandardCharsets.US_ASCII);
+		if (bytes.length > Instrument.MAX_LENGTH) {
+			throw new IllegalArgumentException("Instrument key too long: " + instrument);
+		}
+		buffer.put((byte) bytes.length);
+		buffer.put(bytes);
+	}
+
+	static String readInstrument(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.get()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.US_ASCII);
+	}
+
+	static void writeTime(ByteBuffer buffer, OffsetDateTime time) {
+		Instant instant = time.toInstant();
+		buffer.putLong(instant.getEpochSecond());
+		buffer.putInt(instant.getNano());
+	}
+
+	static OffsetDateTime readTime(ByteBuffer buffer) {
+		long seconds = buffer.getLong();
+		int nanos = buffer.getInt();
+		return OffsetDateTime.ofInstant(Instant.ofEpochSecond(seconds, nanos), ZoneOffset.UTC);
+	}
+}
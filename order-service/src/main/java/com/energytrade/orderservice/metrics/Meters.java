@@ -0,0 +1,18 @@
+package com.energytrade.orderservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Components publish their meters as {@link io.micrometer.core.instrument.binder.MeterBinder}s,
+ * bound by Spring Boot to the application's registry. Until then, and when
+ * they are built by hand in tests or benchmarks, their meters are created in
+ * {@link #NONE}, which drops everything recorded.
+ */
+public final class Meters {
+
+	public static final MeterRegistry NONE = new CompositeMeterRegistry();
+
+	private Meters() {
+	}
+}
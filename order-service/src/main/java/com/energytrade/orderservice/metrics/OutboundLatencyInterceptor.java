@@ -0,0 +1,77 @@
+package com.energytrade.orderservice.metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.http.Outcome;
+
+/**
+ * Times every call made through the RestTemplate, and those reported with
+ * {@link #record}, as
+ * {@code orders.outbound.latency}, tagged with the downstream service and
+ * the outcome. The downstream is recognised by the host and port of the URL
+ * it is configured with; anything else is tagged with its host and port.
+ * Bound to the registry like the other meter binders, so the RestTemplate
+ * does not depend on the registry (which depends on the services using it).
+ */
+public class OutboundLatencyInterceptor implements ClientHttpRequestInterceptor, MeterBinder {
+
+	static final String IO_ERROR = "IO_ERROR";
+
+	private volatile MeterRegistry registry = Meters.NONE;
+	// host:port -> downstream service name
+	private final Map<String, String> downstreams = new HashMap<>();
+
+	/**
+	 * @param baseUrls downstream service name -> any URL of that service
+	 */
+	public OutboundLatencyInterceptor(Map<String, String> baseUrls) {
+		baseUrls.forEach((name, url) -> downstreams.put(authority(URI.create(url)), name));
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+			throws IOException {
+		long start = System.nanoTime();
+		Integer status = null;
+		try {
+			ClientHttpResponse response = execution.execute(request, body);
+			status = response.getRawStatusCode();
+			return response;
+		} finally {
+			record(request.getURI(), status, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Records a call made without the RestTemplate; {@code status} is null if
+	 * it failed without a response.
+	 */
+	public void record(URI uri, Integer status, long nanos) {
+		String authority = authority(uri);
+		String outcome = status == null ? IO_ERROR : Outcome.forStatus(status).name();
+		Timer.builder("orders.outbound.latency").description("Calls to downstream services")
+				.tag("downstream", downstreams.getOrDefault(authority, authority)).tag("outcome", outcome)
+				.register(registry).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static String authority(URI uri) {
+		return uri.getHost() + ":" + uri.getPort();
+	}
+}
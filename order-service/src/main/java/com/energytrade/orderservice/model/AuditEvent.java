@@ -1,14 +1,62 @@
 package com.energytrade.orderservice.model;
 
-import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class AuditEvent {
+
+    public static final String SOURCE = "order-service";
+
     private String source;
     private String type;
     private String payload;
-}
\ No newline at end of file
+
+    // Set when relayed from the outbox: the row id and when it was recorded, which audit-service deduplicates on.
+    // Ids alone start over with an in-memory database.
+    private Long outboxId;
+    private LocalDateTime timestamp;
+
+    public AuditEvent(String source, String type, String payload) {
+        this.source = source;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    // The event of an outbox row, as relayed to audit-service
+    public static AuditEvent relayed(AuditFallback row) {
+        AuditEvent event = new AuditEvent(row.getSource(), row.getType(), row.getPayload());
+        event.setOutboxId(row.getId());
+        event.setTimestamp(row.getCreatedAt());
+        return event;
+    }
+
+    // 🔍 AUDIT: Pairwise execution event
+    public static AuditEvent executedPairwise(Trade trade) {
+        return new AuditEvent(SOURCE, "ORDER_EXECUTED_PAIRWISE", String.format(Locale.US,
+                "{\"takerOrderId\":%d,\"makerOrderId\":%d,\"matchedVolume\":%s,\"price\":%s,\"timestamp\":\"%s\"}",
+                trade.getTakerOrderId(),
+                trade.getMakerOrderId(),
+                FixedPoint.fromVolumeUnits(trade.getVolume()),
+                FixedPoint.fromTicks(trade.getPrice()),
+                trade.getExecutedAt()));
+    }
+
+    // Final state of an incoming order once it was matched
+    public static AuditEvent matched(long orderId, long executedVolume, OrderStatus status) {
+        return new AuditEvent(SOURCE, "ORDER_MATCHED", String.format(Locale.US,
+                "{\"orderId\":%d,\"executedVolume\":%s,\"status\":\"%s\"}",
+                orderId, FixedPoint.fromVolumeUnits(executedVolume), status));
+    }
+
+    public static AuditEvent cancelled(long orderId) {
+        return new AuditEvent(SOURCE, "ORDER_CANCELLED", String.format(Locale.US, "{\"orderId\":%d}", orderId));
+    }
+}
@@ -14,8 +14,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class AuditFallback {
 
+    public static final String ID_SEQUENCE = "audit_fallbacks_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String source;
@@ -0,0 +1,28 @@
+package com.energytrade.orderservice.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Aggregated resting volume at one price of one side; an emptied level has no volume and no orders
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepthLevel {
+
+	private OrderType side;
+
+	@JsonSerialize(using = FixedPoint.PriceSerializer.class)
+	@JsonDeserialize(using = FixedPoint.PriceDeserializer.class)
+	private long price;
+
+	@JsonSerialize(using = FixedPoint.VolumeSerializer.class)
+	@JsonDeserialize(using = FixedPoint.VolumeDeserializer.class)
+	private long volume;
+
+	// Number of resting orders at this price
+	private int orders;
+}
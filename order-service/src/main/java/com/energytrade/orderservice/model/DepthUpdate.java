@@ -0,0 +1,21 @@
+package com.energytrade.orderservice.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Levels that changed since the previous update of a depth stream, with their new state
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepthUpdate {
+
+	private String instrument;
+
+	// Depth sequence of the latest change included; updates may be conflated, so numbers can be skipped
+	private long sequence;
+
+	private List<DepthLevel> levels;
+}
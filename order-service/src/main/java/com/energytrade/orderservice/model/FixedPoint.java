@@ -0,0 +1,83 @@
+package com.energytrade.orderservice.model;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+/**
+ * Fixed-point representation of prices and volumes.
+ *
+ * Prices are stored as a whole number of ticks and volumes as a whole number
+ * of volume units, both as {@code long}, so matching uses exact integer
+ * arithmetic. By default a tick is 0.01 and a volume unit is 0.001 MWh (1 kWh);
+ * both scales can be overridden with the {@code energytrade.price.scale} and
+ * {@code energytrade.volume.scale} system properties. The JSON API keeps
+ * exchanging plain decimals.
+ */
+public final class FixedPoint {
+
+	public static final int PRICE_SCALE = Integer.getInteger("energytrade.price.scale", 2);
+	public static final int VOLUME_SCALE = Integer.getInteger("energytrade.volume.scale", 3);
+
+	private FixedPoint() {
+	}
+
+	public static long toTicks(double price) {
+		return toTicks(BigDecimal.valueOf(price));
+	}
+
+	public static long toTicks(BigDecimal price) {
+		return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	public static long toVolumeUnits(double volume) {
+		return toVolumeUnits(BigDecimal.valueOf(volume));
+	}
+
+	public static long toVolumeUnits(BigDecimal volume) {
+		return volume.setScale(VOLUME_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+	}
+
+	public static BigDecimal fromTicks(long ticks) {
+		return BigDecimal.valueOf(ticks, PRICE_SCALE);
+	}
+
+	public static BigDecimal fromVolumeUnits(long units) {
+		return BigDecimal.valueOf(units, VOLUME_SCALE);
+	}
+
+	public static class PriceSerializer extends JsonSerializer<Long> {
+		@Override
+		public void serialize(Long ticks, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+			gen.writeNumber(fromTicks(ticks));
+		}
+	}
+
+	public static class PriceDeserializer extends JsonDeserializer<Long> {
+		@Override
+		public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+			return toTicks(p.getDecimalValue());
+		}
+	}
+
+	public static class VolumeSerializer extends JsonSerializer<Long> {
+		@Override
+		public void serialize(Long units, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+			gen.writeNumber(fromVolumeUnits(units));
+		}
+	}
+
+	public static class VolumeDeserializer extends JsonDeserializer<Long> {
+		@Override
+		public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+			return toVolumeUnits(p.getDecimalValue());
+		}
+	}
+}
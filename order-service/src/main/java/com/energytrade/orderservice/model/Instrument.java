@@ -0,0 +1,29 @@
+package com.energytrade.orderservice.model;
+
+import java.util.regex.Pattern;
+
+/**
+ * Instrument keys: one tradable product, typically a delivery area plus a
+ * delivery period (e.g. {@code DE-H-2030-01-01T10} for an hourly product).
+ * Every instrument has its own order book.
+ */
+public final class Instrument {
+
+	// Orders submitted without an instrument trade in this single default market
+	public static final String DEFAULT = "DEFAULT";
+
+	public static final int MAX_LENGTH = 64;
+
+	private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._:-]{1," + MAX_LENGTH + "}");
+
+	private Instrument() {
+	}
+
+	public static String normalize(String instrument) {
+		return instrument == null || instrument.isBlank() ? DEFAULT : instrument.trim();
+	}
+
+	public static boolean isValid(String instrument) {
+		return instrument != null && VALID.matcher(instrument).matches();
+	}
+}
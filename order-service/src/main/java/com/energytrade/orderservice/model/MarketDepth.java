@@ -0,0 +1,26 @@
+package com.energytrade.orderservice.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Level 2 view of an instrument's book: aggregated levels, best price first
+ * on each side, as of the given depth sequence.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarketDepth {
+
+	private String instrument;
+
+	// Number of level changes applied to the instrument's depth so far
+	private long sequence;
+
+	private List<DepthLevel> bids;
+
+	private List<DepthLevel> asks;
+}
@@ -8,6 +8,17 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Notification {
+
+    public static final String ADMIN = "admin@energytrade.com";
+
     private String target;
     private String message;
+
+    public static Notification matched(Trade trade) {
+        return new Notification(ADMIN, String.format("📈 Order #%d matched with #%d: %s @ %s",
+                trade.getTakerOrderId(),
+                trade.getMakerOrderId(),
+                FixedPoint.fromVolumeUnits(trade.getVolume()),
+                FixedPoint.fromTicks(trade.getPrice())));
+    }
 }
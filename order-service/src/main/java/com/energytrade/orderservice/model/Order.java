@@ -9,8 +9,12 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,31 +23,47 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(name = "orders")
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
+	public static final String ID_SEQUENCE = "orders_seq";
+	// Ids reserved per sequence call; inserts are batched by Hibernate in groups of this size as well
+	public static final int ID_ALLOCATION_SIZE = 50;
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+	@SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
 	private Long id;
 
+	// Traded product (see Instrument); orders only match within the same instrument
+	@Column(nullable = false, length = Instrument.MAX_LENGTH)
+	@Builder.Default
+	private String instrument = Instrument.DEFAULT;
+
 	// BUY or SELL
 	@Enumerated(EnumType.STRING)
 	@Column(nullable = false)
 	private OrderType type;
 
-	// Target price set by the client
+	// Target price set by the client, in ticks (see FixedPoint)
 	@Column(nullable = false)
-	private double price;
+	@JsonSerialize(using = FixedPoint.PriceSerializer.class)
+	@JsonDeserialize(using = FixedPoint.PriceDeserializer.class)
+	private long price;
 
-	// Total volume of the order (can be fractional, e.g., 1.5 MWh)
+	// Total volume of the order in volume units (MWh decimals in JSON, e.g. 1.5)
 	@Column(nullable = false)
-	private double volume;
+	@JsonSerialize(using = FixedPoint.VolumeSerializer.class)
+	@JsonDeserialize(using = FixedPoint.VolumeDeserializer.class)
+	private long volume;
 
-	// Volume already executed (can be partial)
+	// Volume already executed (can be partial), in volume units
 	@Builder.Default
-	private double executedVolume = 0.0;
+	@JsonSerialize(using = FixedPoint.VolumeSerializer.class)
+	@JsonDeserialize(using = FixedPoint.VolumeDeserializer.class)
+	private long executedVolume = 0L;
 
 	// PENDING, PARTIAL, EXECUTED, CANCELLED
 	@Enumerated(EnumType.STRING)
@@ -56,9 +76,11 @@ public class Order {
 	@Builder.Default
 	private OffsetDateTime timestamp = OffsetDateTime.now();
 
-	// Price retrieved from the pricing service at the time of order creation
+	// Price retrieved from the pricing service at the time of order creation, in ticks
 	@Column(nullable = false)
-	private double marketPrice;
+	@JsonSerialize(using = FixedPoint.PriceSerializer.class)
+	@JsonDeserialize(using = FixedPoint.PriceDeserializer.class)
+	private long marketPrice;
 	
 	@Column(nullable = false)
 	private OffsetDateTime expirationTimestamp;
@@ -67,7 +89,8 @@ public class Order {
 	@Column(nullable = true)
 	private OffsetDateTime cancelledAt;
 	
-	public double getRemainingVolume() {
+	@JsonSerialize(using = FixedPoint.VolumeSerializer.class)
+	public long getRemainingVolume() {
 	    return volume - executedVolume;
 	}
 	
@@ -75,5 +98,13 @@ public class Order {
 	    return OffsetDateTime.now().isAfter(this.expirationTimestamp);
 	}
 
+	/**
+	 * Copy of the order's current state. A resting order keeps changing on
+	 * its matching thread, so the copy is what may be handed to other threads.
+	 */
+	public Order snapshot() {
+		return toBuilder().build();
+	}
+
 
 }
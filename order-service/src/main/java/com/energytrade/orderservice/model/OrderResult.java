@@ -0,0 +1,39 @@
+package com.energytrade.orderservice.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of one order in a batch submission: the matched order, why it was rejected, or the id of an order
+// saved but whose match was not confirmed in time
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderResult {
+
+	// Position of the order in the submitted batch
+	private int index;
+
+	// As of its match: a copy the matching thread took, not the order later fills keep changing
+	private Order order;
+
+	private String error;
+
+	// Set with the error when the order was saved and published to matching, which did not answer in time
+	private Long orderId;
+
+	public static OrderResult accepted(int index, Order order) {
+		return new OrderResult(index, order, null, null);
+	}
+
+	public static OrderResult rejected(int index, String error) {
+		return new OrderResult(index, null, error, null);
+	}
+
+	public static OrderResult unconfirmed(int index, long orderId, String error) {
+		return new OrderResult(index, null, error, orderId);
+	}
+}
@@ -0,0 +1,73 @@
+package com.energytrade.orderservice.model;
+
+import java.time.OffsetDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One fill between an incoming (taker) order and a resting (maker) order, at
+ * the maker's price.
+ */
+@Entity
+@Table(name = "trades", indexes = @Index(name = "idx_trades_instrument_time", columnList = "instrument, executedAt"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Trade {
+
+	public static final String ID_SEQUENCE = "trades_seq";
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	// Assigned when the trade is written; trades read from the tape have none
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+	@SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private Long id;
+
+	@Column(nullable = false, length = Instrument.MAX_LENGTH)
+	private String instrument;
+
+	@Column(nullable = false)
+	private long takerOrderId;
+
+	@Column(nullable = false)
+	private long makerOrderId;
+
+	// Side of the taker, i.e. BUY when the trade lifted an ask
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private OrderType takerSide;
+
+	@Column(nullable = false)
+	@JsonSerialize(using = FixedPoint.PriceSerializer.class)
+	@JsonDeserialize(using = FixedPoint.PriceDeserializer.class)
+	private long price;
+
+	@Column(nullable = false)
+	@JsonSerialize(using = FixedPoint.VolumeSerializer.class)
+	@JsonDeserialize(using = FixedPoint.VolumeDeserializer.class)
+	private long volume;
+
+	@Column(nullable = false)
+	private OffsetDateTime executedAt;
+}
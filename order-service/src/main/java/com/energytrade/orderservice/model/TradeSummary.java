@@ -0,0 +1,29 @@
+package com.energytrade.orderservice.model;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Trades of one instrument in [from, to): count, traded volume, VWAP and price range (null when nothing traded)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeSummary {
+
+	private String instrument;
+	private OffsetDateTime from;
+	private OffsetDateTime to;
+	private long trades;
+
+	@JsonSerialize(using = FixedPoint.VolumeSerializer.class)
+	private long volume;
+
+	private BigDecimal vwap;
+	private BigDecimal high;
+	private BigDecimal low;
+}
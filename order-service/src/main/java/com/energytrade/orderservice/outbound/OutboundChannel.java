@@ -0,0 +1,128 @@
+package com.energytrade.orderservice.outbound;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded queue of messages for one destination plus the thread draining it
+ * into batches.
+ */
+@Slf4j
+class OutboundChannel<T> {
+
+	private final String name;
+	private final String batchUrl;
+	private final int batchSize;
+	private final BlockingQueue<T> queue;
+	private final OutboundDispatcher dispatcher;
+
+	private final AtomicLong published = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong delivered = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+
+	private Thread drainer;
+	private volatile boolean running;
+
+	OutboundChannel(String name, String batchUrl, int capacity, int batchSize, OutboundDispatcher dispatcher) {
+		this.name = name;
+		this.batchUrl = batchUrl;
+		this.batchSize = batchSize;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.dispatcher = dispatcher;
+	}
+
+	void start() {
+		running = true;
+		drainer = new Thread(this::run, "outbound-" + name);
+		drainer.setDaemon(true);
+		drainer.start();
+	}
+
+	void stop() throws InterruptedException {
+		// The drainer flushes what is still queued before exiting
+		running = false;
+		drainer.join(5000);
+	}
+
+	void publish(T message) {
+		if (queue.offer(message)) {
+			published.incrementAndGet();
+		} else if (dropped.incrementAndGet() % 1000 == 1) {
+			log.warn("⚠️ Outbound {} queue full, {} messages dropped so far", name, dropped.get());
+		}
+	}
+
+	Map<String, Long> stats() {
+		Map<String, Long> stats = new LinkedHashMap<>();
+		stats.put("queued", (long) queue.size());
+		stats.put("published", published.get());
+		stats.put("delivered", delivered.get());
+		stats.put("failed", failed.get());
+		stats.put("dropped", dropped.get());
+		stats.put("batches", batches.get());
+		return stats;
+	}
+
+	void bindTo(MeterRegistry registry, String downstream) {
+		Gauge.builder("orders.outbound.queued", queue, BlockingQueue::size)
+				.description("Messages waiting to be sent downstream").tag("downstream", downstream).register(registry);
+		messages(registry, downstream, "published", published);
+		messages(registry, downstream, "delivered", delivered);
+		messages(registry, downstream, "failed", failed);
+		messages(registry, downstream, "dropped", dropped);
+	}
+
+	private static void messages(MeterRegistry registry, String downstream, String result, AtomicLong count) {
+		FunctionCounter.builder("orders.outbound.messages", count, AtomicLong::get)
+				.description("Messages for a downstream service, by what became of them")
+				.tag("downstream", downstream).tag("result", result).register(registry);
+	}
+
+	long delivered() {
+		return delivered.get();
+	}
+
+	long failed() {
+		return failed.get();
+	}
+
+	long batches() {
+		return batches.get();
+	}
+
+	private void run() {
+		while (running || !queue.isEmpty()) {
+			try {
+				T first = running ? queue.poll(100, TimeUnit.MILLISECONDS) : queue.poll();
+				if (first == null) {
+					continue;
+				}
+				List<T> batch = new ArrayList<>(Math.min(batchSize, queue.size() + 1));
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				batches.incrementAndGet();
+				dispatcher.send(batchUrl, batch, () -> delivered.addAndGet(batch.size()), e -> {
+					failed.addAndGet(batch.size());
+					log.warn("⚠️ Failed to deliver {} {} messages to {}: {}", batch.size(), name, batchUrl,
+							e.getMessage());
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+}
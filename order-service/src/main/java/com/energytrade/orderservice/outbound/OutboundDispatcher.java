@@ -0,0 +1,163 @@
+package com.energytrade.orderservice.outbound;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.commonhttp.CircuitBreaker;
+import com.energytrade.commonhttp.CircuitOpenException;
+import com.energytrade.commonhttp.OutboundHttpClient;
+import com.energytrade.orderservice.metrics.OutboundLatencyInterceptor;
+import com.energytrade.orderservice.model.Notification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes notifications off the request and matching threads. Publishing
+ * only enqueues; a drainer takes whatever has piled up and posts it as a
+ * single batch, with at most {@code maxInFlight} batches in flight. Posts
+ * are non-blocking: no thread waits on a downstream service, however slow.
+ * They go through the circuit breaker of the {@link OutboundHttpClient}, so
+ * batches fail fast while the notification service is known to be down.
+ *
+ * Audit events do not go through here: they are written to the transactional
+ * outbox by {@link com.energytrade.orderservice.persistence.OrderWriteBehind}.
+ * The latency of the calls is recorded as for the RestTemplate, see
+ * {@link OutboundLatencyInterceptor}.
+ */
+@Slf4j
+@Component
+public class OutboundDispatcher implements MeterBinder {
+
+	private final HttpClient httpClient;
+	private final ObjectMapper objectMapper;
+	private final OutboundLatencyInterceptor latency;
+	private final OutboundHttpClient outboundHttp;
+	private final int maxInFlight;
+	private final Semaphore inFlight;
+	private final OutboundChannel<Notification> notifications;
+
+	public OutboundDispatcher(HttpClient httpClient, ObjectMapper objectMapper, OutboundLatencyInterceptor latency,
+			OutboundHttpClient outboundHttp,
+			@Value("${notification.service.url}") String notificationUrl,
+			@Value("${outbound.queue-capacity:65536}") int queueCapacity,
+			@Value("${outbound.batch-size:500}") int batchSize,
+			@Value("${outbound.max-in-flight:4}") int maxInFlight) {
+		this.httpClient = httpClient;
+		this.objectMapper = objectMapper;
+		this.latency = latency;
+		this.outboundHttp = outboundHttp;
+		this.maxInFlight = maxInFlight;
+		this.inFlight = new Semaphore(maxInFlight);
+		this.notifications = new OutboundChannel<>("notification", notificationUrl + "/batch", queueCapacity,
+				batchSize, this);
+	}
+
+	@PostConstruct
+	public void start() {
+		notifications.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		notifications.stop();
+	}
+
+	// Never blocks; the notification is dropped (and counted) if the queue is full
+	public void publishNotification(Notification notification) {
+		notifications.publish(notification);
+	}
+
+	public Map<String, Object> stats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("notification", notifications.stats());
+		stats.put("batchesInFlight", maxInFlight - inFlight.availablePermits());
+		return stats;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		notifications.bindTo(registry, "notification-service");
+		Gauge.builder("orders.outbound.in-flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+				.description("Outbound batches being sent").register(registry);
+	}
+
+	OutboundChannel<Notification> notifications() {
+		return notifications;
+	}
+
+	/**
+	 * Posts a drained batch, waiting while the maximum number of batches is
+	 * already in flight. Meanwhile new events keep piling up in the queue and
+	 * go out together in the next batch. The outcome is reported on a thread
+	 * of the HTTP client.
+	 */
+	void send(String url, Object batch, Runnable onSuccess, Consumer<Exception> onFailure)
+			throws InterruptedException {
+		HttpRequest request;
+		try {
+			// Read timeout of the shared client, for the whole post here
+			request = HttpRequest.newBuilder(URI.create(url))
+					.timeout(Duration.ofMillis(outboundHttp.settings().getReadTimeoutMs()))
+					.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.POST(BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch))).build();
+		} catch (JsonProcessingException e) {
+			onFailure.accept(e);
+			return;
+		}
+		CircuitBreaker breaker = outboundHttp.circuitBreaker(request.uri());
+		if (!breaker.tryAcquire()) {
+			onFailure.accept(new CircuitOpenException(request.uri().getHost() + ":" + request.uri().getPort()));
+			return;
+		}
+		inFlight.acquire();
+		long start = System.nanoTime();
+		try {
+			httpClient.sendAsync(request, BodyHandlers.discarding()).whenComplete((response, failure) -> {
+				try {
+					latency.record(request.uri(), response == null ? null : response.statusCode(),
+							System.nanoTime() - start);
+					if (failure != null || response.statusCode() >= 500) {
+						breaker.onFailure();
+					} else {
+						breaker.onSuccess();
+					}
+					if (failure != null) {
+						onFailure.accept(failure instanceof Exception ? (Exception) failure : new IOException(failure));
+					} else if (response.statusCode() >= 300) {
+						onFailure.accept(new IOException(url + " answered " + response.statusCode()));
+					} else {
+						onSuccess.run();
+					}
+				} finally {
+					inFlight.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			breaker.onFailure();
+			inFlight.release();
+			throw e;
+		}
+	}
+}
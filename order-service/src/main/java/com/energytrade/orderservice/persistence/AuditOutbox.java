@@ -0,0 +1,43 @@
+package com.energytrade.orderservice.persistence;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.AuditFallback;
+import com.energytrade.orderservice.repository.AuditFallbackRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Entry point of the audit outbox for changes made outside the matching
+ * engine. Changes made by the engine reach the outbox through
+ * {@link OrderWriteBehind#markDirty(com.energytrade.orderservice.model.Order, AuditEvent, long)}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuditOutbox {
+
+	private final AuditFallbackRepository repository;
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Runs {@code change} and stores the audit event derived from its result
+	 * in the same transaction.
+	 */
+	public <T> T recordWith(Supplier<T> change, Function<T, AuditEvent> audit) {
+		return transactionTemplate.execute(status -> {
+			T result = change.get();
+			AuditEvent event = audit.apply(result);
+			AuditFallback row = new AuditFallback();
+			row.setSource(event.getSource());
+			row.setType(event.getType());
+			row.setPayload(event.getPayload());
+			repository.save(row);
+			return result;
+		});
+	}
+}
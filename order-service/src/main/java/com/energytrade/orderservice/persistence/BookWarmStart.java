@@ -0,0 +1,159 @@
+package com.energytrade.orderservice.persistence;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.MatchingEngine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Warm start of the books from the orders table, for a datastore that
+ * outlives the service ({@code order.book.recovery=database}); the default,
+ * {@code journal}, rebuilds them from the snapshot and journal instead.
+ *
+ * A background thread streams the live orders over a forward-only cursor, in
+ * price-time order, straight into the books: only the resting orders end up
+ * on the heap, never the history or the whole result set. The matching
+ * partitions take the books over once it is done; commands published
+ * meanwhile wait in their rings, until a full ring turns them away.
+ * Readiness stays OUT_OF_SERVICE until then.
+ *
+ * Only orders already in the table when the service started are loaded;
+ * anything entered during the load reaches the book through its own command.
+ *
+ * The table only holds what the write-behind flushed: after a crash, the
+ * changes it had not flushed yet are gone, and an order filled in that gap
+ * comes back as resting. The journal cannot fill the gap, as its segments go
+ * once a snapshot covers them. So with this recovery every acknowledgement
+ * waits for the flush, as if {@code durable=true} had been asked for (see
+ * {@link com.energytrade.orderservice.pipeline.MatchingPipeline#durableOnly()}):
+ * what a crash loses was never acknowledged. Fill reports, depth and
+ * notifications are published ahead of the flush and are not acknowledgements.
+ */
+@Slf4j
+@Component("bookWarmStart")
+@DependsOn("entityManagerFactory") // the orders table must exist
+public class BookWarmStart implements HealthIndicator, MeterBinder {
+
+	// Books rebuilt from the journal: nothing to load
+	public static final BookWarmStart NONE = new BookWarmStart(null, null, "journal", 1);
+
+	private static final long PROGRESS_EVERY = 100_000;
+
+	private final OrderQuery orderQuery;
+	private final MatchingEngine matchingEngine;
+	private final boolean enabled;
+	private final int fetchSize;
+	private final CompletableFuture<Void> loaded;
+
+	private volatile long loadedOrders;
+	private volatile long loadMillis;
+	private volatile long maxId;
+
+	public BookWarmStart(OrderQuery orderQuery, MatchingEngine matchingEngine,
+			@Value("${order.book.recovery:journal}") String recovery,
+			@Value("${order.book.warm-start.fetch-size:1000}") int fetchSize) {
+		if (!"journal".equals(recovery) && !"database".equals(recovery)) {
+			throw new IllegalArgumentException("order.book.recovery must be journal or database, not " + recovery);
+		}
+		this.orderQuery = orderQuery;
+		this.matchingEngine = matchingEngine;
+		this.enabled = "database".equals(recovery);
+		this.fetchSize = fetchSize;
+		this.loaded = enabled ? new CompletableFuture<>() : CompletableFuture.completedFuture(null);
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		// Read before anything can enter orders: those get higher ids and are matched once the books are loaded
+		maxId = orderQuery.maxId();
+		OffsetDateTime now = OffsetDateTime.now();
+		Thread thread = new Thread(() -> load(now), "book-warm-start");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public boolean enabled() {
+		return enabled;
+	}
+
+	public boolean isLoaded() {
+		return loaded.isDone() && !loaded.isCompletedExceptionally();
+	}
+
+	// Completes once the books hold every live order, exceptionally if the load failed
+	public CompletableFuture<Void> loaded() {
+		return loaded;
+	}
+
+	public long getLoadedOrders() {
+		return loadedOrders;
+	}
+
+	public long getLoadMillis() {
+		return loadMillis;
+	}
+
+	public long ordersPerSecond() {
+		return loadedOrders * 1000 / Math.max(1, loadMillis);
+	}
+
+	@Override
+	public Health health() {
+		if (!enabled) {
+			return Health.up().withDetail("recovery", "journal").build();
+		}
+		if (!loaded.isDone()) {
+			return Health.outOfService().withDetail("loadedOrders", loadedOrders).build();
+		}
+		if (loaded.isCompletedExceptionally()) {
+			return Health.down().withDetail("loadedOrders", loadedOrders).build();
+		}
+		return Health.up().withDetail("loadedOrders", loadedOrders).withDetail("loadMillis", loadMillis)
+				.withDetail("ordersPerSecond", ordersPerSecond()).build();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("orders.book.warm-start.loaded", this, BookWarmStart::getLoadedOrders)
+				.description("Live orders loaded into the books from the database at startup").register(registry);
+	}
+
+	private void load(OffsetDateTime now) {
+		long start = System.nanoTime();
+		log.info("♻️ Loading the live orders up to id {} into the books from the database", maxId);
+		try {
+			orderQuery.streamResting(now, maxId, fetchSize, order -> {
+				matchingEngine.restore(order);
+				long count = loadedOrders + 1;
+				loadedOrders = count;
+				if (count % PROGRESS_EVERY == 0) {
+					log.info("♻️ {} orders loaded into the books", count);
+				}
+			});
+		} catch (RuntimeException e) {
+			log.error("❌ Book warm start failed after {} orders: {}", loadedOrders, e.getMessage(), e);
+			loaded.completeExceptionally(e);
+			return;
+		}
+		loadMillis = (System.nanoTime() - start) / 1_000_000;
+		log.info("♻️ Loaded {} resting orders into {} books in {} ms ({} orders/s)", loadedOrders,
+				matchingEngine.instruments().size(), loadMillis, ordersPerSecond());
+		loaded.complete(null);
+	}
+}
@@ -0,0 +1,88 @@
+package com.energytrade.orderservice.persistence;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.AuditFallback;
+import com.energytrade.orderservice.model.Order;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Inserts a batch of new orders with a single JDBC batch and stores their
+ * ORDER_CREATED audit events in the outbox within the same transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderBatchInsert {
+
+	private static final String INSERT_SQL = "INSERT INTO orders (id, instrument, type, price, volume, "
+			+ "executed_volume, status, timestamp, market_price, expiration_timestamp) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final String OUTBOX_SQL =
+			"INSERT INTO audit_fallbacks (id, source, type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final SequenceIds sequenceIds;
+
+	/**
+	 * Inserts {@code orders}, assigning them ids from the order sequence, and
+	 * then the audit event of each order.
+	 */
+	public void insert(List<Order> orders, Function<Order, AuditEvent> audit) {
+		if (orders.isEmpty()) {
+			return;
+		}
+		transactionTemplate.executeWithoutResult(status -> {
+			long[] ids = sequenceIds.next(Order.ID_SEQUENCE, Order.ID_ALLOCATION_SIZE, orders.size());
+			for (int i = 0; i < orders.size(); i++) {
+				orders.get(i).setId(ids[i]);
+			}
+			jdbcTemplate.batchUpdate(INSERT_SQL, orders, orders.size(), this::bind);
+
+			long[] outboxIds = sequenceIds.next(AuditFallback.ID_SEQUENCE, AuditFallback.ID_ALLOCATION_SIZE,
+					orders.size());
+			LocalDateTime now = LocalDateTime.now();
+			jdbcTemplate.batchUpdate(OUTBOX_SQL, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					AuditEvent event = audit.apply(orders.get(i));
+					ps.setLong(1, outboxIds[i]);
+					ps.setString(2, event.getSource());
+					ps.setString(3, event.getType());
+					ps.setString(4, event.getPayload());
+					ps.setTimestamp(5, Timestamp.valueOf(now));
+				}
+
+				@Override
+				public int getBatchSize() {
+					return orders.size();
+				}
+			});
+		});
+	}
+
+	private void bind(PreparedStatement ps, Order order) throws SQLException {
+		ps.setLong(1, order.getId());
+		ps.setString(2, order.getInstrument());
+		ps.setString(3, order.getType().name());
+		ps.setLong(4, order.getPrice());
+		ps.setLong(5, order.getVolume());
+		ps.setLong(6, order.getExecutedVolume());
+		ps.setString(7, order.getStatus().name());
+		ps.setTimestamp(8, Timestamp.from(order.getTimestamp().toInstant()));
+		ps.setLong(9, order.getMarketPrice());
+		ps.setTimestamp(10, Timestamp.from(order.getExpirationTimestamp().toInstant()));
+	}
+}
@@ -0,0 +1,254 @@
+package com.energytrade.orderservice.persistence;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.metrics.Meters;
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.repository.OrderRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Database work of single order entry, for callers that do not wait on it.
+ * New orders and the lookups of cancels are queued for one thread, which
+ * inserts all the new orders that piled up with one JDBC batch, their
+ * ORDER_CREATED audit records in the same transaction, and reads all the
+ * orders looked up with one query. Thousands of orders can be in flight
+ * without a thread each, and the database sees a few statements per batch
+ * rather than a transaction per order. If a batch fails, its orders are
+ * inserted again one by one, so each request gets its own outcome.
+ *
+ * With {@code order.entry.async=false} every call runs on the calling thread
+ * instead, one JPA transaction per order.
+ */
+@Slf4j
+@Component
+public class OrderEntryStore implements MeterBinder {
+
+	private final OrderBatchInsert batchInsert;
+	private final OrderRepository repository;
+	private final AuditOutbox auditOutbox;
+	private final boolean async;
+	private final int batchSize;
+	private final BlockingQueue<Object> queue;
+	private volatile DistributionSummary batches = batches(Meters.NONE);
+
+	private Thread thread;
+	private volatile boolean running;
+
+	public OrderEntryStore(OrderBatchInsert batchInsert, OrderRepository repository, AuditOutbox auditOutbox,
+			@Value("${order.entry.async:true}") boolean async,
+			@Value("${order.entry.queue-capacity:65536}") int queueCapacity,
+			@Value("${order.entry.batch-size:500}") int batchSize) {
+		this.batchInsert = batchInsert;
+		this.repository = repository;
+		this.auditOutbox = auditOutbox;
+		this.async = async;
+		this.batchSize = batchSize;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!async) {
+			return;
+		}
+		running = true;
+		thread = new Thread(this::run, "order-entry-store");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		if (thread == null) {
+			return;
+		}
+		// Whatever is still queued is written before the thread exits
+		running = false;
+		thread.join(5000);
+	}
+
+	/**
+	 * Inserts a new order, assigning its id, together with its audit event.
+	 * Fails with a {@link RejectedExecutionException} if too many are queued.
+	 */
+	public CompletableFuture<Order> insert(Order order, Function<Order, AuditEvent> audit) {
+		if (!async) {
+			return CompletableFuture.completedFuture(auditOutbox.recordWith(() -> repository.save(order), audit));
+		}
+		return enqueue(new Insert(order, audit));
+	}
+
+	/**
+	 * The order as last written to the database. Fails with a
+	 * {@link RejectedExecutionException} if too many requests are queued.
+	 */
+	public CompletableFuture<Optional<Order>> find(long id) {
+		if (!async) {
+			return CompletableFuture.completedFuture(repository.findById(id));
+		}
+		return enqueue(new Lookup(id));
+	}
+
+	public int queued() {
+		return queue.size();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("orders.entry.store.queued", queue, BlockingQueue::size)
+				.description("Order inserts and lookups waiting for the order entry store").register(registry);
+		batches = batches(registry);
+	}
+
+	private static DistributionSummary batches(MeterRegistry registry) {
+		return DistributionSummary.builder("orders.entry.store.batch")
+				.description("Order inserts and lookups written or read together").register(registry);
+	}
+
+	private <T> CompletableFuture<T> enqueue(Request<T> request) {
+		if (!queue.offer(request)) {
+			return CompletableFuture.failedFuture(new RejectedExecutionException("Too many orders being entered."));
+		}
+		return request.result;
+	}
+
+	private void run() {
+		List<Object> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				Object first = running ? queue.poll(100, TimeUnit.MILLISECONDS) : queue.poll();
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				batches.record(batch.size());
+				process(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	// Inserts first: an order entered and looked up in the same batch is found
+	private void process(List<Object> batch) {
+		List<Insert> inserts = new ArrayList<>();
+		List<Lookup> lookups = new ArrayList<>();
+		for (Object request : batch) {
+			if (request instanceof Insert) {
+				inserts.add((Insert) request);
+			} else {
+				lookups.add((Lookup) request);
+			}
+		}
+		if (!inserts.isEmpty()) {
+			insert(inserts);
+		}
+		if (!lookups.isEmpty()) {
+			find(lookups);
+		}
+	}
+
+	private void insert(List<Insert> inserts) {
+		List<Order> orders = new ArrayList<>(inserts.size());
+		Map<Order, Function<Order, AuditEvent>> audits = new IdentityHashMap<>(inserts.size());
+		for (Insert insert : inserts) {
+			orders.add(insert.order);
+			audits.put(insert.order, insert.audit);
+		}
+		try {
+			batchInsert.insert(orders, order -> audits.get(order).apply(order));
+		} catch (RuntimeException e) {
+			if (inserts.size() == 1) {
+				fail(inserts.get(0), e);
+				return;
+			}
+			// Rolled back as a whole: one by one, so an order that cannot be inserted fails only its own request
+			log.warn("⚠️ Failed to insert {} new orders together, inserting them one by one: {}", orders.size(),
+					e.getMessage());
+			inserts.forEach(this::insertAlone);
+			return;
+		}
+		inserts.forEach(insert -> insert.result.complete(insert.order));
+	}
+
+	private void insertAlone(Insert insert) {
+		try {
+			batchInsert.insert(List.of(insert.order), insert.audit);
+		} catch (RuntimeException e) {
+			fail(insert, e);
+			return;
+		}
+		insert.result.complete(insert.order);
+	}
+
+	private static void fail(Insert insert, RuntimeException e) {
+		log.error("❌ Failed to insert new order {}: {}", insert.order, e.getMessage());
+		insert.result.completeExceptionally(e);
+	}
+
+	private void find(List<Lookup> lookups) {
+		Map<Long, Order> found;
+		try {
+			found = repository.findAllById(lookups.stream().map(lookup -> lookup.id).collect(Collectors.toSet()))
+					.stream().collect(Collectors.toMap(Order::getId, Function.identity()));
+		} catch (RuntimeException e) {
+			log.error("❌ Failed to look up {} orders: {}", lookups.size(), e.getMessage());
+			lookups.forEach(lookup -> lookup.result.completeExceptionally(e));
+			return;
+		}
+		lookups.forEach(lookup -> lookup.result.complete(Optional.ofNullable(found.get(lookup.id))));
+	}
+
+	private abstract static class Request<T> {
+
+		final CompletableFuture<T> result = new CompletableFuture<>();
+	}
+
+	private static final class Insert extends Request<Order> {
+
+		final Order order;
+		final Function<Order, AuditEvent> audit;
+
+		Insert(Order order, Function<Order, AuditEvent> audit) {
+			this.order = order;
+			this.audit = audit;
+		}
+	}
+
+	private static final class Lookup extends Request<Optional<Order>> {
+
+		final long id;
+
+		Lookup(long id) {
+			this.id = id;
+		}
+	}
+}
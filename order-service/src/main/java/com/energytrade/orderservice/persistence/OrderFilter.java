@@ -0,0 +1,27 @@
+package com.energytrade.orderservice.persistence;
+
+import java.time.OffsetDateTime;
+
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Criteria of an order listing; null fields are not filtered on. The time
+ * range applies to the creation timestamp and is half-open, prices are in
+ * ticks and inclusive.
+ */
+@Value
+@Builder
+public class OrderFilter {
+
+	OrderStatus status;
+	OrderType type;
+	String instrument;
+	OffsetDateTime from;
+	OffsetDateTime to;
+	Long minPrice;
+	Long maxPrice;
+}
@@ -0,0 +1,145 @@
+package com.energytrade.orderservice.persistence;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Read side of the order listing and of the book warm start, in plain JDBC so
+ * rows can be streamed instead of loaded into the persistence context.
+ *
+ * Orders are always listed by id; the cursor is the last id seen, so a page
+ * is an index range scan on the primary key however deep it is.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderQuery {
+
+	private static final String SELECT_SQL = "SELECT id, instrument, type, price, volume, executed_volume, status, "
+			+ "timestamp, market_price, expiration_timestamp, cancelled_at FROM orders WHERE id > ?";
+	// Live orders as they rest in the book: per instrument and side, by price, then by time within a price
+	private static final String RESTING_SQL = "SELECT id, instrument, type, price, volume, executed_volume, status, "
+			+ "timestamp, market_price, expiration_timestamp, cancelled_at FROM orders "
+			+ "WHERE status IN ('PENDING', 'PARTIAL') AND expiration_timestamp > ? AND id <= ? "
+			+ "ORDER BY instrument, type, price, timestamp, id";
+
+	private static final int STREAM_FETCH_SIZE = 500;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	// Up to limit orders with an id above afterId, by id
+	public List<Order> page(OrderFilter filter, long afterId, int limit) {
+		List<Object> args = new ArrayList<>();
+		String sql = sql(filter, afterId, args) + " LIMIT ?";
+		args.add(limit);
+		return jdbcTemplate.query(sql, (rs, rowNum) -> map(rs), args.toArray());
+	}
+
+	/**
+	 * Hands every matching order to {@code action} while reading a
+	 * forward-only, read-only result set; nothing is kept once handed over.
+	 * Returns the number of orders streamed.
+	 */
+	public long stream(OrderFilter filter, long afterId, Consumer<Order> action) {
+		List<Object> args = new ArrayList<>();
+		return stream(sql(filter, afterId, args), args, STREAM_FETCH_SIZE, action);
+	}
+
+	/**
+	 * Streams the orders that rest in the book: PENDING or PARTIAL, not
+	 * expired at {@code now}, with an id up to {@code maxId}, in price-time
+	 * order per instrument and side. Nothing is kept once handed over, so
+	 * historical orders never reach the heap. Returns the number of orders
+	 * streamed.
+	 */
+	public long streamResting(OffsetDateTime now, long maxId, int fetchSize, Consumer<Order> action) {
+		return stream(RESTING_SQL, List.of(Timestamp.from(now.toInstant()), maxId), fetchSize, action);
+	}
+
+	// Highest order id written so far, 0 if none
+	public long maxId() {
+		Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+		return maxId == null ? 0 : maxId;
+	}
+
+	// Forward-only, read-only result set, read fetchSize rows at a time
+	private long stream(String sql, List<Object> args, int fetchSize, Consumer<Order> action) {
+		long[] count = new long[1];
+		jdbcTemplate.query(connection -> {
+			PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(fetchSize);
+			for (int i = 0; i < args.size(); i++) {
+				ps.setObject(i + 1, args.get(i));
+			}
+			return ps;
+		}, rs -> {
+			action.accept(map(rs));
+			count[0]++;
+		});
+		return count[0];
+	}
+
+	private static String sql(OrderFilter filter, long afterId, List<Object> args) {
+		StringBuilder sql = new StringBuilder(SELECT_SQL);
+		args.add(afterId);
+		if (filter.getStatus() != null) {
+			sql.append(" AND status = ?");
+			args.add(filter.getStatus().name());
+		}
+		if (filter.getType() != null) {
+			sql.append(" AND type = ?");
+			args.add(filter.getType().name());
+		}
+		if (filter.getInstrument() != null) {
+			sql.append(" AND instrument = ?");
+			args.add(filter.getInstrument());
+		}
+		if (filter.getFrom() != null) {
+			sql.append(" AND timestamp >= ?");
+			args.add(Timestamp.from(filter.getFrom().toInstant()));
+		}
+		if (filter.getTo() != null) {
+			sql.append(" AND timestamp < ?");
+			args.add(Timestamp.from(filter.getTo().toInstant()));
+		}
+		if (filter.getMinPrice() != null) {
+			sql.append(" AND price >= ?");
+			args.add(filter.getMinPrice());
+		}
+		if (filter.getMaxPrice() != null) {
+			sql.append(" AND price <= ?");
+			args.add(filter.getMaxPrice());
+		}
+		return sql.append(" ORDER BY id").toString();
+	}
+
+	private static Order map(ResultSet rs) throws SQLException {
+		return Order.builder().id(rs.getLong("id")).instrument(rs.getString("instrument"))
+				.type(OrderType.valueOf(rs.getString("type"))).price(rs.getLong("price"))
+				.volume(rs.getLong("volume")).executedVolume(rs.getLong("executed_volume"))
+				.status(OrderStatus.valueOf(rs.getString("status"))).timestamp(time(rs, "timestamp"))
+				.marketPrice(rs.getLong("market_price")).expirationTimestamp(time(rs, "expiration_timestamp"))
+				.cancelledAt(time(rs, "cancelled_at")).build();
+	}
+
+	private static OffsetDateTime time(ResultSet rs, String column) throws SQLException {
+		Timestamp timestamp = rs.getTimestamp(column);
+		return timestamp == null ? null : OffsetDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault());
+	}
+}
@@ -0,0 +1,579 @@
+package com.energytrade.orderservice.persistence;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.metrics.Meters;
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.AuditFallback;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.pipeline.RingBuffer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind persistence for order state changed by the matching engine.
+ *
+ * The engine only marks orders as dirty; a background writer coalesces the
+ * latest state per order and flushes it in JDBC batches every interval, or
+ * sooner once a batch worth of orders is pending. Every change gets a write
+ * sequence, and {@link #flushedSequence()} is the watermark up to which all
+ * changes are durable.
+ *
+ * Changes come in through a ring of pre-allocated slots, copied field by
+ * field, so marking an order dirty allocates nothing on the matching thread.
+ * Fills are recorded as their raw fields; the writer builds the trade, its
+ * audit payload and the fill notification (see {@link #addTradeListener})
+ * when it takes them off the ring.
+ *
+ * Audit events recorded with a change are inserted into the audit outbox
+ * ({@code audit_fallbacks}) in the same transaction as the order updates;
+ * {@link com.energytrade.orderservice.RetryAuditScheduler} relays them. Trades
+ * are inserted into {@code trades} in that same transaction.
+ *
+ * Publishes the duration of every flush, the changes still pending and the
+ * lag of the flush watermark behind the write sequence.
+ */
+@Slf4j
+@Component
+public class OrderWriteBehind implements MeterBinder {
+
+	private static final String UPDATE_SQL =
+			"UPDATE orders SET executed_volume = ?, status = ?, cancelled_at = ? WHERE id = ?";
+	private static final String OUTBOX_SQL =
+			"INSERT INTO audit_fallbacks (id, source, type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+	private static final String TRADE_SQL = "INSERT INTO trades (id, instrument, taker_order_id, maker_order_id, "
+			+ "taker_side, price, volume, executed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final SequenceIds sequenceIds;
+	private final int batchSize;
+	private final long intervalNanos;
+	private final long durableTimeoutMillis;
+
+	// Change of write sequence n is in ring sequence n - 1
+	private final RingBuffer<Change> intake;
+	// Taking changes off the ring: by the writer, or by a test that does not start it
+	private final ReentrantLock drainLock = new ReentrantLock();
+	// Highest ring sequence taken off the ring
+	private volatile long drained = -1;
+	private final List<Consumer<Trade>> tradeListeners = new CopyOnWriteArrayList<>();
+
+	// Latest pending state per order id; newer changes overwrite older ones
+	private final Map<Long, OrderUpdate> pending = new ConcurrentHashMap<>();
+	// Audit events in recording order; unlike order state these are never coalesced
+	private final Queue<OutboxRow> outbox = new ConcurrentLinkedQueue<>();
+	// Outbox rows taken by a flush that failed, written first by the next one
+	private volatile List<OutboxRow> unwrittenOutbox = new ArrayList<>();
+	// Trades are never coalesced either
+	private final Queue<Trade> trades = new ConcurrentLinkedQueue<>();
+	private volatile List<Trade> unwrittenTrades = new ArrayList<>();
+	private volatile long flushedSequence;
+	// Pending counts as of the writer's last drain or flush, for the gauges; read without touching the ring
+	private volatile int pendingOrders;
+	private volatile int pendingAudits;
+	private volatile int pendingTrades;
+	private final ConcurrentSkipListMap<Long, CompletableFuture<Long>> waiters = new ConcurrentSkipListMap<>();
+
+	private volatile Timer flushTimer = flushTimer(Meters.NONE);
+
+	private Thread writerThread;
+	private volatile boolean running;
+
+	public OrderWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+			SequenceIds sequenceIds, @Value("${order.write-behind.batch-size:500}") int batchSize,
+			@Value("${order.write-behind.interval-ms:20}") long intervalMillis,
+			@Value("${order.write-behind.durable-timeout-ms:5000}") long durableTimeoutMillis,
+			@Value("${order.write-behind.ring-size:65536}") int ringSize) {
+		if (ringSize < 2 * batchSize) {
+			throw new IllegalArgumentException("Write-behind ring of " + ringSize + " cannot hold two batches of "
+					+ batchSize);
+		}
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.sequenceIds = sequenceIds;
+		this.batchSize = batchSize;
+		this.intervalNanos = intervalMillis * 1_000_000L;
+		this.durableTimeoutMillis = durableTimeoutMillis;
+		this.intake = new RingBuffer<>(ringSize, Change::new);
+	}
+
+	@PostConstruct
+	public void start() {
+		running = true;
+		writerThread = new Thread(this::run, "order-write-behind");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		LockSupport.unpark(writerThread);
+		writerThread.join(5000);
+	}
+
+	/**
+	 * Records the current state of an order to be persisted later.
+	 * {@code nowMillis} is the time of the command that changed it, read once
+	 * by the matching thread for the whole command.
+	 *
+	 * @return the write sequence covering this change
+	 */
+	public long markDirty(Order order, long nowMillis) {
+		return markDirty(order, null, nowMillis);
+	}
+
+	/**
+	 * Records the current state of an order together with the audit event
+	 * describing the change; both are flushed in the same transaction.
+	 *
+	 * @return the write sequence covering this change
+	 */
+	public long markDirty(Order order, AuditEvent event, long nowMillis) {
+		long sequence = intake.claim();
+		copy(intake.slot(sequence), Change.Kind.UPDATE, order, nowMillis).event = event;
+		return publish(sequence);
+	}
+
+	/**
+	 * Records a fill: the state of the maker order after it and the trade
+	 * against the taker, at {@code price}. The maker update, the trade and its
+	 * ORDER_EXECUTED_PAIRWISE audit record are flushed in the same transaction.
+	 *
+	 * @return the write sequence covering this change
+	 */
+	public long markFilled(Order maker, Order taker, long price, long volume, OffsetDateTime executedAt) {
+		long sequence = intake.claim();
+		Change change = copy(intake.slot(sequence), Change.Kind.FILL, maker,
+				executedAt.toEpochSecond() * 1000 + executedAt.getNano() / 1_000_000);
+		change.instrument = maker.getInstrument();
+		change.takerOrderId = taker.getId();
+		change.takerSide = taker.getType();
+		change.price = price;
+		change.volume = volume;
+		change.executedAt = executedAt;
+		return publish(sequence);
+	}
+
+	/**
+	 * Records the state of an incoming order once matched, audited as
+	 * ORDER_MATCHED in the same transaction.
+	 *
+	 * @return the write sequence covering this change
+	 */
+	public long markMatched(Order order, long nowMillis) {
+		long sequence = intake.claim();
+		copy(intake.slot(sequence), Change.Kind.MATCHED, order, nowMillis);
+		return publish(sequence);
+	}
+
+	/**
+	 * Called with every trade as the writer takes it off the ring, before it
+	 * is written; e.g. to publish the fill notification.
+	 */
+	public void addTradeListener(Consumer<Trade> tradeListener) {
+		tradeListeners.add(tradeListener);
+	}
+
+	private static Change copy(Change change, Change.Kind kind, Order order, long nowMillis) {
+		change.kind = kind;
+		change.orderId = order.getId();
+		change.executedVolume = order.getExecutedVolume();
+		change.status = order.getStatus();
+		change.cancelledAt = order.getCancelledAt();
+		change.recordedAtMillis = nowMillis;
+		return change;
+	}
+
+	private long publish(long sequence) {
+		intake.publish(sequence);
+		if (sequence - drained >= batchSize) {
+			LockSupport.unpark(writerThread);
+		}
+		return sequence + 1;
+	}
+
+	// Highest write sequence handed out so far
+	public long writtenSequence() {
+		return intake.claimed() + 1;
+	}
+
+	// All changes up to this sequence are in the database
+	public long flushedSequence() {
+		return flushedSequence;
+	}
+
+	/**
+	 * Completes once every change up to {@code sequence} has been flushed.
+	 */
+	public CompletableFuture<Long> whenFlushed(long sequence) {
+		if (sequence <= flushedSequence) {
+			return CompletableFuture.completedFuture(flushedSequence);
+		}
+		CompletableFuture<Long> future = waiters.computeIfAbsent(sequence, s -> new CompletableFuture<>());
+		// The writer may have passed the sequence while we were registering
+		if (sequence <= flushedSequence) {
+			waiters.remove(sequence, future);
+			future.complete(flushedSequence);
+		}
+		LockSupport.unpark(writerThread);
+		return future;
+	}
+
+	/**
+	 * Like {@link #whenFlushed}, failing with a {@link TimeoutException} if
+	 * {@code sequence} is not durable within the durable timeout.
+	 */
+	public CompletableFuture<Long> whenDurable(long sequence) {
+		// A copy: the future of a sequence is shared by everyone waiting for it
+		return whenFlushed(sequence).copy().orTimeout(durableTimeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Blocks the caller until {@code sequence} is durable.
+	 */
+	public void awaitFlushed(long sequence) {
+		try {
+			whenFlushed(sequence).get(durableTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Write sequence " + sequence + " not flushed within "
+					+ durableTimeoutMillis + " ms", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for flush", e);
+		}
+	}
+
+	// The counts below are kept by the writer as it takes changes off the ring, so they are counted once
+	// coalesced; changes still on the ring show in orders.persist.lag
+	public int pendingCount() {
+		return pendingOrders;
+	}
+
+	public int pendingAuditCount() {
+		return pendingAudits;
+	}
+
+	public int pendingTradeCount() {
+		return pendingTrades;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		flushTimer = flushTimer(registry);
+		Gauge.builder("orders.persist.pending", this, OrderWriteBehind::pendingCount)
+				.description("Changes waiting for the next write-behind flush").tag("kind", "orders").register(registry);
+		Gauge.builder("orders.persist.pending", this, OrderWriteBehind::pendingAuditCount)
+				.description("Changes waiting for the next write-behind flush").tag("kind", "audits").register(registry);
+		Gauge.builder("orders.persist.pending", this, OrderWriteBehind::pendingTradeCount)
+				.description("Changes waiting for the next write-behind flush").tag("kind", "trades").register(registry);
+		Gauge.builder("orders.persist.lag", this, w -> w.writtenSequence() - w.flushedSequence())
+				.description("Write sequences handed out but not flushed yet").register(registry);
+	}
+
+	private static Timer flushTimer(MeterRegistry registry) {
+		return Timer.builder("orders.persist.flush")
+				.description("Write-behind flush of order updates, audit events and trades in one transaction")
+				.register(registry);
+	}
+
+	private void run() {
+		while (running) {
+			LockSupport.parkNanos(intervalNanos);
+			flushSafely();
+		}
+		flushSafely();
+	}
+
+	private void flushSafely() {
+		try {
+			flush();
+		} catch (Exception e) {
+			log.error("❌ Write-behind flush failed, will retry: {}", e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Drains everything pending at the time of the call in one transaction,
+	 * using JDBC batches of {@code batchSize}, and advances the flush watermark.
+	 */
+	synchronized void flush() {
+		long target;
+		List<OrderUpdate> snapshot;
+		List<OutboxRow> audits = unwrittenOutbox;
+		List<Trade> fills = unwrittenTrades;
+		drainLock.lock();
+		try {
+			drain();
+			target = drained + 1;
+			if (target == flushedSequence) {
+				return;
+			}
+			snapshot = new ArrayList<>(pending.values());
+			OutboxRow row;
+			while ((row = outbox.poll()) != null) {
+				audits.add(row);
+			}
+			Trade trade;
+			while ((trade = trades.poll()) != null) {
+				fills.add(trade);
+			}
+		} finally {
+			drainLock.unlock();
+		}
+
+		long start = System.nanoTime();
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int from = 0; from < snapshot.size(); from += batchSize) {
+				writeUpdates(snapshot.subList(from, Math.min(snapshot.size(), from + batchSize)));
+			}
+			for (int from = 0; from < audits.size(); from += batchSize) {
+				writeOutbox(audits.subList(from, Math.min(audits.size(), from + batchSize)));
+			}
+			for (int from = 0; from < fills.size(); from += batchSize) {
+				writeTrades(fills.subList(from, Math.min(fills.size(), from + batchSize)));
+			}
+		});
+		unwrittenOutbox = new ArrayList<>();
+		unwrittenTrades = new ArrayList<>();
+		flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		// Only drop entries that were not overwritten by a newer change meanwhile
+		for (OrderUpdate update : snapshot) {
+			pending.remove(update.id, update);
+		}
+		flushedSequence = target;
+		countPending();
+		completeWaiters(target);
+		if (!snapshot.isEmpty()) {
+			log.debug("💾 Flushed {} order updates, {} audit events and {} trades up to sequence {}",
+					snapshot.size(), audits.size(), fills.size(), target);
+		}
+	}
+
+	/**
+	 * Takes the changes published so far off the ring, in write sequence
+	 * order, and turns them into pending updates, outbox rows and trades.
+	 * Run by the writer before every flush, or by a test that does not start it.
+	 */
+	void drain() {
+		drainLock.lock();
+		try {
+			long from = drained + 1;
+			long available = intake.availableUpTo(from);
+			for (long sequence = from; sequence <= available; sequence++) {
+				take(intake.slot(sequence));
+			}
+			if (available >= from) {
+				intake.markConsumed(available);
+				drained = available;
+				countPending();
+			}
+		} finally {
+			drainLock.unlock();
+		}
+	}
+
+	private void countPending() {
+		pendingOrders = pending.size();
+		pendingAudits = outbox.size() + unwrittenOutbox.size();
+		pendingTrades = trades.size() + unwrittenTrades.size();
+	}
+
+	private void take(Change change) {
+		OrderUpdate update = new OrderUpdate(change.orderId, change.executedVolume, change.status,
+				change.cancelledAt);
+		pending.put(update.id, update);
+		LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(change.recordedAtMillis),
+				ZoneId.systemDefault());
+		if (change.event != null) {
+			outbox.add(new OutboxRow(change.event, createdAt));
+		}
+		if (change.kind == Change.Kind.FILL) {
+			Trade trade = Trade.builder().instrument(change.instrument).takerOrderId(change.takerOrderId)
+					.makerOrderId(change.orderId).takerSide(change.takerSide).price(change.price)
+					.volume(change.volume).executedAt(change.executedAt).build();
+			trades.add(trade);
+			outbox.add(new OutboxRow(AuditEvent.executedPairwise(trade), createdAt));
+			for (Consumer<Trade> listener : tradeListeners) {
+				try {
+					listener.accept(trade);
+				} catch (RuntimeException e) {
+					log.warn("⚠️ Trade listener failed for maker order {}: {}", change.orderId, e.getMessage());
+				}
+			}
+		} else if (change.kind == Change.Kind.MATCHED) {
+			outbox.add(new OutboxRow(AuditEvent.matched(change.orderId, change.executedVolume, change.status),
+					createdAt));
+		}
+		change.clear();
+	}
+
+	private void writeUpdates(List<OrderUpdate> batch) {
+		jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, update) -> {
+			ps.setLong(1, update.executedVolume);
+			ps.setString(2, update.status.name());
+			if (update.cancelledAt != null) {
+				ps.setTimestamp(3, Timestamp.from(update.cancelledAt.toInstant()));
+			} else {
+				ps.setNull(3, Types.TIMESTAMP);
+			}
+			ps.setLong(4, update.id);
+		});
+	}
+
+	private void writeOutbox(List<OutboxRow> batch) {
+		long[] ids = sequenceIds.next(AuditFallback.ID_SEQUENCE, AuditFallback.ID_ALLOCATION_SIZE, batch.size());
+		jdbcTemplate.batchUpdate(OUTBOX_SQL, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				OutboxRow row = batch.get(i);
+				ps.setLong(1, ids[i]);
+				ps.setString(2, row.event.getSource());
+				ps.setString(3, row.event.getType());
+				ps.setString(4, row.event.getPayload());
+				ps.setTimestamp(5, Timestamp.valueOf(row.createdAt));
+			}
+
+			@Override
+			public int getBatchSize() {
+				return batch.size();
+			}
+		});
+	}
+
+	private void writeTrades(List<Trade> batch) {
+		long[] ids = sequenceIds.next(Trade.ID_SEQUENCE, Trade.ID_ALLOCATION_SIZE, batch.size());
+		jdbcTemplate.batchUpdate(TRADE_SQL, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				bindTrade(ps, ids[i], batch.get(i));
+			}
+
+			@Override
+			public int getBatchSize() {
+				return batch.size();
+			}
+		});
+	}
+
+	private static void bindTrade(PreparedStatement ps, long id, Trade trade) throws SQLException {
+		ps.setLong(1, id);
+		ps.setString(2, trade.getInstrument());
+		ps.setLong(3, trade.getTakerOrderId());
+		ps.setLong(4, trade.getMakerOrderId());
+		ps.setString(5, trade.getTakerSide().name());
+		ps.setLong(6, trade.getPrice());
+		ps.setLong(7, trade.getVolume());
+		ps.setTimestamp(8, Timestamp.from(trade.getExecutedAt().toInstant()));
+	}
+
+	private void completeWaiters(long upTo) {
+		ConcurrentNavigableMap<Long, CompletableFuture<Long>> done = waiters.headMap(upTo, true);
+		for (CompletableFuture<Long> waiter : done.values()) {
+			waiter.complete(upTo);
+		}
+		done.clear();
+	}
+
+	// Slot of the intake ring: one order change, plus the fill when it is one
+	private static final class Change {
+
+		enum Kind {
+			UPDATE, FILL, MATCHED
+		}
+
+		Kind kind;
+		long orderId;
+		long executedVolume;
+		OrderStatus status;
+		OffsetDateTime cancelledAt;
+		long recordedAtMillis;
+		// Audit event given with the change, if any
+		AuditEvent event;
+
+		// Fill against the order as maker
+		String instrument;
+		long takerOrderId;
+		OrderType takerSide;
+		long price;
+		long volume;
+		OffsetDateTime executedAt;
+
+		// Drops the references, so a slot never keeps an old event alive
+		void clear() {
+			status = null;
+			cancelledAt = null;
+			event = null;
+			instrument = null;
+			takerSide = null;
+			executedAt = null;
+		}
+	}
+
+	private static final class OutboxRow {
+		final AuditEvent event;
+		final LocalDateTime createdAt;
+
+		OutboxRow(AuditEvent event, LocalDateTime createdAt) {
+			this.event = event;
+			this.createdAt = createdAt;
+		}
+	}
+
+	private static final class OrderUpdate {
+		final long id;
+		final long executedVolume;
+		final OrderStatus status;
+		final OffsetDateTime cancelledAt;
+
+		OrderUpdate(long id, long executedVolume, OrderStatus status, OffsetDateTime cancelledAt) {
+			this.id = id;
+			this.executedVolume = executedVolume;
+			this.status = status;
+			this.cancelledAt = cancelledAt;
+		}
+	}
+}
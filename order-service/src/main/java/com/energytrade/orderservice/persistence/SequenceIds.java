@@ -0,0 +1,36 @@
+package com.energytrade.orderservice.persistence;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ids for rows inserted with plain JDBC, drawn from the same sequences as the
+ * entities' generators. Hibernate runs them with the pooled-lo optimizer
+ * ({@code hibernate.id.optimizer.pooled.preferred}): every sequence value
+ * starts a block of {@code allocationSize} ids, so blocks taken here never
+ * overlap with the ones Hibernate hands out.
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceIds {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public long[] next(String sequence, int allocationSize, int count) {
+		long[] ids = new long[count];
+		if (count == 0) {
+			return ids;
+		}
+		int blocks = (count + allocationSize - 1) / allocationSize;
+		List<Long> starts = jdbcTemplate.queryForList("SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, ?)",
+				Long.class, blocks);
+		for (int i = 0; i < count; i++) {
+			ids[i] = starts.get(i / allocationSize) + i % allocationSize;
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,11 @@
+package com.energytrade.orderservice.pipeline;
+
+/**
+ * Ring of {@link MatchingCommand} slots feeding one matching partition.
+ */
+public class CommandRingBuffer extends RingBuffer<MatchingCommand> {
+
+	public CommandRingBuffer(int capacity) {
+		super(capacity, MatchingCommand::new);
+	}
+}
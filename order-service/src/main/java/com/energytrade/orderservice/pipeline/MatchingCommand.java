@@ -0,0 +1,32 @@
+package com.energytrade.orderservice.pipeline;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.energytrade.orderservice.model.Order;
+
+/**
+ * Pre-allocated ring buffer slot. Producers fill it in after claiming a
+ * sequence; the matching thread reads it and clears it once processed.
+ */
+public class MatchingCommand {
+
+	public enum Type {
+		NEW, CANCEL, EXPIRE, UNCROSS
+	}
+
+	Type type;
+	Order order;
+	CompletableFuture<Order> result;
+
+	void set(Type type, Order order, CompletableFuture<Order> result) {
+		this.type = type;
+		this.order = order;
+		this.result = result;
+	}
+
+	void clear() {
+		this.type = null;
+		this.order = null;
+		this.result = null;
+	}
+}
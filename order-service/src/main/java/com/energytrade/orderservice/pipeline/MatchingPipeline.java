@@ -0,0 +1,498 @@
+package com.energytrade.orderservice.pipeline;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.book.Uncrossing;
+import com.energytrade.orderservice.journal.CommandJournal;
+import com.energytrade.orderservice.metrics.Meters;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.persistence.BookWarmStart;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Front of the {@link MatchingEngine}, split into partitions. Instruments are
+ * hashed onto partitions; each partition has its own ring buffer and a
+ * dedicated thread that owns the books of its instruments and applies their
+ * commands strictly in sequence. Independent instruments therefore match in
+ * parallel, while every instrument still has a single writer.
+ *
+ * HTTP threads only publish commands into the ring of the order's partition
+ * and wait on a future, completed with a snapshot of the order taken by the
+ * matching thread once the command is applied. A publisher waits at most {@code claimTimeoutMillis}
+ * for a slot in a full ring; after that the command fails with a
+ * {@link RejectedExecutionException}, answered as 503, rather than holding
+ * the thread until the partition catches up. Every command is appended to the shared
+ * {@link CommandJournal} before it is applied and acknowledged. The books are
+ * snapshotted every {@code snapshotEvery} commands and on shutdown, with all
+ * partitions paused at the same journal sequence.
+ *
+ * Every {@code expiryPollMillis} each partition also takes the orders whose
+ * deadline passed off the expiry wheels of its books and expires them as
+ * journaled EXPIRE commands, so they leave the book at their deadline. At
+ * every gate closure of the {@link com.energytrade.orderservice.MatchingModes}
+ * it uncrosses the books of its auctioned instruments, as journaled UNCROSS
+ * commands, right after expiring what was due.
+ *
+ * With a {@link BookWarmStart} from the database the partitions only start
+ * applying commands once the books are loaded; until then they wait in the
+ * rings, and are turned away once a ring is full.
+ *
+ * Publishes {@code orders.match}, the time to journal and apply each command
+ * on its partition thread, and the ring backlog of every partition.
+ */
+@Slf4j
+@Component
+@DependsOn("journalRecovery") // the books are rebuilt before the matching threads take them over
+public class MatchingPipeline implements MeterBinder {
+
+	private final MatchingEngine matchingEngine;
+	private final CommandJournal journal;
+	private final BookWarmStart warmStart;
+	private final Partition[] partitions;
+	private final long timeoutMillis;
+	private final long claimTimeoutNanos;
+	private final long snapshotEvery;
+	private final long expiryPollNanos;
+
+	// Serializes journal appends across partitions; held by a snapshot to stop them all at one sequence
+	private final ReentrantLock journalLock = new ReentrantLock();
+
+	private volatile boolean running;
+	// orders.match timer per command type, indexed by ordinal
+	private volatile Timer[] matchTimers = matchTimers(Meters.NONE);
+
+	public MatchingPipeline(MatchingEngine matchingEngine, CommandJournal journal, BookWarmStart warmStart,
+			@Value("${matching.pipeline.partitions:4}") int partitionCount,
+			@Value("${matching.pipeline.ring-size:1024}") int ringSize,
+			@Value("${matching.pipeline.timeout-ms:5000}") long timeoutMillis,
+			@Value("${matching.pipeline.claim-timeout-ms:100}") long claimTimeoutMillis,
+			@Value("${order.journal.snapshot-every:100000}") long snapshotEvery,
+			@Value("${order.expiry.poll-ms:100}") long expiryPollMillis) {
+		if (partitionCount < 1) {
+			throw new IllegalArgumentException("At least one matching partition is required");
+		}
+		this.matchingEngine = matchingEngine;
+		this.journal = journal;
+		this.warmStart = warmStart;
+		this.partitions = new Partition[partitionCount];
+		for (int i = 0; i < partitionCount; i++) {
+			partitions[i] = new Partition(i, new CommandRingBuffer(ringSize));
+		}
+		this.timeoutMillis = timeoutMillis;
+		this.claimTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(claimTimeoutMillis);
+		this.snapshotEvery = snapshotEvery;
+		this.expiryPollNanos = TimeUnit.MILLISECONDS.toNanos(expiryPollMillis);
+	}
+
+	@PostConstruct
+	public void start() {
+		running = true;
+		for (Partition partition : partitions) {
+			partition.thread = new Thread(partition::run, "matching-engine-" + partition.index);
+			partition.thread.setDaemon(true);
+			partition.thread.start();
+		}
+		log.info("⚙️ Matching pipeline started ({} partitions, ring size {})", partitions.length,
+				partitions[0].ringBuffer.capacity());
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		boolean stopped = true;
+		for (Partition partition : partitions) {
+			LockSupport.unpark(partition.thread);
+			partition.thread.join(timeoutMillis);
+			stopped &= !partition.thread.isAlive();
+		}
+		if (stopped && journal.sequence() > journal.snapshotSequence()) {
+			// The matching threads are gone, so the books can be read from here
+			snapshot();
+		}
+	}
+
+	public CompletableFuture<Order> submit(Order order) {
+		CompletableFuture<Order> result = publish(MatchingCommand.Type.NEW, order);
+		if (result.isCompletedExceptionally()) {
+			// Already saved as pending: cancelled so it does not stay live in the database outside the book
+			matchingEngine.reject(order, OffsetDateTime.now());
+		}
+		return result;
+	}
+
+	public CompletableFuture<Order> cancel(Order order) {
+		return publish(MatchingCommand.Type.CANCEL, order);
+	}
+
+	public CompletableFuture<Order> expire(Order order) {
+		return publish(MatchingCommand.Type.EXPIRE, order);
+	}
+
+	/**
+	 * Uncrosses the book of an auctioned instrument now, ahead of its next
+	 * gate closure.
+	 */
+	public CompletableFuture<Uncrossing> uncross(String instrument) {
+		return publish(MatchingCommand.Type.UNCROSS, gateClosure(instrument))
+				.thenApply(ignored -> matchingEngine.lastUncrossing(instrument));
+	}
+
+	/**
+	 * Waits for a command result on the calling thread, unwrapping failures
+	 * raised by the matching thread.
+	 */
+	public Order await(CompletableFuture<Order> result) {
+		try {
+			return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			throw new IllegalStateException("Matching did not complete within " + timeoutMillis + " ms", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for matching", e);
+		}
+	}
+
+	/**
+	 * The command result, failing with a {@link TimeoutException} if matching
+	 * does not complete in time; for callers that do not wait on it.
+	 */
+	public <T> CompletableFuture<T> withTimeout(CompletableFuture<T> result) {
+		return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Whether every acknowledgement must wait for the write-behind flush,
+	 * whatever the request asked for: with the books loaded from the database,
+	 * a crash loses the changes not flushed yet (see {@link BookWarmStart}).
+	 */
+	public boolean durableOnly() {
+		return warmStart.enabled();
+	}
+
+	public int partitionCount() {
+		return partitions.length;
+	}
+
+	// Partition owning the instrument's book; stable for a given partition count
+	public int partitionOf(String instrument) {
+		int hash = instrument.hashCode();
+		return Math.floorMod(hash ^ (hash >>> 16), partitions.length);
+	}
+
+	/**
+	 * Per-partition load: instruments owned, commands applied, time spent
+	 * applying them and the resulting throughput, the ring backlog and the
+	 * commands turned away because it was full.
+	 */
+	public List<Map<String, Object>> partitionStats() {
+		int[] instruments = new int[partitions.length];
+		for (String instrument : matchingEngine.instruments()) {
+			instruments[partitionOf(instrument)]++;
+		}
+		List<Map<String, Object>> stats = new ArrayList<>(partitions.length);
+		for (Partition partition : partitions) {
+			long commands = partition.commands;
+			long busyNanos = partition.busyNanos;
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("partition", partition.index);
+			entry.put("instruments", instruments[partition.index]);
+			entry.put("commands", commands);
+			entry.put("busyMillis", TimeUnit.NANOSECONDS.toMillis(busyNanos));
+			entry.put("commandsPerSecond", busyNanos == 0 ? 0 : commands * 1_000_000_000L / busyNanos);
+			entry.put("expired", partition.expired);
+			entry.put("rejected", partition.rejected.sum());
+			entry.put("backlog", partition.ringBuffer.claimed() - partition.ringBuffer.consumed());
+			stats.add(entry);
+		}
+		return stats;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		matchTimers = matchTimers(registry);
+		for (Partition partition : partitions) {
+			Gauge.builder("orders.pipeline.backlog", partition,
+					p -> p.ringBuffer.claimed() - p.ringBuffer.consumed())
+					.description("Commands published to a matching partition and not yet applied")
+					.tag("partition", String.valueOf(partition.index)).register(registry);
+		}
+	}
+
+	private static Timer[] matchTimers(MeterRegistry registry) {
+		MatchingCommand.Type[] types = MatchingCommand.Type.values();
+		Timer[] timers = new Timer[types.length];
+		for (MatchingCommand.Type type : types) {
+			timers[type.ordinal()] = Timer.builder("orders.match")
+					.description("Time to journal and apply one command on its matching partition")
+					.tag("command", type.name().toLowerCase()).register(registry);
+		}
+		return timers;
+	}
+
+	// UNCROSS commands carry the instrument only
+	private static Order gateClosure(String instrument) {
+		return Order.builder().id(0L).instrument(instrument).build();
+	}
+
+	private CompletableFuture<Order> publish(MatchingCommand.Type type, Order order) {
+		if (!running) {
+			throw new IllegalStateException("Matching pipeline is not running");
+		}
+		if (warmStart.loaded().isCompletedExceptionally()) {
+			throw new IllegalStateException("Order book could not be loaded");
+		}
+		Partition partition = partitions[partitionOf(order.getInstrument())];
+		long sequence;
+		try {
+			sequence = partition.ringBuffer.tryClaim(claimTimeoutNanos);
+		} catch (RejectedExecutionException e) {
+			// The partition is behind, or still waiting for its books: turned away rather than waited on
+			partition.rejected.increment();
+			return CompletableFuture.failedFuture(new RejectedExecutionException(
+					"Matching partition " + partition.index + " is overloaded, try again later.", e));
+		}
+		CompletableFuture<Order> result = new CompletableFuture<>();
+		partition.ringBuffer.slot(sequence).set(type, order, result);
+		partition.ringBuffer.publish(sequence);
+		LockSupport.unpark(partition.thread);
+		return result;
+	}
+
+	/**
+	 * Snapshots the books once enough commands were journaled. Called by a
+	 * matching thread between batches; holding the journal lock stops the
+	 * other partitions before their next append, and the snapshot waits until
+	 * they applied everything they appended.
+	 */
+	private void snapshotIfDue() {
+		if (journal.sequence() - journal.snapshotSequence() < snapshotEvery || !journalLock.tryLock()) {
+			return;
+		}
+		try {
+			if (journal.sequence() - journal.snapshotSequence() < snapshotEvery) {
+				return;
+			}
+			for (Partition partition : partitions) {
+				while (partition.applied != partition.appended) {
+					Thread.onSpinWait();
+				}
+			}
+			snapshot();
+		} finally {
+			journalLock.unlock();
+		}
+	}
+
+	private void snapshot() {
+		List<Order> resting = new ArrayList<>(matchingEngine.restingCount());
+		matchingEngine.forEachRestingOrder(resting::add);
+		try {
+			journal.writeSnapshot(resting);
+		} catch (IOException e) {
+			log.error("❌ Book snapshot failed at sequence {}: {}", journal.sequence(), e.getMessage(), e);
+		}
+	}
+
+	private final class Partition {
+
+		final int index;
+		final CommandRingBuffer ringBuffer;
+		Thread thread;
+
+		// Commands journaled (written under the journal lock) and applied by this partition's thread
+		long appended;
+		volatile long applied;
+
+		// Load counters, written by the partition's thread only
+		volatile long commands;
+		volatile long busyNanos;
+		volatile long expired;
+		// Commands turned away with a full ring, by any publishing thread
+		final LongAdder rejected = new LongAdder();
+
+		Partition(int index, CommandRingBuffer ringBuffer) {
+			this.index = index;
+			this.ringBuffer = ringBuffer;
+		}
+
+		void run() {
+			if (!awaitBooks()) {
+				return;
+			}
+			long next = 0;
+			int idle = 0;
+			long nextExpiryPoll = System.nanoTime() + expiryPollNanos;
+			long nextGateClosure = matchingEngine.modes().nextGateClosure(System.currentTimeMillis());
+			while (running || ringBuffer.claimed() >= next) {
+				if (System.nanoTime() - nextExpiryPoll >= 0) {
+					expireDue();
+					// Gate closures are as precise as the expiry poll
+					if (System.currentTimeMillis() >= nextGateClosure) {
+						uncrossAuctions();
+						nextGateClosure = matchingEngine.modes().nextGateClosure(System.currentTimeMillis());
+					}
+					nextExpiryPoll = System.nanoTime() + expiryPollNanos;
+				}
+				long available = ringBuffer.availableUpTo(next);
+				if (available < next) {
+					// Spin briefly to keep the core hot, then park until a producer wakes us
+					if (++idle < 1000) {
+						Thread.onSpinWait();
+					} else {
+						LockSupport.parkNanos(100_000);
+					}
+					continue;
+				}
+				idle = 0;
+				long start = System.nanoTime();
+				for (long seq = next; seq <= available; seq++) {
+					MatchingCommand command = ringBuffer.slot(seq);
+					Order result = null;
+					Exception failure = null;
+					try {
+						result = execute(command.type, command.order);
+					} catch (Exception e) {
+						failure = e;
+					}
+					// Counted before the result is released, so stats never lag behind acknowledged commands
+					commands++;
+					if (failure == null) {
+						// A copy: the order may rest in the book, which goes on changing it on this thread
+						command.result.complete(result == null ? null : result.snapshot());
+					} else {
+						command.result.completeExceptionally(failure);
+					}
+					command.clear();
+				}
+				ringBuffer.markConsumed(available);
+				busyNanos += System.nanoTime() - start;
+				next = available + 1;
+				snapshotIfDue();
+			}
+			log.info("⚙️ Matching partition {} stopped at sequence {}", index, next - 1);
+		}
+
+		// The books are the loader's until it is done; a failed load leaves them to nobody
+		private boolean awaitBooks() {
+			try {
+				warmStart.loaded().get();
+				return true;
+			} catch (ExecutionException e) {
+				log.error("❌ Matching partition {} not started: the books could not be loaded", index);
+				return false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		// Expirations are written behind in batches like any other change
+		private void expireDue() {
+			List<Order> due = new ArrayList<>();
+			matchingEngine.pollExpired(instrument -> partitionOf(instrument) == index, System.currentTimeMillis(),
+					due::add);
+			for (Order order : due) {
+				try {
+					execute(MatchingCommand.Type.EXPIRE, order);
+				} catch (Exception e) {
+					// Already logged; the order stays in the book and is caught by the next match or cleanup
+				}
+			}
+			if (!due.isEmpty()) {
+				expired += due.size();
+				log.info("⏰ {} orders expired at their deadline in partition {}", due.size(), index);
+			}
+		}
+
+		// Books that do not cross have nothing to uncross, and are not journaled
+		private void uncrossAuctions() {
+			for (String instrument : matchingEngine.modes().auctionInstruments()) {
+				if (partitionOf(instrument) != index || !matchingEngine.crossed(instrument)) {
+					continue;
+				}
+				try {
+					execute(MatchingCommand.Type.UNCROSS, gateClosure(instrument));
+				} catch (Exception e) {
+					// Already logged; the orders keep resting until the next gate closure
+				}
+			}
+		}
+
+		/**
+		 * Journals and applies one command; the clock is read once, under the
+		 * journal lock, and that time is used for the whole match.
+		 */
+		private Order execute(MatchingCommand.Type type, Order order) {
+			long start = System.nanoTime();
+			try {
+				OffsetDateTime now;
+				journalLock.lock();
+				try {
+					now = OffsetDateTime.now();
+					journal.append(type, order, now);
+					appended++;
+				} finally {
+					journalLock.unlock();
+				}
+				try {
+					return apply(type, order, now);
+				} finally {
+					applied = appended;
+				}
+			} catch (RuntimeException e) {
+				log.error("❌ Matching command {} failed for order {}: {}", type, order.getId(), e.getMessage(), e);
+				throw e;
+			} finally {
+				matchTimers[type.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+		}
+
+		private Order apply(MatchingCommand.Type type, Order order, OffsetDateTime now) {
+			switch (type) {
+			case NEW:
+				matchingEngine.match(order, now);
+				return order;
+			case CANCEL:
+				return matchingEngine.cancel(order, now);
+			case EXPIRE:
+				return matchingEngine.expire(order, now);
+			case UNCROSS:
+				matchingEngine.uncross(order.getInstrument(), now);
+				return null;
+			default:
+				throw new IllegalStateException("Unknown command " + type);
+			}
+		}
+	}
+}
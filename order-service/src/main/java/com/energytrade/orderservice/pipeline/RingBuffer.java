@@ -0,0 +1,122 @@
+package com.energytrade.orderservice.pipeline;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer / single-consumer ring buffer with disruptor-style
+ * sequencing. Producers claim a sequence with a CAS, fill the slot and publish
+ * it; the single consumer walks the sequences in order. No locks are taken on
+ * either side, and the slots are allocated once up front and reused.
+ */
+public class RingBuffer<T> {
+
+	private final T[] slots;
+	private final int mask;
+
+	// Sequence published into each slot, so the consumer knows when it is readable
+	private final AtomicLongArray published;
+
+	// Highest sequence claimed by any producer
+	private final AtomicLong claimed = new AtomicLong(-1);
+
+	// Highest sequence fully processed by the consumer (written by the consumer only)
+	private volatile long consumed = -1;
+
+	@SuppressWarnings("unchecked")
+	public RingBuffer(int capacity, Supplier<T> slotFactory) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+		}
+		this.slots = (T[]) new Object[capacity];
+		this.mask = capacity - 1;
+		this.published = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			slots[i] = slotFactory.get();
+			published.set(i, -1);
+		}
+	}
+
+	public int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * Claims the next sequence, spinning while the buffer is full.
+	 */
+	public long claim() {
+		return claim(false, 0);
+	}
+
+	/**
+	 * Claims the next sequence, waiting at most {@code timeoutNanos} (zero:
+	 * not at all) for the consumer to free a slot while the buffer is full.
+	 *
+	 * @throws RejectedExecutionException if the buffer is still full
+	 */
+	public long tryClaim(long timeoutNanos) {
+		return claim(true, timeoutNanos);
+	}
+
+	private long claim(boolean bounded, long timeoutNanos) {
+		long deadline = bounded ? System.nanoTime() + timeoutNanos : 0;
+		int spins = 0;
+		while (true) {
+			long current = claimed.get();
+			long next = current + 1;
+			if (next - slots.length > consumed) {
+				if (bounded && System.nanoTime() - deadline >= 0) {
+					throw new RejectedExecutionException("Ring buffer full (" + slots.length + " slots)");
+				}
+				// Wrap point not consumed yet: back off until the consumer catches up
+				if (++spins < 100) {
+					Thread.onSpinWait();
+				} else {
+					Thread.yield();
+				}
+				continue;
+			}
+			if (claimed.compareAndSet(current, next)) {
+				return next;
+			}
+		}
+	}
+
+	public T slot(long sequence) {
+		return slots[(int) sequence & mask];
+	}
+
+	public void publish(long sequence) {
+		published.lazySet((int) sequence & mask, sequence);
+	}
+
+	/**
+	 * Consumer side: highest sequence that is contiguously published after
+	 * {@code from - 1}, or {@code from - 1} when nothing new is available.
+	 */
+	public long availableUpTo(long from) {
+		long last = from - 1;
+		long limit = from + slots.length;
+		for (long seq = from; seq < limit; seq++) {
+			if (published.get((int) seq & mask) != seq) {
+				break;
+			}
+			last = seq;
+		}
+		return last;
+	}
+
+	public void markConsumed(long sequence) {
+		consumed = sequence;
+	}
+
+	public long consumed() {
+		return consumed;
+	}
+
+	public long claimed() {
+		return claimed.get();
+	}
+}
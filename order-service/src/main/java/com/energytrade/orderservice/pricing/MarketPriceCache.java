@@ -0,0 +1,174 @@
+package com.energytrade.orderservice.pricing;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.energytrade.orderservice.model.FixedPoint;
+import com.energytrade.orderservice.model.PriceResponse;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Latest market price, kept locally so order entry does not call
+ * pricing-service (and, through it, the external gateway) for every order.
+ *
+ * The price only stamps {@code marketPrice}, which is informational
+ * (ADR-004), so a reading older than {@code maxStaleness} is still used but
+ * counted as a stale read. The price is fetched once at startup; a read
+ * before any price arrived gets {@link #NO_PRICE}, also counted as stale,
+ * rather than calling pricing-service on the request thread.
+ *
+ * Publishes the age of the quote, whether it is stale, and the reads and
+ * stale reads, to alert on a cache that keeps serving an old price.
+ */
+@Slf4j
+@Component
+public class MarketPriceCache implements MeterBinder {
+
+	// Market price of an order entered before any price arrived
+	public static final long NO_PRICE = 0;
+
+	// Immutable, so a single volatile read gives a consistent price and age
+	private static final class Quote {
+		final long ticks;
+		final long receivedAtNanos;
+		final Instant receivedAt;
+
+		Quote(long ticks) {
+			this.ticks = ticks;
+			this.receivedAtNanos = System.nanoTime();
+			this.receivedAt = Instant.now();
+		}
+	}
+
+	private final RestTemplate restTemplate;
+	private final String pricingUrl;
+	private final long maxStalenessNanos;
+
+	private volatile Quote quote;
+	private volatile boolean stale;
+
+	private final LongAdder reads = new LongAdder();
+	private final LongAdder staleReads = new LongAdder();
+	private final AtomicLong updates = new AtomicLong();
+	private final AtomicLong refreshFailures = new AtomicLong();
+
+	public MarketPriceCache(RestTemplate restTemplate, @Value("${pricing.service.url}") String pricingUrl,
+			@Value("${market-price.max-staleness-ms:5000}") long maxStalenessMillis) {
+		this.restTemplate = restTemplate;
+		this.pricingUrl = pricingUrl;
+		this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+	}
+
+	@PostConstruct
+	public void warm() {
+		refresh();
+		if (quote == null) {
+			log.warn("⚠️ No market price at startup, orders get none until pricing-service answers");
+		}
+	}
+
+	/**
+	 * Price in ticks for a new order, {@link #NO_PRICE} until the first one
+	 * arrives. Never calls pricing-service.
+	 */
+	public long currentTicks() {
+		Quote current = quote;
+		reads.increment();
+		if (current == null) {
+			staleReads.increment();
+			return NO_PRICE;
+		}
+		if (System.nanoTime() - current.receivedAtNanos > maxStalenessNanos) {
+			staleReads.increment();
+		}
+		return current.ticks;
+	}
+
+	@Scheduled(fixedDelayString = "${market-price.refresh-ms:500}")
+	public void refresh() {
+		try {
+			update(fetch());
+		} catch (Exception e) {
+			refreshFailures.incrementAndGet();
+			if (!stale && isStale()) {
+				stale = true;
+				log.warn("⚠️ Market price is stale ({} ms old): {}", ageMillis(), e.getMessage());
+			}
+		}
+	}
+
+	// Pushed by a price feed, or pulled by refresh()
+	public void update(double price) {
+		quote = new Quote(FixedPoint.toTicks(price));
+		updates.incrementAndGet();
+		if (stale) {
+			stale = false;
+			log.info("💰 Market price feed recovered: {}", price);
+		}
+	}
+
+	public boolean isStale() {
+		Quote current = quote;
+		return current == null || System.nanoTime() - current.receivedAtNanos > maxStalenessNanos;
+	}
+
+	// -1 while no price has been received yet
+	public long ageMillis() {
+		Quote current = quote;
+		return current == null ? -1 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - current.receivedAtNanos);
+	}
+
+	public Map<String, Object> stats() {
+		Quote current = quote;
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("price", current == null ? null : FixedPoint.fromTicks(current.ticks));
+		stats.put("receivedAt", current == null ? null : current.receivedAt.toString());
+		stats.put("ageMillis", ageMillis());
+		stats.put("stale", isStale());
+		stats.put("maxStalenessMillis", TimeUnit.NANOSECONDS.toMillis(maxStalenessNanos));
+		stats.put("reads", reads.sum());
+		stats.put("staleReads", staleReads.sum());
+		stats.put("updates", updates.get());
+		stats.put("refreshFailures", refreshFailures.get());
+		return stats;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		TimeGauge.builder("orders.market-price.age", this, TimeUnit.MILLISECONDS, MarketPriceCache::ageGauge)
+				.description("Age of the cached market price, NaN before the first one").register(registry);
+		Gauge.builder("orders.market-price.stale", this, cache -> cache.isStale() ? 1 : 0)
+				.description("Whether the cached market price is older than the max staleness").register(registry);
+		FunctionCounter.builder("orders.market-price.reads", reads, LongAdder::sum)
+				.description("Market prices read for new orders").register(registry);
+		FunctionCounter.builder("orders.market-price.stale-reads", staleReads, LongAdder::sum)
+				.description("Market prices read for new orders while stale or not there yet").register(registry);
+	}
+
+	private double ageGauge() {
+		long age = ageMillis();
+		return age < 0 ? Double.NaN : age;
+	}
+
+	private double fetch() {
+		PriceResponse price = restTemplate.getForObject(pricingUrl, PriceResponse.class);
+		return price.getValue();
+	}
+}
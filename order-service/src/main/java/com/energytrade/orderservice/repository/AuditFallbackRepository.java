@@ -1,8 +1,14 @@
 package com.energytrade.orderservice.repository;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.energytrade.orderservice.model.AuditFallback;
 
 public interface AuditFallbackRepository extends JpaRepository<AuditFallback, Long> {
-}
\ No newline at end of file
+
+	// Keyset page of the outbox, oldest first
+	List<AuditFallback> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+}
@@ -0,0 +1,307 @@
+package com.energytrade.orderservice.trade;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.energytrade.orderservice.model.FixedPoint;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.model.TradeSummary;
+
+/**
+ * In-memory tape of the latest trades of every instrument, for the queries
+ * the trade history is mostly asked for: the last trades, VWAP over a time
+ * range and traded volume per interval.
+ *
+ * Each instrument keeps its trades column by column in primitive arrays
+ * (time, price, volume, taker, maker, side), grown on demand up to
+ * {@code capacity} and then used as a ring, so the oldest trades are
+ * overwritten. Range queries binary-search the time column and scan only the
+ * price and volume columns, without allocating per trade.
+ *
+ * Written by the matching thread owning the instrument and read concurrently
+ * by any thread: a reader that may have seen a slot being overwritten simply
+ * runs its query again.
+ */
+@Component
+public class TradeTape {
+
+	private static final int INITIAL_SIZE = 1024;
+
+	private final int capacity;
+	private final Map<String, InstrumentTape> tapes = new ConcurrentHashMap<>();
+
+	public TradeTape(@Value("${trade.tape.capacity:65536}") int capacity) {
+		// Power of two, so a trade's slot is its index masked
+		this.capacity = Integer.highestOneBit(Math.max(INITIAL_SIZE, capacity) - 1) << 1;
+	}
+
+	public void append(Trade trade) {
+		append(trade.getInstrument(), trade.getExecutedAt().toInstant().toEpochMilli(), trade.getTakerSide(),
+				trade.getTakerOrderId(), trade.getMakerOrderId(), trade.getPrice(), trade.getVolume());
+	}
+
+	/**
+	 * Appends a trade given field by field, which the matching loop does for
+	 * every fill without building a {@link Trade}.
+	 */
+	public void append(String instrument, long executedAtMillis, OrderType takerSide, long takerOrderId,
+			long makerOrderId, long price, long volume) {
+		InstrumentTape tape = tapes.get(instrument);
+		if (tape == null) {
+			tape = tapes.computeIfAbsent(instrument, key -> new InstrumentTape());
+		}
+		tape.append(executedAtMillis, takerSide, takerOrderId, makerOrderId, price, volume);
+	}
+
+	/**
+	 * The {@code limit} most recent trades of the instrument, newest first.
+	 */
+	public List<Trade> last(String instrument, int limit) {
+		InstrumentTape tape = tapes.get(instrument);
+		return tape == null ? Collections.emptyList() : tape.last(instrument, limit);
+	}
+
+	/**
+	 * Trades executed in [{@code from}, {@code to}).
+	 */
+	public TradeSummary summary(String instrument, OffsetDateTime from, OffsetDateTime to) {
+		return buckets(instrument, from, to, to.toInstant().toEpochMilli() - from.toInstant().toEpochMilli()).get(0);
+	}
+
+	/**
+	 * Trades executed in [{@code from}, {@code to}), split into consecutive
+	 * intervals of {@code intervalMillis} starting at {@code from}; intervals
+	 * without trades are included.
+	 */
+	public List<TradeSummary> buckets(String instrument, OffsetDateTime from, OffsetDateTime to,
+			long intervalMillis) {
+		long fromMillis = from.toInstant().toEpochMilli();
+		long toMillis = to.toInstant().toEpochMilli();
+		int count = (int) Math.max(1, (toMillis - fromMillis + intervalMillis - 1) / Math.max(1, intervalMillis));
+		Totals totals = new Totals(count);
+		InstrumentTape tape = tapes.get(instrument);
+		if (tape != null) {
+			tape.aggregate(fromMillis, toMillis, Math.max(1, intervalMillis), totals);
+		}
+		List<TradeSummary> summaries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			long start = fromMillis + i * intervalMillis;
+			long end = Math.min(toMillis, start + intervalMillis);
+			summaries.add(totals.summary(instrument, i, time(start), time(end)));
+		}
+		return summaries;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public long size(String instrument) {
+		InstrumentTape tape = tapes.get(instrument);
+		return tape == null ? 0 : tape.size();
+	}
+
+	private static OffsetDateTime time(long epochMillis) {
+		return Instant.ofEpochMilli(epochMillis).atOffset(ZoneOffset.UTC);
+	}
+
+	// Per-bucket accumulators of one query
+	private static final class Totals {
+		final long[] trades;
+		final long[] volume;
+		// Sum of price x volume in ticks x volume units, as a signed 128-bit value: a single trade can be close
+		// to 1e18, so a long overflows after a few of them
+		final long[] turnoverHigh;
+		final long[] turnoverLow;
+		final long[] high;
+		final long[] low;
+
+		Totals(int buckets) {
+			trades = new long[buckets];
+			volume = new long[buckets];
+			turnoverHigh = new long[buckets];
+			turnoverLow = new long[buckets];
+			high = new long[buckets];
+			low = new long[buckets];
+		}
+
+		void clear() {
+			Arrays.fill(trades, 0);
+			Arrays.fill(volume, 0);
+			Arrays.fill(turnoverHigh, 0);
+			Arrays.fill(turnoverLow, 0);
+		}
+
+		void add(int bucket, long price, long tradedVolume) {
+			if (trades[bucket]++ == 0) {
+				high[bucket] = price;
+				low[bucket] = price;
+			} else {
+				high[bucket] = Math.max(high[bucket], price);
+				low[bucket] = Math.min(low[bucket], price);
+			}
+			volume[bucket] += tradedVolume;
+			long low = turnoverLow[bucket] + price * tradedVolume;
+			long carry = Long.compareUnsigned(low, turnoverLow[bucket]) < 0 ? 1 : 0;
+			turnoverHigh[bucket] += Math.multiplyHigh(price, tradedVolume) + carry;
+			turnoverLow[bucket] = low;
+		}
+
+		TradeSummary summary(String instrument, int bucket, OffsetDateTime from, OffsetDateTime to) {
+			if (trades[bucket] == 0) {
+				return new TradeSummary(instrument, from, to, 0, 0, null, null, null);
+			}
+			// In ticks to two decimals, i.e. two more decimals than a price
+			BigInteger turnover = BigInteger.valueOf(turnoverHigh[bucket]).shiftLeft(64)
+					.add(new BigInteger(Long.toUnsignedString(turnoverLow[bucket])));
+			BigDecimal vwap = new BigDecimal(turnover)
+					.divide(BigDecimal.valueOf(volume[bucket]), 2, RoundingMode.HALF_UP)
+					.movePointLeft(FixedPoint.PRICE_SCALE);
+			return new TradeSummary(instrument, from, to, trades[bucket], volume[bucket], vwap,
+					FixedPoint.fromTicks(high[bucket]), FixedPoint.fromTicks(low[bucket]));
+		}
+	}
+
+	// Column arrays; replaced by larger copies while the tape grows, never shrunk
+	private static final class Columns {
+		final long[] times;
+		final long[] prices;
+		final long[] volumes;
+		final long[] takers;
+		final long[] makers;
+		final boolean[] buyTaker;
+
+		Columns(int size) {
+			times = new long[size];
+			prices = new long[size];
+			volumes = new long[size];
+			takers = new long[size];
+			makers = new long[size];
+			buyTaker = new boolean[size];
+		}
+
+		Columns(Columns from, int size) {
+			times = Arrays.copyOf(from.times, size);
+			prices = Arrays.copyOf(from.prices, size);
+			volumes = Arrays.copyOf(from.volumes, size);
+			takers = Arrays.copyOf(from.takers, size);
+			makers = Arrays.copyOf(from.makers, size);
+			buyTaker = Arrays.copyOf(from.buyTaker, size);
+		}
+
+		int length() {
+			return times.length;
+		}
+	}
+
+	private final class InstrumentTape {
+
+		private final int mask = capacity - 1;
+		// Once the ring is full, readers stay this far from the slot being overwritten
+		private final int slack = capacity / 8;
+
+		private volatile Columns columns = new Columns(INITIAL_SIZE);
+		// Trades appended so far; trade i is in slot i & mask. Published after the slot is written
+		private volatile long count;
+
+		void append(long executedAtMillis, OrderType takerSide, long takerOrderId, long makerOrderId, long price,
+				long volume) {
+			long index = count;
+			Columns c = columns;
+			if (index == c.length() && c.length() < capacity) {
+				c = new Columns(c, Math.min(capacity, c.length() * 2));
+				columns = c;
+			}
+			int slot = (int) (index & mask);
+			c.times[slot] = executedAtMillis;
+			c.prices[slot] = price;
+			c.volumes[slot] = volume;
+			c.takers[slot] = takerOrderId;
+			c.makers[slot] = makerOrderId;
+			c.buyTaker[slot] = takerSide == OrderType.BUY;
+			count = index + 1;
+		}
+
+		long size() {
+			return Math.min(count, capacity);
+		}
+
+		List<Trade> last(String instrument, int limit) {
+			while (true) {
+				long end = count;
+				Columns c = columns;
+				long start = Math.max(oldest(end), end - limit);
+				List<Trade> trades = new ArrayList<>((int) (end - start));
+				for (long i = end - 1; i >= start; i--) {
+					int slot = (int) (i & mask);
+					trades.add(Trade.builder().instrument(instrument).takerOrderId(c.takers[slot])
+							.makerOrderId(c.makers[slot]).takerSide(c.buyTaker[slot] ? OrderType.BUY : OrderType.SELL)
+							.price(c.prices[slot]).volume(c.volumes[slot]).executedAt(time(c.times[slot])).build());
+				}
+				if (intact(start)) {
+					return trades;
+				}
+			}
+		}
+
+		void aggregate(long fromMillis, long toMillis, long intervalMillis, Totals totals) {
+			while (true) {
+				long end = count;
+				Columns c = columns;
+				long start = firstAtOrAfter(c, oldest(end), end, fromMillis);
+				totals.clear();
+				for (long i = start; i < end; i++) {
+					int slot = (int) (i & mask);
+					long time = c.times[slot];
+					if (time >= toMillis) {
+						break;
+					}
+					if (time < fromMillis) {
+						continue; // only after a wall clock step back
+					}
+					totals.add((int) ((time - fromMillis) / intervalMillis), c.prices[slot], c.volumes[slot]);
+				}
+				if (intact(start)) {
+					return;
+				}
+			}
+		}
+
+		// Oldest trade a reader may look at, given the trades appended so far
+		private long oldest(long end) {
+			return end > capacity ? end - capacity + slack : 0;
+		}
+
+		// Whether trades from index start on were not overwritten while being read
+		private boolean intact(long start) {
+			return count - capacity < start;
+		}
+
+		// Trade times never go backwards within an instrument: they are the journal time of the command
+		private long firstAtOrAfter(Columns c, long low, long high, long timeMillis) {
+			while (low < high) {
+				long mid = (low + high) >>> 1;
+				if (c.times[(int) (mid & mask)] < timeMillis) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low;
+		}
+	}
+}
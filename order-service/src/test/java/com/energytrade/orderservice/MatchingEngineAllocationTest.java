@@ -0,0 +1,113 @@
+package com.energytrade.orderservice;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import java.lang.management.ManagementFactory;
+import java.time.OffsetDateTime;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.depth.MarketDepthFeed;
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.trade.TradeTape;
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Bytes allocated by the matching thread per fill, measured with the thread
+ * allocation counter. A sweep through {@link #LEVELS} price levels is compared
+ * with a single fill of the same total volume: the incoming order, its log
+ * line and its ORDER_MATCHED record are the same in both, so any difference
+ * is allocated by the fills themselves. The books report to the production
+ * depth feed, with a subscriber on the instrument, so publishing the level
+ * changes is measured too.
+ */
+class MatchingEngineAllocationTest {
+
+	private static final int LEVELS = 64;
+	private static final int WARMUP_ROUNDS = 200;
+	private static final int ROUNDS = 20;
+	private static final long TAKER_ID = 1_000_000L;
+
+	private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+	// Its writer takes the changes off the ring on its own thread, and writes nothing
+	private final OrderWriteBehind writeBehind = new OrderWriteBehind(null, new TransactionTemplate() {
+		@Override
+		public void executeWithoutResult(Consumer<TransactionStatus> action) {
+		}
+	}, null, 1000, 1, 1000, 1 << 12);
+	private final MarketDepthFeed depthFeed = new MarketDepthFeed(1, 60_000);
+	private final MatchingEngine engine = new MatchingEngine(writeBehind,
+			mock(OutboundDispatcher.class, withSettings().stubOnly()), depthFeed, new TradeTape(1024),
+			MatchingModes.CONTINUOUS);
+	private final OffsetDateTime now = OffsetDateTime.now();
+
+	@BeforeEach
+	void setUp() {
+		writeBehind.start();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		depthFeed.stop();
+		writeBehind.stop();
+	}
+
+	@Test
+	void shouldNotAllocatePerFillOnceWarmedUp() {
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		engine.publishFillNotifications();
+		depthFeed.subscribe(Instrument.DEFAULT);
+		threads.setThreadAllocatedMemoryEnabled(true);
+
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			sweep(LEVELS);
+			sweep(1);
+		}
+		long[] perFill = new long[ROUNDS];
+		for (int i = 0; i < ROUNDS; i++) {
+			long manyFills = sweep(LEVELS);
+			long oneFill = sweep(1);
+			perFill[i] = (manyFills - oneFill) / (LEVELS - 1);
+		}
+
+		assertThat(perFill).containsOnly(0L);
+	}
+
+	/**
+	 * Rests the same volume on {@code levels} price levels, matches one buy
+	 * order against all of it and returns the bytes allocated by the match.
+	 */
+	private long sweep(int levels) {
+		long volume = toVolumeUnits(LEVELS) / levels;
+		for (int i = 0; i < levels; i++) {
+			engine.restore(Order.builder().id((long) i + 1).type(OrderType.SELL).price(toTicks(100.0) + i)
+					.volume(volume).timestamp(now).expirationTimestamp(now.plusHours(1)).build());
+		}
+		Order taker = Order.builder().id(TAKER_ID).type(OrderType.BUY).price(toTicks(200.0))
+				.volume(toVolumeUnits(LEVELS)).timestamp(now).expirationTimestamp(now.plusHours(1)).build();
+
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		engine.match(taker, now);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		assertThat(taker.getStatus()).isEqualTo(OrderStatus.EXECUTED);
+		assertThat(engine.restingCount()).isZero();
+		return allocated;
+	}
+}
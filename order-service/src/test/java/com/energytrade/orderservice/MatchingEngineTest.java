@@ -1,48 +1,63 @@
 
 package com.energytrade.orderservice;
 
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.springframework.web.client.RestTemplate;
 
+import com.energytrade.orderservice.book.DepthListener;
+import com.energytrade.orderservice.book.Uncrossing;
 import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.Instrument;
 import com.energytrade.orderservice.model.Notification;
 import com.energytrade.orderservice.model.Order;
 import com.energytrade.orderservice.model.OrderStatus;
 import com.energytrade.orderservice.model.OrderType;
-import com.energytrade.orderservice.repository.OrderRepository;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.trade.TradeTape;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class MatchingEngineTest {
 
-	private OrderRepository orderRepository;
-	private RestTemplate restTemplate;
+	private static final String AUCTION = "DE-AUCTION";
+
+	private OrderWriteBehind writeBehind;
+	private OutboundDispatcher outbound;
+	private DepthListener depthListener;
+	private TradeTape tradeTape;
 	private MatchingEngine matchingEngine;
 
 	@BeforeEach
 	public void setUp() {
-		orderRepository = mock(OrderRepository.class);
-		restTemplate = mock(RestTemplate.class);
-		matchingEngine = new MatchingEngine(orderRepository, restTemplate);
+		writeBehind = mock(OrderWriteBehind.class);
+		outbound = mock(OutboundDispatcher.class);
+		depthListener = mock(DepthListener.class);
+		tradeTape = new TradeTape(1024);
+		matchingEngine = new MatchingEngine(writeBehind, outbound, depthListener, tradeTape,
+				new MatchingModes(AUCTION, 60_000));
 	}
 
 
@@ -53,11 +68,11 @@ public class MatchingEngineTest {
 	    Order buyOrder = Order.builder()
 	            .id(1L)
 	            .type(OrderType.BUY)
-	            .price(105.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(105.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
-	            .marketPrice(103.0)
+	            .marketPrice(toTicks(103.0))
 	            .timestamp(now)
 	            .expirationTimestamp(now.plusHours(1))
 	            .build();
@@ -65,71 +80,74 @@ public class MatchingEngineTest {
 	    Order sellOrder = Order.builder()
 	            .id(2L)
 	            .type(OrderType.SELL)
-	            .price(100.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
-	            .marketPrice(99.0)
+	            .marketPrice(toTicks(99.0))
 	            .timestamp(now)
 	            .expirationTimestamp(now.plusHours(1))
 	            .build();
 
-	    when(orderRepository.findEligibleCounterpartOrders(OrderType.SELL, 105.0))
-	            .thenReturn(List.of(sellOrder));
-
-	    // 👉 injeção via reflexão
-	    setField(matchingEngine, "auditUrl", "http://mock-audit");
-	    setField(matchingEngine, "notificationUrl", "http://mock-notification");
+	    seedBook(sellOrder);
 
 	    matchingEngine.match(buyOrder);
 
 	    assertThat(buyOrder.getStatus()).isEqualTo(OrderStatus.EXECUTED);
 	    assertThat(sellOrder.getStatus()).isEqualTo(OrderStatus.EXECUTED);
 
-	    // 🎯 Captura múltiplas chamadas com AuditEvent
-	    ArgumentCaptor<AuditEvent> auditCaptor = ArgumentCaptor.forClass(AuditEvent.class);
-	    verify(restTemplate, org.mockito.Mockito.times(2))
-	            .postForObject(eq("http://mock-audit"), auditCaptor.capture(), eq(Void.class));
-
-	    List<AuditEvent> auditEvents = auditCaptor.getAllValues();
-	    assertThat(auditEvents).hasSize(2);
-
-	 // ✅ Verificação mais robusta, ignora ordem dos eventos
-	    assertThat(auditEvents.stream().map(AuditEvent::getType))
-	        .containsExactlyInAnyOrder("ORDER_EXECUTED_PAIRWISE", "ORDER_MATCHED");
-
-	    // Validando conteúdo específico dos payloads
-	    boolean hasPairwiseWithMaker = auditEvents.stream()
-	        .filter(e -> "ORDER_EXECUTED_PAIRWISE".equals(e.getType()))
-	        .anyMatch(e -> e.getPayload().contains("\"makerOrderId\":2"));
-
-	    boolean hasMatchWithTaker = auditEvents.stream()
-	        .filter(e -> "ORDER_MATCHED".equals(e.getType()))
-	        .anyMatch(e -> e.getPayload().contains("\"orderId\":1"));
-
-	    assertThat(hasPairwiseWithMaker).isTrue();
-	    assertThat(hasMatchWithTaker).isTrue();
-
-	    // 🎯 Verifica notificação enviada
+	    // 🎯 O fill da contraparte segue para o write-behind como campos crus, com o preço do maker
+	    verify(writeBehind).markFilled(eq(sellOrder), eq(buyOrder), eq(sellOrder.getPrice()),
+	            eq(toVolumeUnits(10.0)), any(OffsetDateTime.class));
+	    verify(writeBehind).markMatched(eq(buyOrder), anyLong());
+
+	    List<Trade> tape = tradeTape.last(Instrument.DEFAULT, 10);
+	    assertThat(tape).hasSize(1);
+	    Trade trade = tape.get(0);
+	    assertThat(trade.getTakerOrderId()).isEqualTo(1L);
+	    assertThat(trade.getMakerOrderId()).isEqualTo(2L);
+	    assertThat(trade.getTakerSide()).isEqualTo(OrderType.BUY);
+	    assertThat(trade.getPrice()).isEqualTo(sellOrder.getPrice());
+	    assertThat(trade.getVolume()).isEqualTo(toVolumeUnits(10.0));
+
+	    // 🎯 A notificação é montada pelo writer a partir do trade
+	    matchingEngine.publishFillNotifications();
+	    @SuppressWarnings("unchecked")
+	    ArgumentCaptor<Consumer<Trade>> listenerCaptor = ArgumentCaptor.forClass(Consumer.class);
+	    verify(writeBehind).addTradeListener(listenerCaptor.capture());
+	    listenerCaptor.getValue().accept(trade);
 	    ArgumentCaptor<Notification> notificationCaptor = ArgumentCaptor.forClass(Notification.class);
-	    verify(restTemplate).postForObject(eq("http://mock-notification"), notificationCaptor.capture(), eq(Void.class));
+	    verify(outbound).publishNotification(notificationCaptor.capture());
 	    Notification notif = notificationCaptor.getValue();
 	    assertThat(notif.getMessage()).contains("matched with #2");
 	}
 
-	
-	private void setField(Object target, String fieldName, Object value) {
-	    try {
-	        var field = target.getClass().getDeclaredField(fieldName);
-	        field.setAccessible(true);
-	        field.set(target, value);
-	    } catch (Exception e) {
-	        throw new RuntimeException(e);
-	    }
-	}
+	@Test
+	void shouldEncodeAuditPayloadsOfMatching() {
+	    Trade trade = Trade.builder()
+	            .takerOrderId(1L)
+	            .makerOrderId(2L)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedAt(OffsetDateTime.parse("2030-01-01T10:00:00Z"))
+	            .build();
 
+	    AuditEvent pairwise = AuditEvent.executedPairwise(trade);
+	    assertThat(pairwise.getType()).isEqualTo("ORDER_EXECUTED_PAIRWISE");
+	    assertThat(pairwise.getPayload()).isEqualTo("{\"takerOrderId\":1,\"makerOrderId\":2,\"matchedVolume\":10.000,"
+	            + "\"price\":100.00,\"timestamp\":\"2030-01-01T10:00Z\"}");
 
+	    AuditEvent matched = AuditEvent.matched(1L, toVolumeUnits(10.0), OrderStatus.EXECUTED);
+	    assertThat(matched.getType()).isEqualTo("ORDER_MATCHED");
+	    assertThat(matched.getPayload()).isEqualTo("{\"orderId\":1,\"executedVolume\":10.000,\"status\":\"EXECUTED\"}");
+	}
 
+	
+	private void seedBook(Order... orders) {
+	    for (Order order : orders) {
+	        matchingEngine.orderBook().add(order);
+	    }
+	}
 
 	@Test
 	public void shouldExecutePartialMatching() {
@@ -138,11 +156,11 @@ public class MatchingEngineTest {
 	    Order buyOrder = Order.builder()
 	            .id(1L)
 	            .type(OrderType.BUY)
-	            .price(105.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(105.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
-	            .marketPrice(104.0)
+	            .marketPrice(toTicks(104.0))
 	            .timestamp(now.minusMinutes(2))
 	            .expirationTimestamp(now.plusMinutes(10))
 	            .build();
@@ -150,25 +168,24 @@ public class MatchingEngineTest {
 	    Order sellOrder = Order.builder()
 	            .id(2L)
 	            .type(OrderType.SELL)
-	            .price(100.0)
-	            .volume(6.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(6.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
-	            .marketPrice(99.0)
+	            .marketPrice(toTicks(99.0))
 	            .timestamp(now.minusMinutes(5))
 	            .expirationTimestamp(now.plusMinutes(10))
 	            .build();
 
-	    when(orderRepository.findEligibleCounterpartOrders(OrderType.SELL, 105.0))
-	            .thenReturn(new ArrayList<>(List.of(sellOrder)));
+	    seedBook(sellOrder);
 
 	    matchingEngine.match(buyOrder);
 
-	    assertThat(buyOrder.getExecutedVolume()).isEqualTo(6.0);
+	    assertThat(buyOrder.getExecutedVolume()).isEqualTo(toVolumeUnits(6.0));
 	    assertThat(buyOrder.getStatus()).isEqualTo(OrderStatus.PARTIAL);
-	    assertEquals(4.0, buyOrder.getRemainingVolume(), 0.001); // ✅ nova verificação
+	    assertEquals(toVolumeUnits(4.0), buyOrder.getRemainingVolume()); // ✅ nova verificação
 
-	    assertThat(sellOrder.getExecutedVolume()).isEqualTo(6.0);
+	    assertThat(sellOrder.getExecutedVolume()).isEqualTo(toVolumeUnits(6.0));
 	    assertThat(sellOrder.getStatus()).isEqualTo(OrderStatus.EXECUTED);
 	}
 
@@ -180,29 +197,24 @@ public class MatchingEngineTest {
 	            .id(99L)
 	            .type(OrderType.BUY)
 	            .status(OrderStatus.EXECUTED) // Já foi executada
-	            .volume(50.0)
-	            .executedVolume(50.0)
-	            .price(105.0)
-	            .marketPrice(104.0)
+	            .volume(toVolumeUnits(50.0))
+	            .executedVolume(toVolumeUnits(50.0))
+	            .price(toTicks(105.0))
+	            .marketPrice(toTicks(104.0))
 	            .timestamp(now.minusMinutes(10))
 	            .expirationTimestamp(now.plusMinutes(10))
 	            .build();
 
-	    // Segurança: se a lógica estiver errada, não deve buscar contrapartes
-	    when(orderRepository.findEligibleCounterpartOrders(any(), anyDouble()))
-	        .thenReturn(List.of());
-
 	    matchingEngine.match(executedOrder);
 
 	    // Verifica que nenhum método relevante foi invocado
-	    verify(orderRepository, never()).findEligibleCounterpartOrders(any(), anyDouble());
-	    verify(orderRepository, never()).save(any());
-	    verify(orderRepository, never()).saveAll(any());
+	    assertThat(matchingEngine.orderBook().contains(99L)).isFalse();
+	    verify(writeBehind, never()).markDirty(any(), anyLong());
 
 	    // Confirma que o estado permanece o mesmo
 	    assertEquals(OrderStatus.EXECUTED, executedOrder.getStatus());
-	    assertEquals(50.0, executedOrder.getExecutedVolume(), 0.001);
-	    assertEquals(0.0, executedOrder.getRemainingVolume(), 0.001);
+	    assertEquals(toVolumeUnits(50.0), executedOrder.getExecutedVolume());
+	    assertEquals(toVolumeUnits(0.0), executedOrder.getRemainingVolume());
 	}
 
 
@@ -210,37 +222,39 @@ public class MatchingEngineTest {
 	void shouldExecuteBulkMatchingAgainstMultipleCounterparts() {
 		OffsetDateTime now = OffsetDateTime.now();
 
-		Order buyOrder = Order.builder().id(1L).type(OrderType.BUY).price(105.0).volume(100.0).executedVolume(0.0)
-				.status(OrderStatus.PENDING).timestamp(now.minusMinutes(2)).marketPrice(104.0)
+		Order buyOrder = Order.builder().id(1L).type(OrderType.BUY).price(toTicks(105.0)).volume(toVolumeUnits(100.0)).executedVolume(toVolumeUnits(0.0))
+				.status(OrderStatus.PENDING).timestamp(now.minusMinutes(2)).marketPrice(toTicks(104.0))
 				.expirationTimestamp(now.plusHours(1)).build();
 
-		Order sell1 = Order.builder().id(2L).type(OrderType.SELL).price(100.0).volume(30.0).executedVolume(0.0)
-				.status(OrderStatus.PENDING).timestamp(now.minusMinutes(5)).marketPrice(99.0)
+		Order sell1 = Order.builder().id(2L).type(OrderType.SELL).price(toTicks(100.0)).volume(toVolumeUnits(30.0)).executedVolume(toVolumeUnits(0.0))
+				.status(OrderStatus.PENDING).timestamp(now.minusMinutes(5)).marketPrice(toTicks(99.0))
 				.expirationTimestamp(now.plusHours(1)).build();
 
-		Order sell2 = Order.builder().id(3L).type(OrderType.SELL).price(102.0).volume(50.0).executedVolume(0.0)
-				.status(OrderStatus.PENDING).timestamp(now.minusMinutes(4)).marketPrice(101.0)
+		Order sell2 = Order.builder().id(3L).type(OrderType.SELL).price(toTicks(102.0)).volume(toVolumeUnits(50.0)).executedVolume(toVolumeUnits(0.0))
+				.status(OrderStatus.PENDING).timestamp(now.minusMinutes(4)).marketPrice(toTicks(101.0))
 				.expirationTimestamp(now.plusHours(1)).build();
 
-		Order sell3 = Order.builder().id(4L).type(OrderType.SELL).price(103.0).volume(20.0).executedVolume(0.0)
-				.status(OrderStatus.PENDING).timestamp(now.minusMinutes(3)).marketPrice(102.0)
+		Order sell3 = Order.builder().id(4L).type(OrderType.SELL).price(toTicks(103.0)).volume(toVolumeUnits(20.0)).executedVolume(toVolumeUnits(0.0))
+				.status(OrderStatus.PENDING).timestamp(now.minusMinutes(3)).marketPrice(toTicks(102.0))
 				.expirationTimestamp(now.plusHours(1)).build();
 
-		when(orderRepository.findEligibleCounterpartOrders(OrderType.SELL, 105.0))
-				.thenReturn(new ArrayList<>(List.of(sell1, sell2, sell3)));
+		seedBook(sell1, sell2, sell3);
 
 		matchingEngine.match(buyOrder);
 
 		assertEquals(OrderStatus.EXECUTED, buyOrder.getStatus());
-		assertEquals(100.0, buyOrder.getExecutedVolume(), 0.001);
-		assertEquals(30.0, sell1.getExecutedVolume(), 0.001);
-		assertEquals(50.0, sell2.getExecutedVolume(), 0.001);
-		assertEquals(20.0, sell3.getExecutedVolume(), 0.001);
+		assertEquals(toVolumeUnits(100.0), buyOrder.getExecutedVolume());
+		assertEquals(toVolumeUnits(30.0), sell1.getExecutedVolume());
+		assertEquals(toVolumeUnits(50.0), sell2.getExecutedVolume());
+		assertEquals(toVolumeUnits(20.0), sell3.getExecutedVolume());
 		
 		assertEquals(OrderStatus.EXECUTED, sell1.getStatus());
 		assertEquals(OrderStatus.EXECUTED, sell2.getStatus());
 		assertEquals(OrderStatus.EXECUTED, sell3.getStatus());
 
+		// Fully executed orders leave the book
+		assertEquals(0, matchingEngine.orderBook().size());
+
 	}
 
 	@Test
@@ -251,12 +265,12 @@ public class MatchingEngineTest {
 	    Order incomingOrder = Order.builder()
 	            .id(1L)
 	            .type(OrderType.BUY)
-	            .price(120.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(120.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
 	            .timestamp(now.minusMinutes(1))
-	            .marketPrice(118.0)
+	            .marketPrice(toTicks(118.0))
 	            .expirationTimestamp(now.plusMinutes(10)) // Ainda válida
 	            .build();
 
@@ -264,12 +278,12 @@ public class MatchingEngineTest {
 	    Order expiredSell1 = Order.builder()
 	            .id(2L)
 	            .type(OrderType.SELL)
-	            .price(100.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
 	            .timestamp(now.minusMinutes(5))
-	            .marketPrice(98.0)
+	            .marketPrice(toTicks(98.0))
 	            .expirationTimestamp(now.minusMinutes(1)) // Expirada
 	            .build();
 
@@ -277,12 +291,12 @@ public class MatchingEngineTest {
 	    Order expiredSell2 = Order.builder()
 	            .id(3L)
 	            .type(OrderType.SELL)
-	            .price(99.0)
-	            .volume(5.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(99.0))
+	            .volume(toVolumeUnits(5.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
 	            .timestamp(now.minusMinutes(6))
-	            .marketPrice(97.0)
+	            .marketPrice(toTicks(97.0))
 	            .expirationTimestamp(now.minusMinutes(2)) // Expirada
 	            .build();
 
@@ -290,32 +304,36 @@ public class MatchingEngineTest {
 	    Order validSell = Order.builder()
 	            .id(4L)
 	            .type(OrderType.SELL)
-	            .price(100.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
 	            .timestamp(now.minusMinutes(3))
-	            .marketPrice(99.0)
+	            .marketPrice(toTicks(99.0))
 	            .expirationTimestamp(now.plusMinutes(5)) // Ainda válida
 	            .build();
 
-	    List<Order> candidates = Arrays.asList(expiredSell1, expiredSell2, validSell);
-	    when(orderRepository.findEligibleCounterpartOrders(eq(OrderType.SELL), anyDouble()))
-	            .thenReturn(candidates);
+	    seedBook(expiredSell1, expiredSell2, validSell);
 
 	    matchingEngine.match(incomingOrder);
 
 	    assertEquals(OrderStatus.EXECUTED, incomingOrder.getStatus());
-	    assertEquals(10.0, incomingOrder.getExecutedVolume(), 0.001);
+	    assertEquals(toVolumeUnits(10.0), incomingOrder.getExecutedVolume());
 
 	    assertEquals(OrderStatus.EXECUTED, validSell.getStatus());
-	    assertEquals(10.0, validSell.getExecutedVolume(), 0.001);
+	    assertEquals(toVolumeUnits(10.0), validSell.getExecutedVolume());
 
-	    assertEquals(OrderStatus.PENDING, expiredSell1.getStatus());
-	    assertEquals(0.0, expiredSell1.getExecutedVolume(), 0.001);
+	    assertEquals(OrderStatus.EXPIRED, expiredSell1.getStatus());
+	    assertEquals(toVolumeUnits(0.0), expiredSell1.getExecutedVolume());
 
-	    assertEquals(OrderStatus.PENDING, expiredSell2.getStatus());
-	    assertEquals(0.0, expiredSell2.getExecutedVolume(), 0.001);
+	    assertEquals(OrderStatus.EXPIRED, expiredSell2.getStatus());
+	    assertEquals(toVolumeUnits(0.0), expiredSell2.getExecutedVolume());
+
+	    // Expired orders are evicted from the book (and persisted as EXPIRED) when reached
+	    verify(writeBehind).markDirty(eq(expiredSell1), anyLong());
+	    verify(writeBehind).markDirty(eq(expiredSell2), anyLong());
+	    assertThat(matchingEngine.orderBook().contains(2L)).isFalse();
+	    assertThat(matchingEngine.orderBook().contains(3L)).isFalse();
 	}
 	
 	@Test
@@ -326,10 +344,10 @@ public class MatchingEngineTest {
 	            .id(99L)
 	            .type(OrderType.BUY)
 	            .status(OrderStatus.PENDING)
-	            .volume(10.0)
-	            .executedVolume(0.0)
-	            .price(100.0)
-	            .marketPrice(98.0)
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
+	            .price(toTicks(100.0))
+	            .marketPrice(toTicks(98.0))
 	            .timestamp(now.minusMinutes(10))
 	            .expirationTimestamp(now.minusMinutes(1)) // Já expirado
 	            .build();
@@ -339,9 +357,9 @@ public class MatchingEngineTest {
 	    assertEquals(OrderStatus.EXPIRED, expiredBuy.getStatus());
 
 	    // Deve salvar apenas a própria ordem expirada
-	    verify(orderRepository).save(expiredBuy);
-	    verify(orderRepository, never()).findEligibleCounterpartOrders(any(), anyDouble());
-	    verify(orderRepository, never()).saveAll(any()); // nenhuma contraparte foi salva
+	    verify(writeBehind).markDirty(eq(expiredBuy), anyLong());
+	    verify(writeBehind, times(1)).markDirty(any(), anyLong()); // nenhuma contraparte foi salva
+	    assertThat(matchingEngine.orderBook().contains(99L)).isFalse();
 	}
 	
 	@Test
@@ -351,40 +369,43 @@ public class MatchingEngineTest {
 	    Order buyOrder = Order.builder()
 	            .id(1L)
 	            .type(OrderType.BUY)
-	            .price(105.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(105.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
 	            .timestamp(now.minusMinutes(1))
-	            .marketPrice(104.0)
+	            .marketPrice(toTicks(104.0))
 	            .expirationTimestamp(now.plusMinutes(10))
 	            .build();
 
 	    Order sellOrder = Order.builder()
 	            .id(2L)
 	            .type(OrderType.SELL)
-	            .price(100.0)
-	            .volume(15.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(15.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
 	            .timestamp(now.minusMinutes(3))
-	            .marketPrice(99.0)
+	            .marketPrice(toTicks(99.0))
 	            .expirationTimestamp(now.plusMinutes(10))
 	            .build();
 
-	    when(orderRepository.findEligibleCounterpartOrders(OrderType.SELL, 105.0))
-	            .thenReturn(List.of(sellOrder));
+	    seedBook(sellOrder);
 
 	    matchingEngine.match(buyOrder);
 
 	    // BUY foi totalmente executada
 	    assertEquals(OrderStatus.EXECUTED, buyOrder.getStatus());
-	    assertEquals(10.0, buyOrder.getExecutedVolume(), 0.001);
+	    assertEquals(toVolumeUnits(10.0), buyOrder.getExecutedVolume());
 
 	    // SELL foi parcialmente executada (10 de 15)
 	    assertEquals(OrderStatus.PARTIAL, sellOrder.getStatus());
-	    assertEquals(10.0, sellOrder.getExecutedVolume(), 0.001);
-	    assertEquals(5.0, sellOrder.getRemainingVolume(), 0.001); // 15 - 10
+	    assertEquals(toVolumeUnits(10.0), sellOrder.getExecutedVolume());
+	    assertEquals(toVolumeUnits(5.0), sellOrder.getRemainingVolume()); // 15 - 10
+
+	    // The partially filled SELL keeps resting at its level
+	    assertThat(matchingEngine.orderBook().contains(2L)).isTrue();
+	    assertEquals(toVolumeUnits(5.0), matchingEngine.orderBook().side(OrderType.SELL).bestLevel().getTotalVolume());
 	}
 
 	@Test
@@ -395,11 +416,11 @@ public class MatchingEngineTest {
 	    Order buy = Order.builder()
 	            .id(10L)
 	            .type(OrderType.BUY)
-	            .price(105.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(105.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
-	            .marketPrice(104.0)
+	            .marketPrice(toTicks(104.0))
 	            .timestamp(now)
 	            .expirationTimestamp(now.plusHours(1))
 	            .build();
@@ -408,12 +429,12 @@ public class MatchingEngineTest {
 	    Order sellRecent = Order.builder()
 	            .id(1L)
 	            .type(OrderType.SELL)
-	            .price(100.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
 	            .timestamp(now.minusMinutes(1)) // mais recente
-	            .marketPrice(99.0)
+	            .marketPrice(toTicks(99.0))
 	            .expirationTimestamp(now.plusHours(1))
 	            .build();
 
@@ -421,57 +442,209 @@ public class MatchingEngineTest {
 	    Order sellOld = Order.builder()
 	            .id(2L)
 	            .type(OrderType.SELL)
-	            .price(100.0)
-	            .volume(10.0)
-	            .executedVolume(0.0)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(10.0))
+	            .executedVolume(toVolumeUnits(0.0))
 	            .status(OrderStatus.PENDING)
 	            .timestamp(now.minusMinutes(5)) // mais antiga
-	            .marketPrice(99.0)
+	            .marketPrice(toTicks(99.0))
 	            .expirationTimestamp(now.plusHours(1))
 	            .build();
 
-	    // Mock do repositório retornando as ordens fora de ordem proposital
-	    when(orderRepository.findEligibleCounterpartOrders(OrderType.SELL, 105.0))
-	            .thenReturn(List.of(sellRecent, sellOld));
+	    // Livro recebe as ordens na ordem de chegada: a mais antiga primeiro
+	    seedBook(sellOld, sellRecent);
 
 	    matchingEngine.match(buy);
 
 	    // ✅ Verifica se a ordem mais antiga (sellOld) foi realmente executada
-	    assertThat(sellOld.getExecutedVolume()).isEqualTo(10.0);
-	    assertThat(sellRecent.getExecutedVolume()).isEqualTo(0.0);
+	    assertThat(sellOld.getExecutedVolume()).isEqualTo(toVolumeUnits(10.0));
+	    assertThat(sellRecent.getExecutedVolume()).isEqualTo(toVolumeUnits(0.0));
 
-	    // ✅ Verifica se a lista passada ao saveAll contém o sellOld primeiro
-	    verify(orderRepository).saveAll(argThat(iter -> {
-	        List<Order> list = new ArrayList<>();
-	        iter.forEach(list::add);
+	    // ✅ Só a contraparte tocada é marcada para persistência; a mais recente continua no livro
+	    verify(writeBehind).markFilled(argThat(order ->
+	        order.getId() == 2L
+	        && order.getExecutedVolume() == toVolumeUnits(10.0)
+	        && order.getStatus() == OrderStatus.EXECUTED
+	    ), eq(buy), anyLong(), eq(toVolumeUnits(10.0)), any(OffsetDateTime.class));
+	    verify(writeBehind, never()).markDirty(eq(sellRecent), any(), anyLong());
+	    verify(writeBehind, never()).markFilled(eq(sellRecent), any(), anyLong(), anyLong(), any());
+	    assertThat(matchingEngine.orderBook().contains(1L)).isTrue();
+	    assertThat(sellRecent.getStatus()).isEqualTo(OrderStatus.PENDING);
 
-	        if (list.size() != 2) return false;
 
-	        Order o1 = list.get(0);
-	        Order o2 = list.get(1);
 
-	        boolean hasOldExecuted = (o1.getId() == 2L && o1.getExecutedVolume() == 10.0 && o1.getStatus() == OrderStatus.EXECUTED)
-	                               || (o2.getId() == 2L && o2.getExecutedVolume() == 10.0 && o2.getStatus() == OrderStatus.EXECUTED);
+	    // ✅ Verifica que a ordem de compra também foi salva com status atualizado
+	    verify(writeBehind).markMatched(argThat(order ->
+	        order.getId().equals(10L) &&
+	        order.getStatus() == OrderStatus.EXECUTED &&
+	        order.getExecutedVolume() == toVolumeUnits(10.0)
+	    ), anyLong());
+	}
 
-	        boolean hasRecentUnchanged = (o1.getId() == 1L && o1.getExecutedVolume() == 0.0 && o1.getStatus() == OrderStatus.PENDING)
-	                                   || (o2.getId() == 1L && o2.getExecutedVolume() == 0.0 && o2.getStatus() == OrderStatus.PENDING);
+	@Test
+	void shouldOnlyMatchWithinTheSameInstrument() {
+	    OffsetDateTime now = OffsetDateTime.now();
 
-	        return hasOldExecuted && hasRecentUnchanged;
-	    }));
+	    Order sellHour10 = Order.builder()
+	            .id(1L)
+	            .instrument("DE-H-2030-01-01T10")
+	            .type(OrderType.SELL)
+	            .price(toTicks(90.0))
+	            .volume(toVolumeUnits(5.0))
+	            .timestamp(now)
+	            .expirationTimestamp(now.plusHours(1))
+	            .build();
 
+	    Order buyHour11 = Order.builder()
+	            .id(2L)
+	            .instrument("DE-H-2030-01-01T11")
+	            .type(OrderType.BUY)
+	            .price(toTicks(100.0))
+	            .volume(toVolumeUnits(5.0))
+	            .timestamp(now)
+	            .expirationTimestamp(now.plusHours(1))
+	            .build();
 
+	    matchingEngine.match(sellHour10);
+	    matchingEngine.match(buyHour11);
 
-	    // ✅ Verifica que a ordem de compra também foi salva com status atualizado
-	    verify(orderRepository).save(argThat(order ->
-	        order.getId().equals(10L) &&
-	        order.getStatus() == OrderStatus.EXECUTED &&
-	        order.getExecutedVolume() == 10.0
-	    ));
+	    // Crossing prices, but different delivery periods: both rest in their own book
+	    assertThat(sellHour10.getStatus()).isEqualTo(OrderStatus.PENDING);
+	    assertThat(buyHour11.getStatus()).isEqualTo(OrderStatus.PENDING);
+	    assertThat(matchingEngine.orderBook("DE-H-2030-01-01T10").contains(1L)).isTrue();
+	    assertThat(matchingEngine.orderBook("DE-H-2030-01-01T11").contains(2L)).isTrue();
+	    assertThat(matchingEngine.instruments()).containsExactlyInAnyOrder("DE-H-2030-01-01T10", "DE-H-2030-01-01T11");
+
+	    // Cancelling needs the instrument to find the book
+	    assertThat(matchingEngine.cancel(Order.builder().id(1L).build())).isNull();
+	    assertThat(matchingEngine.cancel(Order.builder().id(1L).instrument("DE-H-2030-01-01T10").build()))
+	            .isSameAs(sellHour10);
+	}
+
+	@Test
+	void shouldPublishFillAndBookMetricsOnceBound() {
+	    OffsetDateTime now = OffsetDateTime.now();
+	    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	    Order sellOrder = Order.builder()
+	            .id(1L)
+	            .type(OrderType.SELL)
+	            .price(toTicks(90.0))
+	            .volume(toVolumeUnits(10.0))
+	            .timestamp(now)
+	            .expirationTimestamp(now.plusHours(1))
+	            .build();
+	    matchingEngine.match(sellOrder);
+	    // Books created before binding get their gauges too
+	    matchingEngine.bindTo(registry);
+
+	    Order restingBuy = Order.builder()
+	            .id(2L)
+	            .type(OrderType.BUY)
+	            .price(toTicks(80.0))
+	            .volume(toVolumeUnits(5.0))
+	            .timestamp(now)
+	            .expirationTimestamp(now.plusHours(1))
+	            .build();
+	    Order crossingBuy = Order.builder()
+	            .id(3L)
+	            .type(OrderType.BUY)
+	            .price(toTicks(95.0))
+	            .volume(toVolumeUnits(4.0))
+	            .timestamp(now)
+	            .expirationTimestamp(now.plusHours(1))
+	            .build();
+	    matchingEngine.match(restingBuy);
+	    matchingEngine.match(crossingBuy);
+
+	    assertThat(registry.get("orders.match.fills").summary().count()).isEqualTo(2);
+	    assertThat(registry.get("orders.match.fills").summary().totalAmount()).isEqualTo(1);
+	    assertThat(registry.get("orders.book.orders").tag("instrument", Instrument.DEFAULT).gauge().value())
+	            .isEqualTo(2);
+	    assertThat(registry.get("orders.book.levels").tag("side", "buy").gauge().value()).isEqualTo(1);
+
+	    matchingEngine.cancel(Order.builder().id(2L).instrument(Instrument.DEFAULT).build());
+
+	    assertThat(registry.get("orders.cancelled").counter().count()).isEqualTo(1);
+	    assertThat(registry.get("orders.book.orders").gauge().value()).isEqualTo(1);
+	    assertThat(registry.get("orders.book.levels").tag("side", "buy").gauge().value()).isZero();
 	}
 
+	@Test
+	void shouldCollectAuctionOrdersAndUncrossThemAtOneClearingPrice() {
+	    OffsetDateTime now = OffsetDateTime.now();
+	    Order bid105 = auctionOrder(1L, OrderType.BUY, 105.0, 4.0, now);
+	    Order ask98 = auctionOrder(2L, OrderType.SELL, 98.0, 3.0, now);
+	    Order bid101 = auctionOrder(3L, OrderType.BUY, 101.0, 4.0, now);
+	    Order ask102 = auctionOrder(4L, OrderType.SELL, 102.0, 6.0, now);
+	    Order ask100 = auctionOrder(5L, OrderType.SELL, 100.0, 3.0, now);
+	    for (Order order : List.of(bid105, ask98, bid101, ask102, ask100)) {
+	        matchingEngine.match(order, now);
+	    }
 
+	    // Call phase: crossing orders rest, nothing trades
+	    assertThat(bid105.getStatus()).isEqualTo(OrderStatus.PENDING);
+	    assertThat(matchingEngine.crossed(AUCTION)).isTrue();
+	    verify(writeBehind, never()).markFilled(any(), any(), anyLong(), anyLong(), any());
+
+	    Uncrossing uncrossing = matchingEngine.uncross(AUCTION, now);
+
+	    // 8 bid at or above 101, 6 offered at or below: 6 trade at 101, the most of any price
+	    assertThat(uncrossing.getPrice()).isEqualTo(toTicks(101.0));
+	    assertThat(uncrossing.getVolume()).isEqualTo(toVolumeUnits(6.0));
+	    assertThat(uncrossing.getSurplus()).isEqualTo(toVolumeUnits(2.0));
+	    assertThat(bid105.getStatus()).isEqualTo(OrderStatus.EXECUTED);
+	    assertThat(bid101.getStatus()).isEqualTo(OrderStatus.PARTIAL);
+	    assertThat(bid101.getExecutedVolume()).isEqualTo(toVolumeUnits(2.0));
+	    assertThat(ask98.getStatus()).isEqualTo(OrderStatus.EXECUTED);
+	    assertThat(ask100.getStatus()).isEqualTo(OrderStatus.EXECUTED);
+	    assertThat(ask102.getStatus()).isEqualTo(OrderStatus.PENDING);
+	    assertThat(matchingEngine.crossed(AUCTION)).isFalse();
+	    assertThat(matchingEngine.lastUncrossing(AUCTION)).isSameAs(uncrossing);
+
+	    List<Trade> tape = tradeTape.last(AUCTION, 10);
+	    assertThat(tape).hasSize(3).allMatch(trade -> trade.getPrice() == toTicks(101.0));
+	    assertThat(tape.stream().mapToLong(Trade::getVolume).sum()).isEqualTo(toVolumeUnits(6.0));
+	    // Every fill persists both sides; the later order is the taker
+	    verify(writeBehind).markFilled(eq(bid105), eq(ask98), eq(toTicks(101.0)), eq(toVolumeUnits(3.0)), eq(now));
+	    verify(writeBehind).markDirty(eq(ask98), anyLong());
+	    verify(writeBehind, times(3)).markFilled(any(), any(), eq(toTicks(101.0)), anyLong(), eq(now));
+	}
 
+	@Test
+	void shouldExpireDueAuctionOrdersBeforeFindingTheClearingPrice() {
+	    OffsetDateTime now = OffsetDateTime.now();
+	    Order expiring = auctionOrder(1L, OrderType.BUY, 105.0, 4.0, now);
+	    expiring.setExpirationTimestamp(now.plusSeconds(1));
+	    Order ask98 = auctionOrder(2L, OrderType.SELL, 98.0, 3.0, now);
+	    Order bid99 = auctionOrder(3L, OrderType.BUY, 99.0, 2.0, now);
+	    for (Order order : List.of(expiring, ask98, bid99)) {
+	        matchingEngine.match(order, now);
+	    }
 
+	    Uncrossing uncrossing = matchingEngine.uncross(AUCTION, now.plusSeconds(2));
 
+	    // Only the 2 bid at 99 can still trade; the expired 4 at 105 must not count towards the volume
+	    assertThat(expiring.getStatus()).isEqualTo(OrderStatus.EXPIRED);
+	    assertThat(uncrossing.getVolume()).isEqualTo(toVolumeUnits(2.0));
+	    assertThat(uncrossing.getPrice()).isBetween(toTicks(98.0), toTicks(99.0));
+	    assertThat(bid99.getStatus()).isEqualTo(OrderStatus.EXECUTED);
+	    assertThat(tradeTape.last(AUCTION, 10).stream().mapToLong(Trade::getVolume).sum())
+	            .isEqualTo(uncrossing.getVolume());
+	}
 
+	private Order auctionOrder(Long id, OrderType type, double price, double volume, OffsetDateTime now) {
+	    return Order.builder()
+	            .id(id)
+	            .instrument(AUCTION)
+	            .type(type)
+	            .price(toTicks(price))
+	            .volume(toVolumeUnits(volume))
+	            .executedVolume(0L)
+	            .status(OrderStatus.PENDING)
+	            .marketPrice(toTicks(100.0))
+	            .timestamp(now)
+	            .expirationTimestamp(now.plusHours(1))
+	            .build();
+	}
 }
@@ -0,0 +1,175 @@
+package com.energytrade.orderservice;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.energytrade.orderservice.book.DepthListener;
+import com.energytrade.orderservice.journal.CommandJournal;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderResult;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.BookWarmStart;
+import com.energytrade.orderservice.persistence.OrderBatchInsert;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+import com.energytrade.orderservice.pricing.MarketPriceCache;
+import com.energytrade.orderservice.trade.TradeTape;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class OrderBatchControllerTest {
+
+	private final OrderBatchInsert batchInsert = mock(OrderBatchInsert.class);
+	private final MarketPriceCache marketPrice = mock(MarketPriceCache.class);
+	private final MatchingPipeline matchingPipeline = mock(MatchingPipeline.class);
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build(); // Spring Boot defaults
+	private OrderBatchController controller;
+	private long nextId;
+
+	@BeforeEach
+	void setUp() {
+		controller = new OrderBatchController(batchInsert, marketPrice, matchingPipeline,
+				mock(OrderWriteBehind.class), mock(OutboundDispatcher.class), objectMapper, 2, 100);
+		when(marketPrice.currentTicks()).thenReturn(toTicks(101.0));
+		// Ids are assigned by the insert, matching just echoes the order back
+		doAnswer(invocation -> {
+			invocation.<List<Order>>getArgument(0).forEach(o -> o.setId(++nextId));
+			return null;
+		}).when(batchInsert).insert(anyList(), any());
+		when(matchingPipeline.submit(any(Order.class)))
+				.thenAnswer(invocation -> CompletableFuture.completedFuture(invocation.getArgument(0)));
+		when(matchingPipeline.await(any())).thenAnswer(invocation ->
+				invocation.<CompletableFuture<Order>>getArgument(0).join());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldAnswerEveryOrderInSubmissionOrder() {
+		Order invalid = order(OrderType.BUY, 0.0);
+		List<Order> orders = new ArrayList<>(List.of(order(OrderType.SELL, 1.0), invalid,
+				order(OrderType.BUY, 2.0), order(OrderType.SELL, 3.0)));
+
+		ResponseEntity<?> response = controller.createOrders(orders, false);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		List<OrderResult> results = (List<OrderResult>) response.getBody();
+		assertThat(results).extracting(OrderResult::getIndex).containsExactly(0, 1, 2, 3);
+		assertThat(results.get(1).getError()).isEqualTo("Order volume must be a positive number.");
+		assertThat(results).extracting(r -> r.getOrder() == null ? null : r.getOrder().getId())
+				.containsExactly(1L, null, 2L, 3L);
+		assertThat(results.get(0).getOrder().getMarketPrice()).isEqualTo(toTicks(101.0));
+		assertThat(results.get(0).getOrder().getStatus()).isEqualTo(OrderStatus.PENDING);
+		// chunks of two: [sell, invalid] and [buy, sell]
+		verify(batchInsert, times(2)).insert(anyList(), any());
+		verify(matchingPipeline, times(3)).submit(any(Order.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldAnswerEachOrderAsOfItsOwnMatch(@TempDir Path journalDir) throws Exception {
+		MatchingEngine engine = new MatchingEngine(mock(OrderWriteBehind.class), mock(OutboundDispatcher.class),
+				DepthListener.NONE, new TradeTape(1024), MatchingModes.CONTINUOUS);
+		CommandJournal journal = new CommandJournal(journalDir.toString(), 1);
+		journal.open();
+		MatchingPipeline pipeline = new MatchingPipeline(engine, journal, BookWarmStart.NONE, 1, 64, 5000, 5000,
+				1000, 10);
+		pipeline.start();
+		try {
+			controller = new OrderBatchController(batchInsert, marketPrice, pipeline, mock(OrderWriteBehind.class),
+					mock(OutboundDispatcher.class), objectMapper, 2, 100);
+			Order sell = order(OrderType.SELL, 5.0);
+			List<Order> orders = new ArrayList<>(List.of(sell, order(OrderType.BUY, 2.0)));
+
+			ResponseEntity<?> response = controller.createOrders(orders, false);
+
+			// The buy of the same chunk hits the sell before its result is awaited
+			List<OrderResult> results = (List<OrderResult>) response.getBody();
+			assertThat(sell.getStatus()).isEqualTo(OrderStatus.PARTIAL);
+			assertThat(results.get(0).getOrder()).isNotSameAs(sell);
+			assertThat(results.get(0).getOrder().getStatus()).isEqualTo(OrderStatus.PENDING);
+			assertThat(results.get(0).getOrder().getExecutedVolume()).isZero();
+			assertThat(results.get(1).getOrder().getStatus()).isEqualTo(OrderStatus.EXECUTED);
+		} finally {
+			pipeline.stop();
+			journal.close();
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldAnswerTheRestOfTheChunkWhenOneMatchTimesOut() {
+		doAnswer(invocation -> {
+			Order order = invocation.<CompletableFuture<Order>>getArgument(0).join();
+			if (order.getId() == 1L) {
+				throw new IllegalStateException("Matching did not complete within 5000 ms");
+			}
+			return order;
+		}).when(matchingPipeline).await(any());
+		List<Order> orders = new ArrayList<>(List.of(order(OrderType.SELL, 1.0), order(OrderType.BUY, 2.0)));
+
+		ResponseEntity<?> response = controller.createOrders(orders, false);
+
+		List<OrderResult> results = (List<OrderResult>) response.getBody();
+		assertThat(results).hasSize(2);
+		assertThat(results.get(0).getOrder()).isNull();
+		assertThat(results.get(0).getOrderId()).isEqualTo(1L);
+		assertThat(results.get(0).getError()).isEqualTo("Matching did not complete within 5000 ms");
+		assertThat(results.get(1).getOrder().getId()).isEqualTo(2L);
+	}
+
+	@Test
+	void shouldRejectEmptyBatch() {
+		ResponseEntity<?> response = controller.createOrders(List.of(), false);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	void shouldStreamNdjsonResultsAndStopAtMalformedLine() throws Exception {
+		String body = objectMapper.writeValueAsString(order(OrderType.SELL, 1.0)) + "\n"
+				+ objectMapper.writeValueAsString(order(OrderType.BUY, 1.0)) + "\n"
+				+ objectMapper.writeValueAsString(order(OrderType.BUY, 2.0)) + "\n"
+				+ "{\"type\": \"SELL\", \"price\": \n";
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		controller.createOrdersStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), false,
+				response);
+
+		String[] lines = response.getContentAsString().split("\n");
+		assertThat(lines).hasSize(4);
+		assertThat(objectMapper.readValue(lines[2], OrderResult.class).getOrder().getId()).isEqualTo(3L);
+		OrderResult malformed = objectMapper.readValue(lines[3], OrderResult.class);
+		assertThat(malformed.getIndex()).isEqualTo(3);
+		assertThat(malformed.getError()).startsWith("Malformed order");
+	}
+
+	private Order order(OrderType type, double volume) {
+		return Order.builder().type(type).price(toTicks(100.0)).volume(toVolumeUnits(volume))
+				.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build();
+	}
+}
@@ -0,0 +1,66 @@
+package com.energytrade.orderservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+import com.energytrade.orderservice.repository.OrderRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OrderCleanupSchedulerTest {
+
+	private final OrderRepository repository = mock(OrderRepository.class);
+	private final MatchingPipeline matchingPipeline = mock(MatchingPipeline.class);
+
+	@Test
+	void shouldExpireTheOtherOrdersWhenOneCannotBe() {
+		List<Order> overdue = List.of(order(1), order(2), order(3), order(4));
+		when(repository.findByStatusAndExpirationTimestampBefore(eq(OrderStatus.PENDING), any()))
+				.thenReturn(overdue);
+		when(matchingPipeline.expire(any(Order.class))).thenAnswer(invocation -> {
+			Order order = invocation.getArgument(0);
+			if (order.getId() == 2) {
+				return CompletableFuture.failedFuture(new RejectedExecutionException("Matching partition 0 is full"));
+			}
+			order.setStatus(OrderStatus.EXPIRED);
+			return CompletableFuture.completedFuture(order);
+		});
+		doAnswer(invocation -> {
+			Order order = invocation.<CompletableFuture<Order>>getArgument(0).join();
+			if (order.getId() == 3) {
+				throw new IllegalStateException("Matching did not complete within 5000 ms");
+			}
+			return order;
+		}).when(matchingPipeline).await(any());
+		OrderCleanupScheduler scheduler = new OrderCleanupScheduler(repository, matchingPipeline);
+		ReflectionTestUtils.setField(scheduler, "cleanupEnabled", true);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		scheduler.bindTo(registry);
+
+		scheduler.expirePendingOrders();
+
+		assertThat(overdue).extracting(Order::getStatus).containsExactly(OrderStatus.EXPIRED, OrderStatus.PENDING,
+				OrderStatus.EXPIRED, OrderStatus.EXPIRED);
+		assertThat(registry.get("orders.cleanup.failed").counter().count()).isEqualTo(2);
+	}
+
+	private static Order order(long id) {
+		return Order.builder().id(id).status(OrderStatus.PENDING)
+				.expirationTimestamp(OffsetDateTime.now().minusMinutes(1)).build();
+	}
+}
@@ -1,26 +1,46 @@
 package com.energytrade.orderservice;
 
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.OffsetDateTime;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.RestTemplate;
 
+import com.energytrade.orderservice.model.Notification;
 import com.energytrade.orderservice.model.Order;
 import com.energytrade.orderservice.model.OrderStatus;
 import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.OrderEntryStore;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+import com.energytrade.orderservice.pricing.MarketPriceCache;
 import com.energytrade.orderservice.repository.OrderRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,7 +53,7 @@ class OrderControllerTest {
     private OrderRepository repository;
 
     @Mock
-    private RestTemplate restTemplate;
+    private MarketPriceCache marketPrice;
 
     @Value("${pricing.service.url}")
     private String pricingUrl = "http://mock-pricing";
@@ -45,7 +65,24 @@ class OrderControllerTest {
     private String notificationUrl = "http://mock-notify";
 
     @Mock
-    private MatchingEngine matchingEngine;
+    private OutboundDispatcher outbound;
+
+    @Mock
+    private MatchingPipeline matchingPipeline;
+
+    @Mock
+    private OrderWriteBehind writeBehind;
+
+    @Mock
+    private OrderEntryStore entryStore;
+
+    @Spy
+    private OrderResponseExecutor responses = new OrderResponseExecutor(1);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        responses.stop();
+    }
 
     @Test
     void shouldCancelPendingOrderSuccessfully() {
@@ -53,19 +90,25 @@ class OrderControllerTest {
         Order order = Order.builder()
                 .id(1L)
                 .type(OrderType.BUY)
-                .price(150.0)
-                .volume(1.0)
-                .executedVolume(0.0)
+                .price(toTicks(150.0))
+                .volume(toVolumeUnits(1.0))
+                .executedVolume(toVolumeUnits(0.0))
                 .status(OrderStatus.PENDING)
-                .marketPrice(150.0)
+                .marketPrice(toTicks(150.0))
                 .expirationTimestamp(OffsetDateTime.now().plusHours(1))
                 .build();
 
-        when(repository.findById(1L)).thenReturn(Optional.of(order));
-        when(repository.save(any(Order.class))).thenReturn(order);
+        when(entryStore.find(1L)).thenReturn(CompletableFuture.completedFuture(Optional.of(order)));
+        when(matchingPipeline.cancel(any(Order.class))).thenAnswer(invocation -> {
+            Order target = invocation.getArgument(0);
+            target.setStatus(OrderStatus.CANCELLED);
+            target.setCancelledAt(OffsetDateTime.now());
+            return CompletableFuture.completedFuture(target);
+        });
+        when(matchingPipeline.withTimeout(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // When
-        ResponseEntity<?> response = controller.cancelOrder(1L);
+        ResponseEntity<?> response = controller.cancelOrder(1L, false).join();
 
         // Then
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -82,18 +125,18 @@ class OrderControllerTest {
                 .expirationTimestamp(OffsetDateTime.now().plusHours(1))
                 .build();
 
-        when(repository.findById(2L)).thenReturn(Optional.of(order));
+        when(entryStore.find(2L)).thenReturn(CompletableFuture.completedFuture(Optional.of(order)));
 
-        ResponseEntity<?> response = controller.cancelOrder(2L);
+        ResponseEntity<?> response = controller.cancelOrder(2L, false).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
     
     @Test
     void shouldReturnNotFoundWhenCancellingNonexistentOrder() {
-        when(repository.findById(999L)).thenReturn(Optional.empty());
+        when(entryStore.find(999L)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
 
-        ResponseEntity<?> response = controller.cancelOrder(999L);
+        ResponseEntity<?> response = controller.cancelOrder(999L, false).join();
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
@@ -106,13 +149,147 @@ class OrderControllerTest {
                 .expirationTimestamp(OffsetDateTime.now().plusHours(1))
                 .build();
 
-        when(repository.findById(3L)).thenReturn(Optional.of(order));
+        when(entryStore.find(3L)).thenReturn(CompletableFuture.completedFuture(Optional.of(order)));
 
-        ResponseEntity<?> response = controller.cancelOrder(3L);
+        ResponseEntity<?> response = controller.cancelOrder(3L, false).join();
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
+    @Test
+    void shouldRejectAnOrderWithoutTypeOrExpirationBeforeStoringIt() {
+        Order withoutType = Order.builder()
+                .price(toTicks(150.0))
+                .volume(toVolumeUnits(1.0))
+                .expirationTimestamp(OffsetDateTime.now().plusHours(1))
+                .build();
+        Order withoutExpiration = Order.builder()
+                .type(OrderType.BUY)
+                .price(toTicks(150.0))
+                .volume(toVolumeUnits(1.0))
+                .build();
 
+        ResponseEntity<?> noType = controller.createOrder(withoutType, false).join();
+        ResponseEntity<?> noExpiration = controller.createOrder(withoutExpiration, false).join();
 
-}
\ No newline at end of file
+        assertEquals(HttpStatus.BAD_REQUEST, noType.getStatusCode());
+        assertEquals("Order type is required.", noType.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, noExpiration.getStatusCode());
+        assertEquals("Order expiration timestamp is required.", noExpiration.getBody());
+        verifyNoInteractions(entryStore, matchingPipeline);
+    }
+
+    @Test
+    void shouldTurnOrdersAwayWhenTheEntryStoreIsFull() {
+        Order order = Order.builder()
+                .type(OrderType.BUY)
+                .price(toTicks(150.0))
+                .volume(toVolumeUnits(1.0))
+                .instrument("DE-H-2030")
+                .expirationTimestamp(OffsetDateTime.now().plusHours(1))
+                .build();
+        when(entryStore.insert(any(Order.class), any())).thenReturn(
+                CompletableFuture.failedFuture(new RejectedExecutionException("Too many orders being entered.")));
+
+        ResponseEntity<?> response = controller.createOrder(order, false).join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verifyNoInteractions(matchingPipeline);
+    }
+
+    @Test
+    void shouldTurnOrdersAwayWhenTheMatchingPartitionIsFull() {
+        Order order = Order.builder()
+                .type(OrderType.BUY)
+                .price(toTicks(150.0))
+                .volume(toVolumeUnits(1.0))
+                .instrument("DE-H-2030")
+                .expirationTimestamp(OffsetDateTime.now().plusHours(1))
+                .build();
+        when(entryStore.insert(any(Order.class), any())).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return CompletableFuture.completedFuture(saved);
+        });
+        when(matchingPipeline.submit(any(Order.class))).thenReturn(CompletableFuture.failedFuture(
+                new RejectedExecutionException("Matching partition 0 is overloaded, try again later.")));
+        when(matchingPipeline.withTimeout(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ResponseEntity<?> response = controller.createOrder(order, false).join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void shouldContinueOnResponseThreadsNotOnTheMatchingOrWriterThread() throws Exception {
+        Order order = Order.builder()
+                .type(OrderType.BUY)
+                .price(toTicks(150.0))
+                .volume(toVolumeUnits(1.0))
+                .instrument("DE-H-2030")
+                .expirationTimestamp(OffsetDateTime.now().plusHours(1))
+                .build();
+        when(entryStore.insert(any(Order.class), any())).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return CompletableFuture.completedFuture(saved);
+        });
+        CompletableFuture<Order> matched = new CompletableFuture<>();
+        when(matchingPipeline.submit(any(Order.class))).thenReturn(matched);
+        when(matchingPipeline.withTimeout(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        CompletableFuture<Long> flushed = new CompletableFuture<>();
+        when(writeBehind.whenDurable(anyLong())).thenReturn(flushed);
+        AtomicReference<String> notifiedOn = new AtomicReference<>();
+        doAnswer(invocation -> {
+            notifiedOn.set(Thread.currentThread().getName());
+            return null;
+        }).when(outbound).publishNotification(any(Notification.class));
+
+        CompletableFuture<String> answeredOn = controller.createOrder(order, true)
+                .thenApply(response -> Thread.currentThread().getName());
+        complete(() -> matched.complete(order), "matching-engine-0");
+        verify(writeBehind, timeout(5000)).whenDurable(anyLong());
+        complete(() -> flushed.complete(1L), "order-write-behind");
+
+        String answerThread = answeredOn.get(5, TimeUnit.SECONDS);
+        assertTrue(answerThread.startsWith(OrderResponseExecutor.THREAD_PREFIX), answerThread);
+        assertTrue(notifiedOn.get().startsWith(OrderResponseExecutor.THREAD_PREFIX), notifiedOn.get());
+    }
+
+    @Test
+    void shouldAcknowledgeOnlyOnceFlushedWhenTheBooksComeBackFromTheDatabase() throws Exception {
+        Order order = Order.builder()
+                .type(OrderType.BUY)
+                .price(toTicks(150.0))
+                .volume(toVolumeUnits(1.0))
+                .instrument("DE-H-2030")
+                .expirationTimestamp(OffsetDateTime.now().plusHours(1))
+                .build();
+        when(entryStore.insert(any(Order.class), any())).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return CompletableFuture.completedFuture(saved);
+        });
+        when(matchingPipeline.submit(any(Order.class))).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Order>getArgument(0).snapshot()));
+        when(matchingPipeline.withTimeout(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(matchingPipeline.durableOnly()).thenReturn(true);
+        CompletableFuture<Long> flushed = new CompletableFuture<>();
+        when(writeBehind.whenDurable(anyLong())).thenReturn(flushed);
+
+        // Not asked to be durable, but a crash before the flush would bring the order back without its fills
+        CompletableFuture<ResponseEntity<?>> response = controller.createOrder(order, false);
+
+        verify(writeBehind, timeout(5000)).whenDurable(anyLong());
+        assertFalse(response.isDone());
+        flushed.complete(1L);
+        assertEquals(HttpStatus.OK, response.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
+
+    // Completes a future from a thread named like the one that completes it in the service
+    private static void complete(Runnable completion, String threadName) throws InterruptedException {
+        Thread thread = new Thread(completion, threadName);
+        thread.start();
+        thread.join();
+    }
+}
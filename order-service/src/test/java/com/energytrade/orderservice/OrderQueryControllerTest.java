@@ -0,0 +1,102 @@
+package com.energytrade.orderservice;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.persistence.OrderFilter;
+import com.energytrade.orderservice.persistence.OrderQuery;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class OrderQueryControllerTest {
+
+	private final OrderQuery orderQuery = mock(OrderQuery.class);
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private MockMvc mvc;
+
+	@BeforeEach
+	void setUp() {
+		mvc = MockMvcBuilders.standaloneSetup(new OrderQueryController(orderQuery, objectMapper, 500))
+				.setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper)).build();
+	}
+
+	@Test
+	void shouldAnswerFullPageWithNextCursor() throws Exception {
+		when(orderQuery.page(any(), eq(10L), eq(2))).thenReturn(List.of(order(11L), order(12L)));
+
+		mvc.perform(get("/orders").param("after", "10").param("limit", "2").param("status", "PENDING")
+				.param("minPrice", "99.5").param("from", "2024-06-01T00:00:00Z"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(OrderQueryController.NEXT_CURSOR_HEADER, "12"))
+				.andExpect(jsonPath("$[1].id").value(12));
+
+		ArgumentCaptor<OrderFilter> filter = ArgumentCaptor.forClass(OrderFilter.class);
+		verify(orderQuery).page(filter.capture(), eq(10L), eq(2));
+		assertThat(filter.getValue().getStatus()).isEqualTo(OrderStatus.PENDING);
+		assertThat(filter.getValue().getMinPrice()).isEqualTo(toTicks(99.5));
+		assertThat(filter.getValue().getFrom()).isEqualTo(OffsetDateTime.parse("2024-06-01T00:00:00Z"));
+		assertThat(filter.getValue().getType()).isNull();
+	}
+
+	@Test
+	void shouldOmitCursorOnLastPage() throws Exception {
+		when(orderQuery.page(any(), eq(0L), eq(100))).thenReturn(List.of(order(1L)));
+
+		mvc.perform(get("/orders")).andExpect(status().isOk())
+				.andExpect(header().doesNotExist(OrderQueryController.NEXT_CURSOR_HEADER));
+	}
+
+	@Test
+	void shouldRejectPageAboveMaximum() throws Exception {
+		mvc.perform(get("/orders").param("limit", "501")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldStreamOrdersAsNdjson() throws Exception {
+		when(orderQuery.stream(any(), anyLong(), any())).thenAnswer(invocation -> {
+			Consumer<Order> action = invocation.getArgument(2);
+			for (long id = 1; id <= 3; id++) {
+				action.accept(order(id));
+			}
+			return 3L;
+		});
+
+		String body = mvc.perform(get("/orders").accept(OrderBatchController.NDJSON)).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		String[] lines = body.split("\n");
+		assertThat(lines).hasSize(3);
+		assertThat(objectMapper.readValue(lines[2], Order.class).getId()).isEqualTo(3L);
+	}
+
+	private Order order(Long id) {
+		return Order.builder().id(id).type(OrderType.BUY).price(toTicks(100.0)).volume(toVolumeUnits(1.0))
+				.marketPrice(toTicks(100.0)).expirationTimestamp(OffsetDateTime.now().plusHours(1)).build();
+	}
+}
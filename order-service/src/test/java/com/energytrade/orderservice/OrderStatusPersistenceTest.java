@@ -1,5 +1,7 @@
 package com.energytrade.orderservice;
 
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.OffsetDateTime;
@@ -30,9 +32,9 @@ public class OrderStatusPersistenceTest {
 	@Test
 	public void shouldPersistOrderStatusAsString() {
 		for (OrderStatus status : OrderStatus.values()) {
-			Order order = Order.builder().type(OrderType.BUY).price(100.0).volume(10.0).status(status) // aqui estava o
+			Order order = Order.builder().type(OrderType.BUY).price(toTicks(100.0)).volume(toVolumeUnits(10.0)).status(status) // aqui estava o
 																										// erro
-					.marketPrice(98.0).timestamp(OffsetDateTime.now())
+					.marketPrice(toTicks(98.0)).timestamp(OffsetDateTime.now())
 					.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build();
 
 			repository.save(order);
@@ -0,0 +1,101 @@
+package com.energytrade.orderservice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.AuditFallback;
+import com.energytrade.orderservice.repository.AuditFallbackRepository;
+
+@DataJpaTest
+class RetryAuditSchedulerTest {
+
+	@Autowired
+	private AuditFallbackRepository repository;
+
+	private final RestTemplate restTemplate = mock(RestTemplate.class);
+	private RetryAuditScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		OrderConfig config = new OrderConfig();
+		config.setAuditServiceUrl("http://audit");
+		scheduler = new RetryAuditScheduler(repository, restTemplate, config);
+
+		List<AuditFallback> rows = new ArrayList<>();
+		for (int i = 0; i < 1200; i++) {
+			AuditFallback row = new AuditFallback();
+			row.setSource("order-service");
+			row.setType("ORDER_MATCHED");
+			row.setPayload("{\"orderId\":" + i + "}");
+			rows.add(row);
+		}
+		repository.saveAll(rows);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		repository.deleteAll();
+	}
+
+	@Test
+	void shouldDrainOutboxInBatches() {
+		scheduler.retryFailedAudits();
+
+		verify(restTemplate, times(3)).postForObject(eq("http://audit/batch"), any(List.class), eq(Void.class));
+		assertThat(repository.count()).isZero();
+		assertThat(scheduler.stats()).containsEntry("delivered", 1200L).containsEntry("backlog", 0L);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldSendEveryEventWithItsOutboxIdAndTime() {
+		List<AuditFallback> rows = repository.findAll(Sort.by("id"));
+
+		scheduler.retryFailedAudits();
+
+		ArgumentCaptor<List<AuditEvent>> batches = ArgumentCaptor.forClass(List.class);
+		verify(restTemplate, times(3)).postForObject(eq("http://audit/batch"), batches.capture(), eq(Void.class));
+		List<AuditEvent> sent = batches.getAllValues().stream().flatMap(List::stream).collect(Collectors.toList());
+		assertThat(sent).extracting(AuditEvent::getOutboxId)
+				.containsExactlyElementsOf(rows.stream().map(AuditFallback::getId).collect(Collectors.toList()));
+		assertThat(sent.get(0).getTimestamp()).isEqualTo(rows.get(0).getCreatedAt());
+	}
+
+	@Test
+	void shouldKeepRowsAndBackOffWhenAuditServiceIsDown() {
+		when(restTemplate.postForObject(eq("http://audit/batch"), any(List.class), eq(Void.class)))
+				.thenThrow(new ResourceAccessException("audit-service down"));
+
+		scheduler.retryFailedAudits();
+		assertThat(repository.count()).isEqualTo(1200);
+		assertThat(scheduler.stats()).containsEntry("consecutiveFailures", 1);
+		assertThat((Long) scheduler.stats().get("retryInMs")).isPositive();
+
+		// Still inside the backoff window: nothing is posted
+		reset(restTemplate);
+		scheduler.retryFailedAudits();
+		verify(restTemplate, never()).postForObject(any(String.class), any(), eq(Void.class));
+	}
+}
@@ -0,0 +1,118 @@
+package com.energytrade.orderservice.book;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+
+class ExpiryWheelTest {
+
+	private static final long TICK = 100;
+	private static final long START = 1_700_000_000_000L;
+
+	private final ExpiryWheel wheel = new ExpiryWheel(TICK, START);
+	private final List<Order> expired = new ArrayList<>();
+
+	@Test
+	void shouldNeverExpireBeforeDeadlineAndAtMostOneTickAfter() {
+		wheel.schedule(order(1L, START + 250));
+
+		wheel.advance(START + 249, expired::add);
+		assertThat(expired).isEmpty();
+
+		wheel.advance(START + 299, expired::add);
+		assertThat(expired).isEmpty();
+
+		wheel.advance(START + 300, expired::add);
+		assertThat(expired).extracting(Order::getId).containsExactly(1L);
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void shouldNotExpireCancelledOrders() {
+		wheel.schedule(order(1L, START + 500));
+		wheel.schedule(order(2L, START + 500));
+
+		wheel.cancel(1L);
+		wheel.cancel(3L); // unknown ids are ignored
+		wheel.advance(START + 1000, expired::add);
+
+		assertThat(expired).extracting(Order::getId).containsExactly(2L);
+	}
+
+	@Test
+	void shouldCascadeFarDeadlinesFromHigherLevelsAndOverflow() {
+		long level1 = START + 100 * TICK;
+		long level2 = START + 5_000 * TICK;
+		long overflow = START + 20_000_000 * TICK; // beyond the 64^4 ticks of the wheel
+		wheel.schedule(order(1L, level1));
+		wheel.schedule(order(2L, level2));
+		wheel.schedule(order(3L, overflow));
+
+		wheel.advance(level1 - 1, expired::add);
+		assertThat(expired).isEmpty();
+		wheel.advance(level1, expired::add);
+		assertThat(expired).extracting(Order::getId).containsExactly(1L);
+
+		wheel.advance(level2 - 1, expired::add);
+		assertThat(expired).hasSize(1);
+		wheel.advance(level2, expired::add);
+		assertThat(expired).extracting(Order::getId).containsExactly(1L, 2L);
+
+		wheel.advance(overflow - 1, expired::add);
+		assertThat(expired).hasSize(2);
+		wheel.advance(overflow, expired::add);
+		assertThat(expired).extracting(Order::getId).containsExactly(1L, 2L, 3L);
+	}
+
+	@Test
+	void shouldExpireOverdueOrdersOnNextAdvance() {
+		wheel.advance(START + 10_000, expired::add);
+		wheel.schedule(order(1L, START + 500));
+
+		wheel.advance(START + 10_000, expired::add);
+
+		assertThat(expired).extracting(Order::getId).containsExactly(1L);
+	}
+
+	@Test
+	void shouldExpireManyTimersWithinOneTickOfTheirDeadline() {
+		Random random = new Random(42);
+		Map<Long, Long> deadlines = new HashMap<>();
+		for (long id = 1; id <= 10_000; id++) {
+			long deadline = START + random.nextInt(600_000);
+			deadlines.put(id, deadline);
+			wheel.schedule(order(id, deadline));
+		}
+		// Every third order is cancelled before it is due
+		for (long id = 3; id <= 10_000; id += 3) {
+			wheel.cancel(id);
+			deadlines.remove(id);
+		}
+
+		Map<Long, Long> firedAt = new HashMap<>();
+		for (long now = START; now <= START + 600_100; now += 10) {
+			long at = now;
+			wheel.advance(now, order -> firedAt.put(order.getId(), at));
+		}
+
+		assertThat(firedAt).hasSameSizeAs(deadlines);
+		deadlines.forEach((id, deadline) -> assertThat(firedAt.get(id) - deadline).isBetween(0L, TICK));
+		assertThat(wheel.size()).isZero();
+	}
+
+	private Order order(Long id, long deadlineMillis) {
+		return Order.builder().id(id).type(OrderType.SELL)
+				.expirationTimestamp(Instant.ofEpochMilli(deadlineMillis).atOffset(ZoneOffset.UTC)).build();
+	}
+}
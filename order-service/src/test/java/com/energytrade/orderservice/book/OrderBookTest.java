@@ -0,0 +1,146 @@
+package com.energytrade.orderservice.book;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+
+class OrderBookTest {
+
+	private final OrderBook book = new OrderBook();
+
+	@Test
+	void shouldKeepBestAskAsLowestPrice() {
+		book.add(order(1L, OrderType.SELL, 102.0, 5.0));
+		book.add(order(2L, OrderType.SELL, 100.0, 5.0));
+		book.add(order(3L, OrderType.SELL, 101.0, 5.0));
+
+		assertThat(book.side(OrderType.SELL).bestLevel().getPrice()).isEqualTo(toTicks(100.0));
+		assertThat(book.side(OrderType.SELL).levelCount()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldKeepBestBidAsHighestPrice() {
+		book.add(order(1L, OrderType.BUY, 98.0, 5.0));
+		book.add(order(2L, OrderType.BUY, 99.5, 5.0));
+
+		assertThat(book.side(OrderType.BUY).bestLevel().getPrice()).isEqualTo(toTicks(99.5));
+		assertThat(book.oppositeOf(OrderType.SELL)).isSameAs(book.side(OrderType.BUY));
+	}
+
+	@Test
+	void shouldQueueOrdersAtSameLevelInArrivalOrder() {
+		Order first = order(1L, OrderType.SELL, 100.0, 5.0);
+		Order second = order(2L, OrderType.SELL, 100.0, 3.0);
+		book.add(first);
+		book.add(second);
+
+		PriceLevel level = book.side(OrderType.SELL).bestLevel();
+		assertThat(level.peek()).isSameAs(first);
+		assertThat(level.size()).isEqualTo(2);
+		assertThat(level.getTotalVolume()).isEqualTo(toVolumeUnits(8.0));
+	}
+
+	@Test
+	void shouldPromoteNextLevelWhenBestIsRemoved() {
+		book.add(order(1L, OrderType.SELL, 100.0, 5.0));
+		book.add(order(2L, OrderType.SELL, 101.0, 5.0));
+
+		assertThat(book.remove(1L)).isNotNull();
+
+		assertThat(book.side(OrderType.SELL).bestLevel().getPrice()).isEqualTo(toTicks(101.0));
+		assertThat(book.contains(1L)).isFalse();
+		assertThat(book.remove(1L)).isNull();
+	}
+
+	@Test
+	void shouldCancelFromAnywhereInALevelKeepingTheOthersInArrivalOrder() {
+		for (long id = 1; id <= 4; id++) {
+			book.add(order(id, OrderType.BUY, 100.0, id));
+		}
+
+		book.remove(2L);
+		book.remove(4L);
+		book.add(order(5L, OrderType.BUY, 100.0, 5.0));
+		book.remove(1L);
+
+		PriceLevel level = book.side(OrderType.BUY).bestLevel();
+		List<Long> queued = new ArrayList<>();
+		level.forEach(order -> queued.add(order.getId()));
+		assertThat(queued).containsExactly(3L, 5L);
+		assertThat(level.peek().getId()).isEqualTo(3L);
+		assertThat(level.size()).isEqualTo(2);
+		assertThat(level.getTotalVolume()).isEqualTo(toVolumeUnits(8.0));
+	}
+
+	@Test
+	void shouldDropOrderFromBookOnceFullyFilled() {
+		Order maker = order(1L, OrderType.SELL, 100.0, 5.0);
+		book.add(maker);
+		PriceLevel level = book.side(OrderType.SELL).bestLevel();
+
+		maker.setExecutedVolume(toVolumeUnits(2.0));
+		book.fill(level, maker, toVolumeUnits(2.0));
+		assertThat(level.getTotalVolume()).isEqualTo(toVolumeUnits(3.0));
+		assertThat(book.contains(1L)).isTrue();
+
+		maker.setExecutedVolume(toVolumeUnits(5.0));
+		book.fill(level, maker, toVolumeUnits(3.0));
+		assertThat(book.contains(1L)).isFalse();
+		assertThat(book.side(OrderType.SELL).bestLevel()).isNull();
+	}
+
+	@Test
+	void shouldCrossOnlyInTheRightDirection() {
+		book.add(order(1L, OrderType.SELL, 100.0, 5.0));
+		book.add(order(2L, OrderType.BUY, 95.0, 5.0));
+
+		BookSide asks = book.side(OrderType.SELL);
+		BookSide bids = book.side(OrderType.BUY);
+
+		assertThat(asks.crosses(asks.bestLevel(), toTicks(100.0))).isTrue();  // BUY @100 vs ask 100
+		assertThat(asks.crosses(asks.bestLevel(), toTicks(99.0))).isFalse();  // BUY @99 vs ask 100
+		assertThat(bids.crosses(bids.bestLevel(), toTicks(94.0))).isTrue();   // SELL @94 vs bid 95
+		assertThat(bids.crosses(bids.bestLevel(), toTicks(96.0))).isFalse();  // SELL @96 vs bid 95
+	}
+
+	@Test
+	void shouldReportEveryLevelChangeToTheDepthListener() {
+		DepthListener listener = mock(DepthListener.class);
+		OrderBook book = new OrderBook("DE-H-12", listener);
+		Order maker = order(1L, OrderType.SELL, 100.0, 5.0);
+
+		book.add(maker);
+		book.add(order(2L, OrderType.SELL, 100.0, 3.0));
+		maker.setExecutedVolume(toVolumeUnits(5.0));
+		book.fill(book.side(OrderType.SELL).bestLevel(), maker, toVolumeUnits(5.0));
+		book.remove(2L);
+
+		InOrder inOrder = inOrder(listener);
+		inOrder.verify(listener).levelChanged("DE-H-12", OrderType.SELL, toTicks(100.0), toVolumeUnits(5.0), 1);
+		inOrder.verify(listener).levelChanged("DE-H-12", OrderType.SELL, toTicks(100.0), toVolumeUnits(8.0), 2);
+		inOrder.verify(listener).levelChanged("DE-H-12", OrderType.SELL, toTicks(100.0), toVolumeUnits(3.0), 1);
+		inOrder.verify(listener).levelChanged("DE-H-12", OrderType.SELL, toTicks(100.0), 0L, 0);
+		verifyNoMoreInteractions(listener);
+	}
+
+	private Order order(Long id, OrderType type, double price, double volume) {
+		OffsetDateTime now = OffsetDateTime.now();
+		return Order.builder().id(id).type(type).price(toTicks(price)).volume(toVolumeUnits(volume))
+				.executedVolume(0L).status(OrderStatus.PENDING).marketPrice(toTicks(price)).timestamp(now)
+				.expirationTimestamp(now.plusHours(1)).build();
+	}
+}
@@ -0,0 +1,76 @@
+package com.energytrade.orderservice.book;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+
+class UncrossingTest {
+
+	private final OrderBook book = new OrderBook();
+	private long nextId;
+
+	@Test
+	void shouldNotCrossWhenBestBidIsBelowBestAsk() {
+		add(OrderType.BUY, 99.0, 5.0);
+		add(OrderType.SELL, 100.0, 5.0);
+
+		Uncrossing uncrossing = Uncrossing.of(book);
+
+		assertThat(uncrossing.crosses()).isFalse();
+		assertThat(uncrossing.getVolume()).isZero();
+	}
+
+	@Test
+	void shouldPickThePriceTradingTheMostVolume() {
+		add(OrderType.BUY, 103.0, 2.0);
+		add(OrderType.BUY, 102.0, 3.0);
+		add(OrderType.BUY, 100.0, 5.0);
+		add(OrderType.SELL, 99.0, 1.0);
+		add(OrderType.SELL, 101.0, 4.0);
+		add(OrderType.SELL, 102.0, 4.0);
+
+		Uncrossing uncrossing = Uncrossing.of(book);
+
+		// At 102: 5 bid, 9 offered -> 5. At 101: 5 bid, 5 offered -> 5 with nothing left over
+		assertThat(uncrossing.getPrice()).isEqualTo(toTicks(101.0));
+		assertThat(uncrossing.getVolume()).isEqualTo(toVolumeUnits(5.0));
+		assertThat(uncrossing.getSurplus()).isZero();
+	}
+
+	@Test
+	void shouldLeanTowardsTheSideWithTheSurplus() {
+		add(OrderType.BUY, 104.0, 10.0);
+		add(OrderType.SELL, 100.0, 4.0);
+
+		// 4 trade anywhere from 100 to 104, always with 6 bid too many: the buyers set the price
+		assertThat(Uncrossing.of(book).getPrice()).isEqualTo(toTicks(104.0));
+
+		OrderBook balanced = new OrderBook();
+		balanced.add(order(OrderType.BUY, 104.0, 4.0));
+		balanced.add(order(OrderType.SELL, 100.0, 4.0));
+
+		// Nothing left over anywhere in the range: its middle
+		Uncrossing uncrossing = Uncrossing.of(balanced);
+		assertThat(uncrossing.getPrice()).isEqualTo(toTicks(102.0));
+		assertThat(uncrossing.getVolume()).isEqualTo(toVolumeUnits(4.0));
+	}
+
+	private void add(OrderType type, double price, double volume) {
+		book.add(order(type, price, volume));
+	}
+
+	private Order order(OrderType type, double price, double volume) {
+		OffsetDateTime now = OffsetDateTime.now();
+		return Order.builder().id(++nextId).type(type).price(toTicks(price)).volume(toVolumeUnits(volume))
+				.executedVolume(0L).status(OrderStatus.PENDING).timestamp(now).expirationTimestamp(now.plusHours(1))
+				.build();
+	}
+}
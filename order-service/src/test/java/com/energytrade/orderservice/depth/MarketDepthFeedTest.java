@@ -0,0 +1,174 @@
+package com.energytrade.orderservice.depth;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.energytrade.orderservice.model.DepthLevel;
+import com.energytrade.orderservice.model.DepthUpdate;
+import com.energytrade.orderservice.model.MarketDepth;
+import com.energytrade.orderservice.model.OrderType;
+
+class MarketDepthFeedTest {
+
+	private static final String INSTRUMENT = "DE-H-12";
+
+	private final MarketDepthFeed feed = new MarketDepthFeed(2, 60_000);
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		feed.stop();
+	}
+
+	@Test
+	void shouldReturnBestLevelsOfEachSide() {
+		feed.levelChanged(INSTRUMENT, OrderType.BUY, toTicks(98.0), toVolumeUnits(5.0), 1);
+		feed.levelChanged(INSTRUMENT, OrderType.BUY, toTicks(99.0), toVolumeUnits(7.0), 2);
+		feed.levelChanged(INSTRUMENT, OrderType.BUY, toTicks(97.0), toVolumeUnits(1.0), 1);
+		feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(101.0), toVolumeUnits(4.0), 1);
+		feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(100.0), toVolumeUnits(3.0), 1);
+		feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(100.0), 0L, 0); // level emptied
+
+		MarketDepth depth = feed.depth(INSTRUMENT, 2);
+
+		assertThat(depth.getSequence()).isEqualTo(6);
+		assertThat(depth.getBids()).extracting(DepthLevel::getPrice).containsExactly(toTicks(99.0), toTicks(98.0));
+		assertThat(depth.getBids().get(0).getVolume()).isEqualTo(toVolumeUnits(7.0));
+		assertThat(depth.getBids().get(0).getOrders()).isEqualTo(2);
+		assertThat(depth.getAsks()).extracting(DepthLevel::getPrice).containsExactly(toTicks(101.0));
+		assertThat(feed.depth("FR-H-12", 10).getBids()).isEmpty();
+	}
+
+	@Test
+	void shouldEvictEmptiedLevelsOnlyOnceSubscribersHaveThem() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingEmitter slow = new RecordingEmitter(release);
+		feed.subscribe(INSTRUMENT, slow);
+		assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// Far more emptied levels than are kept, while the subscriber has not been sent any of them
+		int prices = DepthSide.MAX_EMPTY_SLOTS * 4;
+		for (int i = 0; i < prices; i++) {
+			feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(100.0) + i, toVolumeUnits(1.0), 1);
+			feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(100.0) + i, 0L, 0);
+		}
+		release.countDown();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (slow.updates.stream().mapToInt(update -> update.getLevels().size()).sum() < prices
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(slow.updates.stream().flatMap(update -> update.getLevels().stream()))
+				.hasSize(prices).allMatch(level -> level.getOrders() == 0);
+		assertThat(feed.stats()).containsEntry("levelSlots", prices);
+		while ((Long) feed.stats().get("updatesSent") < slow.updates.size() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		// Once sent, new prices evict them, and a level coming back is published again
+		for (int i = 0; i < DepthSide.MAX_EMPTY_SLOTS; i++) {
+			feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(300.0) + i, toVolumeUnits(1.0), 1);
+			feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(300.0) + i, 0L, 0);
+		}
+		feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(200.0), toVolumeUnits(1.0), 1);
+		assertThat((Integer) feed.stats().get("levelSlots")).isLessThanOrEqualTo(DepthSide.MAX_EMPTY_SLOTS + 1);
+		feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(100.0), toVolumeUnits(2.0), 1);
+		assertThat(feed.depth(INSTRUMENT, 10).getAsks()).extracting(DepthLevel::getVolume)
+				.containsExactly(toVolumeUnits(2.0), toVolumeUnits(1.0));
+		while (slow.lastVolume() != toVolumeUnits(2.0) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(slow.lastVolume()).isEqualTo(toVolumeUnits(2.0));
+	}
+
+	@Test
+	void shouldConflateLevelChangesForASlowSubscriber() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingEmitter slow = new RecordingEmitter(release);
+		feed.subscribe(INSTRUMENT, slow);
+		assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue(); // stuck writing the snapshot
+
+		long start = System.nanoTime();
+		for (int i = 1; i <= 10_000; i++) {
+			feed.levelChanged(INSTRUMENT, OrderType.SELL, toTicks(100.0), i, 1);
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		release.countDown();
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (slow.lastVolume() != 10_000 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		System.out.printf("10000 level changes published in %d ms with a stalled subscriber, %d updates sent%n",
+				elapsedMillis, slow.updates.size());
+
+		// The matching side never waited for the subscriber, which only got the latest state of the level
+		assertThat(elapsedMillis).isLessThan(2000);
+		assertThat(slow.lastVolume()).isEqualTo(10_000);
+		assertThat(slow.updates).hasSizeLessThanOrEqualTo(2);
+		assertThat(slow.updates.get(slow.updates.size() - 1).getLevels()).hasSize(1);
+		assertThat((Long) feed.stats().get("conflatedLevels")).isGreaterThanOrEqualTo(9_998);
+	}
+
+	@Test
+	void shouldDropSubscriberWhoseConnectionFails() throws Exception {
+		SseEmitter broken = new SseEmitter() {
+			@Override
+			public void send(SseEventBuilder builder) throws IOException {
+				throw new IOException("Broken pipe");
+			}
+		};
+		feed.subscribe(INSTRUMENT, broken);
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while ((Long) feed.stats().get("droppedSubscribers") == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(feed.stats()).containsEntry("droppedSubscribers", 1L).containsEntry("subscribers", 0);
+		feed.levelChanged(INSTRUMENT, OrderType.BUY, toTicks(99.0), toVolumeUnits(1.0), 1);
+	}
+
+	// Records the depth events and blocks on the first send until released, like a client not reading
+	private static final class RecordingEmitter extends SseEmitter {
+
+		final CountDownLatch release;
+		final CountDownLatch sending = new CountDownLatch(1);
+		final List<DepthUpdate> updates = new CopyOnWriteArrayList<>();
+
+		RecordingEmitter(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			sending.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+			for (DataWithMediaType data : builder.build()) {
+				if (data.getData() instanceof DepthUpdate) {
+					updates.add((DepthUpdate) data.getData());
+				}
+			}
+		}
+
+		long lastVolume() {
+			return updates.isEmpty() ? -1 : updates.get(updates.size() - 1).getLevels().get(0).getVolume();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.energytrade.orderservice.gateway;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+import com.energytrade.orderservice.gateway.GatewayProtocol.ExecutionReport;
+import com.energytrade.orderservice.gateway.GatewayProtocol.NewOrder;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Reject;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+
+class GatewayProtocolTest {
+
+	@Test
+	void shouldReadANewOrderOnlyOnceItsFrameHasFullyArrived() throws Exception {
+		NewOrder order = new NewOrder(7, OrderType.SELL, true, toTicks(101.5), toVolumeUnits(2.5),
+				1_900_000_000_000L, "DE-H-2030-01-01T10");
+		ByteBuffer wire = ByteBuffer.allocate(NewOrder.MAX_SIZE);
+		order.write(wire);
+		wire.flip();
+
+		// Split across two reads
+		ByteBuffer in = ByteBuffer.allocate(256);
+		in.put(wire.array(), 0, 10).flip();
+		assertThat(GatewayProtocol.nextFrame(in)).isNull();
+		in.compact().put(wire.array(), 10, wire.limit() - 10).flip();
+		ByteBuffer frame = GatewayProtocol.nextFrame(in);
+
+		assertThat(frame.get()).isEqualTo(GatewayProtocol.NEW_ORDER);
+		assertThat(NewOrder.read(frame)).isEqualTo(order);
+		assertThat(in.hasRemaining()).isFalse();
+	}
+
+	@Test
+	void shouldReadReportsBackToBack() throws Exception {
+		ExecutionReport report = new ExecutionReport(1, 42, OrderStatus.PARTIAL, toVolumeUnits(1.0),
+				toVolumeUnits(4.0), 99);
+		Reject reject = new Reject(2, 404, "Not Found");
+		ByteBuffer in = ByteBuffer.allocate(256);
+		in.put(report.encode()).put(reject.encode()).flip();
+
+		assertThat(GatewayProtocol.readReport(GatewayProtocol.nextFrame(in))).isEqualTo(report);
+		assertThat(GatewayProtocol.readReport(GatewayProtocol.nextFrame(in))).isEqualTo(reject);
+		assertThat(GatewayProtocol.nextFrame(in)).isNull();
+	}
+
+	@Test
+	void shouldRefuseFramesLongerThanAnyMessage() {
+		ByteBuffer in = ByteBuffer.allocate(4).putShort((short) (GatewayProtocol.MAX_FRAME_SIZE + 1)).flip();
+
+		assertThatThrownBy(() -> GatewayProtocol.nextFrame(in)).isInstanceOf(ProtocolException.class);
+	}
+}
@@ -0,0 +1,147 @@
+package com.energytrade.orderservice.gateway;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+
+import com.energytrade.orderservice.OrderController;
+import com.energytrade.orderservice.gateway.GatewayProtocol.ExecutionReport;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Fill;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Reject;
+import com.energytrade.orderservice.gateway.GatewayProtocol.Report;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+
+class OrderEntryGatewayTest {
+
+	private final OrderController controller = mock(OrderController.class);
+	private final OrderWriteBehind writeBehind = mock(OrderWriteBehind.class);
+	private final List<Fill> fills = new CopyOnWriteArrayList<>();
+	private OrderEntryGateway gateway;
+	private OrderEntryClient client;
+	private Consumer<Trade> tradeListener;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void start() throws Exception {
+		gateway = new OrderEntryGateway(controller, writeBehind, true, 0, 2, 16);
+		gateway.start();
+		ArgumentCaptor<Consumer<Trade>> listener = ArgumentCaptor.forClass(Consumer.class);
+		verify(writeBehind).addTradeListener(listener.capture());
+		tradeListener = listener.getValue();
+		client = OrderEntryClient.connect("localhost", gateway.localPort(), fills::add);
+	}
+
+	@AfterEach
+	void stop() throws Exception {
+		client.close();
+		gateway.stop();
+	}
+
+	@Test
+	void shouldEnterOrdersThroughTheControllerAndReportTheirFills() throws Exception {
+		// Saved with its id, answered later, as the controller does when the order is entered asynchronously
+		CompletableFuture<ResponseEntity<?>> answer = new CompletableFuture<>();
+		doAnswer(invocation -> {
+			Order order = invocation.getArgument(0);
+			order.setId(5L);
+			invocation.<Consumer<Order>>getArgument(2).accept(order);
+			return answer;
+		}).when(controller).createOrder(any(Order.class), eq(true), any());
+
+		CompletableFuture<Report> pending = client.submit("DE-H-2030", OrderType.SELL, toTicks(100.0),
+				toVolumeUnits(5.0), OffsetDateTime.now().plusHours(1), true);
+		ArgumentCaptor<Order> entered = ArgumentCaptor.forClass(Order.class);
+		verify(controller, timeout(5000)).createOrder(entered.capture(), eq(true), any());
+		assertThat(entered.getValue().getInstrument()).isEqualTo("DE-H-2030");
+		assertThat(entered.getValue().getVolume()).isEqualTo(toVolumeUnits(5.0));
+		assertThat(pending).isNotDone();
+
+		// Hit by an incoming buy before the answer: reported to the session as a maker fill all the same
+		tradeListener.accept(Trade.builder().makerOrderId(5L).takerOrderId(6L).takerSide(OrderType.BUY)
+				.price(toTicks(100.0)).volume(toVolumeUnits(2.0)).executedAt(OffsetDateTime.now()).build());
+		tradeListener.accept(Trade.builder().makerOrderId(8L).takerOrderId(9L).takerSide(OrderType.BUY)
+				.price(toTicks(100.0)).volume(toVolumeUnits(1.0)).executedAt(OffsetDateTime.now()).build());
+
+		answer.complete(ResponseEntity.ok().header(OrderController.WRITE_SEQUENCE_HEADER, "12").body(Order.builder()
+				.id(5L).type(OrderType.SELL).price(toTicks(100.0)).volume(toVolumeUnits(5.0))
+				.status(OrderStatus.PENDING).build()));
+
+		Report report = pending.get(5, TimeUnit.SECONDS);
+
+		assertThat(report).isEqualTo(new ExecutionReport(1, 5, OrderStatus.PENDING, 0, toVolumeUnits(5.0), 12));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (fills.isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(fills).singleElement().satisfies(fill -> {
+			assertThat(fill.getClientRef()).isEqualTo(1);
+			assertThat(fill.getOrderId()).isEqualTo(5);
+			assertThat(fill.isMaker()).isTrue();
+			assertThat(fill.getVolume()).isEqualTo(toVolumeUnits(2.0));
+		});
+	}
+
+	@Test
+	void shouldReportTheOrderAsMatchedNotAsTheBookLaterLeftIt() throws Exception {
+		CompletableFuture<ResponseEntity<?>> answer = new CompletableFuture<>();
+		doReturn(answer).when(controller).createOrder(any(Order.class), eq(false), any());
+		CompletableFuture<Report> pending = client.submit("DE-H-2030", OrderType.BUY, toTicks(100.0),
+				toVolumeUnits(4.0), OffsetDateTime.now().plusHours(1), false);
+		ArgumentCaptor<Order> entered = ArgumentCaptor.forClass(Order.class);
+		verify(controller, timeout(5000)).createOrder(entered.capture(), eq(false), any());
+		Order submitted = entered.getValue();
+		submitted.setId(7L);
+		submitted.setStatus(OrderStatus.PARTIAL);
+		submitted.setExecutedVolume(toVolumeUnits(1.0));
+		Order matched = submitted.snapshot();
+
+		// Traded further by the book before the answer reaches the gateway
+		submitted.setStatus(OrderStatus.EXECUTED);
+		submitted.setExecutedVolume(toVolumeUnits(4.0));
+		answer.complete(ResponseEntity.ok(matched));
+
+		assertThat(pending.get(5, TimeUnit.SECONDS)).isEqualTo(
+				new ExecutionReport(1, 7, OrderStatus.PARTIAL, toVolumeUnits(1.0), toVolumeUnits(3.0), 0));
+	}
+
+	@Test
+	void shouldRejectWithTheStatusAndMessageOfTheRestApi() throws Exception {
+		doReturn(CompletableFuture.completedFuture(ResponseEntity.badRequest()
+				.body("Order volume must be a positive number.")))
+				.when(controller).createOrder(any(Order.class), anyBoolean(), any());
+		doReturn(CompletableFuture.completedFuture(ResponseEntity.notFound().build()))
+				.when(controller).cancelOrder(eq(77L), anyBoolean());
+
+		Report rejected = client.submit(null, OrderType.BUY, toTicks(100.0), 0, OffsetDateTime.now().plusHours(1),
+				false).get(5, TimeUnit.SECONDS);
+		Report notFound = client.cancel(77, false).get(5, TimeUnit.SECONDS);
+
+		assertThat(rejected).isEqualTo(new Reject(1, 400, "Order volume must be a positive number."));
+		assertThat(notFound).isEqualTo(new Reject(2, 404, "Not Found"));
+	}
+}
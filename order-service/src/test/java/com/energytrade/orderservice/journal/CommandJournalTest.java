@@ -0,0 +1,139 @@
+package com.energytrade.orderservice.journal;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.pipeline.MatchingCommand;
+
+class CommandJournalTest {
+
+	private static final OffsetDateTime NOW = OffsetDateTime.parse("2030-01-01T10:00:00Z");
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void shouldReadBackRecordsAcrossSegmentsAfterReopen() throws IOException {
+		CommandJournal journal = open();
+		for (long id = 1; id <= 20_000; id++) {
+			journal.append(MatchingCommand.Type.NEW, order(id), NOW.plusNanos(id));
+		}
+		Order cancel = order(7L);
+		cancel.setInstrument("NL-QH-2030-01-01T10:15");
+		journal.append(MatchingCommand.Type.CANCEL, cancel, NOW);
+		journal.close();
+
+		CommandJournal reopened = open();
+		List<JournalRecord> records = new ArrayList<>();
+		long count = reopened.replay(0, records::add);
+
+		assertThat(reopened.sequence()).isEqualTo(20_001);
+		assertThat(reopened.segmentCount()).isGreaterThan(1);
+		assertThat(count).isEqualTo(20_001);
+		JournalRecord last = records.get(records.size() - 1);
+		assertThat(last.getType()).isEqualTo(MatchingCommand.Type.CANCEL);
+		assertThat(last.getOrder().getId()).isEqualTo(7L);
+		assertThat(last.getOrder().getInstrument()).isEqualTo("NL-QH-2030-01-01T10:15");
+		Order first = records.get(0).getOrder();
+		assertThat(first.getId()).isEqualTo(1L);
+		assertThat(first.getType()).isEqualTo(OrderType.SELL);
+		assertThat(first.getInstrument()).isEqualTo(Instrument.DEFAULT);
+		assertThat(first.getPrice()).isEqualTo(toTicks(100.25));
+		assertThat(first.getVolume()).isEqualTo(toVolumeUnits(5.0));
+		assertThat(first.getExpirationTimestamp()).isEqualTo(NOW.plusHours(1));
+		assertThat(records.get(0).getTime()).isEqualTo(NOW.plusNanos(1));
+		assertThat(reopened.maxOrderId()).isEqualTo(20_000);
+	}
+
+	@Test
+	void shouldStopAtTornRecordAndAppendOverIt() throws IOException {
+		CommandJournal journal = open();
+		for (long id = 1; id <= 3; id++) {
+			journal.append(MatchingCommand.Type.NEW, order(id), NOW);
+		}
+		journal.close();
+
+		// Corrupt the body of the third record, as a crash in the middle of the write would
+		Path segment;
+		try (Stream<Path> files = Files.list(dir)) {
+			segment = files.filter(p -> p.toString().endsWith(".journal")).findFirst().orElseThrow();
+		}
+		int recordSize;
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer length = ByteBuffer.allocate(4);
+			channel.read(length, 0);
+			recordSize = 8 + length.getInt(0);
+			channel.write(ByteBuffer.wrap(new byte[] { 42 }), 2L * recordSize + 20);
+		}
+
+		CommandJournal reopened = open();
+		assertThat(reopened.sequence()).isEqualTo(2);
+		reopened.append(MatchingCommand.Type.EXPIRE, order(1L), NOW);
+
+		List<JournalRecord> records = new ArrayList<>();
+		reopened.replay(0, records::add);
+		assertThat(records).extracting(JournalRecord::getSequence).containsExactly(1L, 2L, 3L);
+		assertThat(records.get(2).getType()).isEqualTo(MatchingCommand.Type.EXPIRE);
+	}
+
+	@Test
+	void shouldRecoverFromSnapshotPlusTail() throws IOException {
+		CommandJournal journal = open();
+		for (long id = 1; id <= 20_000; id++) {
+			journal.append(MatchingCommand.Type.NEW, order(id), NOW);
+		}
+		Order partial = order(5L);
+		partial.setExecutedVolume(toVolumeUnits(1.5));
+		partial.setStatus(OrderStatus.PARTIAL);
+		journal.writeSnapshot(List.of(partial, order(9L)));
+		assertThat(journal.segmentCount()).isEqualTo(1);
+
+		journal.append(MatchingCommand.Type.CANCEL, order(9L), NOW);
+		journal.append(MatchingCommand.Type.NEW, order(20_001L), NOW);
+		journal.close();
+
+		CommandJournal reopened = open();
+		BookSnapshot snapshot = reopened.readSnapshot();
+		List<JournalRecord> tail = new ArrayList<>();
+		reopened.replay(snapshot.getSequence(), tail::add);
+
+		assertThat(snapshot.getSequence()).isEqualTo(20_000);
+		assertThat(snapshot.getMaxOrderId()).isEqualTo(20_000);
+		assertThat(snapshot.getOrders()).extracting(Order::getId).containsExactly(5L, 9L);
+		assertThat(snapshot.getOrders().get(0).getExecutedVolume()).isEqualTo(toVolumeUnits(1.5));
+		assertThat(snapshot.getOrders().get(0).getStatus()).isEqualTo(OrderStatus.PARTIAL);
+		assertThat(tail).extracting(JournalRecord::getSequence).containsExactly(20_001L, 20_002L);
+		assertThat(reopened.maxOrderId()).isEqualTo(20_001);
+	}
+
+	private CommandJournal open() throws IOException {
+		CommandJournal journal = new CommandJournal(dir.toString(), 1);
+		journal.open();
+		return journal;
+	}
+
+	private Order order(Long id) {
+		return Order.builder().id(id).type(OrderType.SELL).price(toTicks(100.25)).volume(toVolumeUnits(5.0))
+				.executedVolume(0L).status(OrderStatus.PENDING).marketPrice(toTicks(100.0)).timestamp(NOW)
+				.expirationTimestamp(NOW.plusHours(1)).build();
+	}
+}
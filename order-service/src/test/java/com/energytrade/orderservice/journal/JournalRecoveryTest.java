@@ -0,0 +1,148 @@
+package com.energytrade.orderservice.journal;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.MatchingModes;
+import com.energytrade.orderservice.book.DepthListener;
+import com.energytrade.orderservice.model.Instrument;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.BookWarmStart;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.persistence.SequenceIds;
+import com.energytrade.orderservice.trade.TradeTape;
+import com.energytrade.orderservice.pipeline.MatchingCommand;
+import com.energytrade.orderservice.repository.OrderRepository;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // recovery and the writer commit on their own
+class JournalRecoveryTest {
+
+	private static final OffsetDateTime START = OffsetDateTime.parse("2030-01-01T10:00:00Z");
+
+	@TempDir
+	Path dir;
+
+	@Autowired
+	private OrderRepository repository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void cleanUp() {
+		repository.deleteAll();
+	}
+
+	@Test
+	void shouldRebuildSameBookAndRowsFromSnapshotPlusTail() throws Exception {
+		int commands = 200_000;
+		CommandJournal journal = new CommandJournal(dir.toString(), 64);
+		journal.open();
+
+		// Drive a live engine the way the pipeline does: journal first, then apply
+		MatchingEngine live = new MatchingEngine(mock(OrderWriteBehind.class), mock(OutboundDispatcher.class),
+				DepthListener.NONE, new TradeTape(1024), MatchingModes.CONTINUOUS);
+		live.setReplaying(true);
+		for (long id = 1; id <= commands; id++) {
+			OffsetDateTime now = START.plusNanos(id * 1000);
+			if (id % 10 == 0) {
+				Order cancel = Order.builder().id(id - 3).build();
+				journal.append(MatchingCommand.Type.CANCEL, cancel, now);
+				live.cancel(cancel, now);
+			}
+			Order order = order(id);
+			journal.append(MatchingCommand.Type.NEW, order, now);
+			live.match(order, now);
+			if (id == commands / 2) {
+				List<Order> resting = new ArrayList<>();
+				live.forEachRestingOrder(resting::add);
+				journal.writeSnapshot(resting);
+			}
+		}
+		journal.close();
+
+		CommandJournal reopened = new CommandJournal(dir.toString(), 64);
+		reopened.open();
+		OrderWriteBehind writeBehind = mock(OrderWriteBehind.class);
+		TradeTape tape = new TradeTape(1024);
+		MatchingEngine recovered = new MatchingEngine(writeBehind, mock(OutboundDispatcher.class), DepthListener.NONE,
+				tape, MatchingModes.CONTINUOUS);
+		JournalRecovery recovery = new JournalRecovery(reopened, recovered, jdbcTemplate,
+				new TransactionTemplate(transactionManager), new SequenceIds(jdbcTemplate), BookWarmStart.NONE);
+		recovery.recover();
+
+		System.out.printf("Journal replay: %d commands in %d ms (%d commands/s), %d ms including database restore%n",
+				recovery.getReplayedCommands(), recovery.getReplayMillis(), recovery.commandsPerSecond(),
+				recovery.getRecoveryMillis());
+
+		assertThat(recovery.getRestoredOrders()).isPositive();
+		assertThat(recovery.getReplayedCommands()).isEqualTo(reopened.sequence() - reopened.snapshotSequence());
+		assertThat(restingState(recovered)).isEqualTo(restingState(live));
+		assertThat(repository.count()).isEqualTo(recovery.getRestoredOrders() + commands / 2);
+		verifyNoInteractions(writeBehind);
+		// The replayed fills are back on the tape and in the trades table
+		long trades = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trades", Long.class);
+		assertThat(trades).isPositive();
+		assertThat(tape.size(Instrument.DEFAULT)).isEqualTo(Math.min(trades, tape.capacity()));
+
+		// Rows hold the replayed fills, and new ids continue after the journaled ones
+		Order sample = repository.findById((long) commands).orElseThrow();
+		assertThat(sample.getExecutedVolume()).isEqualTo(executedOf(live, sample));
+		Order next = repository.save(order(null));
+		assertThat(next.getId()).isEqualTo(commands + 1L);
+	}
+
+	private List<String> restingState(MatchingEngine engine) {
+		List<String> state = new ArrayList<>();
+		engine.forEachRestingOrder(o -> state.add(o.getId() + ":" + o.getExecutedVolume() + ":" + o.getStatus()));
+		return state;
+	}
+
+	// Executed volume according to the live engine; orders no longer resting were filled
+	private long executedOf(MatchingEngine live, Order persisted) {
+		long[] executed = { persisted.getVolume() };
+		live.forEachRestingOrder(o -> {
+			if (o.getId().equals(persisted.getId())) {
+				executed[0] = o.getExecutedVolume();
+			}
+		});
+		return executed[0];
+	}
+
+	// Mostly makers spread over a few levels, with a buyer every third order
+	private Order order(Long id) {
+		long n = id == null ? 0 : id;
+		boolean buy = n % 3 == 0;
+		return Order.builder().id(id).type(buy ? OrderType.BUY : OrderType.SELL)
+				.price(toTicks(buy ? 101.0 : 100.0 + (n % 5) * 0.5)).volume(toVolumeUnits(buy ? 2.5 : 1.0))
+				.executedVolume(0L).status(OrderStatus.PENDING).marketPrice(toTicks(100.0)).timestamp(START)
+				.expirationTimestamp(START.plusDays(1)).build();
+	}
+}
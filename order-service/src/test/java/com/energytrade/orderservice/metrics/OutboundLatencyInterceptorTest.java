@@ -0,0 +1,50 @@
+package com.energytrade.orderservice.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OutboundLatencyInterceptorTest {
+
+	@Test
+	void shouldTimeCallsPerDownstreamAndOutcome() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		OutboundLatencyInterceptor interceptor = new OutboundLatencyInterceptor(
+				Map.of("pricing-service", "http://pricing:8082/price", "audit-service", "http://audit:8083/audit"));
+		interceptor.bindTo(registry);
+		RestTemplate restTemplate = new RestTemplate();
+		restTemplate.getInterceptors().add(interceptor);
+		MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+		server.expect(requestTo("http://pricing:8082/price")).andRespond(withSuccess());
+		server.expect(requestTo("http://pricing:8082/price")).andRespond(withSuccess());
+		server.expect(requestTo("http://audit:8083/audit/batch")).andRespond(withServerError());
+		server.expect(requestTo("http://other:9000/x")).andRespond(withSuccess());
+
+		restTemplate.getForObject("http://pricing:8082/price", String.class);
+		restTemplate.getForObject("http://pricing:8082/price", String.class);
+		try {
+			restTemplate.postForObject("http://audit:8083/audit/batch", "[]", String.class);
+		} catch (HttpServerErrorException expected) {
+			// the call is timed all the same
+		}
+		restTemplate.getForObject("http://other:9000/x", String.class);
+
+		server.verify();
+		assertThat(registry.get("orders.outbound.latency").tags("downstream", "pricing-service", "outcome", "SUCCESS")
+				.timer().count()).isEqualTo(2);
+		assertThat(registry.get("orders.outbound.latency").tags("downstream", "audit-service", "outcome", "SERVER_ERROR")
+				.timer().count()).isEqualTo(1);
+		assertThat(registry.get("orders.outbound.latency").tag("downstream", "other:9000").timer().count())
+				.isEqualTo(1);
+	}
+}
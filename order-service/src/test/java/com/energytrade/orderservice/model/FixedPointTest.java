@@ -0,0 +1,43 @@
+package com.energytrade.orderservice.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+class FixedPointTest {
+
+	private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+	@Test
+	void shouldConvertDecimalsToExactUnits() {
+		assertThat(FixedPoint.toTicks(105.25)).isEqualTo(10525L);
+		assertThat(FixedPoint.toTicks(0.1 + 0.2)).isEqualTo(30L);
+		assertThat(FixedPoint.toVolumeUnits(1.5)).isEqualTo(1500L);
+		assertThat(FixedPoint.fromTicks(10525L)).isEqualByComparingTo(new BigDecimal("105.25"));
+		assertThat(FixedPoint.fromVolumeUnits(1500L)).isEqualByComparingTo(new BigDecimal("1.5"));
+	}
+
+	@Test
+	void shouldAcceptDecimalJsonAndWriteItBack() throws Exception {
+		Order order = mapper.readValue(
+				"{\"type\":\"BUY\",\"price\":99.99,\"volume\":2.125,\"marketPrice\":98.5,"
+						+ "\"expirationTimestamp\":\"2030-01-01T00:00:00Z\"}",
+				Order.class);
+
+		assertThat(order.getPrice()).isEqualTo(9999L);
+		assertThat(order.getVolume()).isEqualTo(2125L);
+		assertThat(order.getMarketPrice()).isEqualTo(9850L);
+
+		order.setExecutedVolume(125L);
+		JsonNode json = mapper.readTree(mapper.writeValueAsString(order));
+		assertThat(json.get("price").decimalValue()).isEqualByComparingTo("99.99");
+		assertThat(json.get("executedVolume").decimalValue()).isEqualByComparingTo("0.125");
+		assertThat(json.get("remainingVolume").decimalValue()).isEqualByComparingTo("2");
+	}
+}
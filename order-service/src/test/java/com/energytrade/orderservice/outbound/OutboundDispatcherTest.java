@@ -0,0 +1,140 @@
+package com.energytrade.orderservice.outbound;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.energytrade.commonhttp.CircuitBreaker;
+import com.energytrade.commonhttp.HttpClientSettings;
+import com.energytrade.commonhttp.OutboundHttpClient;
+import com.energytrade.orderservice.metrics.OutboundLatencyInterceptor;
+import com.energytrade.orderservice.model.Notification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+class OutboundDispatcherTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private final OutboundLatencyInterceptor latency = new OutboundLatencyInterceptor(Map.of());
+	private final OutboundHttpClient outboundHttp = new OutboundHttpClient("order-service", Map.of(),
+			new HttpClientSettings());
+	private OutboundDispatcher dispatcher;
+	private HttpServer server;
+	private ExecutorService serverThreads;
+
+	@AfterEach
+	void tearDown() throws InterruptedException, IOException {
+		dispatcher.stop();
+		outboundHttp.close();
+		if (server != null) {
+			server.stop(0);
+			serverThreads.shutdownNow();
+		}
+	}
+
+	@Test
+	void shouldPostQueuedMessagesInBatchesWithBoundedConcurrency() throws Exception {
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger maxConcurrent = new AtomicInteger();
+		AtomicInteger largestBatch = new AtomicInteger();
+		// More server threads than batches allowed in flight
+		serverThreads = Executors.newFixedThreadPool(8);
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(serverThreads);
+		server.createContext("/batch", exchange -> {
+			maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+			largestBatch.accumulateAndGet(objectMapper.readTree(exchange.getRequestBody()).size(), Math::max);
+			try {
+				Thread.sleep(10); // slow downstream service
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			concurrent.decrementAndGet();
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		server.start();
+		dispatcher = new OutboundDispatcher(httpClient, objectMapper, latency, outboundHttp,
+				"http://localhost:" + server.getAddress().getPort(), 10_000, 50, 2);
+		dispatcher.start();
+
+		for (int i = 0; i < 2000; i++) {
+			dispatcher.publishNotification(new Notification("admin@energytrade.com", "msg " + i));
+		}
+
+		awaitCount(dispatcher.notifications()::delivered, 2000);
+		assertThat(dispatcher.notifications().batches()).isLessThan(200);
+		assertThat(largestBatch.get()).isLessThanOrEqualTo(50);
+		assertThat(maxConcurrent.get()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void shouldCountFailedDeliveriesWithoutBlockingPublishers() throws Exception {
+		String url = "http://localhost:" + closedPort();
+		dispatcher = new OutboundDispatcher(httpClient, objectMapper, latency, outboundHttp, url, 100, 10, 1);
+		dispatcher.start();
+
+		for (int i = 0; i < 10; i++) {
+			dispatcher.publishNotification(new Notification("admin@energytrade.com", "msg " + i));
+		}
+
+		awaitCount(dispatcher.notifications()::failed, 10);
+		assertThat(dispatcher.notifications().delivered()).isZero();
+	}
+
+	@Test
+	void shouldFailFastWhileTheCircuitIsOpen() throws Exception {
+		AtomicInteger posts = new AtomicInteger();
+		serverThreads = Executors.newSingleThreadExecutor();
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.setExecutor(serverThreads);
+		server.createContext("/batch", exchange -> {
+			posts.incrementAndGet();
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+		});
+		server.start();
+		String url = "http://localhost:" + server.getAddress().getPort();
+		CircuitBreaker breaker = outboundHttp.circuitBreaker(URI.create(url));
+		for (int i = 0; i < new HttpClientSettings().getFailureThreshold(); i++) {
+			breaker.tryAcquire();
+			breaker.onFailure();
+		}
+		dispatcher = new OutboundDispatcher(httpClient, objectMapper, latency, outboundHttp, url, 100, 1, 1);
+		dispatcher.start();
+
+		dispatcher.publishNotification(new Notification("admin@energytrade.com", "msg"));
+
+		awaitCount(dispatcher.notifications()::failed, 1);
+		assertThat(posts.get()).isZero();
+		assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	// notification-service down
+	private static int closedPort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private void awaitCount(LongSupplier counter, long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (counter.getAsLong() < expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(counter.getAsLong()).isEqualTo(expected);
+	}
+}
@@ -0,0 +1,185 @@
+package com.energytrade.orderservice.persistence;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.MatchingModes;
+import com.energytrade.orderservice.book.DepthListener;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.pipeline.MatchingPipeline;
+import com.energytrade.orderservice.trade.TradeTape;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the rows must be visible to the loader's connection
+class BookWarmStartTest {
+
+	private static final String INSERT_SQL = "INSERT INTO orders (id, instrument, type, price, volume, executed_volume, "
+			+ "status, timestamp, market_price, expiration_timestamp, cancelled_at) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	private static final OffsetDateTime NOW = OffsetDateTime.now();
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.execute("TRUNCATE TABLE orders");
+	}
+
+	@Test
+	void shouldLoadOnlyLiveOrdersInPriceTimeOrder() throws Exception {
+		// -Dwarmstart.orders=1000000 to measure a large table
+		int orders = Integer.getInteger("warmstart.orders", 20_000);
+		insert(orders);
+		MatchingEngine engine = new MatchingEngine(mock(OrderWriteBehind.class), mock(OutboundDispatcher.class),
+				DepthListener.NONE, new TradeTape(1024), MatchingModes.CONTINUOUS);
+		BookWarmStart warmStart = new BookWarmStart(new OrderQuery(jdbcTemplate), engine, "database", 1000);
+		assertThat(warmStart.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+		warmStart.start();
+		warmStart.loaded().get(5, TimeUnit.MINUTES);
+
+		System.out.printf("Book warm start: %d of %d orders in %d ms (%d orders/s)%n", warmStart.getLoadedOrders(),
+				orders, warmStart.getLoadMillis(), warmStart.ordersPerSecond());
+		assertThat(warmStart.health().getStatus()).isEqualTo(Status.UP);
+		long live = 0;
+		long oldestAtBest = 0;
+		for (long id = 1; id <= orders; id++) {
+			if (live(id)) {
+				live++;
+				if (id % 7 == 0) {
+					// Timestamps run backwards: the highest id is the oldest
+					oldestAtBest = id;
+				}
+			}
+		}
+		assertThat(warmStart.getLoadedOrders()).isEqualTo(live);
+		assertThat(engine.restingCount()).isEqualTo((int) live);
+
+		// The best ask goes to the oldest order at its price, not the first one inserted
+		Order buy = Order.builder().id(orders + 1L).instrument("DE-H-2030").type(OrderType.BUY).price(toTicks(100.0))
+				.volume(toVolumeUnits(1.0)).executedVolume(0L).status(OrderStatus.PENDING).timestamp(NOW)
+				.marketPrice(toTicks(100.0)).expirationTimestamp(NOW.plusHours(1)).build();
+		engine.match(buy, NOW);
+
+		Set<Long> resting = new HashSet<>();
+		engine.forEachRestingOrder(order -> resting.add(order.getId()));
+		assertThat(buy.getStatus()).isEqualTo(OrderStatus.EXECUTED);
+		assertThat(resting).hasSize((int) live - 1).doesNotContain(oldestAtBest);
+	}
+
+	@Test
+	void shouldBringBackOnlyWhatWasFlushedBeforeACrash() throws Exception {
+		// A resting sell, durable in the table
+		jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				bind(ps, 3);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return 1;
+			}
+		});
+		MatchingEngine engine = new MatchingEngine(mock(OrderWriteBehind.class), mock(OutboundDispatcher.class),
+				DepthListener.NONE, new TradeTape(1024), MatchingModes.CONTINUOUS);
+		BookWarmStart warmStart = new BookWarmStart(new OrderQuery(jdbcTemplate), engine, "database", 1000);
+		warmStart.start();
+		warmStart.loaded().get(1, TimeUnit.MINUTES);
+		Order buy = Order.builder().id(4L).instrument("DE-H-2030").type(OrderType.BUY).price(toTicks(110.0))
+				.volume(toVolumeUnits(1.0)).executedVolume(0L).status(OrderStatus.PENDING).timestamp(NOW)
+				.marketPrice(toTicks(100.0)).expirationTimestamp(NOW.plusHours(1)).build();
+		engine.match(buy, NOW);
+		assertThat(engine.restingCount()).isZero();
+
+		// Crash before the write-behind flushed the fill: the sell comes back whole
+		MatchingEngine restarted = new MatchingEngine(mock(OrderWriteBehind.class), mock(OutboundDispatcher.class),
+				DepthListener.NONE, new TradeTape(1024), MatchingModes.CONTINUOUS);
+		BookWarmStart again = new BookWarmStart(new OrderQuery(jdbcTemplate), restarted, "database", 1000);
+		again.start();
+		again.loaded().get(1, TimeUnit.MINUTES);
+
+		Set<Long> resting = new HashSet<>();
+		restarted.forEachRestingOrder(order -> {
+			resting.add(order.getId());
+			assertThat(order.getRemainingVolume()).isEqualTo(toVolumeUnits(1.0));
+		});
+		assertThat(resting).containsExactly(3L);
+		// Which is why nothing is acknowledged before the flush with this recovery
+		assertThat(new MatchingPipeline(restarted, null, again, 1, 64, 5000, 100, 1000, 100).durableOnly()).isTrue();
+		assertThat(new MatchingPipeline(restarted, null, BookWarmStart.NONE, 1, 64, 5000, 100, 1000, 100)
+				.durableOnly()).isFalse();
+	}
+
+	// Pending and partially filled orders not yet expired; executed, cancelled and expired ones stay out
+	private static boolean live(long id) {
+		return id % 5 == 3 || id % 5 == 4;
+	}
+
+	private void insert(int orders) {
+		int batchSize = 1000;
+		for (int from = 1; from <= orders; from += batchSize) {
+			int first = from;
+			int size = Math.min(batchSize, orders - from + 1);
+			jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					bind(ps, first + i);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return size;
+				}
+			});
+		}
+	}
+
+	private static void bind(PreparedStatement ps, long id) throws SQLException {
+		int kind = (int) (id % 5);
+		OrderStatus status = kind == 0 ? OrderStatus.EXECUTED
+				: kind == 1 ? OrderStatus.CANCELLED : kind == 4 ? OrderStatus.PARTIAL : OrderStatus.PENDING;
+		ps.setLong(1, id);
+		ps.setString(2, "DE-H-2030");
+		ps.setString(3, OrderType.SELL.name());
+		ps.setLong(4, toTicks(100.0 + id % 7));
+		// One unit left on every order
+		ps.setLong(5, toVolumeUnits(status == OrderStatus.PARTIAL ? 2.0 : 1.0));
+		ps.setLong(6, status == OrderStatus.PARTIAL ? toVolumeUnits(1.0) : 0L);
+		ps.setString(7, status.name());
+		ps.setTimestamp(8, Timestamp.from(NOW.minusSeconds(id).toInstant()));
+		ps.setLong(9, toTicks(100.0));
+		ps.setTimestamp(10, Timestamp.from((kind == 2 ? NOW.minusMinutes(1) : NOW.plusHours(1)).toInstant()));
+		if (status == OrderStatus.CANCELLED) {
+			ps.setTimestamp(11, Timestamp.from(NOW.toInstant()));
+		} else {
+			ps.setNull(11, Types.TIMESTAMP);
+		}
+	}
+}
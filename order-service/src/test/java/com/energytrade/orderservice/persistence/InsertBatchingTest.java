@@ -0,0 +1,98 @@
+package com.energytrade.orderservice.persistence;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.energytrade.orderservice.model.AuditFallback;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.repository.AuditFallbackRepository;
+import com.energytrade.orderservice.repository.OrderRepository;
+
+/**
+ * Insert throughput of the order and outbox write paths through Hibernate.
+ * With pooled sequence ids the inserts go out as JDBC batches, so far fewer
+ * statements are prepared than rows are written.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class InsertBatchingTest {
+
+	private static final int ROWS = 5000;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private AuditFallbackRepository outboxRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void shouldBatchOrderInserts() {
+		List<Order> orders = new ArrayList<>(ROWS);
+		OffsetDateTime now = OffsetDateTime.now();
+		for (int i = 0; i < ROWS; i++) {
+			orders.add(Order.builder().type(i % 2 == 0 ? OrderType.BUY : OrderType.SELL).price(toTicks(100.0))
+					.volume(toVolumeUnits(1.0)).marketPrice(toTicks(100.0)).expirationTimestamp(now.plusHours(1))
+					.build());
+		}
+
+		long start = System.nanoTime();
+		orderRepository.saveAll(orders);
+		orderRepository.flush();
+		report("orders", start);
+
+		assertThat(orders).allMatch(o -> o.getId() != null);
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(ROWS / 10);
+	}
+
+	@Test
+	void shouldBatchOutboxInserts() {
+		List<AuditFallback> rows = new ArrayList<>(ROWS);
+		for (int i = 0; i < ROWS; i++) {
+			AuditFallback row = new AuditFallback();
+			row.setSource("order-service");
+			row.setType("ORDER_CREATED");
+			row.setPayload("{\"orderId\":" + i + "}");
+			rows.add(row);
+		}
+
+		long start = System.nanoTime();
+		outboxRepository.saveAll(rows);
+		outboxRepository.flush();
+		report("outbox rows", start);
+
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+		assertThat(statistics.getPrepareStatementCount()).isLessThan(ROWS / 10);
+	}
+
+	private void report(String what, long start) {
+		long micros = Math.max(1, (System.nanoTime() - start) / 1000);
+		System.out.printf("Inserted %d %s in %d ms (%d inserts/s, %d statements prepared)%n", ROWS, what,
+				micros / 1000, ROWS * 1_000_000L / micros, statistics.getPrepareStatementCount());
+	}
+}
@@ -0,0 +1,88 @@
+package com.energytrade.orderservice.persistence;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.repository.OrderRepository;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the insert commits on its own
+class OrderBatchInsertTest {
+
+	@Autowired
+	private OrderRepository repository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void cleanUp() {
+		repository.deleteAll();
+		jdbcTemplate.update("DELETE FROM audit_fallbacks");
+	}
+
+	@Test
+	void shouldInsertOrdersWithGeneratedIdsAndAuditRows() {
+		OrderBatchInsert batchInsert = new OrderBatchInsert(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SequenceIds(jdbcTemplate));
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			orders.add(order(100.0 + i));
+		}
+
+		batchInsert.insert(orders, o -> new AuditEvent("order-service", "ORDER_CREATED", "{\"orderId\":" + o.getId() + "}"));
+
+		assertThat(orders).extracting(Order::getId).doesNotContainNull().doesNotHaveDuplicates().isSorted();
+		assertThat(repository.count()).isEqualTo(250);
+		Order last = repository.findById(orders.get(249).getId()).orElseThrow();
+		assertThat(last.getPrice()).isEqualTo(toTicks(349.0));
+		assertThat(last.getStatus()).isEqualTo(OrderStatus.PENDING);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_fallbacks WHERE payload = ?", Long.class,
+				"{\"orderId\":" + last.getId() + "}")).isEqualTo(1L);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_fallbacks", Long.class)).isEqualTo(250L);
+	}
+
+	@Test
+	void shouldShareTheOrderSequenceWithHibernate() {
+		OrderBatchInsert batchInsert = new OrderBatchInsert(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SequenceIds(jdbcTemplate));
+		List<Long> ids = new ArrayList<>();
+		for (int round = 0; round < 3; round++) {
+			ids.add(repository.save(order(100.0)).getId());
+			List<Order> orders = new ArrayList<>(List.of(order(101.0), order(102.0), order(103.0)));
+			batchInsert.insert(orders, o -> new AuditEvent("order-service", "ORDER_CREATED", "{}"));
+			orders.forEach(o -> ids.add(o.getId()));
+		}
+
+		assertThat(ids).doesNotHaveDuplicates();
+		assertThat(repository.count()).isEqualTo(12);
+	}
+
+	private Order order(double price) {
+		return Order.builder().type(OrderType.SELL).price(toTicks(price)).volume(toVolumeUnits(1.0))
+				.marketPrice(toTicks(99.0)).timestamp(OffsetDateTime.now())
+				.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build();
+	}
+}
@@ -0,0 +1,136 @@
+package com.energytrade.orderservice.persistence;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.repository.OrderRepository;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the store commits on its own
+class OrderEntryStoreTest {
+
+	@Autowired
+	private OrderRepository repository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private OrderEntryStore store;
+
+	@AfterEach
+	void cleanUp() throws InterruptedException {
+		store.stop();
+		repository.deleteAll();
+		jdbcTemplate.update("DELETE FROM audit_fallbacks");
+	}
+
+	@Test
+	void shouldInsertQueuedOrdersWithTheirAuditRowsAndFindThem() throws Exception {
+		store = store(1024);
+		store.start();
+		Order existing = repository.save(order(99.0));
+
+		List<CompletableFuture<Order>> inserted = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			inserted.add(store.insert(order(100.0 + i), saved -> new AuditEvent("order-service", "ORDER_CREATED",
+					"{\"orderId\":" + saved.getId() + "}")));
+		}
+		CompletableFuture<Optional<Order>> found = store.find(existing.getId());
+		CompletableFuture<Optional<Order>> missing = store.find(-1L);
+		CompletableFuture.allOf(inserted.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+		assertThat(inserted).extracting(CompletableFuture::join).extracting(Order::getId)
+				.doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(repository.count()).isEqualTo(301);
+		Order last = inserted.get(299).join();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_fallbacks WHERE payload = ?", Long.class,
+				"{\"orderId\":" + last.getId() + "}")).isEqualTo(1L);
+		assertThat(found.get(10, TimeUnit.SECONDS)).get().extracting(Order::getPrice).isEqualTo(toTicks(99.0));
+		assertThat(missing.get(10, TimeUnit.SECONDS)).isEmpty();
+	}
+
+	@Test
+	void shouldFailOnlyTheOrderThatCannotBeInsertedWithTheOthersOfItsBatch() throws Exception {
+		// Queued before the store starts, so all three go into one batch
+		store = store(1024);
+		Order malformed = order(101.0);
+		malformed.setType(null);
+		CompletableFuture<Order> first = store.insert(order(100.0), saved -> new AuditEvent("order-service",
+				"ORDER_CREATED", "{}"));
+		CompletableFuture<Order> failed = store.insert(malformed, saved -> new AuditEvent("order-service",
+				"ORDER_CREATED", "{}"));
+		CompletableFuture<Order> last = store.insert(order(102.0), saved -> new AuditEvent("order-service",
+				"ORDER_CREATED", "{}"));
+
+		store.start();
+
+		assertThat(first.get(10, TimeUnit.SECONDS).getId()).isNotNull();
+		assertThat(last.get(10, TimeUnit.SECONDS).getId()).isNotNull();
+		assertThat(failed.handle((order, failure) -> failure).get(10, TimeUnit.SECONDS)).isNotNull();
+		assertThat(repository.count()).isEqualTo(2);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_fallbacks", Long.class)).isEqualTo(2L);
+	}
+
+	@Test
+	void shouldRejectRequestsBeyondTheQueueCapacity() {
+		// Not started: nothing takes requests off the queue
+		store = store(2);
+
+		CompletableFuture<Order> first = store.insert(order(100.0), saved -> null);
+		CompletableFuture<Optional<Order>> second = store.find(1L);
+		CompletableFuture<Order> third = store.insert(order(101.0), saved -> null);
+
+		assertThat(first).isNotDone();
+		assertThat(second).isNotDone();
+		assertThat(third).isCompletedExceptionally();
+		assertThat(third.handle((order, failure) -> failure)).isCompletedWithValueMatching(
+				failure -> failure instanceof RejectedExecutionException);
+		assertThat(store.queued()).isEqualTo(2);
+	}
+
+	private OrderEntryStore store(int queueCapacity) {
+		OrderBatchInsert batchInsert = new OrderBatchInsert(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SequenceIds(jdbcTemplate));
+		return new OrderEntryStore(batchInsert, repository, null, true, queueCapacity, 100);
+	}
+
+	private static Order order(double price) {
+		return Order.builder()
+				.instrument("DE-H-2030")
+				.type(OrderType.SELL)
+				.price(toTicks(price))
+				.volume(toVolumeUnits(1.0))
+				.executedVolume(0L)
+				.status(OrderStatus.PENDING)
+				.marketPrice(toTicks(100.0))
+				.timestamp(OffsetDateTime.now())
+				.expirationTimestamp(OffsetDateTime.now().plusHours(1))
+				.build();
+	}
+}
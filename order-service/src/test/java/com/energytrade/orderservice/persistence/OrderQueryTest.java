@@ -0,0 +1,91 @@
+package com.energytrade.orderservice.persistence;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.repository.OrderRepository;
+
+@DataJpaTest
+class OrderQueryTest {
+
+	private static final OffsetDateTime T0 = OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+	@Autowired
+	private OrderRepository repository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private OrderQuery orderQuery;
+	private final List<Order> saved = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		orderQuery = new OrderQuery(jdbcTemplate);
+		for (int i = 0; i < 30; i++) {
+			saved.add(repository.save(Order.builder().type(i % 2 == 0 ? OrderType.BUY : OrderType.SELL)
+					.price(toTicks(90.0 + i)).volume(toVolumeUnits(1.0))
+					.status(i % 3 == 0 ? OrderStatus.EXECUTED : OrderStatus.PENDING).marketPrice(toTicks(100.0))
+					.timestamp(T0.plusMinutes(i)).expirationTimestamp(T0.plusHours(1)).build()));
+		}
+		// Inserts are batched until flush; the query reads through plain JDBC
+		repository.flush();
+	}
+
+	@Test
+	void shouldPageByIdAcrossFilteredOrders() {
+		OrderFilter filter = OrderFilter.builder().status(OrderStatus.PENDING).build();
+
+		List<Long> ids = new ArrayList<>();
+		List<Order> page = orderQuery.page(filter, 0, 7);
+		while (!page.isEmpty()) {
+			page.forEach(o -> ids.add(o.getId()));
+			page = orderQuery.page(filter, page.get(page.size() - 1).getId(), 7);
+		}
+
+		assertThat(ids).hasSize(20).isSorted()
+				.containsExactlyElementsOf(saved.stream().filter(o -> o.getStatus() == OrderStatus.PENDING)
+						.map(Order::getId).collect(Collectors.toList()));
+	}
+
+	@Test
+	void shouldCombineTypeTimeAndPriceFilters() {
+		OrderFilter filter = OrderFilter.builder().type(OrderType.BUY).from(T0.plusMinutes(10))
+				.to(T0.plusMinutes(20)).minPrice(toTicks(101.0)).maxPrice(toTicks(108.0)).build();
+
+		List<Order> orders = orderQuery.page(filter, 0, 100);
+
+		// BUYs are the even minutes; 10 and 20 are outside the price range or the half-open time range
+		assertThat(orders).extracting(Order::getPrice)
+				.containsExactly(toTicks(102.0), toTicks(104.0), toTicks(106.0), toTicks(108.0));
+		assertThat(orders.get(0).getTimestamp().toInstant()).isEqualTo(T0.plusMinutes(12).toInstant());
+		assertThat(orders.get(0).getInstrument()).isEqualTo(saved.get(12).getInstrument());
+	}
+
+	@Test
+	void shouldStreamEveryMatchingOrderInIdOrder() {
+		List<Long> ids = new ArrayList<>();
+
+		long count = orderQuery.stream(OrderFilter.builder().build(), saved.get(4).getId(), o -> ids.add(o.getId()));
+
+		assertThat(count).isEqualTo(25);
+		assertThat(ids).containsExactlyElementsOf(
+				saved.subList(5, 30).stream().map(Order::getId).collect(Collectors.toList()));
+	}
+}
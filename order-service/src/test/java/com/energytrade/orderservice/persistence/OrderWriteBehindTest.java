@@ -0,0 +1,183 @@
+package com.energytrade.orderservice.persistence;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.repository.OrderRepository;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the writer commits on its own
+class OrderWriteBehindTest {
+
+	@Autowired
+	private OrderRepository repository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void cleanUp() {
+		repository.deleteAll();
+		jdbcTemplate.update("DELETE FROM audit_fallbacks");
+		jdbcTemplate.update("DELETE FROM trades");
+	}
+
+	@Test
+	void shouldCoalesceChangesAndAdvanceWatermarkOnFlush() {
+		OrderWriteBehind writeBehind = new OrderWriteBehind(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SequenceIds(jdbcTemplate), 2, 1000, 1000, 1024);
+		Order order = repository.save(order());
+
+		order.setExecutedVolume(toVolumeUnits(2.0));
+		order.setStatus(OrderStatus.PARTIAL);
+		writeBehind.markDirty(order, System.currentTimeMillis());
+		order.setExecutedVolume(toVolumeUnits(5.0));
+		order.setStatus(OrderStatus.EXECUTED);
+		long sequence = writeBehind.markDirty(order, System.currentTimeMillis());
+
+		CompletableFuture<Long> durable = writeBehind.whenFlushed(sequence);
+		writeBehind.drain();
+		assertThat(writeBehind.pendingCount()).isEqualTo(1);
+		assertThat(durable).isNotDone();
+
+		writeBehind.flush();
+
+		assertThat(durable).isCompletedWithValue(sequence);
+		assertThat(writeBehind.flushedSequence()).isEqualTo(sequence);
+		assertThat(writeBehind.pendingCount()).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, order.getId()))
+				.isEqualTo("EXECUTED");
+		assertThat(jdbcTemplate.queryForObject("SELECT executed_volume FROM orders WHERE id = ?", Long.class,
+				order.getId())).isEqualTo(toVolumeUnits(5.0));
+	}
+
+	@Test
+	void shouldPersistCancellationTimestamp() {
+		OrderWriteBehind writeBehind = new OrderWriteBehind(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SequenceIds(jdbcTemplate), 100, 1000, 1000, 1024);
+		Order order = repository.save(order());
+
+		order.setStatus(OrderStatus.CANCELLED);
+		order.setCancelledAt(OffsetDateTime.now());
+		writeBehind.markDirty(order, System.currentTimeMillis());
+		writeBehind.flush();
+
+		Order reloaded = repository.findById(order.getId()).orElseThrow();
+		assertThat(reloaded.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+		assertThat(reloaded.getCancelledAt()).isNotNull();
+	}
+
+	@Test
+	void shouldWriteAuditEventsToOutboxWithTheOrderChange() {
+		OrderWriteBehind writeBehind = new OrderWriteBehind(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SequenceIds(jdbcTemplate), 100, 1000, 1000, 1024);
+		Order order = repository.save(order());
+
+		order.setStatus(OrderStatus.CANCELLED);
+		order.setCancelledAt(OffsetDateTime.now());
+		// Time of the command, as read by the matching thread
+		long recordedAt = System.currentTimeMillis() - 60_000;
+		writeBehind.markDirty(order, new AuditEvent("order-service", "ORDER_CANCELLED", "{\"orderId\":1}"),
+				recordedAt);
+		writeBehind.drain();
+		assertThat(writeBehind.pendingAuditCount()).isEqualTo(1);
+		writeBehind.flush();
+
+		assertThat(writeBehind.pendingAuditCount()).isZero();
+		assertThat(jdbcTemplate.queryForObject("SELECT type FROM audit_fallbacks", String.class))
+				.isEqualTo("ORDER_CANCELLED");
+		assertThat(jdbcTemplate.queryForObject("SELECT created_at FROM audit_fallbacks", Timestamp.class).getTime())
+				.isEqualTo(recordedAt);
+		assertThat(repository.findById(order.getId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.CANCELLED);
+	}
+
+	@Test
+	void shouldInsertTradesWithTheMakerFill() {
+		OrderWriteBehind writeBehind = new OrderWriteBehind(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SequenceIds(jdbcTemplate), 100, 1000, 1000, 1024);
+		List<Trade> listened = new ArrayList<>();
+		writeBehind.addTradeListener(listened::add);
+		Order maker = repository.save(order());
+		Order taker = Order.builder().id(maker.getId() + 1).type(OrderType.BUY).build();
+		OffsetDateTime now = OffsetDateTime.now();
+
+		maker.setExecutedVolume(toVolumeUnits(2.0));
+		maker.setStatus(OrderStatus.PARTIAL);
+		long sequence = writeBehind.markFilled(maker, taker, maker.getPrice(), toVolumeUnits(2.0), now);
+		// The trade only exists once the writer took the fill off the ring, which reading the counts does not do
+		assertThat(writeBehind.pendingTradeCount()).isZero();
+		assertThat(listened).isEmpty();
+		writeBehind.drain();
+		assertThat(writeBehind.pendingTradeCount()).isEqualTo(1);
+		assertThat(listened).singleElement().satisfies(trade -> {
+			assertThat(trade.getMakerOrderId()).isEqualTo(maker.getId());
+			assertThat(trade.getTakerOrderId()).isEqualTo(taker.getId());
+			assertThat(trade.getExecutedAt()).isEqualTo(now);
+		});
+		writeBehind.flush();
+
+		assertThat(writeBehind.flushedSequence()).isEqualTo(sequence);
+		assertThat(writeBehind.pendingTradeCount()).isZero();
+		Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM trades");
+		assertThat(row.get("MAKER_ORDER_ID")).isEqualTo(maker.getId());
+		assertThat(row.get("TAKER_SIDE")).isEqualTo("BUY");
+		assertThat(row.get("PRICE")).isEqualTo(toTicks(100.0));
+		assertThat(row.get("VOLUME")).isEqualTo(toVolumeUnits(2.0));
+		assertThat(repository.findById(maker.getId()).orElseThrow().getStatus()).isEqualTo(OrderStatus.PARTIAL);
+		Map<String, Object> audit = jdbcTemplate.queryForMap("SELECT * FROM audit_fallbacks");
+		assertThat(audit.get("TYPE")).isEqualTo("ORDER_EXECUTED_PAIRWISE");
+		assertThat((String) audit.get("PAYLOAD")).contains("\"makerOrderId\":" + maker.getId())
+				.contains("\"matchedVolume\":2.000");
+	}
+
+	@Test
+	void shouldAuditTheMatchedOrderFromItsStateWhenRecorded() {
+		OrderWriteBehind writeBehind = new OrderWriteBehind(jdbcTemplate, new TransactionTemplate(transactionManager),
+				new SequenceIds(jdbcTemplate), 100, 1000, 1000, 1024);
+		Order order = repository.save(order());
+
+		order.setExecutedVolume(toVolumeUnits(5.0));
+		order.setStatus(OrderStatus.EXECUTED);
+		writeBehind.markMatched(order, System.currentTimeMillis());
+		// Later changes to the instance do not leak into the recorded change
+		order.setStatus(OrderStatus.CANCELLED);
+		writeBehind.flush();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT payload FROM audit_fallbacks", String.class))
+				.isEqualTo("{\"orderId\":" + order.getId() + ",\"executedVolume\":5.000,\"status\":\"EXECUTED\"}");
+		assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, order.getId()))
+				.isEqualTo("EXECUTED");
+	}
+
+	private Order order() {
+		return Order.builder().type(OrderType.SELL).price(toTicks(100.0)).volume(toVolumeUnits(5.0))
+				.marketPrice(toTicks(99.0)).timestamp(OffsetDateTime.now())
+				.expirationTimestamp(OffsetDateTime.now().plusHours(1)).build();
+	}
+}
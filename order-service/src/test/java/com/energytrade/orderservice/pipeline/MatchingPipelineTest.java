@@ -0,0 +1,324 @@
+package com.energytrade.orderservice.pipeline;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.energytrade.orderservice.MatchingEngine;
+import com.energytrade.orderservice.MatchingModes;
+import com.energytrade.orderservice.book.DepthListener;
+import com.energytrade.orderservice.journal.BookSnapshot;
+import com.energytrade.orderservice.journal.CommandJournal;
+import com.energytrade.orderservice.model.AuditEvent;
+import com.energytrade.orderservice.model.Order;
+import com.energytrade.orderservice.model.OrderStatus;
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.outbound.OutboundDispatcher;
+import com.energytrade.orderservice.persistence.BookWarmStart;
+import com.energytrade.orderservice.persistence.OrderWriteBehind;
+import com.energytrade.orderservice.trade.TradeTape;
+
+class MatchingPipelineTest {
+
+	// Uncrossed every 200 ms
+	private static final String AUCTION = "DE-AUCTION";
+
+	@TempDir
+	Path journalDir;
+
+	private MatchingEngine engine;
+	private CommandJournal journal;
+	private MatchingPipeline pipeline;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		engine = new MatchingEngine(mock(OrderWriteBehind.class), mock(OutboundDispatcher.class), DepthListener.NONE,
+				new TradeTape(1024), new MatchingModes(AUCTION, 200));
+		journal = new CommandJournal(journalDir.toString(), 1);
+		journal.open();
+		// Small rings, overfilled on purpose by the concurrency tests: publishers wait for a slot as long as needed
+		pipeline = new MatchingPipeline(engine, journal, BookWarmStart.NONE, 4, 64, 5000, 5000, 1000, 10);
+		pipeline.start();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		pipeline.stop();
+	}
+
+	@Test
+	void shouldRejectNonPowerOfTwoRingSize() {
+		assertThatThrownBy(() -> new CommandRingBuffer(100)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldTurnAwayCommandsOnceAPartitionRingIsFull() throws Exception {
+		OrderWriteBehind writeBehind = mock(OrderWriteBehind.class);
+		MatchingEngine loadingEngine = new MatchingEngine(writeBehind, mock(OutboundDispatcher.class),
+				DepthListener.NONE, new TradeTape(1024), MatchingModes.CONTINUOUS);
+		CommandJournal loadingJournal = new CommandJournal(journalDir.resolve("loading").toString(), 1);
+		loadingJournal.open();
+		// Never started: the books stay loading, so the partition takes nothing off its ring
+		BookWarmStart loading = new BookWarmStart(null, loadingEngine, "database", 1000);
+		MatchingPipeline stalled = new MatchingPipeline(loadingEngine, loadingJournal, loading, 1, 64, 5000, 20, 1000,
+				10);
+		stalled.start();
+		try {
+			List<CompletableFuture<Order>> queued = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				queued.add(stalled.submit(order(i + 1L, OrderType.SELL, 1.0)));
+			}
+
+			Order turnedAway = order(65L, OrderType.SELL, 1.0);
+			long start = System.nanoTime();
+			CompletableFuture<Order> rejected = stalled.submit(turnedAway);
+			long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			assertThat(waitedMillis).isGreaterThanOrEqualTo(20).isLessThan(1000);
+			assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+			// Saved as pending before it was turned away: cancelled, not left live outside the book
+			assertThat(turnedAway.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+			verify(writeBehind).markDirty(eq(turnedAway), any(AuditEvent.class), anyLong());
+			assertThat(stalled.partitionStats().get(0)).containsEntry("rejected", 1L);
+
+			// What was queued is matched once the books are loaded
+			loading.loaded().complete(null);
+			CompletableFuture.allOf(queued.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+			assertThat(loadingEngine.restingCount()).isEqualTo(64);
+		} finally {
+			stalled.stop();
+		}
+	}
+
+	@Test
+	void shouldNeverOverfillMakersUnderConcurrentSubmission() throws Exception {
+		int makers = 200;
+		List<Order> sells = new ArrayList<>();
+		for (int i = 0; i < makers; i++) {
+			Order sell = order(i + 1L, OrderType.SELL, 5.0);
+			sells.add(sell);
+			pipeline.await(pipeline.submit(sell));
+		}
+
+		// Many more buyers than the book can fill, racing from several threads
+		int threads = 8;
+		int perThread = 100;
+		AtomicLong ids = new AtomicLong(10_000);
+		List<Order> buys = new ArrayList<>();
+		List<CompletableFuture<Order>> results = new ArrayList<>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<CompletableFuture<Void>> producers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			producers.add(CompletableFuture.runAsync(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				for (int i = 0; i < perThread; i++) {
+					Order buy = order(ids.incrementAndGet(), OrderType.BUY, 2.0);
+					CompletableFuture<Order> result = pipeline.submit(buy);
+					synchronized (results) {
+						buys.add(buy);
+						results.add(result);
+					}
+				}
+			}, executor));
+		}
+		start.countDown();
+		CompletableFuture.allOf(producers.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+		CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		long sold = sells.stream().mapToLong(Order::getExecutedVolume).sum();
+		long bought = buys.stream().mapToLong(Order::getExecutedVolume).sum();
+
+		assertThat(sells).allMatch(s -> s.getExecutedVolume() <= s.getVolume());
+		assertThat(sells).allMatch(s -> s.getStatus() == OrderStatus.EXECUTED);
+		assertThat(bought).isEqualTo(sold).isEqualTo(makers * toVolumeUnits(5.0));
+	}
+
+	@Test
+	void shouldAnswerWithTheOrderAsOfItsCommandWhileTheBookKeepsChangingIt() {
+		Order sell = order(1L, OrderType.SELL, 5.0);
+		Order entered = pipeline.await(pipeline.submit(sell));
+		pipeline.await(pipeline.submit(order(2L, OrderType.BUY, 2.0)));
+
+		// The resting instance is filled on the matching thread; the answer keeps the state it was given with
+		assertThat(entered).isNotSameAs(sell);
+		assertThat(entered.getStatus()).isEqualTo(OrderStatus.PENDING);
+		assertThat(entered.getExecutedVolume()).isZero();
+		assertThat(sell.getStatus()).isEqualTo(OrderStatus.PARTIAL);
+		assertThat(sell.getExecutedVolume()).isEqualTo(toVolumeUnits(2.0));
+
+		Order cancelled = pipeline.await(pipeline.cancel(sell));
+		assertThat(cancelled).isNotSameAs(sell);
+		assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+		assertThat(cancelled.getRemainingVolume()).isEqualTo(toVolumeUnits(3.0));
+	}
+
+	@Test
+	void shouldMatchInstrumentsIndependentlyAcrossPartitions() throws Exception {
+		int instruments = 16;
+		int perInstrument = 500;
+		AtomicLong ids = new AtomicLong();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<CompletableFuture<List<Order>>> producers = new ArrayList<>();
+		for (int i = 0; i < instruments; i++) {
+			String instrument = "DE-H-" + i;
+			producers.add(CompletableFuture.supplyAsync(() -> {
+				List<Order> orders = new ArrayList<>();
+				List<CompletableFuture<Order>> results = new ArrayList<>();
+				for (int n = 0; n < perInstrument; n++) {
+					Order order = order(ids.incrementAndGet(), n % 2 == 0 ? OrderType.SELL : OrderType.BUY, 1.0);
+					order.setInstrument(instrument);
+					orders.add(order);
+					results.add(pipeline.submit(order));
+				}
+				results.forEach(pipeline::await);
+				return orders;
+			}, executor));
+		}
+		List<Order> all = new ArrayList<>();
+		for (CompletableFuture<List<Order>> producer : producers) {
+			all.addAll(producer.get(30, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+
+		// Every sell is taken by the buy right after it in the same instrument
+		assertThat(all).allMatch(o -> o.getStatus() == OrderStatus.EXECUTED);
+		assertThat(engine.restingCount()).isZero();
+		assertThat(engine.instruments()).hasSize(instruments);
+
+		List<Map<String, Object>> stats = pipeline.partitionStats();
+		assertThat(stats).hasSize(4);
+		assertThat(stats.stream().mapToLong(s -> (Long) s.get("commands")).sum())
+				.isEqualTo((long) instruments * perInstrument);
+		assertThat(stats.stream().filter(s -> (Integer) s.get("instruments") > 0).count()).isGreaterThan(1);
+		assertThat(journal.snapshotSequence()).isPositive();
+	}
+
+	@Test
+	void shouldSnapshotAllPartitionsAtTheSameJournalSequence() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		AtomicLong ids = new AtomicLong();
+		List<CompletableFuture<Void>> producers = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			String instrument = "DE-QH-" + i;
+			producers.add(CompletableFuture.runAsync(() -> {
+				for (int n = 0; n < 1000; n++) {
+					Order order = order(ids.incrementAndGet(), n % 3 == 0 ? OrderType.BUY : OrderType.SELL, 1.0);
+					order.setInstrument(instrument);
+					pipeline.await(pipeline.submit(order));
+				}
+			}, executor));
+		}
+		CompletableFuture.allOf(producers.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		// The latest snapshot was taken while the partitions were running; with the tail replayed
+		// on top of it, it must rebuild exactly the books they ended with
+		CommandJournal reopened = new CommandJournal(journalDir.toString(), 1);
+		reopened.open();
+		BookSnapshot snapshot = reopened.readSnapshot();
+		MatchingEngine recovered = new MatchingEngine(mock(OrderWriteBehind.class), mock(OutboundDispatcher.class),
+				DepthListener.NONE, new TradeTape(1024), MatchingModes.CONTINUOUS);
+		recovered.setReplaying(true);
+		snapshot.getOrders().forEach(recovered::restore);
+		reopened.replay(snapshot.getSequence(), record -> recovered.match(record.getOrder(), record.getTime()));
+
+		assertThat(snapshot.getSequence()).isPositive();
+		assertThat(restingState(recovered)).isNotEmpty().isEqualTo(restingState(engine));
+	}
+
+	@Test
+	void shouldExpireRestingOrdersAtTheirDeadlineWithoutCleanup() throws Exception {
+		Order shortLived = order(1L, OrderType.SELL, 5.0);
+		shortLived.setExpirationTimestamp(OffsetDateTime.now().plusNanos(200_000_000));
+		Order longLived = order(2L, OrderType.SELL, 5.0);
+		pipeline.await(pipeline.submit(shortLived));
+		pipeline.await(pipeline.submit(longLived));
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (shortLived.getStatus() != OrderStatus.EXPIRED && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(shortLived.getStatus()).isEqualTo(OrderStatus.EXPIRED);
+		assertThat(longLived.getStatus()).isEqualTo(OrderStatus.PENDING);
+		assertThat(engine.restingCount()).isEqualTo(1);
+		assertThat(journal.sequence()).isEqualTo(3); // two NEW, one EXPIRE
+		assertThat(pipeline.partitionStats().stream().mapToLong(s -> (Long) s.get("expired")).sum()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldUncrossAuctionedInstrumentsAtEveryGateClosure() throws Exception {
+		Order sell = order(1L, OrderType.SELL, 5.0);
+		sell.setInstrument(AUCTION);
+		Order buy = order(2L, OrderType.BUY, 3.0);
+		buy.setInstrument(AUCTION);
+		pipeline.await(pipeline.submit(sell));
+		pipeline.await(pipeline.submit(buy));
+
+		// Collected, not matched on arrival
+		assertThat(buy.getStatus()).isEqualTo(OrderStatus.PENDING);
+		assertThat(engine.restingCount()).isEqualTo(2);
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (buy.getStatus() != OrderStatus.EXECUTED && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertThat(buy.getStatus()).isEqualTo(OrderStatus.EXECUTED);
+		assertThat(sell.getStatus()).isEqualTo(OrderStatus.PARTIAL);
+		assertThat(sell.getExecutedVolume()).isEqualTo(toVolumeUnits(3.0));
+		assertThat(engine.lastUncrossing(AUCTION).getPrice()).isEqualTo(toTicks(100.0));
+		// Later gate closures find nothing crossed and journal nothing
+		Thread.sleep(500);
+		pipeline.stop();
+		List<MatchingCommand.Type> journaled = new ArrayList<>();
+		journal.replay(0, record -> journaled.add(record.getType()));
+		assertThat(journaled).containsExactly(MatchingCommand.Type.NEW, MatchingCommand.Type.NEW,
+				MatchingCommand.Type.UNCROSS);
+	}
+
+	private List<String> restingState(MatchingEngine matchingEngine) {
+		List<String> state = new ArrayList<>();
+		matchingEngine.forEachRestingOrder(o -> state.add(o.getInstrument() + ":" + o.getId() + ":"
+				+ o.getExecutedVolume() + ":" + o.getStatus()));
+		return state;
+	}
+
+	private Order order(Long id, OrderType type, double volume) {
+		OffsetDateTime now = OffsetDateTime.now();
+		return Order.builder().id(id).type(type).price(toTicks(100.0)).volume(toVolumeUnits(volume)).executedVolume(0L)
+				.status(OrderStatus.PENDING).marketPrice(toTicks(100.0)).timestamp(now)
+				.expirationTimestamp(now.plusHours(1)).build();
+	}
+}
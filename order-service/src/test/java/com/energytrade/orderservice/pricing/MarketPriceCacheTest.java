@@ -0,0 +1,96 @@
+package com.energytrade.orderservice.pricing;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.energytrade.orderservice.model.PriceResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MarketPriceCacheTest {
+
+	private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+	@Test
+	void shouldServeCachedPriceWithoutCallingPricingService() {
+		when(restTemplate.getForObject("http://pricing/price", PriceResponse.class)).thenReturn(price(101.5));
+		MarketPriceCache cache = new MarketPriceCache(restTemplate, "http://pricing/price", 5000);
+
+		cache.refresh();
+		for (int i = 0; i < 1000; i++) {
+			assertThat(cache.currentTicks()).isEqualTo(toTicks(101.5));
+		}
+
+		verify(restTemplate, times(1)).getForObject(eq("http://pricing/price"), eq(PriceResponse.class));
+		assertThat(cache.isStale()).isFalse();
+		assertThat(cache.stats()).containsEntry("reads", 1000L).containsEntry("staleReads", 0L);
+	}
+
+	@Test
+	void shouldWarmAtStartupAndNeverFetchOnARead() {
+		when(restTemplate.getForObject("http://pricing/price", PriceResponse.class))
+				.thenThrow(new ResourceAccessException("pricing-service down")).thenReturn(price(99.0));
+		MarketPriceCache cache = new MarketPriceCache(restTemplate, "http://pricing/price", 5000);
+
+		cache.warm();
+		assertThat(cache.currentTicks()).isEqualTo(MarketPriceCache.NO_PRICE);
+		cache.refresh();
+		assertThat(cache.currentTicks()).isEqualTo(toTicks(99.0));
+
+		verify(restTemplate, times(2)).getForObject(eq("http://pricing/price"), eq(PriceResponse.class));
+		assertThat(cache.stats()).containsEntry("reads", 2L).containsEntry("staleReads", 1L);
+	}
+
+	@Test
+	void shouldPublishQuoteAgeAndStaleReads() throws InterruptedException {
+		when(restTemplate.getForObject("http://pricing/price", PriceResponse.class)).thenReturn(price(100.0));
+		MarketPriceCache cache = new MarketPriceCache(restTemplate, "http://pricing/price", 1);
+		MeterRegistry registry = new SimpleMeterRegistry();
+		cache.bindTo(registry);
+		assertThat(registry.get("orders.market-price.age").timeGauge().value()).isNaN();
+
+		cache.warm();
+		Thread.sleep(5);
+		cache.currentTicks();
+
+		assertThat(registry.get("orders.market-price.age").timeGauge().value(TimeUnit.MILLISECONDS))
+				.isGreaterThanOrEqualTo(5);
+		assertThat(registry.get("orders.market-price.stale").gauge().value()).isEqualTo(1);
+		assertThat(registry.get("orders.market-price.reads").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("orders.market-price.stale-reads").functionCounter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldKeepLastPriceAndCountStaleReadsWhenFeedLags() throws InterruptedException {
+		when(restTemplate.getForObject("http://pricing/price", PriceResponse.class)).thenReturn(price(100.0))
+				.thenThrow(new ResourceAccessException("pricing-service down"));
+		MarketPriceCache cache = new MarketPriceCache(restTemplate, "http://pricing/price", 1);
+
+		cache.refresh();
+		Thread.sleep(5);
+		cache.refresh();
+
+		assertThat(cache.currentTicks()).isEqualTo(toTicks(100.0));
+		assertThat(cache.isStale()).isTrue();
+		assertThat(cache.stats()).containsEntry("staleReads", 1L).containsEntry("refreshFailures", 1L);
+	}
+
+	private PriceResponse price(double value) {
+		PriceResponse price = new PriceResponse();
+		price.setValue(value);
+		price.setUnit("EUR/MWh");
+		return price;
+	}
+}
@@ -0,0 +1,149 @@
+package com.energytrade.orderservice.trade;
+
+import static com.energytrade.orderservice.model.FixedPoint.toTicks;
+import static com.energytrade.orderservice.model.FixedPoint.toVolumeUnits;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.energytrade.orderservice.model.OrderType;
+import com.energytrade.orderservice.model.Trade;
+import com.energytrade.orderservice.model.TradeSummary;
+
+class TradeTapeTest {
+
+	private static final String INSTRUMENT = "DE-H-12";
+	private static final OffsetDateTime T0 = OffsetDateTime.of(2030, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+
+	@Test
+	void shouldReturnLastTradesNewestFirst() {
+		TradeTape tape = new TradeTape(1024);
+		for (int i = 1; i <= 5; i++) {
+			tape.append(trade(i, 100.0 + i, 1.0, T0.plusSeconds(i)));
+		}
+
+		List<Trade> last = tape.last(INSTRUMENT, 3);
+
+		assertThat(last).extracting(Trade::getTakerOrderId).containsExactly(5L, 4L, 3L);
+		assertThat(last.get(0).getPrice()).isEqualTo(toTicks(105.0));
+		assertThat(last.get(0).getExecutedAt()).isEqualTo(T0.plusSeconds(5));
+		assertThat(last.get(0).getTakerSide()).isEqualTo(OrderType.SELL);
+		assertThat(tape.last("FR-H-12", 3)).isEmpty();
+	}
+
+	@Test
+	void shouldComputeVwapOverHalfOpenRange() {
+		TradeTape tape = new TradeTape(1024);
+		tape.append(trade(1, 90.0, 5.0, T0.minusSeconds(1))); // before the range
+		tape.append(trade(2, 100.0, 1.0, T0));
+		tape.append(trade(3, 102.0, 3.0, T0.plusSeconds(30)));
+		tape.append(trade(4, 101.0, 2.0, T0.plusSeconds(59)));
+		tape.append(trade(5, 200.0, 5.0, T0.plusSeconds(60))); // at 'to', excluded
+
+		TradeSummary summary = tape.summary(INSTRUMENT, T0, T0.plusSeconds(60));
+
+		assertThat(summary.getTrades()).isEqualTo(3);
+		assertThat(summary.getVolume()).isEqualTo(toVolumeUnits(6.0));
+		// (100 x 1 + 102 x 3 + 101 x 2) / 6
+		assertThat(summary.getVwap()).isEqualByComparingTo(new BigDecimal("101.3333"));
+		assertThat(summary.getHigh()).isEqualByComparingTo("102.00");
+		assertThat(summary.getLow()).isEqualByComparingTo("100.00");
+	}
+
+	@Test
+	void shouldNotOverflowTurnoverAtTheLargestPricesAndVolumes() {
+		TradeTape tape = new TradeTape(1024);
+		long millis = T0.toInstant().toEpochMilli();
+		// About 1e18 each: a long turnover would overflow after the ninth
+		for (int i = 0; i < 20; i++) {
+			tape.append(INSTRUMENT, millis, OrderType.BUY, i, 1000 + i, 100_000_000L, 10_000_000_000L);
+		}
+		tape.append(INSTRUMENT, millis, OrderType.BUY, 20, 1020, 50_000_000L, 10_000_000_000L);
+
+		TradeSummary summary = tape.summary(INSTRUMENT, T0, T0.plusSeconds(1));
+
+		assertThat(summary.getTrades()).isEqualTo(21);
+		// (20 x 1e8 + 5e7) / 21 ticks
+		assertThat(summary.getVwap()).isEqualByComparingTo(new BigDecimal("976190.4762"));
+		assertThat(summary.getLow()).isEqualByComparingTo("500000.00");
+	}
+
+	@Test
+	void shouldSplitVolumeIntoIntervals() {
+		TradeTape tape = new TradeTape(1024);
+		tape.append(trade(1, 100.0, 1.0, T0.plusSeconds(10)));
+		tape.append(trade(2, 100.0, 2.0, T0.plusSeconds(50)));
+		tape.append(trade(3, 100.0, 4.0, T0.plusSeconds(150)));
+
+		List<TradeSummary> minutes = tape.buckets(INSTRUMENT, T0, T0.plusMinutes(3), 60_000);
+
+		assertThat(minutes).extracting(TradeSummary::getVolume).containsExactly(toVolumeUnits(3.0), 0L,
+				toVolumeUnits(4.0));
+		assertThat(minutes.get(1).getVwap()).isNull();
+		assertThat(minutes.get(2).getFrom()).isEqualTo(T0.plusMinutes(2));
+	}
+
+	@Test
+	void shouldKeepOnlyTheLatestTradesOnceFull() {
+		TradeTape tape = new TradeTape(1024);
+		for (int i = 0; i < 5000; i++) {
+			tape.append(trade(i, 100.0, 1.0, T0.plusSeconds(i)));
+		}
+
+		assertThat(tape.size(INSTRUMENT)).isEqualTo(1024);
+		assertThat(tape.last(INSTRUMENT, 1).get(0).getTakerOrderId()).isEqualTo(4999L);
+		// The oldest slots next to the writer are not read
+		assertThat(tape.summary(INSTRUMENT, T0, T0.plusSeconds(5000)).getTrades()).isEqualTo(1024 - 128);
+	}
+
+	@Test
+	void shouldAnswerConsistentlyWhileTheMatchingThreadAppends() throws Exception {
+		TradeTape tape = new TradeTape(4096);
+		int trades = 2_000_000;
+		AtomicReference<String> inconsistency = new AtomicReference<>();
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < trades; i++) {
+				// Every trade at 100: whatever a reader sees, the VWAP stays exactly 100
+				tape.append(trade(i, 100.0, 1.0 + i % 7, T0.plusNanos(i * 1000L)));
+			}
+		});
+		writer.start();
+		long queries = 0;
+		long start = System.nanoTime();
+		while (writer.isAlive()) {
+			TradeSummary summary = tape.summary(INSTRUMENT, T0, T0.plusHours(1));
+			if (summary.getTrades() > 0 && summary.getVwap().compareTo(new BigDecimal("100")) != 0) {
+				inconsistency.set("VWAP " + summary.getVwap());
+			}
+			if (summary.getTrades() > tape.capacity()) {
+				inconsistency.set(summary.getTrades() + " trades in a tape of " + tape.capacity());
+			}
+			List<Trade> last = tape.last(INSTRUMENT, 100);
+			for (int i = 1; i < last.size(); i++) {
+				if (last.get(i).getTakerOrderId() != last.get(i - 1).getTakerOrderId() - 1) {
+					inconsistency.set("gap in last trades at " + last.get(i).getTakerOrderId());
+				}
+			}
+			queries++;
+		}
+		writer.join();
+		long micros = Math.max(1, (System.nanoTime() - start) / 1000);
+		System.out.printf("Trade tape: %d trades appended while answering %d VWAP + last-100 queries in %d ms%n",
+				trades, queries, micros / 1000);
+
+		assertThat(inconsistency.get()).isNull();
+		assertThat(tape.last(INSTRUMENT, 1).get(0).getTakerOrderId()).isEqualTo(trades - 1L);
+	}
+
+	private static Trade trade(long taker, double price, double volume, OffsetDateTime time) {
+		return Trade.builder().instrument(INSTRUMENT).takerOrderId(taker).makerOrderId(taker + 1_000_000)
+				.takerSide(OrderType.SELL).price(toTicks(price)).volume(toVolumeUnits(volume)).executedAt(time)
+				.build();
+	}
+}
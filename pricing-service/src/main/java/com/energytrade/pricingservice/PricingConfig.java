@@ -0,0 +1,34 @@
+package com.energytrade.pricingservice;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import com.energytrade.commonhttp.HttpClientSettings;
+import com.energytrade.commonhttp.OutboundHttpClient;
+
+@Configuration
+public class PricingConfig {
+
+    @Bean
+    public RestTemplate restTemplate(OutboundHttpClient outboundHttp) {
+        return outboundHttp.restTemplate();
+    }
+
+    // Pooled connections, timeouts, bulkhead and circuit breaker towards the external quotation gateway
+    @Bean
+    public OutboundHttpClient outboundHttp(HttpClientSettings settings,
+            @Value("${external.price.url}") String externalPriceUrl) {
+        return new OutboundHttpClient("pricing-service", Map.of("external-cotation-gw", externalPriceUrl), settings);
+    }
+
+    @Bean
+    @ConfigurationProperties("http.client")
+    public HttpClientSettings httpClientSettings() {
+        return new HttpClientSettings();
+    }
+}
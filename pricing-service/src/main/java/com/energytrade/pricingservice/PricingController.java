@@ -19,7 +19,11 @@ public class PricingController {
     @Value("${external.price.url}")
     private String externalPriceUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
+
+    public PricingController(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
 
     @GetMapping("/price")
     public PriceResponse getPrice() {